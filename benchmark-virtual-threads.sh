@@ -0,0 +1,135 @@
+#!/bin/bash
+# 平台线程与虚拟线程模式的对比测试
+# 分别以两种模式启动应用，在并发查询 /api/sensors/{type}/range 的同时持续调用生成接口写入传感器数据，
+# 输出每种模式下查询和写入的吞吐量、p50和p99延迟，以及接收流水线的统计
+#
+# 用法: ./benchmark-virtual-threads.sh [并发数] [每个连接的请求数]
+# 需要先执行 mvn package 生成jar，虚拟线程模式需要Java 21及以上，MySQL配置与正常启动相同
+# 默认使用进程内的loopback传输，没有ZRDDS本地库的机器上也能走完整的接收流水线；
+# 需要测试真实中间件时设置 TRANSPORT=zrdds
+
+CONCURRENCY=${1:-400}
+REQUESTS_PER_CLIENT=${2:-50}
+INGEST_CONCURRENCY=${INGEST_CONCURRENCY:-50}
+PORT=${PORT:-18080}
+TRANSPORT=${TRANSPORT:-loopback}
+JAR=${JAR:-target/fitness-0.0.1-SNAPSHOT.jar}
+BASE_URL="http://localhost:${PORT}"
+WORK_DIR=$(mktemp -d)
+trap 'rm -rf "$WORK_DIR"' EXIT
+
+if [ ! -f "$JAR" ]; then
+    echo "错误: 未找到 $JAR，请先执行 mvn package"
+    exit 1
+fi
+
+JAVA_VERSION=$(java -version 2>&1 | head -n 1 | cut -d'"' -f2 | cut -d'.' -f1)
+if [ "$JAVA_VERSION" -lt 21 ]; then
+    echo "警告: 当前Java版本为 $JAVA_VERSION，虚拟线程模式需要Java 21，两次测试都将使用平台线程"
+fi
+
+# 生成curl配置文件，每个请求一个url和一个输出
+write_requests() {
+    local file=$1 url=$2 count=$3 method=$4
+    : > "$file"
+    for ((i = 0; i < count; i++)); do
+        if [ -n "$method" ]; then
+            echo "request = \"$method\"" >> "$file"
+        fi
+        echo "url = \"$url\"" >> "$file"
+        echo "output = \"/dev/null\"" >> "$file"
+    done
+}
+
+# 按每行一个"状态码 耗时（秒）"计算成功请求数、吞吐量、p50和p99，非2xx的响应单独列出，不计入吞吐量和延迟
+summarize() {
+    local name=$1 file=$2 elapsed=$3
+    sort -k2 -n "$file" | awk -v name="$name" -v elapsed="$elapsed" '
+        $1 ~ /^2/ { t[++n] = $2; next }
+        { failed++; codes[$1]++ }
+        END {
+            if (n == 0) {
+                printf "  %-8s 无成功的请求", name
+            } else {
+                p50 = t[int(n * 0.50) > 0 ? int(n * 0.50) : 1]
+                p99 = t[int(n * 0.99) > 0 ? int(n * 0.99) : 1]
+                printf "  %-8s 成功=%d 吞吐量=%.1f/s p50=%.1fms p99=%.1fms", name, n, n / elapsed, p50 * 1000, p99 * 1000
+            }
+            if (failed > 0) {
+                printf " 失败=%d (", failed
+                sep = ""
+                for (code in codes) { printf "%s%s×%d", sep, code == "000" ? "连接失败" : code, codes[code]; sep = " " }
+                printf ")"
+            }
+            printf "\n"
+        }'
+}
+
+# 传输层就绪时 /api/zrdds/ready 返回200，启动中或启动失败时返回503
+is_ready() {
+    [ "$(curl -s -o /dev/null -w '%{http_code}' "$BASE_URL/api/zrdds/ready")" = "200" ]
+}
+
+run_mode() {
+    local virtual=$1
+    echo
+    echo "=== spring.threads.virtual.enabled=$virtual ==="
+
+    java -jar "$JAR" --server.port="$PORT" --spring.threads.virtual.enabled="$virtual" --zrdds.transport="$TRANSPORT" \
+        --logging.level.com.team9.fitness=WARN --spring.jpa.show-sql=false > "$WORK_DIR/app-$virtual.log" 2>&1 &
+    local pid=$!
+
+    # 等待传输层就绪，未就绪时生成接口只会超时报错
+    for ((i = 0; i < 120; i++)); do
+        if is_ready; then
+            break
+        fi
+        sleep 1
+    done
+    if ! is_ready; then
+        echo "错误: 应用或传输层($TRANSPORT)启动失败，日志见 $WORK_DIR/app-$virtual.log"
+        tail -20 "$WORK_DIR/app-$virtual.log"
+        kill "$pid" 2> /dev/null
+        exit 1
+    fi
+
+    local end_time start_time
+    end_time=$(date -u +%Y-%m-%dT%H:%M:%S)
+    start_time=$(date -u -d '-1 hour' +%Y-%m-%dT%H:%M:%S)
+    local range_total=$((CONCURRENCY * REQUESTS_PER_CLIENT))
+    local ingest_total=$((INGEST_CONCURRENCY * REQUESTS_PER_CLIENT))
+    write_requests "$WORK_DIR/range.cfg" \
+        "$BASE_URL/api/sensors/TEMPERATURE/range?startTime=$start_time&endTime=$end_time" "$range_total"
+    write_requests "$WORK_DIR/ingest.cfg" "$BASE_URL/api/sensors/temperature/generate" "$ingest_total" POST
+
+    # 预热
+    curl -s --parallel --parallel-max 20 -K "$WORK_DIR/range.cfg" -w '' > /dev/null 2>&1 &
+    local warmup=$!
+    sleep 5
+    kill "$warmup" 2> /dev/null
+    wait "$warmup" 2> /dev/null
+
+    local begin
+    begin=$(date +%s.%N)
+    curl -s --parallel --parallel-max "$INGEST_CONCURRENCY" -K "$WORK_DIR/ingest.cfg" \
+        -w '%{http_code} %{time_total}\n' > "$WORK_DIR/ingest-$virtual.txt" 2> /dev/null &
+    local ingest_pid=$!
+    curl -s --parallel --parallel-max "$CONCURRENCY" -K "$WORK_DIR/range.cfg" \
+        -w '%{http_code} %{time_total}\n' > "$WORK_DIR/range-$virtual.txt" 2> /dev/null
+    local range_elapsed
+    range_elapsed=$(awk -v b="$begin" -v e="$(date +%s.%N)" 'BEGIN { print e - b }')
+    wait "$ingest_pid"
+    local ingest_elapsed
+    ingest_elapsed=$(awk -v b="$begin" -v e="$(date +%s.%N)" 'BEGIN { print e - b }')
+
+    summarize "range" "$WORK_DIR/range-$virtual.txt" "$range_elapsed"
+    summarize "ingest" "$WORK_DIR/ingest-$virtual.txt" "$ingest_elapsed"
+    echo "  接收流水线: $(curl -s "$BASE_URL/api/zrdds/ingest" | head -c 400)"
+
+    kill "$pid"
+    wait "$pid" 2> /dev/null
+}
+
+echo "传输层: $TRANSPORT，并发查询连接数: $CONCURRENCY，并发写入连接数: $INGEST_CONCURRENCY，每个连接请求数: $REQUESTS_PER_CLIENT"
+run_mode false
+run_mode true
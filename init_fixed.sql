@@ -12,6 +12,7 @@ CREATE TABLE IF NOT EXISTS sensor_data (
     sensor_type VARCHAR(20) NOT NULL,
     value DOUBLE NOT NULL,
     unit VARCHAR(20),
+    device_id VARCHAR(64),
     created_at DATETIME NOT NULL,
     INDEX idx_sensor_type (sensor_type),
     INDEX idx_created_at (created_at)
@@ -28,7 +29,15 @@ CREATE TABLE IF NOT EXISTS alert_message (
     threshold DOUBLE,
     is_read BOOLEAN NOT NULL DEFAULT FALSE,
     created_at DATETIME NOT NULL,
+    rule_name VARCHAR(100),
+    device_id VARCHAR(64),
+    status VARCHAR(20),
+    occurrence_count BIGINT,
+    last_value DOUBLE,
+    last_occurred_at DATETIME,
+    closed_at DATETIME,
     INDEX idx_level (level),
+    INDEX idx_status (status),
     INDEX idx_is_read (is_read),
     INDEX idx_created_at (created_at)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -0,0 +1,427 @@
+package com.team9.fitness.alert;
+
+import com.team9.fitness.entity.AlertMessage;
+import com.team9.fitness.entity.SensorData;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * 编译后的警报规则
+ * 规则写在system_config中，键为alert.rule.&lt;名称&gt;，值为分号分隔的属性，例如：
+ * <pre>
+ * sensor=TEMPERATURE;measure=value;above=${sensor.temperature.threshold};clear=*0.95;for=10s;escalate=ERROR:*1.2
+ * sensor=HUMIDITY;measure=mean;samples=10;above=80
+ * sensor=TEMPERATURE;measure=rate;above=0.5;level=INFO
+ * </pre>
+ * 属性：
+ * <ul>
+ * <li>sensor：传感器类型，必填</li>
+ * <li>measure：value为样本值，rate为与上一个样本相比每秒的变化量，mean为最近samples个样本的均值，默认value</li>
+ * <li>above/below：触发阈值，二选一</li>
+ * <li>clear：恢复阈值，构成滞回区间，默认等于触发阈值</li>
+ * <li>for：条件持续多久才触发，例如10s，默认0</li>
+ * <li>samples：mean的样本数，默认10</li>
+ * <li>level：触发时的级别，默认WARNING</li>
+ * <li>escalate：逗号分隔的"级别:阈值"，超过阈值时升级到对应级别</li>
+ * <li>enabled：false时停用规则，默认true</li>
+ * </ul>
+ * 数值可以是数字、${配置键}或在二者后加*系数；单独的*系数表示触发阈值乘以系数。
+ * 规则对象不可变，每个设备的状态保存在{@link RuleState}中，求值只读写基本类型字段
+ */
+public final class AlertRule {
+
+    public static final String CONFIG_PREFIX = "alert.rule.";
+
+    /**
+     * 求值结果：条件未满足
+     */
+    public static final int INACTIVE = -1;
+
+    /**
+     * 求值结果：本次从触发状态恢复
+     */
+    public static final int CLEARED = -2;
+
+    private static final int DEFAULT_SAMPLES = 10;
+
+    private static final AlertMessage.AlertLevel[] LEVELS = AlertMessage.AlertLevel.values();
+
+    /**
+     * 求值的对象
+     */
+    public enum Measure {
+        VALUE, RATE, MEAN
+    }
+
+    private final String name;
+    private final String spec;
+    private final SensorData.SensorType sensorType;
+    private final Measure measure;
+    private final boolean above;
+    private final double threshold;
+    private final double clear;
+    private final long forNanos;
+    private final int samples;
+    private final AlertMessage.AlertLevel level;
+    private final boolean enabled;
+
+    // 升级阈值按级别从低到高排列，escalationLevels存放级别的序号
+    private final double[] escalationThresholds;
+    private final int[] escalationLevels;
+
+    private AlertRule(String name, String spec, SensorData.SensorType sensorType, Measure measure, boolean above,
+            double threshold, double clear, long forNanos, int samples, AlertMessage.AlertLevel level,
+            boolean enabled, double[] escalationThresholds, int[] escalationLevels) {
+        this.name = name;
+        this.spec = spec;
+        this.sensorType = sensorType;
+        this.measure = measure;
+        this.above = above;
+        this.threshold = threshold;
+        this.clear = clear;
+        this.forNanos = forNanos;
+        this.samples = samples;
+        this.level = level;
+        this.enabled = enabled;
+        this.escalationThresholds = escalationThresholds;
+        this.escalationLevels = escalationLevels;
+    }
+
+    /**
+     * 编译规则，resolver用于解析${配置键}，规则有误时抛出IllegalArgumentException
+     */
+    public static AlertRule compile(String name, String spec, Function<String, Optional<Double>> resolver) {
+        if (spec == null || spec.trim().isEmpty()) {
+            throw new IllegalArgumentException("警报规则不能为空: " + name);
+        }
+        Map<String, String> props = new LinkedHashMap<>();
+        for (String part : spec.split(";")) {
+            if (part.trim().isEmpty()) {
+                continue;
+            }
+            int eq = part.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("警报规则属性格式应为key=value: " + part.trim());
+            }
+            String key = part.substring(0, eq).trim().toLowerCase(Locale.ROOT);
+            if (props.put(key, part.substring(eq + 1).trim()) != null) {
+                throw new IllegalArgumentException("警报规则属性重复: " + key);
+            }
+        }
+
+        String sensor = props.remove("sensor");
+        if (sensor == null) {
+            throw new IllegalArgumentException("警报规则缺少sensor: " + name);
+        }
+        SensorData.SensorType sensorType = enumOf(SensorData.SensorType.class, sensor, "sensor");
+        Measure measure = enumOf(Measure.class, props.getOrDefault("measure", "value"), "measure");
+        props.remove("measure");
+
+        String aboveText = props.remove("above");
+        String belowText = props.remove("below");
+        if ((aboveText == null) == (belowText == null)) {
+            throw new IllegalArgumentException("警报规则需要且只能有above或below之一: " + name);
+        }
+        boolean above = aboveText != null;
+        double threshold = number(above ? aboveText : belowText, Double.NaN, resolver);
+
+        String clearText = props.remove("clear");
+        double clear = clearText != null ? number(clearText, threshold, resolver) : threshold;
+        if (above ? clear > threshold : clear < threshold) {
+            throw new IllegalArgumentException(String.format("恢复阈值%s应在触发阈值%s的%s侧", clear, threshold,
+                    above ? "下" : "上"));
+        }
+
+        String forText = props.remove("for");
+        long forNanos = forText != null ? DurationStyle.detectAndParse(forText).toNanos() : 0;
+        if (forNanos < 0) {
+            throw new IllegalArgumentException("for不能为负数: " + forText);
+        }
+
+        String samplesText = props.remove("samples");
+        int samples = DEFAULT_SAMPLES;
+        if (samplesText != null) {
+            try {
+                samples = Integer.parseInt(samplesText);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("samples不是有效的整数: " + samplesText);
+            }
+            if (samples < 1) {
+                throw new IllegalArgumentException("samples必须大于0: " + samples);
+            }
+        }
+
+        AlertMessage.AlertLevel level = enumOf(AlertMessage.AlertLevel.class,
+                props.getOrDefault("level", "WARNING"), "level");
+        props.remove("level");
+
+        List<double[]> escalations = new ArrayList<>();
+        String escalateText = props.remove("escalate");
+        if (escalateText != null) {
+            for (String item : escalateText.split(",")) {
+                int colon = item.indexOf(':');
+                if (colon <= 0) {
+                    throw new IllegalArgumentException("escalate格式应为级别:阈值: " + item.trim());
+                }
+                AlertMessage.AlertLevel escalated = enumOf(AlertMessage.AlertLevel.class,
+                        item.substring(0, colon).trim(), "escalate");
+                if (escalated.ordinal() <= level.ordinal()) {
+                    throw new IllegalArgumentException("升级级别" + escalated + "应高于" + level);
+                }
+                double escalateAt = number(item.substring(colon + 1).trim(), threshold, resolver);
+                if (above ? escalateAt < threshold : escalateAt > threshold) {
+                    throw new IllegalArgumentException("升级阈值" + escalateAt + "不应比触发阈值" + threshold + "更宽");
+                }
+                escalations.add(new double[]{escalated.ordinal(), escalateAt});
+            }
+        }
+        escalations.sort((a, b) -> Double.compare(a[0], b[0]));
+        double[] escalationThresholds = new double[escalations.size()];
+        int[] escalationLevels = new int[escalations.size()];
+        for (int i = 0; i < escalations.size(); i++) {
+            escalationLevels[i] = (int) escalations.get(i)[0];
+            escalationThresholds[i] = escalations.get(i)[1];
+            if (i > 0 && escalationLevels[i] == escalationLevels[i - 1]) {
+                throw new IllegalArgumentException("升级级别重复: " + LEVELS[escalationLevels[i]]);
+            }
+        }
+
+        String enabledText = props.remove("enabled");
+        if (enabledText != null && !enabledText.equalsIgnoreCase("true") && !enabledText.equalsIgnoreCase("false")) {
+            throw new IllegalArgumentException("enabled只能是true或false: " + enabledText);
+        }
+        boolean enabled = enabledText == null || Boolean.parseBoolean(enabledText);
+
+        if (!props.isEmpty()) {
+            throw new IllegalArgumentException("未知的警报规则属性: " + props.keySet());
+        }
+        return new AlertRule(name, spec.trim(), sensorType, measure, above, threshold, clear, forNanos,
+                measure == Measure.MEAN ? samples : 1, level, enabled, escalationThresholds, escalationLevels);
+    }
+
+    /**
+     * 解析数值：数字、${配置键}、二者加*系数，或单独的*系数（相对于base）
+     */
+    private static double number(String text, double base, Function<String, Optional<Double>> resolver) {
+        String operand = text;
+        double factor = 1.0;
+        int star = text.indexOf('*');
+        if (star >= 0) {
+            operand = text.substring(0, star).trim();
+            try {
+                factor = Double.parseDouble(text.substring(star + 1).trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("系数不是有效的数字: " + text);
+            }
+        }
+        double value;
+        if (operand.isEmpty()) {
+            if (Double.isNaN(base)) {
+                throw new IllegalArgumentException("触发阈值不能只写系数: " + text);
+            }
+            value = base;
+        } else if (operand.startsWith("${") && operand.endsWith("}")) {
+            String key = operand.substring(2, operand.length() - 1).trim();
+            value = resolver.apply(key)
+                    .orElseThrow(() -> new IllegalArgumentException("引用的配置不存在或不是数字: " + key));
+        } else {
+            try {
+                value = Double.parseDouble(operand);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("不是有效的数字: " + text);
+            }
+        }
+        double result = value * factor;
+        if (Double.isNaN(result) || Double.isInfinite(result)) {
+            throw new IllegalArgumentException("不是有效的数字: " + text);
+        }
+        return result;
+    }
+
+    private static <E extends Enum<E>> E enumOf(Class<E> type, String text, String property) {
+        for (E constant : type.getEnumConstants()) {
+            if (constant.name().equalsIgnoreCase(text.trim())) {
+                return constant;
+            }
+        }
+        throw new IllegalArgumentException(property + "取值无效: " + text + "，可选值: "
+                + Arrays.toString(type.getEnumConstants()));
+    }
+
+    /**
+     * 创建一个设备的求值状态
+     */
+    RuleState newState() {
+        return new RuleState(samples);
+    }
+
+    /**
+     * 用一个样本更新状态并求值
+     * sampleNanos为样本的采集时刻，变化率和持续时间都按采集时刻计算，与处理的快慢和批量无关；
+     * 返回当前级别的序号，条件未满足时返回INACTIVE，本次恢复时返回CLEARED；
+     * 计算出的度量值保存在state.measured中
+     */
+    int evaluate(RuleState state, double value, long sampleNanos) {
+        double measured;
+        switch (measure) {
+            case RATE:
+                if (!state.hasLast) {
+                    state.remember(value, sampleNanos);
+                    return state.active ? currentLevel(state.measured) : INACTIVE;
+                }
+                long elapsed = sampleNanos - state.lastNanos;
+                if (elapsed <= 0) {
+                    // 同一时刻或乱序的样本无法计算变化率，沿用上一次的结果
+                    return state.active ? currentLevel(state.measured) : INACTIVE;
+                }
+                measured = (value - state.lastValue) * 1e9 / elapsed;
+                state.remember(value, sampleNanos);
+                break;
+            case MEAN:
+                state.push(value);
+                if (state.count < samples) {
+                    return INACTIVE;
+                }
+                measured = state.sum / samples;
+                break;
+            default:
+                measured = value;
+        }
+        state.measured = measured;
+
+        if (state.active) {
+            if (above ? measured <= clear : measured >= clear) {
+                state.active = false;
+                state.breachSince = RuleState.NOT_BREACHED;
+                return CLEARED;
+            }
+            return currentLevel(measured);
+        }
+
+        if (!(above ? measured > threshold : measured < threshold)) {
+            state.breachSince = RuleState.NOT_BREACHED;
+            return INACTIVE;
+        }
+        if (state.breachSince == RuleState.NOT_BREACHED) {
+            state.breachSince = sampleNanos;
+        }
+        if (sampleNanos - state.breachSince < forNanos) {
+            return INACTIVE;
+        }
+        state.active = true;
+        return currentLevel(measured);
+    }
+
+    /**
+     * 按升级阈值确定级别
+     */
+    private int currentLevel(double measured) {
+        int current = level.ordinal();
+        for (int i = 0; i < escalationThresholds.length; i++) {
+            if (above ? measured > escalationThresholds[i] : measured < escalationThresholds[i]) {
+                current = escalationLevels[i];
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 级别序号对应的级别
+     */
+    public static AlertMessage.AlertLevel levelOf(int ordinal) {
+        return LEVELS[ordinal];
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSpec() {
+        return spec;
+    }
+
+    public SensorData.SensorType getSensorType() {
+        return sensorType;
+    }
+
+    public Measure getMeasure() {
+        return measure;
+    }
+
+    public boolean isAbove() {
+        return above;
+    }
+
+    public double getThreshold() {
+        return threshold;
+    }
+
+    public double getClear() {
+        return clear;
+    }
+
+    public long getForMillis() {
+        return forNanos / 1_000_000;
+    }
+
+    public int getSamples() {
+        return samples;
+    }
+
+    public AlertMessage.AlertLevel getLevel() {
+        return level;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 与另一条规则的编译结果是否相同，相同时重新编译后沿用设备的求值状态
+     */
+    boolean sameAs(AlertRule other) {
+        return enabled == other.enabled && sensorType == other.sensorType && measure == other.measure
+                && above == other.above && threshold == other.threshold && clear == other.clear
+                && forNanos == other.forNanos && samples == other.samples && level == other.level
+                && Arrays.equals(escalationThresholds, other.escalationThresholds)
+                && Arrays.equals(escalationLevels, other.escalationLevels);
+    }
+
+    /**
+     * 转为REST返回的Map
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("name", name);
+        map.put("spec", spec);
+        map.put("sensorType", sensorType);
+        map.put("measure", measure);
+        map.put(above ? "above" : "below", threshold);
+        map.put("clear", clear);
+        map.put("forMillis", getForMillis());
+        if (measure == Measure.MEAN) {
+            map.put("samples", samples);
+        }
+        map.put("level", level);
+        map.put("enabled", enabled);
+        Map<String, Double> escalate = new LinkedHashMap<>();
+        for (int i = 0; i < escalationLevels.length; i++) {
+            escalate.put(LEVELS[escalationLevels[i]].name(), escalationThresholds[i]);
+        }
+        map.put("escalate", escalate);
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        return name + "{" + spec + "}";
+    }
+}
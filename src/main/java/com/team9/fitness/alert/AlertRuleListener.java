@@ -0,0 +1,25 @@
+package com.team9.fitness.alert;
+
+import com.team9.fitness.entity.AlertMessage;
+import com.team9.fitness.entity.SensorData;
+
+/**
+ * 规则触发的回调
+ * 只在规则处于触发状态或刚恢复时调用，警报文本和实体在回调中生成
+ */
+@FunctionalInterface
+public interface AlertRuleListener {
+
+    /**
+     * 规则处于触发状态，每个满足条件的样本调用一次
+     *
+     * @param measured 规则求值的度量值：样本值、变化率或均值
+     */
+    void onFire(AlertRule rule, SensorData sensorData, AlertMessage.AlertLevel level, double measured);
+
+    /**
+     * 规则从触发状态恢复
+     */
+    default void onClear(AlertRule rule, SensorData sensorData, double measured) {
+    }
+}
@@ -0,0 +1,186 @@
+package com.team9.fitness.alert;
+
+import com.team9.fitness.entity.SensorData;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 一次编译得到的全部规则
+ * 规则按传感器类型分组为数组，每条规则在每个设备上有一个求值状态。
+ * 规则集不可变，规则修改后编译新的规则集整体替换；设备状态保存在新旧规则集共用的表中，按规则对象索引，
+ * 编译结果相同的规则沿用旧规则对象，替换过程中新注册的设备和进行中的持续时间、均值窗口都不会丢失
+ */
+public final class AlertRuleSet {
+
+    private static final RuleStates[] NO_RULES = new RuleStates[0];
+
+    private final long configVersion;
+    private final LocalDateTime compiledAt;
+    private final List<AlertRule> rules;
+    private final Map<String, String> errors;
+
+    // 按规则对象索引的设备状态，同一引擎编译出的规则集共用
+    private final ConcurrentHashMap<AlertRule, RuleStates> states;
+
+    // 按传感器类型序号索引的启用规则及其设备状态
+    private final RuleStates[][] bySensor;
+
+    private AlertRuleSet(long configVersion, List<AlertRule> rules, Map<String, String> errors,
+            ConcurrentHashMap<AlertRule, RuleStates> states) {
+        this.configVersion = configVersion;
+        this.compiledAt = LocalDateTime.now();
+        this.rules = Collections.unmodifiableList(new ArrayList<>(rules));
+        this.errors = Collections.unmodifiableMap(new LinkedHashMap<>(errors));
+        this.states = states;
+
+        SensorData.SensorType[] types = SensorData.SensorType.values();
+        this.bySensor = new RuleStates[types.length][];
+        for (SensorData.SensorType type : types) {
+            List<RuleStates> enabled = new ArrayList<>();
+            for (AlertRule rule : rules) {
+                if (rule.isEnabled() && rule.getSensorType() == type) {
+                    enabled.add(states.computeIfAbsent(rule, RuleStates::new));
+                }
+            }
+            bySensor[type.ordinal()] = enabled.isEmpty() ? NO_RULES : enabled.toArray(NO_RULES);
+        }
+    }
+
+    /**
+     * 编译一组规则，specs以完整配置键索引
+     * 编译失败的规则记入错误，previous中有同名规则时继续使用它；编译结果没有变化的规则沿用previous中的规则对象和设备状态
+     */
+    public static AlertRuleSet compile(long configVersion, Map<String, String> specs,
+            Function<String, Optional<Double>> resolver, AlertRuleSet previous) {
+        Map<String, AlertRule> previousRules = new HashMap<>();
+        for (AlertRule rule : previous.rules) {
+            previousRules.put(rule.getName(), rule);
+        }
+
+        List<AlertRule> rules = new ArrayList<>();
+        Map<String, String> errors = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : specs.entrySet()) {
+            String name = entry.getKey().startsWith(AlertRule.CONFIG_PREFIX)
+                    ? entry.getKey().substring(AlertRule.CONFIG_PREFIX.length()) : entry.getKey();
+            AlertRule old = previousRules.get(name);
+            try {
+                AlertRule rule = AlertRule.compile(name, entry.getValue(), resolver);
+                rules.add(old != null && old.sameAs(rule) ? old : rule);
+            } catch (IllegalArgumentException e) {
+                errors.put(name, e.getMessage());
+                if (old != null) {
+                    rules.add(old);
+                }
+            }
+        }
+
+        AlertRuleSet compiled = new AlertRuleSet(configVersion, rules, errors, previous.states);
+        // 删除或修改过的规则不再求值，丢弃它们的状态
+        Set<AlertRule> current = Collections.newSetFromMap(new IdentityHashMap<>());
+        current.addAll(rules);
+        previous.states.keySet().retainAll(current);
+        return compiled;
+    }
+
+    /**
+     * 空规则集，配置加载前使用
+     */
+    public static AlertRuleSet empty() {
+        return new AlertRuleSet(-1, Collections.emptyList(), Collections.emptyMap(), new ConcurrentHashMap<>());
+    }
+
+    /**
+     * 用一个样本对该传感器类型的全部规则求值，触发或恢复时回调listener
+     *
+     * @param sampleNanos 样本的采集时刻（纪元纳秒），变化率和持续时间按它计算
+     */
+    public void evaluate(SensorData sensorData, double value, long sampleNanos, AlertRuleListener listener) {
+        RuleStates[] rules = bySensor[sensorData.getSensorType().ordinal()];
+        if (rules.length == 0) {
+            return;
+        }
+        String deviceId = sensorData.getDeviceId() != null ? sensorData.getDeviceId() : "";
+        for (RuleStates rule : rules) {
+            RuleState state = rule.of(deviceId);
+            int result = rule.rule.evaluate(state, value, sampleNanos);
+            if (result >= 0) {
+                listener.onFire(rule.rule, sensorData, AlertRule.levelOf(result), state.measured);
+            } else if (result == AlertRule.CLEARED) {
+                listener.onClear(rule.rule, sensorData, state.measured);
+            }
+        }
+    }
+
+    /**
+     * 编译所用的配置快照版本，配置加载前为-1
+     */
+    public long getConfigVersion() {
+        return configVersion;
+    }
+
+    public LocalDateTime getCompiledAt() {
+        return compiledAt;
+    }
+
+    public List<AlertRule> getRules() {
+        return rules;
+    }
+
+    /**
+     * 编译失败的规则及原因，按规则名索引
+     */
+    public Map<String, String> getErrors() {
+        return errors;
+    }
+
+    /**
+     * 处于触发状态的规则数，按规则名索引
+     */
+    public Map<String, Integer> getActiveCounts() {
+        Map<String, Integer> active = new LinkedHashMap<>();
+        for (RuleStates[] rules : bySensor) {
+            for (RuleStates rule : rules) {
+                int count = 0;
+                for (RuleState state : rule.devices.values()) {
+                    if (state.active) {
+                        count++;
+                    }
+                }
+                active.put(rule.rule.getName(), count);
+            }
+        }
+        return active;
+    }
+
+    /**
+     * 一条规则在各设备上的求值状态
+     */
+    private static final class RuleStates {
+
+        final AlertRule rule;
+        final ConcurrentHashMap<String, RuleState> devices = new ConcurrentHashMap<>();
+
+        RuleStates(AlertRule rule) {
+            this.rule = rule;
+        }
+
+        RuleState of(String deviceId) {
+            RuleState state = devices.get(deviceId);
+            if (state == null) {
+                state = devices.computeIfAbsent(deviceId, k -> rule.newState());
+            }
+            return state;
+        }
+    }
+}
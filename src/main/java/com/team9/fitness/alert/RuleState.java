@@ -0,0 +1,61 @@
+package com.team9.fitness.alert;
+
+/**
+ * 一条规则对一个设备的求值状态
+ * 只有基本类型字段和一个定长的均值窗口，创建后求值不再分配内存。
+ * 同一设备的样本在同一条接收通道中处理，状态只由一个线程写入
+ */
+final class RuleState {
+
+    static final long NOT_BREACHED = Long.MIN_VALUE;
+
+    // 是否处于触发状态
+    boolean active;
+
+    // 条件开始满足的样本采集时刻，未满足时为NOT_BREACHED
+    long breachSince = NOT_BREACHED;
+
+    // 最近一次计算出的度量值
+    double measured = Double.NaN;
+
+    // 变化率：上一个样本
+    boolean hasLast;
+    double lastValue;
+    long lastNanos;
+
+    // 均值：最近的样本环和它们的和
+    private final double[] window;
+    private int next;
+    int count;
+    double sum;
+
+    RuleState(int samples) {
+        this.window = new double[samples];
+    }
+
+    void remember(double value, long sampleNanos) {
+        hasLast = true;
+        lastValue = value;
+        lastNanos = sampleNanos;
+    }
+
+    void push(double value) {
+        if (count < window.length) {
+            count++;
+        } else {
+            sum -= window[next];
+        }
+        window[next] = value;
+        sum += value;
+        next++;
+        if (next == window.length) {
+            next = 0;
+            // 每转一圈重新求和，避免增减累积的舍入误差
+            double exact = 0;
+            for (double v : window) {
+                exact += v;
+            }
+            sum = exact;
+        }
+    }
+}
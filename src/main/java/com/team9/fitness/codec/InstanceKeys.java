@@ -0,0 +1,90 @@
+package com.team9.fitness.codec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.team9.fitness.entity.SensorData;
+import com.team9.fitness.transport.PayloadFormat;
+
+import java.io.IOException;
+
+/**
+ * 实例键
+ * 传感器数据按"设备ID/传感器类型"区分实例，其他数据共用空键。
+ * 发布端从SensorData生成键，接收端从二进制头部或JSON中读取这两个字段生成同样的键
+ */
+public final class InstanceKeys {
+
+    public static final String NONE = "";
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final ThreadLocal<SensorSample> SAMPLE = ThreadLocal.withInitial(SensorSample::new);
+
+    private InstanceKeys() {
+    }
+
+    public static String of(String deviceId, SensorData.SensorType sensorType) {
+        return (deviceId != null ? deviceId : "") + "/" + sensorType;
+    }
+
+    public static String of(SensorData sensorData) {
+        return of(sensorData.getDeviceId(), sensorData.getSensorType());
+    }
+
+    /**
+     * 从编码后的样本读取实例键，不是传感器数据或无法解析时返回NONE
+     */
+    public static String of(byte[] data, int offset, int length) {
+        switch (PayloadFormat.detect(data, offset, length)) {
+            case SENSOR_BINARY:
+                try {
+                    SensorSample sample = SAMPLE.get();
+                    SensorBinaryCodec.decode(data, offset, length, sample);
+                    return of(sample.getDeviceId(), sample.getSensorType());
+                } catch (IllegalArgumentException e) {
+                    return NONE;
+                }
+            case JSON:
+                return ofJson(data, offset, length);
+            default:
+                return NONE;
+        }
+    }
+
+    /**
+     * 流式读取JSON顶层的deviceId和sensorType，其他字段整体跳过
+     */
+    private static String ofJson(byte[] data, int offset, int length) {
+        try (JsonParser parser = JSON_FACTORY.createParser(data, offset, length)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return NONE;
+            }
+            String deviceId = null;
+            SensorData.SensorType sensorType = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken token = parser.nextToken();
+                if ("deviceId".equals(name) && token == JsonToken.VALUE_STRING) {
+                    deviceId = parser.getText();
+                } else if ("sensorType".equals(name) && token == JsonToken.VALUE_STRING) {
+                    sensorType = sensorTypeOf(parser.getText());
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return sensorType != null ? of(deviceId, sensorType) : NONE;
+        } catch (IOException e) {
+            return NONE;
+        }
+    }
+
+    private static SensorData.SensorType sensorTypeOf(String text) {
+        for (SensorData.SensorType type : SensorData.SensorType.values()) {
+            if (type.name().equalsIgnoreCase(text)) {
+                return type;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,488 @@
+package com.team9.fitness.codec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.team9.fitness.entity.SensorData;
+import com.team9.fitness.transport.PayloadFormat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 样本内容过滤器
+ * 在投递给监听器之前按表达式过滤样本，只读取传感器二进制头部或JSON中的几个字段，不创建SensorData。
+ * 表达式语法与DDS内容过滤相近，例如：
+ * <pre>
+ * value &gt; 70 AND sensorType = 'HUMIDITY'
+ * deviceId = 'dev-1' OR (value &lt;= 10 AND unit = '°C')
+ * </pre>
+ * 支持的字段：value、sensorType、deviceId、unit；运算符：= &lt;&gt; != &gt; &gt;= &lt; &lt;=、AND、OR、NOT和括号。
+ * 非传感器数据或缺少字段的样本不满足任何条件。
+ * 过滤器复用内部的字段缓冲，只能在一个线程中使用
+ */
+public final class SampleFilter {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final String expression;
+    private final Node root;
+    private final boolean needsDeviceId;
+
+    // 当前样本的字段
+    private final SensorSample sample = new SensorSample();
+    private final Fields fields = new Fields();
+
+    private SampleFilter(String expression, Node root, boolean needsDeviceId) {
+        this.expression = expression;
+        this.root = root;
+        this.needsDeviceId = needsDeviceId;
+    }
+
+    /**
+     * 编译过滤表达式，表达式有误时抛出IllegalArgumentException
+     */
+    public static SampleFilter compile(String expression) {
+        if (expression == null || expression.trim().isEmpty()) {
+            throw new IllegalArgumentException("过滤表达式不能为空");
+        }
+        Parser parser = new Parser(expression);
+        Node root = parser.parseExpression();
+        parser.expectEnd();
+        return new SampleFilter(expression, root, parser.usesDeviceId);
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    /**
+     * 判断视图中的样本是否满足表达式，不移动视图位置
+     */
+    public boolean matches(ByteBuffer view) {
+        if (!extract(view)) {
+            return false;
+        }
+        return root.evaluate(fields);
+    }
+
+    /**
+     * 从二进制头部或JSON中读取字段，无法识别时返回false
+     */
+    private boolean extract(ByteBuffer view) {
+        fields.clear();
+        switch (PayloadFormat.detect(view)) {
+            case SENSOR_BINARY:
+                SensorBinaryCodec.decode(view, sample);
+                fields.sensorType = sample.getSensorType();
+                fields.value = sample.getValue();
+                fields.hasValue = true;
+                fields.unit = sample.getUnit();
+                fields.deviceId = needsDeviceId ? sample.getDeviceId() : null;
+                return true;
+            case JSON:
+                return extractJson(view);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 流式读取JSON顶层字段，其他字段整体跳过
+     */
+    private boolean extractJson(ByteBuffer view) {
+        try (JsonParser parser = JSON_FACTORY.createParser(new ByteBufferBackedInputStream(view.duplicate()))) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return false;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken token = parser.nextToken();
+                switch (name) {
+                    case "value":
+                        if (token.isNumeric()) {
+                            fields.value = parser.getDoubleValue();
+                            fields.hasValue = true;
+                        }
+                        break;
+                    case "sensorType":
+                        if (token == JsonToken.VALUE_STRING) {
+                            fields.sensorType = sensorTypeOf(parser.getText());
+                        }
+                        break;
+                    case "unit":
+                        if (token == JsonToken.VALUE_STRING) {
+                            fields.unit = parser.getText();
+                        }
+                        break;
+                    case "deviceId":
+                        if (token == JsonToken.VALUE_STRING && needsDeviceId) {
+                            fields.deviceId = parser.getText();
+                        }
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static SensorData.SensorType sensorTypeOf(String text) {
+        for (SensorData.SensorType type : SensorData.SensorType.values()) {
+            if (type.name().equalsIgnoreCase(text)) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    /**
+     * 当前样本的字段值
+     */
+    private static final class Fields {
+
+        SensorData.SensorType sensorType;
+        boolean hasValue;
+        double value;
+        String unit;
+        String deviceId;
+
+        void clear() {
+            sensorType = null;
+            hasValue = false;
+            value = 0;
+            unit = null;
+            deviceId = null;
+        }
+    }
+
+    private enum Field {
+        VALUE, SENSOR_TYPE, DEVICE_ID, UNIT
+    }
+
+    private enum Operator {
+        EQ, NE, GT, GE, LT, LE
+    }
+
+    private interface Node {
+        boolean evaluate(Fields fields);
+    }
+
+    private static final class And implements Node {
+
+        private final Node left;
+        private final Node right;
+
+        And(Node left, Node right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public boolean evaluate(Fields fields) {
+            return left.evaluate(fields) && right.evaluate(fields);
+        }
+    }
+
+    private static final class Or implements Node {
+
+        private final Node left;
+        private final Node right;
+
+        Or(Node left, Node right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public boolean evaluate(Fields fields) {
+            return left.evaluate(fields) || right.evaluate(fields);
+        }
+    }
+
+    private static final class Not implements Node {
+
+        private final Node operand;
+
+        Not(Node operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        public boolean evaluate(Fields fields) {
+            return !operand.evaluate(fields);
+        }
+    }
+
+    /**
+     * 数值比较，只适用于value字段
+     */
+    private static final class NumberCondition implements Node {
+
+        private final Operator operator;
+        private final double operand;
+
+        NumberCondition(Operator operator, double operand) {
+            this.operator = operator;
+            this.operand = operand;
+        }
+
+        @Override
+        public boolean evaluate(Fields fields) {
+            if (!fields.hasValue) {
+                return false;
+            }
+            int result = Double.compare(fields.value, operand);
+            switch (operator) {
+                case EQ:
+                    return result == 0;
+                case NE:
+                    return result != 0;
+                case GT:
+                    return result > 0;
+                case GE:
+                    return result >= 0;
+                case LT:
+                    return result < 0;
+                case LE:
+                default:
+                    return result <= 0;
+            }
+        }
+    }
+
+    /**
+     * 字符串相等比较，sensorType忽略大小写
+     */
+    private static final class TextCondition implements Node {
+
+        private final Field field;
+        private final boolean equal;
+        private final String operand;
+
+        TextCondition(Field field, boolean equal, String operand) {
+            this.field = field;
+            this.equal = equal;
+            this.operand = operand;
+        }
+
+        @Override
+        public boolean evaluate(Fields fields) {
+            boolean matched;
+            switch (field) {
+                case SENSOR_TYPE:
+                    if (fields.sensorType == null) {
+                        return false;
+                    }
+                    matched = fields.sensorType.name().equalsIgnoreCase(operand);
+                    break;
+                case DEVICE_ID:
+                    if (fields.deviceId == null) {
+                        return false;
+                    }
+                    matched = fields.deviceId.equals(operand);
+                    break;
+                case UNIT:
+                default:
+                    if (fields.unit == null) {
+                        return false;
+                    }
+                    matched = fields.unit.equals(operand);
+                    break;
+            }
+            return matched == equal;
+        }
+    }
+
+    /**
+     * 递归下降解析：
+     * expression := term (OR term)*
+     * term       := factor (AND factor)*
+     * factor     := NOT factor | '(' expression ')' | field operator literal
+     */
+    private static final class Parser {
+
+        private final String expression;
+        private final List<String> tokens;
+        private int position;
+        boolean usesDeviceId;
+
+        Parser(String expression) {
+            this.expression = expression;
+            this.tokens = tokenize(expression);
+        }
+
+        Node parseExpression() {
+            Node node = parseTerm();
+            while (acceptKeyword("OR")) {
+                node = new Or(node, parseTerm());
+            }
+            return node;
+        }
+
+        private Node parseTerm() {
+            Node node = parseFactor();
+            while (acceptKeyword("AND")) {
+                node = new And(node, parseFactor());
+            }
+            return node;
+        }
+
+        private Node parseFactor() {
+            if (acceptKeyword("NOT")) {
+                return new Not(parseFactor());
+            }
+            if (accept("(")) {
+                Node node = parseExpression();
+                if (!accept(")")) {
+                    throw error("缺少右括号");
+                }
+                return node;
+            }
+            return parseCondition();
+        }
+
+        private Node parseCondition() {
+            Field field = parseField(next("字段名"));
+            Operator operator = parseOperator(next("运算符"));
+            String literal = next("比较值");
+
+            if (field == Field.VALUE) {
+                try {
+                    return new NumberCondition(operator, Double.parseDouble(literal));
+                } catch (NumberFormatException e) {
+                    throw error("value只能与数字比较: " + literal);
+                }
+            }
+            if (operator != Operator.EQ && operator != Operator.NE) {
+                throw error("字符串字段只支持=和<>: " + field);
+            }
+            if (!literal.startsWith("'")) {
+                throw error("字符串需要用单引号括起来: " + literal);
+            }
+            if (field == Field.DEVICE_ID) {
+                usesDeviceId = true;
+            }
+            return new TextCondition(field, operator == Operator.EQ, literal.substring(1));
+        }
+
+        private Field parseField(String token) {
+            switch (token.toLowerCase(Locale.ROOT)) {
+                case "value":
+                    return Field.VALUE;
+                case "sensortype":
+                    return Field.SENSOR_TYPE;
+                case "deviceid":
+                    return Field.DEVICE_ID;
+                case "unit":
+                    return Field.UNIT;
+                default:
+                    throw error("未知字段: " + token);
+            }
+        }
+
+        private Operator parseOperator(String token) {
+            switch (token) {
+                case "=":
+                    return Operator.EQ;
+                case "<>":
+                case "!=":
+                    return Operator.NE;
+                case ">":
+                    return Operator.GT;
+                case ">=":
+                    return Operator.GE;
+                case "<":
+                    return Operator.LT;
+                case "<=":
+                    return Operator.LE;
+                default:
+                    throw error("未知运算符: " + token);
+            }
+        }
+
+        void expectEnd() {
+            if (position < tokens.size()) {
+                throw error("多余的内容: " + tokens.get(position));
+            }
+        }
+
+        private String next(String expected) {
+            if (position >= tokens.size()) {
+                throw error("缺少" + expected);
+            }
+            return tokens.get(position++);
+        }
+
+        private boolean accept(String token) {
+            if (position < tokens.size() && tokens.get(position).equals(token)) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean acceptKeyword(String keyword) {
+            if (position < tokens.size() && tokens.get(position).equalsIgnoreCase(keyword)) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("过滤表达式有误: " + message + ", expression=" + expression);
+        }
+
+        /**
+         * 切分为标识符、数字、运算符、括号和字符串，字符串保留开头的单引号作为标记
+         */
+        private List<String> tokenize(String text) {
+            List<String> result = new ArrayList<>();
+            int i = 0;
+            while (i < text.length()) {
+                char c = text.charAt(i);
+                if (Character.isWhitespace(c)) {
+                    i++;
+                } else if (c == '(' || c == ')') {
+                    result.add(String.valueOf(c));
+                    i++;
+                } else if (c == '\'') {
+                    int end = text.indexOf('\'', i + 1);
+                    if (end < 0) {
+                        throw error("字符串缺少结束的单引号");
+                    }
+                    result.add(text.substring(i, end));
+                    i = end + 1;
+                } else if (c == '<' || c == '>' || c == '=' || c == '!') {
+                    int end = i + 1;
+                    if (end < text.length() && (text.charAt(end) == '=' || (c == '<' && text.charAt(end) == '>'))) {
+                        end++;
+                    }
+                    result.add(text.substring(i, end));
+                    i = end;
+                } else {
+                    int start = i;
+                    while (i < text.length() && !Character.isWhitespace(text.charAt(i))
+                            && "()'<>=!".indexOf(text.charAt(i)) < 0) {
+                        i++;
+                    }
+                    result.add(text.substring(start, i));
+                }
+            }
+            return result;
+        }
+    }
+}
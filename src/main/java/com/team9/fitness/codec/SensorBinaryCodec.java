@@ -0,0 +1,224 @@
+package com.team9.fitness.codec;
+
+import com.team9.fitness.entity.SensorData;
+import com.team9.fitness.transport.PayloadFormat;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+/**
+ * 传感器数据二进制编解码
+ * 固定布局（大端序）：
+ * [0]头部0xB2 [1]标志位（bit0：带设备ID） [2]传感器类型码 [3]单位码
+ * [4..11]时间戳（纪元微秒） [12..19]数值（double）
+ * 带设备ID时后接[20]设备ID长度和UTF-8字节，设备ID最长255字节。
+ * 编码和解码都只读写调用方提供的缓冲区，不分配对象
+ */
+public final class SensorBinaryCodec {
+
+    public static final int FIXED_SIZE = 20;
+
+    public static final int MAX_DEVICE_ID_LENGTH = 255;
+
+    public static final int MAX_SIZE = FIXED_SIZE + 1 + MAX_DEVICE_ID_LENGTH;
+
+    private static final byte FLAG_DEVICE_ID = 0x01;
+
+    // 传感器类型码
+    private static final byte TYPE_TEMPERATURE = 1;
+    private static final byte TYPE_HUMIDITY = 2;
+
+    // 单位码，0表示未知单位
+    public static final byte UNIT_NONE = 0;
+    public static final byte UNIT_CELSIUS = 1;
+    public static final byte UNIT_PERCENT = 2;
+
+    private SensorBinaryCodec() {
+    }
+
+    /**
+     * 编码传感器数据实体，返回写入的字节数
+     */
+    public static int encode(SensorData sensorData, byte[] buffer, int offset) {
+        LocalDateTime createdAt = sensorData.getCreatedAt();
+        long epochMicros;
+        if (createdAt != null) {
+            ZonedDateTime zoned = createdAt.atZone(ZoneId.systemDefault());
+            epochMicros = zoned.toEpochSecond() * 1_000_000L + zoned.getNano() / 1_000L;
+        } else {
+            epochMicros = System.currentTimeMillis() * 1_000L;
+        }
+        return encode(sensorData.getSensorType(), epochMicros, sensorData.getValue(),
+                unitIdOf(sensorData.getUnit()), sensorData.getDeviceId(), buffer, offset);
+    }
+
+    /**
+     * 按字段编码，返回写入的字节数
+     */
+    public static int encode(SensorData.SensorType sensorType, long epochMicros, double value, byte unitId,
+            String deviceId, byte[] buffer, int offset) {
+        boolean hasDeviceId = deviceId != null && !deviceId.isEmpty();
+        buffer[offset] = PayloadFormat.SENSOR_BINARY_HEADER;
+        buffer[offset + 1] = hasDeviceId ? FLAG_DEVICE_ID : 0;
+        buffer[offset + 2] = typeCodeOf(sensorType);
+        buffer[offset + 3] = unitId;
+        writeLong(buffer, offset + 4, epochMicros);
+        writeLong(buffer, offset + 12, Double.doubleToRawLongBits(value));
+        if (!hasDeviceId) {
+            return FIXED_SIZE;
+        }
+
+        // 设备ID按ASCII直接写入，包含非ASCII字符时才走UTF-8编码
+        int length = deviceId.length();
+        int pos = offset + FIXED_SIZE + 1;
+        boolean ascii = length <= MAX_DEVICE_ID_LENGTH;
+        for (int i = 0; ascii && i < length; i++) {
+            char c = deviceId.charAt(i);
+            if (c >= 0x80) {
+                ascii = false;
+            } else {
+                buffer[pos + i] = (byte) c;
+            }
+        }
+        if (!ascii) {
+            byte[] utf8 = deviceId.getBytes(StandardCharsets.UTF_8);
+            if (utf8.length > MAX_DEVICE_ID_LENGTH) {
+                throw new IllegalArgumentException("设备ID超过" + MAX_DEVICE_ID_LENGTH + "字节: " + deviceId);
+            }
+            System.arraycopy(utf8, 0, buffer, pos, utf8.length);
+            length = utf8.length;
+        }
+        buffer[offset + FIXED_SIZE] = (byte) length;
+        return FIXED_SIZE + 1 + length;
+    }
+
+    /**
+     * 解码到可复用的样本对象，设备ID引用原缓冲区，样本只在缓冲区有效期间可用
+     */
+    public static void decode(byte[] buffer, int offset, int length, SensorSample sample) {
+        if (length < FIXED_SIZE || buffer[offset] != PayloadFormat.SENSOR_BINARY_HEADER) {
+            throw new IllegalArgumentException("不是有效的传感器二进制数据: length=" + length);
+        }
+        byte flags = buffer[offset + 1];
+        sample.sensorType = sensorTypeOf(buffer[offset + 2]);
+        sample.unitId = buffer[offset + 3];
+        sample.epochMicros = readLong(buffer, offset + 4);
+        sample.value = Double.longBitsToDouble(readLong(buffer, offset + 12));
+        sample.deviceIdBuffer = buffer;
+        sample.deviceIdLength = 0;
+        if ((flags & FLAG_DEVICE_ID) != 0) {
+            if (length < FIXED_SIZE + 1) {
+                throw new IllegalArgumentException("传感器二进制数据缺少设备ID长度");
+            }
+            int deviceIdLength = buffer[offset + FIXED_SIZE] & 0xFF;
+            if (length < FIXED_SIZE + 1 + deviceIdLength) {
+                throw new IllegalArgumentException("传感器二进制数据设备ID被截断");
+            }
+            sample.deviceIdOffset = offset + FIXED_SIZE + 1;
+            sample.deviceIdLength = deviceIdLength;
+        }
+    }
+
+    /**
+     * 从只读视图解码，读取范围为视图的position到limit，不移动视图位置。
+     * 视图不暴露底层数组，设备ID拷贝到样本自带的缓冲区
+     */
+    public static void decode(ByteBuffer view, SensorSample sample) {
+        int offset = view.position();
+        int length = view.remaining();
+        if (length < FIXED_SIZE || view.get(offset) != PayloadFormat.SENSOR_BINARY_HEADER) {
+            throw new IllegalArgumentException("不是有效的传感器二进制数据: length=" + length);
+        }
+        byte flags = view.get(offset + 1);
+        sample.sensorType = sensorTypeOf(view.get(offset + 2));
+        sample.unitId = view.get(offset + 3);
+        sample.epochMicros = view.getLong(offset + 4);
+        sample.value = view.getDouble(offset + 12);
+        sample.deviceIdLength = 0;
+        if ((flags & FLAG_DEVICE_ID) != 0) {
+            if (length < FIXED_SIZE + 1) {
+                throw new IllegalArgumentException("传感器二进制数据缺少设备ID长度");
+            }
+            int deviceIdLength = view.get(offset + FIXED_SIZE) & 0xFF;
+            if (length < FIXED_SIZE + 1 + deviceIdLength) {
+                throw new IllegalArgumentException("传感器二进制数据设备ID被截断");
+            }
+            byte[] scratch = sample.deviceIdScratch();
+            view.get(offset + FIXED_SIZE + 1, scratch, 0, deviceIdLength);
+            sample.deviceIdBuffer = scratch;
+            sample.deviceIdOffset = 0;
+            sample.deviceIdLength = deviceIdLength;
+        }
+    }
+
+    /**
+     * 单位字符串对应的单位码
+     */
+    public static byte unitIdOf(String unit) {
+        if (unit == null) {
+            return UNIT_NONE;
+        }
+        switch (unit) {
+            case "°C":
+                return UNIT_CELSIUS;
+            case "%":
+                return UNIT_PERCENT;
+            default:
+                return UNIT_NONE;
+        }
+    }
+
+    /**
+     * 单位码对应的单位字符串
+     */
+    public static String unitOf(byte unitId) {
+        switch (unitId) {
+            case UNIT_CELSIUS:
+                return "°C";
+            case UNIT_PERCENT:
+                return "%";
+            default:
+                return null;
+        }
+    }
+
+    private static byte typeCodeOf(SensorData.SensorType sensorType) {
+        switch (sensorType) {
+            case TEMPERATURE:
+                return TYPE_TEMPERATURE;
+            case HUMIDITY:
+                return TYPE_HUMIDITY;
+            default:
+                throw new IllegalArgumentException("不支持的传感器类型: " + sensorType);
+        }
+    }
+
+    private static SensorData.SensorType sensorTypeOf(byte typeCode) {
+        switch (typeCode) {
+            case TYPE_TEMPERATURE:
+                return SensorData.SensorType.TEMPERATURE;
+            case TYPE_HUMIDITY:
+                return SensorData.SensorType.HUMIDITY;
+            default:
+                throw new IllegalArgumentException("未知的传感器类型码: " + typeCode);
+        }
+    }
+
+    private static void writeLong(byte[] buffer, int pos, long value) {
+        for (int i = 7; i >= 0; i--) {
+            buffer[pos + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    private static long readLong(byte[] buffer, int pos) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (buffer[pos + i] & 0xFF);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,81 @@
+package com.team9.fitness.codec;
+
+import com.team9.fitness.entity.SensorData;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * 可复用的传感器样本
+ * 解码时只写入基本类型字段，设备ID以原缓冲区中的位置保存，需要时才创建字符串
+ */
+public final class SensorSample {
+
+    SensorData.SensorType sensorType;
+    long epochMicros;
+    double value;
+    byte unitId;
+
+    byte[] deviceIdBuffer;
+    int deviceIdOffset;
+    int deviceIdLength;
+
+    // 从ByteBuffer视图解码时存放设备ID，首次使用时创建
+    private byte[] deviceIdScratch;
+
+    public SensorData.SensorType getSensorType() {
+        return sensorType;
+    }
+
+    public long getEpochMicros() {
+        return epochMicros;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    public byte getUnitId() {
+        return unitId;
+    }
+
+    public String getUnit() {
+        return SensorBinaryCodec.unitOf(unitId);
+    }
+
+    public boolean hasDeviceId() {
+        return deviceIdLength > 0;
+    }
+
+    /**
+     * 获取设备ID，没有设备ID时返回null
+     */
+    public String getDeviceId() {
+        return deviceIdLength > 0
+                ? new String(deviceIdBuffer, deviceIdOffset, deviceIdLength, StandardCharsets.UTF_8)
+                : null;
+    }
+
+    byte[] deviceIdScratch() {
+        if (deviceIdScratch == null) {
+            deviceIdScratch = new byte[SensorBinaryCodec.MAX_DEVICE_ID_LENGTH];
+        }
+        return deviceIdScratch;
+    }
+
+    /**
+     * 转换为传感器数据实体
+     */
+    public SensorData toSensorData() {
+        Instant instant = Instant.ofEpochSecond(epochMicros / 1_000_000L, (epochMicros % 1_000_000L) * 1_000L);
+        return SensorData.builder()
+                .sensorType(sensorType)
+                .value(value)
+                .unit(getUnit())
+                .deviceId(getDeviceId())
+                .createdAt(LocalDateTime.ofInstant(instant, ZoneId.systemDefault()))
+                .build();
+    }
+}
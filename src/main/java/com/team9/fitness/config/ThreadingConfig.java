@@ -0,0 +1,43 @@
+package com.team9.fitness.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 线程模式配置
+ * spring.threads.virtual.enabled=true且运行在Java 21及以上时，Spring Boot把Tomcat请求线程和@Scheduled任务放到虚拟线程上，
+ * 应用自己创建的阻塞型线程（传感器模拟、接收流水线的持久化阶段）通过blockingThreadFactory同样使用虚拟线程。
+ * 其他情况下blockingThreadFactory创建普通的守护线程，与之前的行为相同
+ */
+@Configuration
+public class ThreadingConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ThreadingConfig.class);
+
+    /**
+     * 阻塞型工作线程的工厂，线程名由调用方设置
+     */
+    @Bean
+    public ThreadFactory blockingThreadFactory(Environment environment) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            log.info("虚拟线程模式已开启，请求处理、定时任务和阻塞型工作线程使用虚拟线程");
+            return new VirtualThreadTaskExecutor().getVirtualThreadFactory();
+        }
+        if (environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false)) {
+            log.warn("spring.threads.virtual.enabled已开启，但当前Java版本{}不支持虚拟线程，继续使用平台线程",
+                    Runtime.version().feature());
+        }
+        return runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
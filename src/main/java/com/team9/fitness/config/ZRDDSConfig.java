@@ -1,18 +1,30 @@
 package com.team9.fitness.config;
 
+import com.team9.fitness.transport.DDSTransport;
+import com.team9.fitness.transport.LoopbackTransport;
+import com.team9.fitness.transport.ParticipantSettings;
+import com.team9.fitness.transport.TopicType;
+import com.team9.fitness.transport.ZRDDSTransport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * ZRDDS配置类
  * 负责ZRDDS中间件的配置和初始化
  */
 @Configuration
+@EnableConfigurationProperties(ZRDDSProperties.class)
 public class ZRDDSConfig {
 
     private static final Logger log = LoggerFactory.getLogger(ZRDDSConfig.class);
@@ -26,6 +38,12 @@ public class ZRDDSConfig {
     @Value("${zrdds.qos-profile:ZRDDS_QOS_PROFILES.xml}")
     private String qosProfile;
 
+    @Value("${zrdds.qos-library:default_lib}")
+    private String qosLibrary;
+
+    @Value("${zrdds.transport:zrdds}")
+    private String transportType;
+
     /**
      * 初始化ZRDDS环境
      */
@@ -44,6 +62,7 @@ public class ZRDDSConfig {
             log.info("Domain ID: {}", domainId);
             log.info("Participant Name: {}", participantName);
             log.info("QoS Profile: {}", qosProfile);
+            log.info("QoS Library: {}", qosLibrary);
 
         } catch (Exception e) {
             log.error("ZRDDS环境初始化失败", e);
@@ -53,6 +72,56 @@ public class ZRDDSConfig {
         return this;
     }
 
+    /**
+     * 创建DDS传输层
+     * zrdds：使用ZRDDS中间件；loopback：进程内回环，不依赖本地库
+     */
+    @Bean
+    public DDSTransport ddsTransport(ZRDDSProperties properties) {
+        if ("loopback".equalsIgnoreCase(transportType)) {
+            log.info("使用进程内回环传输层");
+            return new LoopbackTransport();
+        }
+        List<ParticipantSettings> participants = participantSettings(properties);
+        Map<String, List<String>> topicRoutes = topicRoutes(properties);
+        log.info("使用ZRDDS传输层: participants={}, topicRoutes={}", participants, topicRoutes);
+        return new ZRDDSTransport(participantName, qosProfile, qosLibrary, participants, topicRoutes);
+    }
+
+    /**
+     * 配置的域参与者，未配置default时按zrdds.domain-id补充默认域参与者
+     */
+    private List<ParticipantSettings> participantSettings(ZRDDSProperties properties) {
+        List<ParticipantSettings> participants = new ArrayList<>();
+        if (!properties.getParticipants().containsKey(ParticipantSettings.DEFAULT_NAME)) {
+            participants.add(new ParticipantSettings(ParticipantSettings.DEFAULT_NAME, domainId, "udp_dp"));
+        }
+        for (Map.Entry<String, ZRDDSProperties.ParticipantProperties> entry : properties.getParticipants().entrySet()) {
+            ZRDDSProperties.ParticipantProperties participant = entry.getValue();
+            participants.add(new ParticipantSettings(entry.getKey(), participant.getDomainId(), participant.getQos()));
+        }
+        return participants;
+    }
+
+    /**
+     * 主题到域参与者的映射，只包含指定了participant或shards的主题
+     */
+    private Map<String, List<String>> topicRoutes(ZRDDSProperties properties) {
+        Map<String, List<String>> routes = new LinkedHashMap<>();
+        for (Map.Entry<String, ZRDDSProperties.TopicProperties> entry : properties.getTopics().entrySet()) {
+            ZRDDSProperties.TopicProperties topic = entry.getValue();
+            if (!topic.getShards().isEmpty()) {
+                if (topic.getType() != TopicType.KEYED_BYTES) {
+                    throw new IllegalArgumentException("只有keyed-bytes主题可以按设备ID分片: topic=" + entry.getKey());
+                }
+                routes.put(entry.getKey(), topic.getShards());
+            } else if (topic.getParticipant() != null) {
+                routes.put(entry.getKey(), Collections.singletonList(topic.getParticipant()));
+            }
+        }
+        return routes;
+    }
+
     /**
      * 设置ZRDDS库路径
      */
@@ -124,4 +193,18 @@ public class ZRDDSConfig {
     public String getQosProfile() {
         return qosProfile;
     }
+
+    /**
+     * 获取QoS库名称
+     */
+    public String getQosLibrary() {
+        return qosLibrary;
+    }
+
+    /**
+     * 获取传输层类型
+     */
+    public String getTransportType() {
+        return transportType;
+    }
 }
@@ -0,0 +1,206 @@
+package com.team9.fitness.config;
+
+import com.team9.fitness.service.OverflowPolicy;
+import com.team9.fitness.transport.AsyncPublisher;
+import com.team9.fitness.transport.FrameCompression;
+import com.team9.fitness.transport.PayloadFormat;
+import com.team9.fitness.transport.TopicType;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ZRDDS按主题的配置
+ * 对应application.yaml中的zrdds.topics.<主题名>，主题名包含"/"时需写成"[Sensor/Temperature]"
+ */
+@Data
+@ConfigurationProperties(prefix = "zrdds")
+public class ZRDDSProperties {
+
+    /**
+     * 未单独配置QoS的主题使用的QoS配置名称
+     */
+    private String defaultQos = "reliable";
+
+    /**
+     * 域参与者，按名称配置；未配置default时由domain-id创建默认域参与者
+     */
+    private Map<String, ParticipantProperties> participants = new LinkedHashMap<>();
+
+    /**
+     * 按主题名配置
+     */
+    private Map<String, TopicProperties> topics = new LinkedHashMap<>();
+
+    /**
+     * 异步发布配置
+     */
+    private AsyncProperties async = new AsyncProperties();
+
+    /**
+     * 后台启动配置
+     */
+    private BootstrapProperties bootstrap = new BootstrapProperties();
+
+    /**
+     * 获取主题配置，未配置的主题使用默认值
+     */
+    public TopicProperties getTopic(String topicName) {
+        TopicProperties properties = topics.get(topicName);
+        return properties != null ? properties : new TopicProperties();
+    }
+
+    /**
+     * 单个主题的配置
+     */
+    @Data
+    public static class TopicProperties {
+
+        /**
+         * 主题数据类型：bytes 无键，keyed-bytes 按设备ID和传感器类型区分实例
+         */
+        private TopicType type = TopicType.BYTES;
+
+        /**
+         * 写者和读者使用的QoS配置名称，对应QoS配置文件中同名的datawriter_qos/datareader_qos，
+         * 未配置时使用default-qos
+         */
+        private String qos;
+
+        /**
+         * 发布传感器数据时的编码：json 或 sensor-binary，接收端按首字节自动识别
+         */
+        private PayloadFormat codec = PayloadFormat.JSON;
+
+        /**
+         * 每个监听器的接收缓冲区容量（向上取2的幂）
+         */
+        private int listenerQueueCapacity = 4096;
+
+        /**
+         * 接收缓冲区满时的处理策略：drop-newest、drop-oldest、conflate-latest 或 block
+         */
+        private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_NEWEST;
+
+        /**
+         * 批量发布配置
+         */
+        private BatchProperties batch = new BatchProperties();
+
+        /**
+         * 主题使用的域参与者名称，未配置时使用default
+         */
+        private String participant;
+
+        /**
+         * 按设备ID分片的域参与者名称，只用于keyed-bytes主题，配置后忽略participant；
+         * 分片的域参与者必须在不同的域上
+         */
+        private List<String> shards = new ArrayList<>();
+
+        /**
+         * 最新值缓存配置
+         */
+        private LastValueProperties lastValue = new LastValueProperties();
+    }
+
+    /**
+     * 最新值缓存配置
+     * 启用后主题收到的样本按实例键（设备ID/传感器类型）缓存在内存中，
+     * 新订阅的监听器先收到缓存的样本，再收到实时样本
+     */
+    @Data
+    public static class LastValueProperties {
+
+        private boolean enabled = false;
+
+        /**
+         * 每个实例保留的样本数
+         */
+        private int depth = 1;
+
+        /**
+         * 最多缓存的实例数，超过时淘汰最久未访问的实例
+         */
+        private int maxKeys = 4096;
+
+        /**
+         * 新订阅的监听器是否先收到缓存的样本
+         */
+        private boolean replayOnSubscribe = true;
+    }
+
+    /**
+     * 域参与者配置
+     */
+    @Data
+    public static class ParticipantProperties {
+
+        private int domainId = 0;
+
+        /**
+         * QoS配置文件中participant_qos的名称，例如udp_dp、tcp_dp
+         */
+        private String qos = "udp_dp";
+    }
+
+    /**
+     * 异步发布配置
+     * 启用后publishData只把样本放入环形缓冲区，由写线程完成实际写出
+     */
+    @Data
+    public static class AsyncProperties {
+
+        private boolean enabled = false;
+
+        private int writerThreads = 2;
+
+        private int queueCapacity = 8192;
+
+        private AsyncPublisher.FullPolicy fullPolicy = AsyncPublisher.FullPolicy.BLOCK;
+
+        private long shutdownTimeoutMs = 5000;
+    }
+
+    /**
+     * 后台启动配置
+     * 传输层启动超过start-timeout-ms视为失败；默认主题由topic-parallelism个线程并行创建，
+     * 超过topic-timeout-ms仍未创建完成的主题记为失败，服务以降级状态运行
+     */
+    @Data
+    public static class BootstrapProperties {
+
+        private long startTimeoutMs = 30000;
+
+        private long topicTimeoutMs = 10000;
+
+        private int topicParallelism = 4;
+
+        /**
+         * 手动发布时等待传输层就绪的最长时间
+         */
+        private long publishWaitMs = 2000;
+    }
+
+    /**
+     * 批量发布配置：攒够max-samples个样本、超过max-bytes字节或等待max-delay-ms毫秒后发出一帧
+     */
+    @Data
+    public static class BatchProperties {
+
+        private int maxSamples = 256;
+
+        private int maxBytes = 60 * 1024;
+
+        private long maxDelayMs = 5;
+
+        /**
+         * 帧压缩方式：none、gorilla（传感器二进制样本按列编码）、deflate 或 gorilla-deflate
+         */
+        private FrameCompression compression = FrameCompression.NONE;
+    }
+}
@@ -1,7 +1,9 @@
 package com.team9.fitness.controller;
 
 import com.team9.fitness.entity.AlertMessage;
+import com.team9.fitness.service.AlertLifecycleService;
 import com.team9.fitness.service.AlertMessageService;
+import com.team9.fitness.service.AlertRuleEngine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,6 +13,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 警报信息控制器
@@ -24,6 +27,37 @@ public class AlertController {
     @Autowired
     private AlertMessageService alertMessageService;
 
+    @Autowired
+    private AlertRuleEngine alertRuleEngine;
+
+    @Autowired
+    private AlertLifecycleService alertLifecycleService;
+
+    /**
+     * 获取打开的警报
+     */
+    @GetMapping("/open")
+    public ResponseEntity<List<AlertMessage>> getOpenAlerts() {
+        return ResponseEntity.ok(alertMessageService.getOpenAlerts());
+    }
+
+    /**
+     * 获取警报合并统计：触发次数、打开和关闭的警报数、写库和推送的条数
+     */
+    @GetMapping("/lifecycle/stats")
+    public ResponseEntity<Map<String, Object>> getLifecycleStats() {
+        return ResponseEntity.ok(alertLifecycleService.getStats());
+    }
+
+    /**
+     * 获取当前生效的警报规则、编译错误和触发状态
+     * 规则通过系统配置接口修改alert.rule.*，保存后自动重新编译
+     */
+    @GetMapping("/rules")
+    public ResponseEntity<Map<String, Object>> getAlertRules() {
+        return ResponseEntity.ok(alertRuleEngine.getRules());
+    }
+
     /**
      * 获取未读警报列表
      */
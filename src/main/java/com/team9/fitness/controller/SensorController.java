@@ -1,8 +1,10 @@
 package com.team9.fitness.controller;
 
 import com.team9.fitness.entity.SensorData;
+import com.team9.fitness.service.DataListenerService;
 import com.team9.fitness.service.SensorDataService;
 import com.team9.fitness.service.SensorDataPublisherService;
+import com.team9.fitness.service.ZRDDSService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,7 +14,9 @@ import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * 传感器数据控制器
@@ -29,16 +33,41 @@ public class SensorController {
     @Autowired
     private SensorDataPublisherService sensorDataPublisherService;
 
+    @Autowired
+    private ZRDDSService zrddsService;
+
+    @Autowired
+    private DataListenerService dataListenerService;
+
     /**
      * 获取最新的传感器数据
+     * 优先从ZRDDS最新值缓存读取，缓存中没有时查询数据库
      */
     @GetMapping("/latest/{sensorType}")
     public ResponseEntity<SensorData> getLatestSensorData(@PathVariable SensorData.SensorType sensorType) {
-        Optional<SensorData> sensorData = sensorDataService.getLatestSensorData(sensorType);
+        Optional<SensorData> sensorData = zrddsService.getLatestSensorData(topicOf(sensorType), null);
+        if (sensorData.isEmpty()) {
+            sensorData = sensorDataService.getLatestSensorData(sensorType);
+        }
         return sensorData.map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * 获取每个设备最新的传感器数据，只从ZRDDS最新值缓存读取
+     */
+    @GetMapping("/latest/{sensorType}/devices")
+    public ResponseEntity<List<SensorData>> getLatestSensorDataPerDevice(@PathVariable SensorData.SensorType sensorType) {
+        return ResponseEntity.ok(zrddsService.getLatestSensorDataPerKey(topicOf(sensorType)));
+    }
+
+    /**
+     * 传感器类型对应的ZRDDS主题
+     */
+    private static String topicOf(SensorData.SensorType sensorType) {
+        return sensorType == SensorData.SensorType.TEMPERATURE ? "Sensor/Temperature" : "Sensor/Humidity";
+    }
+
     /**
      * 获取指定时间范围内的传感器数据
      */
@@ -74,6 +103,27 @@ public class SensorController {
         return ResponseEntity.ok(average != null ? average : 0.0);
     }
 
+    /**
+     * 获取最近各时间窗口（默认1分钟、5分钟、1小时）的样本数、均值、极值和方差，只读内存统计
+     * 指定deviceId时返回单个设备的统计，否则返回该类型所有设备的汇总
+     */
+    @GetMapping("/{sensorType}/window-stats")
+    public ResponseEntity<Map<String, Map<String, Object>>> getWindowStats(@PathVariable SensorData.SensorType sensorType,
+            @RequestParam(required = false) String deviceId) {
+        String type = sensorType.name().toLowerCase();
+        return ResponseEntity.ok(deviceId != null
+                ? dataListenerService.getWindowStats(type, deviceId)
+                : dataListenerService.getWindowStats(type));
+    }
+
+    /**
+     * 获取单独统计的设备ID
+     */
+    @GetMapping("/{sensorType}/window-stats/devices")
+    public ResponseEntity<Set<String>> getWindowStatsDevices(@PathVariable SensorData.SensorType sensorType) {
+        return ResponseEntity.ok(dataListenerService.getStatsDeviceIds(sensorType.name().toLowerCase()));
+    }
+
     /**
      * 手动生成温度数据
      */
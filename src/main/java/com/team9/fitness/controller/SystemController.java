@@ -2,12 +2,15 @@ package com.team9.fitness.controller;
 
 import com.team9.fitness.entity.SystemConfig;
 import com.team9.fitness.service.SystemConfigService;
+import com.team9.fitness.service.SystemConfigSnapshot;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -22,6 +25,33 @@ public class SystemController {
     @Autowired
     private SystemConfigService systemConfigService;
 
+    /**
+     * 获取配置快照的版本号和配置数
+     */
+    @GetMapping("/config/snapshot")
+    public ResponseEntity<Map<String, Object>> getConfigSnapshot() {
+        return ResponseEntity.ok(snapshotInfo(systemConfigService.getSnapshot()));
+    }
+
+    /**
+     * 从数据库重新加载配置快照
+     */
+    @PostMapping("/config/snapshot/reload")
+    public ResponseEntity<Map<String, Object>> reloadConfigSnapshot() {
+        return ResponseEntity.ok(snapshotInfo(systemConfigService.loadSnapshot()));
+    }
+
+    private static Map<String, Object> snapshotInfo(SystemConfigSnapshot snapshot) {
+        Map<String, Object> info = new HashMap<>();
+        info.put("loaded", snapshot != null);
+        if (snapshot != null) {
+            info.put("version", snapshot.getVersion());
+            info.put("createdAt", snapshot.getCreatedAt());
+            info.put("size", snapshot.size());
+        }
+        return info;
+    }
+
     /**
      * 获取配置值
      */
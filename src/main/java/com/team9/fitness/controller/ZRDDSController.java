@@ -1,16 +1,23 @@
 package com.team9.fitness.controller;
 
+import com.team9.fitness.dto.CommandReply;
+import com.team9.fitness.service.CommandChannelService;
 import com.team9.fitness.service.ZRDDSService;
 import com.team9.fitness.service.DataListenerService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
 
 /**
  * ZRDDS控制器
@@ -28,6 +35,9 @@ public class ZRDDSController {
     @Autowired
     private DataListenerService dataListenerService;
 
+    @Autowired
+    private CommandChannelService commandChannelService;
+
     /**
      * 获取ZRDDS服务状态
      */
@@ -35,12 +45,27 @@ public class ZRDDSController {
     public ResponseEntity<Map<String, Object>> getStatus() {
         Map<String, Object> status = new HashMap<>();
         status.put("initialized", zrddsService.isInitialized());
+        status.put("state", zrddsService.getState());
+        status.put("transport", zrddsService.getTransportName());
         status.put("dataListenerInitialized", dataListenerService.isZRDDSInitialized());
         status.put("subscribedTopics", new java.util.HashSet<>(zrddsService.getSubscribedTopics()));
 
         return ResponseEntity.ok(status);
     }
 
+    /**
+     * 传输层就绪检查
+     * 状态为READY或DEGRADED时返回200，启动中或启动失败时返回503
+     */
+    @GetMapping("/ready")
+    public ResponseEntity<Map<String, Object>> getReadiness() {
+        Map<String, Object> readiness = zrddsService.getReadiness();
+        if (!zrddsService.isInitialized()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(readiness);
+        }
+        return ResponseEntity.ok(readiness);
+    }
+
     /**
      * 发布数据到指定主题
      */
@@ -140,6 +165,8 @@ public class ZRDDSController {
         response.put("success", true);
         response.put("topics", topics);
         response.put("count", topics.size());
+        // 各主题实际使用的类型、编码和QoS配置
+        response.put("details", zrddsService.getTopicInfo());
 
         return ResponseEntity.ok(response);
     }
@@ -178,6 +205,70 @@ public class ZRDDSController {
         }
     }
 
+    /**
+     * 发送控制命令并等待执行结果
+     * 请求体：command（必填）、target（目标节点，为空时广播）、expectedReplies（期望应答数，默认1）、timeoutMs
+     * 应答收齐返回200，部分节点应答返回207，无节点应答返回504
+     */
+    @PostMapping("/command/request")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> requestCommand(@RequestBody Map<String, Object> body) {
+        String commandText;
+        int expectedReplies;
+        CompletableFuture<List<CommandReply>> replies;
+        try {
+            // 请求体的类型在这里校验，类型不对时与参数有误一样返回400
+            commandText = stringOf(body, "command");
+            String target = stringOf(body, "target");
+            expectedReplies = Math.toIntExact(numberOf(body, "expectedReplies", 1));
+            long timeoutMs = numberOf(body, "timeoutMs", commandChannelService.getDefaultTimeoutMs());
+            replies = commandChannelService.requestAll(commandText, target, expectedReplies, timeoutMs);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("command", body.get("command"));
+            response.put("error", e.getMessage());
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(response));
+        }
+
+        return replies.handle((result, e) -> {
+            Map<String, Object> response = new HashMap<>();
+            response.put("command", commandText);
+            if (e != null) {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                log.warn("控制命令请求失败: command={}, error={}", commandText, cause.getMessage());
+                response.put("success", false);
+                response.put("error", cause.getMessage());
+                HttpStatus status = cause instanceof TimeoutException ? HttpStatus.GATEWAY_TIMEOUT
+                        : HttpStatus.INTERNAL_SERVER_ERROR;
+                return ResponseEntity.status(status).body(response);
+            }
+            boolean complete = result.size() >= expectedReplies;
+            response.put("success", complete && result.stream().allMatch(CommandReply::isSuccess));
+            response.put("replies", result);
+            response.put("expectedReplies", expectedReplies);
+            return ResponseEntity.status(complete ? HttpStatus.OK : HttpStatus.MULTI_STATUS).body(response);
+        });
+    }
+
+    private static String stringOf(Map<String, Object> body, String key) {
+        Object value = body.get(key);
+        if (value != null && !(value instanceof String)) {
+            throw new IllegalArgumentException(key + "必须是字符串: " + value);
+        }
+        return (String) value;
+    }
+
+    private static long numberOf(Map<String, Object> body, String key, long defaultValue) {
+        Object value = body.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        if (!(value instanceof Number)) {
+            throw new IllegalArgumentException(key + "必须是数字: " + value);
+        }
+        return ((Number) value).longValue();
+    }
+
     /**
      * 重新初始化ZRDDS服务
      */
@@ -206,6 +297,14 @@ public class ZRDDSController {
         }
     }
 
+    /**
+     * 获取传感器接收流水线统计：通道间的不均衡程度，每条通道的在途事件数、各阶段的队列占用、平均批大小、排队和处理耗时分位数
+     */
+    @GetMapping("/ingest")
+    public ResponseEntity<List<Map<String, Object>>> getIngestStats() {
+        return ResponseEntity.ok(dataListenerService.getPipelineStats());
+    }
+
     /**
      * 获取ZRDDS统计信息
      */
@@ -225,6 +324,34 @@ public class ZRDDSController {
         // 统计数据
         stats.put("temperatureAverage", dataListenerService.getAverageValue("temperature"));
         stats.put("humidityAverage", dataListenerService.getAverageValue("humidity"));
+        Map<String, Object> sensorWindows = new HashMap<>();
+        sensorWindows.put("temperature", dataListenerService.getWindowStats("temperature"));
+        sensorWindows.put("humidity", dataListenerService.getWindowStats("humidity"));
+        stats.put("sensorWindows", sensorWindows);
+
+        // 各主题的发布/接收计数和写出、处理耗时分位数
+        stats.put("topics", zrddsService.getTopicMetrics());
+
+        // 各监听器的缓冲区深度和投递延迟
+        stats.put("listeners", zrddsService.getListenerStats());
+
+        // 批量发布的帧数和压缩率
+        stats.put("batches", zrddsService.getBatchStats());
+
+        // 最新值缓存的实例数和更新次数
+        stats.put("lastValues", zrddsService.getLastValueStats());
+
+        // 传感器接收流水线各阶段的队列占用和耗时
+        stats.put("ingest", dataListenerService.getPipelineStats());
+
+        // 命令请求/应答统计
+        stats.put("commands", commandChannelService.getStats());
+
+        // 异步发布统计
+        Map<String, Object> asyncStats = zrddsService.getAsyncPublishStats();
+        if (asyncStats != null) {
+            stats.put("asyncPublish", asyncStats);
+        }
 
         return ResponseEntity.ok(stats);
     }
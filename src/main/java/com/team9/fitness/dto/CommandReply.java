@@ -0,0 +1,26 @@
+package com.team9.fitness.dto;
+
+import lombok.Data;
+
+/**
+ * 控制命令应答，发布到Control/Reply主题
+ */
+@Data
+public class CommandReply {
+
+    private String correlationId;
+
+    // 请求的发出节点
+    private String sourceNode;
+
+    // 执行命令的节点
+    private String node;
+
+    private boolean success;
+
+    private String message;
+
+    // 执行完成时间（毫秒时间戳）
+    private long completedAt;
+
+}
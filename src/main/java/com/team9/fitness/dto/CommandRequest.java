@@ -0,0 +1,25 @@
+package com.team9.fitness.dto;
+
+import lombok.Data;
+
+/**
+ * 控制命令请求，发布到Control/Request主题
+ */
+@Data
+public class CommandRequest {
+
+    // 关联ID，应答原样带回
+    private String correlationId;
+
+    // 发出请求的节点，应答只由该节点匹配
+    private String sourceNode;
+
+    // 目标节点，为空时所有节点都执行
+    private String targetNode;
+
+    private String command;
+
+    // 发出时间（毫秒时间戳）
+    private long issuedAt;
+
+}
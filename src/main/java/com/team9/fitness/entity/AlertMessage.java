@@ -72,6 +72,49 @@ public class AlertMessage {
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
+    /**
+     * 触发的警报规则，由规则生成的警报才有
+     */
+    @Column(name = "rule_name", length = 100)
+    private String ruleName;
+
+    /**
+     * 设备ID
+     */
+    @Column(name = "device_id", length = 64)
+    private String deviceId;
+
+    /**
+     * 警报状态，规则恢复后关闭；其他来源的警报为空
+     */
+    @Column(name = "status", length = 20)
+    @Enumerated(EnumType.STRING)
+    private AlertStatus status;
+
+    /**
+     * 警报打开期间规则触发的次数
+     */
+    @Column(name = "occurrence_count")
+    private Long occurrenceCount;
+
+    /**
+     * 最近一次触发时的值
+     */
+    @Column(name = "last_value")
+    private Double lastValue;
+
+    /**
+     * 最近一次触发的时间
+     */
+    @Column(name = "last_occurred_at")
+    private LocalDateTime lastOccurredAt;
+
+    /**
+     * 关闭时间
+     */
+    @Column(name = "closed_at")
+    private LocalDateTime closedAt;
+
     /**
      * 警报级别枚举
      */
@@ -92,6 +135,24 @@ public class AlertMessage {
         }
     }
 
+    /**
+     * 警报状态枚举
+     */
+    public enum AlertStatus {
+        OPEN("打开"),
+        CLOSED("已关闭");
+
+        private final String description;
+
+        AlertStatus(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -40,6 +40,12 @@ public class SensorData {
     @Column(name = "unit", length = 20)
     private String unit;
 
+    /**
+     * 设备ID，可为空
+     */
+    @Column(name = "device_id", length = 64)
+    private String deviceId;
+
     /**
      * 创建时间
      */
@@ -79,6 +85,14 @@ public class SensorData {
         this.unit = unit;
     }
 
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public void setDeviceId(String deviceId) {
+        this.deviceId = deviceId;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -107,6 +121,9 @@ public class SensorData {
 
     @PrePersist
     protected void onCreate() {
-        createdAt = LocalDateTime.now();
+        // 保留发布端填入的采集时间，用于计算数据从采集到展示的延迟
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
     }
 }
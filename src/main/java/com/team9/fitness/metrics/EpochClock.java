@@ -0,0 +1,42 @@
+package com.team9.fitness.metrics;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 微秒精度的墙上时钟
+ * System.currentTimeMillis只有毫秒精度，不足以衡量局域网内的传输延迟；
+ * 这里用System.nanoTime加上与墙上时钟的偏移量计算，偏移量每分钟重新校准一次，避免长时间运行后漂移
+ */
+public final class EpochClock {
+
+    private static final long CALIBRATE_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private static volatile long offsetNanos;
+    private static volatile long calibratedAt;
+
+    static {
+        calibrate(System.nanoTime());
+    }
+
+    private EpochClock() {
+    }
+
+    /**
+     * 当前时间，自1970年起的微秒数
+     */
+    public static long epochMicros() {
+        long now = System.nanoTime();
+        if (now - calibratedAt > CALIBRATE_INTERVAL_NANOS) {
+            calibrate(now);
+        }
+        return (now + offsetNanos) / 1000;
+    }
+
+    private static void calibrate(long now) {
+        Instant instant = Instant.now();
+        long epochNanos = instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+        offsetNanos = epochNanos - System.nanoTime();
+        calibratedAt = now;
+    }
+}
@@ -0,0 +1,153 @@
+package com.team9.fitness.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 滑动窗口延迟直方图
+ * 桶按对数线性划分（与HdrHistogram相同的思路）：每个2的幂区间再分32个子桶，相对误差约3%，
+ * 最大记录约68秒，更大的值计入最后一个桶。
+ * 时间按slotMillis切成若干槽，循环复用，查询时合并窗口内的槽。
+ * 记录只做原子自增，不加锁；槽轮换时恰好并发写入的少量样本可能被清掉，统计结果是近似值
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_VALUE_BITS = 36;
+    private static final long MAX_VALUE = (1L << MAX_VALUE_BITS) - 1;
+    private static final int BUCKET_COUNT = bucketIndex(MAX_VALUE) + 1;
+
+    private final long slotNanos;
+    private final Slot[] slots;
+
+    /**
+     * @param slotMillis 每个槽覆盖的毫秒数
+     * @param slotCount  槽的个数，最长可查询的窗口为slotMillis * (slotCount - 1)
+     */
+    public LatencyHistogram(long slotMillis, int slotCount) {
+        if (slotMillis <= 0 || slotCount < 2) {
+            throw new IllegalArgumentException("slotMillis must be positive and slotCount at least 2");
+        }
+        this.slotNanos = TimeUnit.MILLISECONDS.toNanos(slotMillis);
+        this.slots = new Slot[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new Slot();
+        }
+    }
+
+    /**
+     * 记录一个延迟值
+     *
+     * @param valueNanos 延迟纳秒数
+     * @param nowNanos   当前System.nanoTime()，调用方测量延迟时通常已经取过
+     */
+    public void record(long valueNanos, long nowNanos) {
+        long epoch = Math.floorDiv(nowNanos, slotNanos);
+        Slot slot = slots[(int) Math.floorMod(epoch, (long) slots.length)];
+        long slotEpoch = slot.epoch.get();
+        if (slotEpoch < epoch && slot.epoch.compareAndSet(slotEpoch, epoch)) {
+            slot.clear();
+        }
+        long value = Math.max(0, Math.min(valueNanos, MAX_VALUE));
+        slot.counts.incrementAndGet(bucketIndex(value));
+        long max = slot.max.get();
+        while (value > max && !slot.max.compareAndSet(max, value)) {
+            max = slot.max.get();
+        }
+    }
+
+    /**
+     * 获取最近windowMillis毫秒内的样本数、最大值和p50/p99/p999，单位微秒
+     * 窗口按槽对齐，实际覆盖的时间最多多出一个槽
+     */
+    public Map<String, Object> snapshot(long windowMillis) {
+        long now = Math.floorDiv(System.nanoTime(), slotNanos);
+        long windowSlots = Math.min(slots.length - 1, Math.max(1, TimeUnit.MILLISECONDS.toNanos(windowMillis) / slotNanos));
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        long max = 0;
+        for (Slot slot : slots) {
+            long slotEpoch = slot.epoch.get();
+            if (slotEpoch > now || slotEpoch < now - windowSlots) {
+                continue;
+            }
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                long count = slot.counts.get(i);
+                counts[i] += count;
+                total += count;
+            }
+            max = Math.max(max, slot.max.get());
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("count", total);
+        stats.put("p50Micros", toMicros(percentile(counts, total, 0.50, max)));
+        stats.put("p99Micros", toMicros(percentile(counts, total, 0.99, max)));
+        stats.put("p999Micros", toMicros(percentile(counts, total, 0.999, max)));
+        stats.put("maxMicros", toMicros(max));
+        return stats;
+    }
+
+    /**
+     * 返回第一个累计计数达到quantile的桶的上界，不超过最大值
+     */
+    private static long percentile(long[] counts, long total, double quantile, long max) {
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(total * quantile));
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            if (cumulative >= target) {
+                return Math.min(bucketUpperBound(i), max);
+            }
+        }
+        return max;
+    }
+
+    private static double toMicros(long nanos) {
+        return Math.round(nanos / 100.0) / 10.0;
+    }
+
+    /**
+     * 小于2*32的值每个值一个桶，之后每个2的幂区间32个桶
+     */
+    static int bucketIndex(long value) {
+        if (value < 2 * SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return SUB_BUCKET_COUNT * shift + (int) (value >>> shift);
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < 2 * SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long mantissa = index - (long) SUB_BUCKET_COUNT * shift;
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    /**
+     * 一个时间槽
+     */
+    private static final class Slot {
+
+        final AtomicLong epoch = new AtomicLong(Long.MIN_VALUE);
+        final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+        final AtomicLong max = new AtomicLong();
+
+        void clear() {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                counts.set(i, 0);
+            }
+            max.set(0);
+        }
+    }
+}
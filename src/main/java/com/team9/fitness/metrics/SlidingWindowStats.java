@@ -0,0 +1,230 @@
+package com.team9.fitness.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAccumulator;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 滑动窗口数值统计
+ * 时间按slotMillis切成若干槽，循环复用，每个槽记录样本数、和、平方和、最小值和最大值，
+ * 查询时合并窗口内的槽得到均值、方差和极值。
+ * 槽内的字段都是JDK的分段累加器（LongAdder/DoubleAdder/DoubleAccumulator），多个线程同时记录时
+ * 落在不同的单元上，不加锁也不装箱。槽轮换时恰好并发写入的少量样本可能被清掉，与LatencyHistogram相同。
+ * 平方和按第一个样本值平移后累加，数值远大于波动幅度时方差不损失精度
+ */
+public class SlidingWindowStats {
+
+    private final long slotNanos;
+    private final Slot[] slots;
+    private final LongAdder totalCount = new LongAdder();
+
+    // 平移量取第一个样本的值，之后不再变化
+    private volatile double shift = Double.NaN;
+
+    /**
+     * @param slotMillis 每个槽覆盖的毫秒数
+     * @param slotCount  槽的个数，最长可查询的窗口为slotMillis * (slotCount - 1)
+     */
+    public SlidingWindowStats(long slotMillis, int slotCount) {
+        if (slotMillis <= 0 || slotCount < 2) {
+            throw new IllegalArgumentException("slotMillis must be positive and slotCount at least 2");
+        }
+        this.slotNanos = TimeUnit.MILLISECONDS.toNanos(slotMillis);
+        this.slots = new Slot[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new Slot();
+        }
+    }
+
+    /**
+     * 按要覆盖的最长窗口创建，槽数为maxWindowMillis / slotMillis + 1
+     */
+    public static SlidingWindowStats covering(long maxWindowMillis, long slotMillis) {
+        return new SlidingWindowStats(slotMillis, (int) Math.max(2, (maxWindowMillis + slotMillis - 1) / slotMillis + 1));
+    }
+
+    /**
+     * 记录一个样本，NaN和无穷大忽略
+     */
+    public void record(double value, long nowNanos) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return;
+        }
+        double base = shift;
+        if (Double.isNaN(base)) {
+            base = initShift(value);
+        }
+        long epoch = Math.floorDiv(nowNanos, slotNanos);
+        Slot slot = slots[(int) Math.floorMod(epoch, (long) slots.length)];
+        long slotEpoch = slot.epoch.get();
+        if (slotEpoch < epoch && slot.epoch.compareAndSet(slotEpoch, epoch)) {
+            slot.clear();
+        }
+        double shifted = value - base;
+        slot.count.increment();
+        slot.sum.add(shifted);
+        slot.sumSquares.add(shifted * shifted);
+        slot.min.accumulate(value);
+        slot.max.accumulate(value);
+        totalCount.increment();
+    }
+
+    private synchronized double initShift(double value) {
+        if (Double.isNaN(shift)) {
+            shift = value;
+        }
+        return shift;
+    }
+
+    /**
+     * 自创建以来记录的样本总数
+     */
+    public long getTotalCount() {
+        return totalCount.sum();
+    }
+
+    /**
+     * 最近windowMillis毫秒内的统计，窗口按槽对齐，实际覆盖的时间最多多出一个槽
+     */
+    public Window window(long windowMillis) {
+        return window(windowMillis, System.nanoTime());
+    }
+
+    /**
+     * 截至nowNanos的最近windowMillis毫秒内的统计，nowNanos与record使用同一时钟
+     */
+    Window window(long windowMillis, long nowNanos) {
+        long now = Math.floorDiv(nowNanos, slotNanos);
+        long windowSlots = Math.min(slots.length - 1, Math.max(1, TimeUnit.MILLISECONDS.toNanos(windowMillis) / slotNanos));
+        long count = 0;
+        double sum = 0;
+        double sumSquares = 0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (Slot slot : slots) {
+            long slotEpoch = slot.epoch.get();
+            if (slotEpoch > now || slotEpoch < now - windowSlots) {
+                continue;
+            }
+            long slotCount = slot.count.sum();
+            if (slotCount == 0) {
+                continue;
+            }
+            count += slotCount;
+            sum += slot.sum.sum();
+            sumSquares += slot.sumSquares.sum();
+            min = Math.min(min, slot.min.get());
+            max = Math.max(max, slot.max.get());
+        }
+        return new Window(windowMillis, count, sum, sumSquares, shift, min, max);
+    }
+
+    /**
+     * 一个窗口的统计结果，窗口内没有样本时均值、方差和极值为NaN
+     */
+    public static final class Window {
+
+        private final long windowMillis;
+        private final long count;
+        private final double mean;
+        private final double variance;
+        private final double min;
+        private final double max;
+
+        Window(long windowMillis, long count, double shiftedSum, double shiftedSumSquares, double shift,
+                double min, double max) {
+            this.windowMillis = windowMillis;
+            this.count = count;
+            if (count == 0) {
+                this.mean = Double.NaN;
+                this.variance = Double.NaN;
+                this.min = Double.NaN;
+                this.max = Double.NaN;
+            } else {
+                double shiftedMean = shiftedSum / count;
+                this.mean = shift + shiftedMean;
+                this.variance = Math.max(0, shiftedSumSquares / count - shiftedMean * shiftedMean);
+                this.min = min;
+                this.max = max;
+            }
+        }
+
+        public long getWindowMillis() {
+            return windowMillis;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMean() {
+            return mean;
+        }
+
+        /**
+         * 总体方差
+         */
+        public double getVariance() {
+            return variance;
+        }
+
+        public double getStdDev() {
+            return Math.sqrt(variance);
+        }
+
+        public double getMin() {
+            return min;
+        }
+
+        public double getMax() {
+            return max;
+        }
+
+        public double getSum() {
+            return count == 0 ? 0 : mean * count;
+        }
+
+        /**
+         * 转为REST返回的Map，没有样本时只返回count
+         */
+        public Map<String, Object> toMap() {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("windowSeconds", windowMillis / 1000);
+            stats.put("count", count);
+            if (count > 0) {
+                stats.put("sum", getSum());
+                stats.put("mean", mean);
+                stats.put("min", min);
+                stats.put("max", max);
+                stats.put("variance", variance);
+                stats.put("stdDev", getStdDev());
+            }
+            return stats;
+        }
+    }
+
+    /**
+     * 一个时间槽
+     */
+    private static final class Slot {
+
+        final AtomicLong epoch = new AtomicLong(Long.MIN_VALUE);
+        final LongAdder count = new LongAdder();
+        final DoubleAdder sum = new DoubleAdder();
+        final DoubleAdder sumSquares = new DoubleAdder();
+        final DoubleAccumulator min = new DoubleAccumulator(Math::min, Double.POSITIVE_INFINITY);
+        final DoubleAccumulator max = new DoubleAccumulator(Math::max, Double.NEGATIVE_INFINITY);
+
+        void clear() {
+            count.reset();
+            sum.reset();
+            sumSquares.reset();
+            min.reset();
+            max.reset();
+        }
+    }
+}
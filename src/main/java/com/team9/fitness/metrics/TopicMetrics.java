@@ -0,0 +1,168 @@
+package com.team9.fitness.metrics;
+
+import com.zrdds.infrastructure.InstanceHandle_t;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个主题的发布/接收计数和延迟直方图
+ * 计数使用LongAdder，多个写线程和投递线程同时记录时不会争用同一个缓存行
+ */
+public class TopicMetrics {
+
+    // 直方图每15秒一个槽，保留5分钟
+    private static final long SLOT_MILLIS = TimeUnit.SECONDS.toMillis(15);
+    private static final int SLOT_COUNT = 21;
+
+    private static final long WINDOW_1M = TimeUnit.MINUTES.toMillis(1);
+    private static final long WINDOW_5M = TimeUnit.MINUTES.toMillis(5);
+
+    // 按发布者统计的上限，超过后新的发布者只计入总数
+    private static final int MAX_TRACKED_PUBLISHERS = 256;
+
+    private final String topicName;
+
+    private final LongAdder publishedSamples = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LongAdder writeFailures = new LongAdder();
+    private final LongAdder receivedSamples = new LongAdder();
+    private final LongAdder decodeFailures = new LongAdder();
+    private final LongAdder handlerFailures = new LongAdder();
+    // 源时间戳晚于接收时间的样本数，说明发布端和接收端时钟不同步
+    private final LongAdder clockSkewSamples = new LongAdder();
+    // 按发布者（写者的publication_handle）统计的样本数
+    private final Map<InstanceHandle_t, LongAdder> publishers = new ConcurrentHashMap<>();
+
+    // 单次写出（BytesWrite/write_w_handle）耗时
+    private final LatencyHistogram writeLatency = new LatencyHistogram(SLOT_MILLIS, SLOT_COUNT);
+    // 监听器处理单个样本的耗时
+    private final LatencyHistogram handlerLatency = new LatencyHistogram(SLOT_MILLIS, SLOT_COUNT);
+    // 发布端源时间戳到接收的延迟，跨主机时包含两端时钟的偏差
+    private final LatencyHistogram publishToReceiveLatency = new LatencyHistogram(SLOT_MILLIS, SLOT_COUNT);
+    // 接收到监听器写入数据库的延迟
+    private final LatencyHistogram receiveToPersistLatency = new LatencyHistogram(SLOT_MILLIS, SLOT_COUNT);
+    // 接收到通过WebSocket推送的延迟
+    private final LatencyHistogram receiveToPushLatency = new LatencyHistogram(SLOT_MILLIS, SLOT_COUNT);
+
+    public TopicMetrics(String topicName) {
+        this.topicName = topicName;
+    }
+
+    public String getTopicName() {
+        return topicName;
+    }
+
+    /**
+     * 记录一次写出，samples为帧内样本数
+     */
+    public void recordWrite(int samples, int bytes, long durationNanos, long nowNanos) {
+        writes.increment();
+        publishedSamples.add(samples);
+        bytesWritten.add(bytes);
+        writeLatency.record(durationNanos, nowNanos);
+    }
+
+    public void recordWriteFailure() {
+        writeFailures.increment();
+    }
+
+    public void recordReceived(int samples) {
+        receivedSamples.add(samples);
+    }
+
+    public void recordDecodeFailure() {
+        decodeFailures.increment();
+    }
+
+    /**
+     * 记录监听器处理一个样本
+     */
+    public void recordHandler(long durationNanos, long nowNanos, boolean failed) {
+        if (failed) {
+            handlerFailures.increment();
+        }
+        handlerLatency.record(durationNanos, nowNanos);
+    }
+
+    /**
+     * 记录发布端到接收的延迟
+     *
+     * @param sourceMicros  发布端源时间戳，自1970年起的微秒数
+     * @param receiveMicros 接收时间，自1970年起的微秒数
+     * @param publisher     发布者标识，可以为null
+     */
+    public void recordPublishToReceive(long sourceMicros, long receiveMicros, long nowNanos, InstanceHandle_t publisher) {
+        long latencyMicros = receiveMicros - sourceMicros;
+        if (latencyMicros < 0) {
+            clockSkewSamples.increment();
+        }
+        publishToReceiveLatency.record(latencyMicros * 1000, nowNanos);
+        if (publisher != null) {
+            LongAdder count = publishers.get(publisher);
+            if (count == null && publishers.size() < MAX_TRACKED_PUBLISHERS) {
+                // 回调中的句柄会被复用，保存副本
+                count = publishers.computeIfAbsent(new InstanceHandle_t(publisher), k -> new LongAdder());
+            }
+            if (count != null) {
+                count.increment();
+            }
+        }
+    }
+
+    public void recordReceiveToPersist(long durationNanos, long nowNanos) {
+        receiveToPersistLatency.record(durationNanos, nowNanos);
+    }
+
+    public void recordReceiveToPush(long durationNanos, long nowNanos) {
+        receiveToPushLatency.record(durationNanos, nowNanos);
+    }
+
+    /**
+     * 获取统计信息，直方图按1分钟和5分钟窗口给出分位数
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("publishedSamples", publishedSamples.sum());
+        stats.put("writes", writes.sum());
+        stats.put("bytesWritten", bytesWritten.sum());
+        stats.put("writeFailures", writeFailures.sum());
+        stats.put("receivedSamples", receivedSamples.sum());
+        stats.put("decodeFailures", decodeFailures.sum());
+        stats.put("handlerFailures", handlerFailures.sum());
+        stats.put("clockSkewSamples", clockSkewSamples.sum());
+        stats.put("writeLatency", windows(writeLatency));
+        stats.put("handlerLatency", windows(handlerLatency));
+        stats.put("publishToReceiveLatency", windows(publishToReceiveLatency));
+        stats.put("receiveToPersistLatency", windows(receiveToPersistLatency));
+        stats.put("receiveToPushLatency", windows(receiveToPushLatency));
+        Map<String, Long> publisherCounts = new LinkedHashMap<>();
+        for (Map.Entry<InstanceHandle_t, LongAdder> entry : publishers.entrySet()) {
+            publisherCounts.put(publisherId(entry.getKey()), entry.getValue().sum());
+        }
+        stats.put("publishers", publisherCounts);
+        return stats;
+    }
+
+    /**
+     * 发布者句柄的十六进制表示
+     */
+    private static String publisherId(InstanceHandle_t handle) {
+        StringBuilder builder = new StringBuilder(handle.value.length * 2);
+        for (byte b : handle.value) {
+            builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return builder.toString();
+    }
+
+    private static Map<String, Object> windows(LatencyHistogram histogram) {
+        Map<String, Object> windows = new LinkedHashMap<>();
+        windows.put("1m", histogram.snapshot(WINDOW_1M));
+        windows.put("5m", histogram.snapshot(WINDOW_5M));
+        return windows;
+    }
+}
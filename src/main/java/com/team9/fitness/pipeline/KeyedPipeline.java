@@ -0,0 +1,136 @@
+package com.team9.fitness.pipeline;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Supplier;
+
+/**
+ * 按键分区的多通道流水线
+ * 由若干条阶段相同的StagedPipeline组成，事件按键的哈希固定分配到其中一条通道。
+ * 不同的键在不同通道上并行处理，同一个键的事件始终在同一条通道中按提交顺序处理。
+ * 阶段的处理函数被所有通道共用，会在多个线程中同时调用，需要线程安全。
+ * 与StagedPipeline相同，同一时间只能有一个线程调用claim和publish
+ */
+public final class KeyedPipeline<E extends PipelineEvent> {
+
+    private final String name;
+    private final List<StagedPipeline<E>> lanes = new ArrayList<>();
+
+    /**
+     * @param laneCount       通道数
+     * @param capacityPerLane 每条通道预分配的事件数
+     * @param batchSize       每个阶段一次最多处理的事件数
+     */
+    public KeyedPipeline(String name, int laneCount, int capacityPerLane, int batchSize, Supplier<E> factory) {
+        if (laneCount < 1) {
+            throw new IllegalArgumentException("laneCount must be positive: " + laneCount);
+        }
+        this.name = name;
+        for (int i = 0; i < laneCount; i++) {
+            lanes.add(new StagedPipeline<>(name + "#" + i, capacityPerLane, batchSize, factory));
+        }
+    }
+
+    /**
+     * 为每条通道追加一个阶段，需要在start之前调用
+     */
+    public KeyedPipeline<E> stage(String stageName, StageHandler<E> handler) {
+        return stage(stageName, handler, Thread::new);
+    }
+
+    /**
+     * 为每条通道追加一个阶段，阶段线程由threadFactory创建
+     */
+    public KeyedPipeline<E> stage(String stageName, StageHandler<E> handler, ThreadFactory threadFactory) {
+        for (StagedPipeline<E> lane : lanes) {
+            lane.stage(stageName, handler, threadFactory);
+        }
+        return this;
+    }
+
+    public void start() {
+        for (StagedPipeline<E> lane : lanes) {
+            lane.start();
+        }
+    }
+
+    /**
+     * 键的哈希值对应的通道
+     * 先打散高位再取模，避免哈希值低位分布不均时集中到少数通道
+     */
+    public int laneOf(int keyHash) {
+        int h = keyHash ^ (keyHash >>> 16);
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        return Math.floorMod(h, lanes.size());
+    }
+
+    /**
+     * 从指定通道取一个空闲事件，该通道全部在途时等待；流水线停止后返回null
+     */
+    public E claim(int lane) {
+        return lanes.get(lane).claim();
+    }
+
+    /**
+     * 把事件交给指定通道，必须与claim使用同一条通道
+     */
+    public void publish(int lane, E event) {
+        lanes.get(lane).publish(event);
+    }
+
+    public void stop(long timeoutMs) {
+        for (StagedPipeline<E> lane : lanes) {
+            lane.stop(timeoutMs);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLaneCount() {
+        return lanes.size();
+    }
+
+    /**
+     * 获取统计信息：各通道的提交数、在途事件数和队列深度，以及通道间的不均衡程度
+     * imbalance为提交最多的通道与平均值之比，1.0表示完全均匀
+     */
+    public Map<String, Object> getStats() {
+        long total = 0;
+        long maxSubmitted = 0;
+        int hottestLane = 0;
+        int maxQueueDepth = 0;
+        List<Map<String, Object>> laneStats = new ArrayList<>();
+        for (int i = 0; i < lanes.size(); i++) {
+            StagedPipeline<E> lane = lanes.get(i);
+            Map<String, Object> stats = lane.getStats();
+            long submitted = lane.getSubmittedCount();
+            int queueDepth = lane.getQueueDepth();
+            total += submitted;
+            if (submitted > maxSubmitted) {
+                maxSubmitted = submitted;
+                hottestLane = i;
+            }
+            maxQueueDepth = Math.max(maxQueueDepth, queueDepth);
+            stats.put("lane", i);
+            stats.put("queueDepth", queueDepth);
+            laneStats.add(stats);
+        }
+        double mean = (double) total / lanes.size();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("name", name);
+        stats.put("lanes", lanes.size());
+        stats.put("submitted", total);
+        stats.put("imbalance", mean > 0 ? maxSubmitted / mean : 1.0);
+        stats.put("hottestLane", hottestLane);
+        stats.put("maxQueueDepth", maxQueueDepth);
+        stats.put("laneStats", laneStats);
+        return stats;
+    }
+}
@@ -0,0 +1,16 @@
+package com.team9.fitness.pipeline;
+
+/**
+ * 流水线中流转的事件
+ * 事件在流水线创建时一次性分配，处理完最后一个阶段后清空并回到空闲队列重复使用
+ */
+public abstract class PipelineEvent {
+
+    // 进入当前阶段队列的时刻，用于统计排队时间
+    long enqueuedNanos;
+
+    /**
+     * 清空事件携带的数据，回到空闲队列前调用
+     */
+    protected abstract void reset();
+}
@@ -0,0 +1,114 @@
+package com.team9.fitness.pipeline;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 有界单生产者单消费者环形缓冲区
+ * 槽位在构造时一次性分配，生产者和消费者各自缓存对方的位置，只在缓存的位置不够用时才读取对方的原子变量。
+ * offer只能由一个线程调用，poll和drainTo只能由另一个线程调用
+ */
+public final class SpscRingBuffer<E> {
+
+    private final int mask;
+    private final Object[] buffer;
+
+    // 消费者位置，只由消费者写入
+    private final AtomicLong head = new AtomicLong();
+    // 生产者位置，只由生产者写入
+    private final AtomicLong tail = new AtomicLong();
+
+    // 生产者看到的消费者位置
+    private long cachedHead;
+    // 消费者看到的生产者位置
+    private long cachedTail;
+
+    public SpscRingBuffer(int requestedCapacity) {
+        if (requestedCapacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + requestedCapacity);
+        }
+        int capacity = 1;
+        while (capacity < requestedCapacity) {
+            capacity <<= 1;
+        }
+        this.mask = capacity - 1;
+        this.buffer = new Object[capacity];
+    }
+
+    /**
+     * 放入元素，缓冲区已满时返回false
+     */
+    public boolean offer(E element) {
+        long position = tail.get();
+        if (position - cachedHead > mask) {
+            cachedHead = head.get();
+            if (position - cachedHead > mask) {
+                return false;
+            }
+        }
+        buffer[(int) (position & mask)] = element;
+        // 使用volatile写，保证之后对消费者parked标志的读取不会被重排到它前面
+        tail.set(position + 1);
+        return true;
+    }
+
+    /**
+     * 取出最早的元素，缓冲区为空时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long position = head.get();
+        if (position >= cachedTail) {
+            cachedTail = tail.get();
+            if (position >= cachedTail) {
+                return null;
+            }
+        }
+        int index = (int) (position & mask);
+        E element = (E) buffer[index];
+        buffer[index] = null;
+        head.lazySet(position + 1);
+        return element;
+    }
+
+    /**
+     * 一次取出最多max个元素放入batch，返回取出的个数
+     */
+    @SuppressWarnings("unchecked")
+    public int drainTo(E[] batch, int max) {
+        long position = head.get();
+        int limit = Math.min(max, batch.length);
+        long available = cachedTail - position;
+        // 缓存的生产者位置不够一批时重新读取，否则批会停留在上次看到的大小
+        if (available < limit) {
+            cachedTail = tail.get();
+            available = cachedTail - position;
+            if (available <= 0) {
+                return 0;
+            }
+        }
+        int count = (int) Math.min(available, limit);
+        for (int i = 0; i < count; i++) {
+            int index = (int) ((position + i) & mask);
+            batch[i] = (E) buffer[index];
+            buffer[index] = null;
+        }
+        head.lazySet(position + count);
+        return count;
+    }
+
+    /**
+     * 当前元素个数（并发情况下为近似值）
+     */
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity()));
+    }
+
+    public boolean isEmpty() {
+        return tail.get() == head.get();
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
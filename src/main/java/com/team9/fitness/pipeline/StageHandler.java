@@ -0,0 +1,12 @@
+package com.team9.fitness.pipeline;
+
+/**
+ * 流水线阶段的处理逻辑
+ * 每次处理一批事件，同一阶段始终在同一个线程中调用。
+ * 单个事件处理失败时应自行标记，不要抛出异常影响同一批的其他事件
+ */
+@FunctionalInterface
+public interface StageHandler<E extends PipelineEvent> {
+
+    void process(E[] batch, int count) throws Exception;
+}
@@ -0,0 +1,300 @@
+package com.team9.fitness.pipeline;
+
+import com.team9.fitness.metrics.LatencyHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * 多阶段流水线
+ * 创建时预分配capacity个事件，事件依次经过各个阶段，最后回到空闲队列。
+ * 每个阶段一个线程，阶段之间用单生产者单消费者环形缓冲区连接，每次从上游取出一批事件处理后整批交给下游。
+ * 所有缓冲区的容量都不小于事件总数，阶段之间的传递不会失败；事件全部在途时claim等待，压力传回提交方。
+ * 阶段线程默认是平台线程，也可以按阶段指定线程工厂，等待时都通过park让出线程。
+ * 同一时间只能有一个线程调用claim和publish
+ */
+public final class StagedPipeline<E extends PipelineEvent> {
+
+    private static final Logger log = LoggerFactory.getLogger(StagedPipeline.class);
+
+    private static final long CLAIM_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    // 直方图每15秒一个槽，保留5分钟，与TopicMetrics一致
+    private static final long SLOT_MILLIS = TimeUnit.SECONDS.toMillis(15);
+    private static final int SLOT_COUNT = 21;
+    private static final long WINDOW_1M = TimeUnit.MINUTES.toMillis(1);
+
+    private final String name;
+    private final int batchSize;
+    private final SpscRingBuffer<E> free;
+    // 事件的实际类型，阶段的批数组按它创建，处理函数才能以具体类型的数组接收
+    private final Class<?> eventType;
+    private final List<Stage> stages = new ArrayList<>();
+    private volatile boolean running;
+
+    // 以下统计只由提交线程写入
+    private volatile long submittedCount;
+    private volatile long blockedNanos;
+
+    /**
+     * @param capacity  预分配的事件数，即流水线中最多同时在途的事件数
+     * @param batchSize 每个阶段一次最多处理的事件数
+     */
+    public StagedPipeline(String name, int capacity, int batchSize, Supplier<E> factory) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        this.name = name;
+        this.batchSize = batchSize;
+        this.free = new SpscRingBuffer<>(capacity);
+        E first = factory.get();
+        this.eventType = first.getClass();
+        free.offer(first);
+        for (int i = 1; i < free.capacity(); i++) {
+            free.offer(factory.get());
+        }
+    }
+
+    /**
+     * 追加一个阶段，需要在start之前调用
+     */
+    public StagedPipeline<E> stage(String stageName, StageHandler<E> handler) {
+        return stage(stageName, handler, Thread::new);
+    }
+
+    /**
+     * 追加一个阶段，阶段线程由threadFactory创建，例如会阻塞的阶段使用虚拟线程
+     */
+    public StagedPipeline<E> stage(String stageName, StageHandler<E> handler, ThreadFactory threadFactory) {
+        if (running) {
+            throw new IllegalStateException("流水线已启动，不能再追加阶段: " + name);
+        }
+        stages.add(new Stage(stageName, handler, threadFactory));
+        return this;
+    }
+
+    public void start() {
+        if (stages.isEmpty()) {
+            throw new IllegalStateException("流水线没有阶段: " + name);
+        }
+        running = true;
+        for (int i = 0; i < stages.size(); i++) {
+            Stage stage = stages.get(i);
+            stage.next = i + 1 < stages.size() ? stages.get(i + 1) : null;
+            stage.thread = stage.threadFactory.newThread(stage);
+            stage.thread.setName("Pipeline-" + name + "-" + stage.name);
+            stage.thread.setDaemon(true);
+            stage.thread.start();
+        }
+        log.info("流水线已启动: name={}, capacity={}, batchSize={}, stages={}", name, free.capacity(), batchSize,
+                stages.stream().map(stage -> stage.name).toList());
+    }
+
+    /**
+     * 取一个空闲事件，全部在途时等待；流水线停止后返回null
+     */
+    public E claim() {
+        E event = free.poll();
+        if (event != null) {
+            return event;
+        }
+        long start = System.nanoTime();
+        while (running) {
+            event = free.poll();
+            if (event != null) {
+                blockedNanos += System.nanoTime() - start;
+                return event;
+            }
+            LockSupport.parkNanos(CLAIM_PARK_NANOS);
+        }
+        return null;
+    }
+
+    /**
+     * 把填好数据的事件交给第一个阶段
+     */
+    public void publish(E event) {
+        event.enqueuedNanos = System.nanoTime();
+        stages.get(0).accept(event);
+        submittedCount++;
+    }
+
+    /**
+     * 停止所有阶段，等待线程退出；队列中剩余的事件被丢弃
+     */
+    public void stop(long timeoutMs) {
+        running = false;
+        for (Stage stage : stages) {
+            if (stage.thread != null) {
+                LockSupport.unpark(stage.thread);
+            }
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        for (Stage stage : stages) {
+            if (stage.thread == null) {
+                continue;
+            }
+            try {
+                stage.thread.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getSubmittedCount() {
+        return submittedCount;
+    }
+
+    /**
+     * 各阶段输入队列中等待处理的事件总数
+     */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (Stage stage : stages) {
+            depth += stage.input.size();
+        }
+        return depth;
+    }
+
+    /**
+     * 获取统计信息：在途事件数、提交方等待时间，以及每个阶段的队列占用、批大小、排队和处理耗时
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("name", name);
+        stats.put("capacity", free.capacity());
+        stats.put("inFlight", free.capacity() - free.size());
+        stats.put("batchSize", batchSize);
+        stats.put("submitted", submittedCount);
+        stats.put("blockedMillis", TimeUnit.NANOSECONDS.toMillis(blockedNanos));
+        List<Map<String, Object>> stageStats = new ArrayList<>();
+        for (Stage stage : stages) {
+            stageStats.add(stage.getStats());
+        }
+        stats.put("stages", stageStats);
+        return stats;
+    }
+
+    /**
+     * 一个阶段，输入队列只由上一阶段（第一个阶段为提交线程）写入
+     */
+    private final class Stage implements Runnable {
+
+        private final String name;
+        private final StageHandler<E> handler;
+        private final ThreadFactory threadFactory;
+        private final SpscRingBuffer<E> input;
+        private Stage next;
+        private Thread thread;
+        private volatile boolean parked;
+
+        // 每个事件的排队时间和分摊到每个事件的处理时间
+        private final LatencyHistogram queueLatency = new LatencyHistogram(SLOT_MILLIS, SLOT_COUNT);
+        private final LatencyHistogram processLatency = new LatencyHistogram(SLOT_MILLIS, SLOT_COUNT);
+
+        // 以下统计只由阶段线程写入
+        private volatile long processedCount;
+        private volatile long batchCount;
+        private volatile long failedBatches;
+        private volatile int highWaterMark;
+
+        Stage(String name, StageHandler<E> handler, ThreadFactory threadFactory) {
+            this.name = name;
+            this.handler = handler;
+            this.threadFactory = threadFactory;
+            this.input = new SpscRingBuffer<>(free.capacity());
+        }
+
+        void accept(E event) {
+            // 容量不小于事件总数，不会失败
+            input.offer(event);
+            if (parked) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void run() {
+            E[] batch = (E[]) Array.newInstance(eventType, batchSize);
+            while (running) {
+                int depth = input.size();
+                int count = input.drainTo(batch, batchSize);
+                if (count == 0) {
+                    parked = true;
+                    // 置位后再检查一次，避免上游在检查parked之前放入的事件被漏掉
+                    if (input.isEmpty() && running) {
+                        LockSupport.park(this);
+                    }
+                    parked = false;
+                    continue;
+                }
+                if (depth > highWaterMark) {
+                    highWaterMark = depth;
+                }
+                process(batch, count);
+            }
+        }
+
+        private void process(E[] batch, int count) {
+            long start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                queueLatency.record(start - batch[i].enqueuedNanos, start);
+            }
+            try {
+                handler.process(batch, count);
+            } catch (Throwable e) {
+                failedBatches++;
+                log.error("流水线阶段处理失败: pipeline={}, stage={}, batch={}", StagedPipeline.this.name, name, count, e);
+            }
+            long end = System.nanoTime();
+            processLatency.record((end - start) / count, end);
+            processedCount += count;
+            batchCount++;
+
+            for (int i = 0; i < count; i++) {
+                E event = batch[i];
+                batch[i] = null;
+                if (next != null) {
+                    event.enqueuedNanos = end;
+                    next.accept(event);
+                } else {
+                    event.reset();
+                    free.offer(event);
+                }
+            }
+        }
+
+        Map<String, Object> getStats() {
+            long batches = batchCount;
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("stage", name);
+            stats.put("queueDepth", input.size());
+            stats.put("queueCapacity", input.capacity());
+            stats.put("occupancy", (double) input.size() / input.capacity());
+            stats.put("highWaterMark", highWaterMark);
+            stats.put("processed", processedCount);
+            stats.put("batches", batches);
+            stats.put("avgBatchSize", batches > 0 ? (double) processedCount / batches : 0.0);
+            stats.put("failedBatches", failedBatches);
+            stats.put("queueLatency", queueLatency.snapshot(WINDOW_1M));
+            stats.put("processLatency", processLatency.snapshot(WINDOW_1M));
+            return stats;
+        }
+    }
+}
@@ -31,6 +31,26 @@ public interface AlertMessageRepository extends JpaRepository<AlertMessage, Long
      */
     List<AlertMessage> findByLevelOrderByCreatedAtDesc(AlertMessage.AlertLevel level);
     
+    /**
+     * 根据状态查找警报信息
+     */
+    List<AlertMessage> findByStatusOrderByCreatedAtDesc(AlertMessage.AlertStatus status);
+    
+    /**
+     * 更新规则警报的级别、触发次数、最近值和状态，不读取实体
+     */
+    @Modifying
+    @Query("UPDATE AlertMessage a SET a.level = :level, a.occurrenceCount = :occurrenceCount, "
+            + "a.lastValue = :lastValue, a.lastOccurredAt = :lastOccurredAt, a.status = :status, "
+            + "a.closedAt = :closedAt WHERE a.id = :id")
+    int updateOccurrence(@Param("id") Long id,
+                         @Param("level") AlertMessage.AlertLevel level,
+                         @Param("occurrenceCount") Long occurrenceCount,
+                         @Param("lastValue") Double lastValue,
+                         @Param("lastOccurredAt") LocalDateTime lastOccurredAt,
+                         @Param("status") AlertMessage.AlertStatus status,
+                         @Param("closedAt") LocalDateTime closedAt);
+    
     /**
      * 标记警报为已读
      */
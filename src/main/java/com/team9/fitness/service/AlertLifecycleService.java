@@ -0,0 +1,375 @@
+package com.team9.fitness.service;
+
+import com.team9.fitness.alert.AlertRule;
+import com.team9.fitness.alert.AlertRuleListener;
+import com.team9.fitness.entity.AlertMessage;
+import com.team9.fitness.entity.SensorData;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 警报生命周期服务
+ * 每个(规则, 设备)同一时间只有一条打开的警报：首次触发时打开并插入一行，之后的触发只累加次数和最近值，
+ * 规则恢复时关闭。关闭后冷却期内再次触发会重新打开同一条警报，冷却期过后才生成新警报。
+ * 触发只修改内存中的状态，由定时任务合并写入数据库和推送，每轮写入和推送的条数都有上限，
+ * 警报风暴时超出上限的推送合并为一条汇总消息，未写入的修改留到下一轮
+ */
+@Service
+public class AlertLifecycleService implements AlertRuleListener {
+
+    private static final Logger log = LoggerFactory.getLogger(AlertLifecycleService.class);
+
+    @Autowired
+    private AlertMessageService alertMessageService;
+
+    @Autowired
+    private WebSocketService webSocketService;
+
+    // 警报关闭后的冷却期，期间再次触发重新打开同一条警报
+    @Value("${alert.lifecycle.cooldown:60s}")
+    private String cooldown;
+
+    // 打开的警报超过这么久没有触发时自动关闭，例如设备离线
+    @Value("${alert.lifecycle.auto-close:10m}")
+    private String autoClose;
+
+    // 每轮最多写入的警报数
+    @Value("${alert.lifecycle.max-writes-per-flush:200}")
+    private int maxWritesPerFlush;
+
+    // 每轮最多推送的警报数，超出的合并为一条汇总消息
+    @Value("${alert.lifecycle.max-pushes-per-flush:20}")
+    private int maxPushesPerFlush;
+
+    // 按规则名、设备ID索引的警报
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, Incident>> incidents = new ConcurrentHashMap<>();
+
+    private final LongAdder fired = new LongAdder();
+    private final LongAdder opened = new LongAdder();
+    private final LongAdder reopened = new LongAdder();
+    private final LongAdder closed = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder writeFailures = new LongAdder();
+    private final LongAdder pushes = new LongAdder();
+    private final LongAdder stormFrames = new LongAdder();
+
+    // 解析后的冷却期和自动关闭时间，首次使用时解析
+    private volatile long cooldownMillis = -1;
+    private volatile long autoCloseMillis = -1;
+
+    /**
+     * 规则触发：没有打开的警报时打开一条，否则累加次数、记录最近值，级别只升不降
+     */
+    @Override
+    public void onFire(AlertRule rule, SensorData sensorData, AlertMessage.AlertLevel level, double measured) {
+        fired.increment();
+        ConcurrentHashMap<String, Incident> devices = incidents.get(rule.getName());
+        if (devices == null) {
+            devices = incidents.computeIfAbsent(rule.getName(), k -> new ConcurrentHashMap<>());
+        }
+        String deviceId = sensorData.getDeviceId() != null ? sensorData.getDeviceId() : "";
+        long now = System.currentTimeMillis();
+        while (true) {
+            Incident incident = devices.get(deviceId);
+            if (incident == null) {
+                Incident created = new Incident(alertMessageService.buildRuleAlert(rule, sensorData, level, measured),
+                        level, measured, now);
+                if (devices.putIfAbsent(deviceId, created) == null) {
+                    opened.increment();
+                    log.warn("警报打开: rule={}, device={}, level={}, value={}", rule.getName(), deviceId, level,
+                            measured);
+                    return;
+                }
+                continue;
+            }
+            synchronized (incident) {
+                if (incident.retired) {
+                    // 刷新任务刚好移除了这条已关闭的警报，重新查找
+                    devices.remove(deviceId, incident);
+                    continue;
+                }
+                if (!incident.open) {
+                    incident.open = true;
+                    incident.closedAtMillis = 0;
+                    incident.notify = true;
+                    reopened.increment();
+                }
+                if (level.ordinal() > incident.level.ordinal()) {
+                    incident.level = level;
+                    incident.notify = true;
+                }
+                incident.occurrences++;
+                incident.lastValue = measured;
+                incident.lastFiredMillis = now;
+                incident.dirty = true;
+            }
+            return;
+        }
+    }
+
+    /**
+     * 规则恢复：关闭打开的警报
+     */
+    @Override
+    public void onClear(AlertRule rule, SensorData sensorData, double measured) {
+        ConcurrentHashMap<String, Incident> devices = incidents.get(rule.getName());
+        if (devices == null) {
+            return;
+        }
+        Incident incident = devices.get(sensorData.getDeviceId() != null ? sensorData.getDeviceId() : "");
+        if (incident == null) {
+            return;
+        }
+        synchronized (incident) {
+            if (incident.open && !incident.retired) {
+                close(incident, System.currentTimeMillis());
+                log.info("警报关闭: rule={}, device={}, value={}, occurrences={}", rule.getName(),
+                        sensorData.getDeviceId(), measured, incident.occurrences);
+            }
+        }
+    }
+
+    private void close(Incident incident, long now) {
+        incident.open = false;
+        incident.closedAtMillis = now;
+        incident.dirty = true;
+        incident.notify = true;
+        closed.increment();
+    }
+
+    /**
+     * 把修改过的警报写入数据库并推送
+     * 新打开、升级、重新打开和关闭的警报推送给前端，只有次数和最近值变化的警报只写库不推送
+     */
+    @Scheduled(fixedDelayString = "${alert.lifecycle.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        long now = System.currentTimeMillis();
+        long cooldown = cooldownMillis();
+        long autoClose = autoCloseMillis();
+
+        List<Incident> flushed = new ArrayList<>();
+        List<Incident> notified = new ArrayList<>();
+        List<AlertMessage> batch = new ArrayList<>();
+        List<AlertMessage> notifications = new ArrayList<>();
+        int suppressed = 0;
+
+        for (ConcurrentHashMap<String, Incident> devices : incidents.values()) {
+            Iterator<Incident> it = devices.values().iterator();
+            while (it.hasNext()) {
+                Incident incident = it.next();
+                synchronized (incident) {
+                    if (incident.open && now - incident.lastFiredMillis > autoClose) {
+                        close(incident, now);
+                        log.info("警报长时间未触发，自动关闭: rule={}, device={}", incident.alert.getRuleName(),
+                                incident.alert.getDeviceId());
+                    }
+                    if (incident.dirty && batch.size() < maxWritesPerFlush) {
+                        incident.copyTo(incident.alert);
+                        incident.dirty = false;
+                        incident.inserting = incident.alert.getId() == null;
+                        flushed.add(incident);
+                        batch.add(incident.alert);
+                        if (incident.notify) {
+                            // 在锁内清除，保存期间触发线程重新置位的推送不会被覆盖；保存失败时恢复
+                            incident.notify = false;
+                            notified.add(incident);
+                            if (notifications.size() < maxPushesPerFlush) {
+                                notifications.add(incident.alert);
+                            } else {
+                                suppressed++;
+                            }
+                        }
+                    } else if (!incident.open && !incident.dirty && incident.alert.getId() != null
+                            && now - incident.closedAtMillis >= cooldown) {
+                        // 冷却期已过，之后的触发生成新警报
+                        incident.retired = true;
+                        it.remove();
+                    }
+                }
+            }
+        }
+
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            alertMessageService.saveRuleAlerts(batch);
+            writes.add(batch.size());
+        } catch (Exception e) {
+            writeFailures.add(batch.size());
+            log.error("保存警报失败，下一轮重试: count={}", batch.size(), e);
+            for (Incident incident : flushed) {
+                synchronized (incident) {
+                    incident.dirty = true;
+                    if (incident.inserting) {
+                        // 插入时已生成ID但事务已回滚，清除后下一轮重新插入
+                        incident.alert.setId(null);
+                    }
+                }
+            }
+            for (Incident incident : notified) {
+                synchronized (incident) {
+                    incident.notify = true;
+                }
+            }
+            return;
+        }
+
+        for (AlertMessage alert : notifications) {
+            webSocketService.pushAlertData(alert);
+        }
+        pushes.add(notifications.size());
+        if (suppressed > 0) {
+            Map<String, Object> storm = new LinkedHashMap<>();
+            storm.put("type", "ALERT_STORM");
+            storm.put("suppressed", suppressed);
+            storm.put("openAlerts", countOpen());
+            storm.put("timestamp", LocalDateTime.now());
+            webSocketService.pushAlertData(storm);
+            stormFrames.increment();
+            log.warn("警报风暴: 本轮{}条警报变化未单独推送", suppressed);
+        }
+    }
+
+    /**
+     * 停止前写入尚未保存的修改
+     */
+    @PreDestroy
+    public void shutdown() {
+        try {
+            for (int i = 0; i < 100 && hasDirty(); i++) {
+                flush();
+            }
+        } catch (Exception e) {
+            log.warn("停止时保存警报失败: {}", e.getMessage());
+        }
+    }
+
+    private boolean hasDirty() {
+        for (ConcurrentHashMap<String, Incident> devices : incidents.values()) {
+            for (Incident incident : devices.values()) {
+                synchronized (incident) {
+                    if (incident.dirty) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private int countOpen() {
+        int open = 0;
+        for (ConcurrentHashMap<String, Incident> devices : incidents.values()) {
+            for (Incident incident : devices.values()) {
+                synchronized (incident) {
+                    if (incident.open) {
+                        open++;
+                    }
+                }
+            }
+        }
+        return open;
+    }
+
+    private long cooldownMillis() {
+        long millis = cooldownMillis;
+        if (millis < 0) {
+            millis = DurationStyle.detectAndParse(cooldown).toMillis();
+            cooldownMillis = millis;
+        }
+        return millis;
+    }
+
+    private long autoCloseMillis() {
+        long millis = autoCloseMillis;
+        if (millis < 0) {
+            millis = DurationStyle.detectAndParse(autoClose).toMillis();
+            autoCloseMillis = millis;
+        }
+        return millis;
+    }
+
+    /**
+     * 统计：触发、打开、重新打开、关闭的次数，写库和推送的条数，当前打开的警报数
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("fired", fired.sum());
+        stats.put("opened", opened.sum());
+        stats.put("reopened", reopened.sum());
+        stats.put("closed", closed.sum());
+        stats.put("writes", writes.sum());
+        stats.put("writeFailures", writeFailures.sum());
+        stats.put("pushes", pushes.sum());
+        stats.put("stormFrames", stormFrames.sum());
+        stats.put("open", countOpen());
+        stats.put("tracked", incidents.values().stream().mapToInt(Map::size).sum());
+        return stats;
+    }
+
+    /**
+     * 一条警报的内存状态
+     * 触发线程在对象锁内修改基本类型字段，警报实体只由刷新任务读写
+     */
+    private static final class Incident {
+
+        final AlertMessage alert;
+        AlertMessage.AlertLevel level;
+        long occurrences = 1;
+        double lastValue;
+        long lastFiredMillis;
+        boolean open = true;
+        long closedAtMillis;
+
+        // 有未写入的修改
+        boolean dirty = true;
+
+        // 有需要推送的状态变化
+        boolean notify = true;
+
+        // 本轮刷新中警报尚未入库，保存失败时需要清除生成的ID
+        boolean inserting;
+
+        // 已从索引中移除
+        boolean retired;
+
+        Incident(AlertMessage alert, AlertMessage.AlertLevel level, double value, long now) {
+            this.alert = alert;
+            this.level = level;
+            this.lastValue = value;
+            this.lastFiredMillis = now;
+        }
+
+        void copyTo(AlertMessage alert) {
+            alert.setLevel(level);
+            alert.setOccurrenceCount(occurrences);
+            alert.setLastValue(lastValue);
+            alert.setLastOccurredAt(toDateTime(lastFiredMillis));
+            alert.setStatus(open ? AlertMessage.AlertStatus.OPEN : AlertMessage.AlertStatus.CLOSED);
+            alert.setClosedAt(open ? null : toDateTime(closedAtMillis));
+        }
+
+        private static LocalDateTime toDateTime(long millis) {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+        }
+    }
+}
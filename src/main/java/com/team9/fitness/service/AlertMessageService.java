@@ -1,5 +1,6 @@
 package com.team9.fitness.service;
 
+import com.team9.fitness.alert.AlertRule;
 import com.team9.fitness.entity.AlertMessage;
 import com.team9.fitness.entity.SensorData;
 import com.team9.fitness.repository.AlertMessageRepository;
@@ -7,6 +8,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
@@ -57,6 +59,85 @@ public class AlertMessageService {
         return createAlert(alert);
     }
 
+    /**
+     * 根据触发的警报规则生成警报，不保存
+     * 规则触发后才调用，标题和内容按规则的度量类型生成
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public AlertMessage buildRuleAlert(AlertRule rule, SensorData sensorData, AlertMessage.AlertLevel level,
+            double measured) {
+        String sensor = sensorData.getSensorType().getDescription();
+        String unit = sensorData.getUnit() != null ? sensorData.getUnit() : "";
+        String direction = rule.isAbove() ? "超过" : "低于";
+        String title;
+        String content;
+        switch (rule.getMeasure()) {
+            case MEAN:
+                title = String.format("%s平均值警报", sensor);
+                content = String.format("%s最近%d个样本平均值%.2f%s%s阈值%.2f%s", sensor, rule.getSamples(),
+                        measured, unit, direction, rule.getThreshold(), unit);
+                break;
+            case RATE:
+                title = String.format("%s变化率警报", sensor);
+                content = String.format("%s变化率%.2f%s/秒%s阈值%.2f%s/秒", sensor, measured, unit, direction,
+                        rule.getThreshold(), unit);
+                break;
+            default:
+                title = String.format("%s传感器警报", sensor);
+                content = String.format("%s传感器数值%.2f%s%s阈值%.2f%s", sensor, measured, unit, direction,
+                        rule.getThreshold(), unit);
+        }
+        if (sensorData.getDeviceId() != null) {
+            content += String.format("（设备: %s，规则: %s）", sensorData.getDeviceId(), rule.getName());
+        } else {
+            content += String.format("（规则: %s）", rule.getName());
+        }
+
+        AlertMessage alert = AlertMessage.builder()
+                .level(level)
+                .title(title)
+                .content(content)
+                .sensorType(sensorData.getSensorType())
+                .triggerValue(measured)
+                .threshold(rule.getThreshold())
+                .isRead(false)
+                .ruleName(rule.getName())
+                .deviceId(sensorData.getDeviceId())
+                .status(AlertMessage.AlertStatus.OPEN)
+                .occurrenceCount(1L)
+                .lastValue(measured)
+                .build();
+        return alert;
+    }
+
+    /**
+     * 在一个事务中保存一批规则警报：没有ID的插入，已有ID的只更新级别、触发次数、最近值和状态
+     * 已有ID但数据库中没有对应行（例如被手动删除）时重新插入
+     */
+    public void saveRuleAlerts(List<AlertMessage> alerts) {
+        for (AlertMessage alert : alerts) {
+            if (alert.getId() != null) {
+                int updated = alertMessageRepository.updateOccurrence(alert.getId(), alert.getLevel(),
+                        alert.getOccurrenceCount(), alert.getLastValue(), alert.getLastOccurredAt(), alert.getStatus(),
+                        alert.getClosedAt());
+                if (updated > 0) {
+                    continue;
+                }
+                log.warn("警报记录不存在，重新插入: id={}, rule={}", alert.getId(), alert.getRuleName());
+                alert.setId(null);
+            }
+            alertMessageRepository.save(alert);
+        }
+    }
+
+    /**
+     * 获取打开的警报
+     */
+    @Transactional(readOnly = true)
+    public List<AlertMessage> getOpenAlerts() {
+        return alertMessageRepository.findByStatusOrderByCreatedAtDesc(AlertMessage.AlertStatus.OPEN);
+    }
+
     /**
      * 获取未读警报
      */
@@ -0,0 +1,149 @@
+package com.team9.fitness.service;
+
+import com.team9.fitness.alert.AlertRule;
+import com.team9.fitness.alert.AlertRuleListener;
+import com.team9.fitness.alert.AlertRuleSet;
+import com.team9.fitness.entity.SensorData;
+import com.team9.fitness.metrics.EpochClock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 警报规则引擎
+ * 规则来自system_config中alert.rule.*的配置，编译为按传感器类型分组的规则集。
+ * 每个样本先比较配置快照的版本号，版本变化时重新编译并替换规则集，修改规则或阈值不需要重启。
+ * 某条规则编译失败时记录原因并保留它上一次的编译结果；没有配置任何规则时使用默认规则
+ */
+@Service
+public class AlertRuleEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(AlertRuleEngine.class);
+
+    /**
+     * 采集时刻未知，由createdAt换算
+     */
+    public static final long UNKNOWN_SAMPLE_TIME = -1;
+
+    // 系统时区的规则，换算LocalDateTime时不再每个样本查找时区
+    private static final ZoneRules ZONE_RULES = ZoneId.systemDefault().getRules();
+
+    /**
+     * 默认规则，与原先硬编码的检查一致：样本值超过阈值时警告，超过1.2倍时升级为错误；最近10个样本的均值超过阈值时警告
+     */
+    public static final Map<String, String> DEFAULT_RULES;
+
+    static {
+        Map<String, String> rules = new LinkedHashMap<>();
+        rules.put(AlertRule.CONFIG_PREFIX + "temperature-threshold",
+                "sensor=TEMPERATURE;above=${sensor.temperature.threshold};escalate=ERROR:*1.2");
+        rules.put(AlertRule.CONFIG_PREFIX + "temperature-average",
+                "sensor=TEMPERATURE;measure=mean;samples=10;above=${sensor.temperature.threshold}");
+        rules.put(AlertRule.CONFIG_PREFIX + "humidity-threshold",
+                "sensor=HUMIDITY;above=${sensor.humidity.threshold};escalate=ERROR:*1.2");
+        rules.put(AlertRule.CONFIG_PREFIX + "humidity-average",
+                "sensor=HUMIDITY;measure=mean;samples=10;above=${sensor.humidity.threshold}");
+        DEFAULT_RULES = Collections.unmodifiableMap(rules);
+    }
+
+    @Autowired
+    private SystemConfigService systemConfigService;
+
+    private volatile AlertRuleSet ruleSet = AlertRuleSet.empty();
+
+    /**
+     * 用一个传感器样本对规则求值，规则触发或恢复时回调listener
+     */
+    public void evaluate(SensorData sensorData, AlertRuleListener listener) {
+        evaluate(sensorData, UNKNOWN_SAMPLE_TIME, listener);
+    }
+
+    /**
+     * 用一个传感器样本对规则求值，sampleMicros为解码时得到的采集时刻（纪元微秒），未知时传UNKNOWN_SAMPLE_TIME
+     */
+    public void evaluate(SensorData sensorData, long sampleMicros, AlertRuleListener listener) {
+        Double value = sensorData.getValue();
+        if (value == null || sensorData.getSensorType() == null) {
+            return;
+        }
+        long sampleNanos = sampleMicros >= 0 ? sampleMicros * 1_000L : sampleNanos(sensorData);
+        currentRuleSet().evaluate(sensorData, value, sampleNanos, listener);
+    }
+
+    /**
+     * 样本的采集时刻（纪元纳秒），没有采集时间时使用当前时间
+     * 接收流水线按批处理，相邻样本的求值时间可能只差几微秒，变化率和持续时间必须按采集时刻计算。
+     * 按缓存的时区规则直接换算，不创建ZonedDateTime和Instant
+     */
+    private static long sampleNanos(SensorData sensorData) {
+        LocalDateTime createdAt = sensorData.getCreatedAt();
+        if (createdAt == null) {
+            return EpochClock.epochMicros() * 1_000L;
+        }
+        return createdAt.toEpochSecond(ZONE_RULES.getOffset(createdAt)) * 1_000_000_000L + createdAt.getNano();
+    }
+
+    /**
+     * 当前规则集，配置快照版本变化时重新编译
+     */
+    public AlertRuleSet currentRuleSet() {
+        AlertRuleSet current = ruleSet;
+        SystemConfigSnapshot snapshot = systemConfigService.getSnapshot();
+        if (snapshot == null || snapshot.getVersion() == current.getConfigVersion()) {
+            return current;
+        }
+        return recompile(snapshot);
+    }
+
+    /**
+     * 从配置快照编译规则集，多个线程同时发现版本变化时只编译一次
+     */
+    private synchronized AlertRuleSet recompile(SystemConfigSnapshot snapshot) {
+        AlertRuleSet previous = ruleSet;
+        if (previous.getConfigVersion() >= snapshot.getVersion()) {
+            return previous;
+        }
+
+        Map<String, String> specs = snapshot.getValues(AlertRule.CONFIG_PREFIX);
+        if (specs.isEmpty()) {
+            specs = DEFAULT_RULES;
+        }
+        AlertRuleSet compiled = AlertRuleSet.compile(snapshot.getVersion(), specs, snapshot::getDouble, previous);
+        compiled.getErrors().forEach((name, error) ->
+                log.warn("警报规则编译失败: rule={}, error={}", name, error));
+        ruleSet = compiled;
+        log.info("警报规则已编译: configVersion={}, rules={}, errors={}", snapshot.getVersion(),
+                compiled.getRules().size(), compiled.getErrors().size());
+        return compiled;
+    }
+
+    /**
+     * 当前规则、编译错误和触发状态，供REST接口查看
+     */
+    public Map<String, Object> getRules() {
+        AlertRuleSet current = currentRuleSet();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("configVersion", current.getConfigVersion());
+        result.put("compiledAt", current.getCompiledAt());
+        List<Map<String, Object>> rules = new ArrayList<>();
+        Map<String, Integer> active = current.getActiveCounts();
+        for (AlertRule rule : current.getRules()) {
+            Map<String, Object> map = rule.toMap();
+            map.put("activeDevices", active.getOrDefault(rule.getName(), 0));
+            rules.add(map);
+        }
+        result.put("rules", rules);
+        result.put("errors", current.getErrors());
+        return result;
+    }
+}
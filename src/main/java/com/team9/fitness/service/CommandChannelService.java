@@ -0,0 +1,341 @@
+package com.team9.fitness.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.team9.fitness.dto.CommandReply;
+import com.team9.fitness.dto.CommandRequest;
+import com.zrdds.infrastructure.SampleInfo;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 控制命令请求/应答服务
+ * 请求带关联ID发布到Control/Request，各节点执行后把结果发布到Control/Reply，
+ * 发出节点按关联ID在待应答表中找到请求并结束对应的Future
+ */
+@Service
+public class CommandChannelService {
+
+    private static final Logger log = LoggerFactory.getLogger(CommandChannelService.class);
+
+    public static final String REQUEST_TOPIC = "Control/Request";
+    public static final String REPLY_TOPIC = "Control/Reply";
+
+    @Autowired
+    private ZRDDSService zrddsService;
+
+    @Autowired
+    private DataListenerService dataListenerService;
+
+    @Value("${zrdds.command.node-id:}")
+    private String configuredNodeId;
+
+    @Value("${zrdds.command.timeout-ms:5000}")
+    private long defaultTimeoutMs;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // 待应答的请求，按关联ID索引，应答收齐或超时后移除
+    private final ConcurrentHashMap<String, PendingCommand> pending = new ConcurrentHashMap<>();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    // 所有请求共用一个超时线程，请求提前结束时取消并移除超时任务
+    private final ScheduledThreadPoolExecutor timeoutScheduler = createTimeoutScheduler();
+
+    private final LongAdder sentRequests = new LongAdder();
+    private final LongAdder receivedReplies = new LongAdder();
+    private final LongAdder failedReplies = new LongAdder();
+    private final LongAdder lateReplies = new LongAdder();
+    private final LongAdder timedOutRequests = new LongAdder();
+    private final LongAdder executedRequests = new LongAdder();
+
+    private volatile String nodeId;
+
+    /**
+     * 初始化命令通道
+     * ZRDDS传输层就绪后订阅请求和应答主题
+     */
+    public void initialize() {
+        nodeId = configuredNodeId == null || configuredNodeId.isBlank()
+                ? ManagementFactory.getRuntimeMXBean().getName()
+                : configuredNodeId;
+        log.info("初始化命令通道: nodeId={}", nodeId);
+
+        zrddsService.whenReady().whenComplete((v, e) -> {
+            if (e != null) {
+                log.error("ZRDDS传输层启动失败，命令通道不可用", e);
+                return;
+            }
+            try {
+                zrddsService.subscribeTopic(REQUEST_TOPIC, "CommandChannelService", this::onRequest);
+                zrddsService.subscribeTopic(REPLY_TOPIC, "CommandChannelService", this::onReply);
+                log.info("命令通道初始化完成");
+            } catch (Exception ex) {
+                log.error("订阅命令通道主题失败", ex);
+            }
+        });
+    }
+
+    /**
+     * 向指定节点发送命令，使用默认超时
+     */
+    public CompletableFuture<CommandReply> request(String command, String targetNode) {
+        return request(command, targetNode, defaultTimeoutMs);
+    }
+
+    /**
+     * 向指定节点发送命令，返回的Future在收到应答后结束，超时未应答时以TimeoutException结束
+     * targetNode为空时由第一个应答的节点结束Future
+     */
+    public CompletableFuture<CommandReply> request(String command, String targetNode, long timeoutMs) {
+        return requestAll(command, targetNode, 1, timeoutMs).thenApply(replies -> replies.get(0));
+    }
+
+    /**
+     * 向所有节点广播命令，使用默认超时
+     */
+    public CompletableFuture<List<CommandReply>> broadcast(String command, int expectedReplies) {
+        return requestAll(command, null, expectedReplies, defaultTimeoutMs);
+    }
+
+    /**
+     * 发送命令并等待expectedReplies个应答
+     * 收齐时Future以全部应答结束；超时时已有应答则以已收到的应答结束，一个都没有则以TimeoutException结束
+     */
+    public CompletableFuture<List<CommandReply>> requestAll(String command, String targetNode,
+                                                           int expectedReplies, long timeoutMs) {
+        if (command == null || command.trim().isEmpty()) {
+            throw new IllegalArgumentException("命令不能为空");
+        }
+        if (expectedReplies < 1) {
+            throw new IllegalArgumentException("期望的应答数必须大于0: " + expectedReplies);
+        }
+        if (nodeId == null) {
+            throw new IllegalStateException("命令通道未初始化");
+        }
+
+        CommandRequest request = new CommandRequest();
+        request.setCorrelationId(nodeId + "-" + sequence.incrementAndGet());
+        request.setSourceNode(nodeId);
+        request.setTargetNode(targetNode == null || targetNode.isBlank() ? null : targetNode);
+        request.setCommand(command);
+        request.setIssuedAt(System.currentTimeMillis());
+
+        // 先登记再发布，避免应答先于登记到达
+        PendingCommand pendingCommand = new PendingCommand(request.getCorrelationId(), expectedReplies);
+        pending.put(pendingCommand.correlationId, pendingCommand);
+        pendingCommand.timeout = timeoutScheduler.schedule(
+                () -> expire(pendingCommand.correlationId), timeoutMs, TimeUnit.MILLISECONDS);
+        pendingCommand.future.whenComplete((replies, e) -> {
+            pending.remove(pendingCommand.correlationId, pendingCommand);
+            pendingCommand.timeout.cancel(false);
+        });
+
+        try {
+            zrddsService.publishData(REQUEST_TOPIC, request);
+            sentRequests.increment();
+            log.debug("发送命令请求: correlationId={}, command={}, target={}",
+                    request.getCorrelationId(), command, request.getTargetNode());
+        } catch (Exception e) {
+            pendingCommand.future.completeExceptionally(e);
+        }
+        return pendingCommand.future;
+    }
+
+    /**
+     * 当前待应答的请求数
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * 本节点ID
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 默认应答超时（毫秒）
+     */
+    public long getDefaultTimeoutMs() {
+        return defaultTimeoutMs;
+    }
+
+    /**
+     * 获取命令通道统计
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("nodeId", nodeId);
+        stats.put("pending", pending.size());
+        stats.put("sentRequests", sentRequests.sum());
+        stats.put("receivedReplies", receivedReplies.sum());
+        stats.put("failedReplies", failedReplies.sum());
+        stats.put("lateReplies", lateReplies.sum());
+        stats.put("timedOutRequests", timedOutRequests.sum());
+        stats.put("executedRequests", executedRequests.sum());
+        return stats;
+    }
+
+    /**
+     * 处理命令请求：执行命令并发布应答
+     */
+    private void onRequest(String topicName, ByteBuffer view, SampleInfo info) {
+        CommandRequest request;
+        try {
+            request = objectMapper.readValue(new ByteBufferBackedInputStream(view.duplicate()), CommandRequest.class);
+        } catch (Exception e) {
+            zrddsService.recordDecodeFailure(topicName);
+            log.error("解析命令请求失败: size={}", view.remaining(), e);
+            return;
+        }
+        if (request.getTargetNode() != null && !request.getTargetNode().equals(nodeId)) {
+            return;
+        }
+
+        CommandReply reply = new CommandReply();
+        reply.setCorrelationId(request.getCorrelationId());
+        reply.setSourceNode(request.getSourceNode());
+        reply.setNode(nodeId);
+        try {
+            reply.setMessage(dataListenerService.executeControlCommand(request.getCommand()));
+            reply.setSuccess(true);
+        } catch (Exception e) {
+            log.warn("执行命令失败: correlationId={}, command={}, error={}",
+                    request.getCorrelationId(), request.getCommand(), e.getMessage());
+            reply.setMessage(e.getMessage());
+            reply.setSuccess(false);
+        }
+        reply.setCompletedAt(System.currentTimeMillis());
+        executedRequests.increment();
+
+        try {
+            zrddsService.publishData(REPLY_TOPIC, reply);
+        } catch (Exception e) {
+            log.error("发布命令应答失败: correlationId={}", reply.getCorrelationId(), e);
+        }
+    }
+
+    /**
+     * 处理命令应答：只处理本节点发出的请求
+     */
+    private void onReply(String topicName, ByteBuffer view, SampleInfo info) {
+        CommandReply reply;
+        try {
+            reply = objectMapper.readValue(new ByteBufferBackedInputStream(view.duplicate()), CommandReply.class);
+        } catch (Exception e) {
+            zrddsService.recordDecodeFailure(topicName);
+            log.error("解析命令应答失败: size={}", view.remaining(), e);
+            return;
+        }
+        if (!nodeId.equals(reply.getSourceNode())) {
+            return;
+        }
+
+        PendingCommand pendingCommand = pending.get(reply.getCorrelationId());
+        if (pendingCommand == null) {
+            lateReplies.increment();
+            log.debug("收到已超时或未知请求的应答: correlationId={}, node={}",
+                    reply.getCorrelationId(), reply.getNode());
+            return;
+        }
+        receivedReplies.increment();
+        if (!reply.isSuccess()) {
+            failedReplies.increment();
+        }
+        pendingCommand.add(reply);
+    }
+
+    /**
+     * 请求超时：移出待应答表并以已收到的应答或TimeoutException结束
+     */
+    private void expire(String correlationId) {
+        PendingCommand pendingCommand = pending.remove(correlationId);
+        if (pendingCommand != null && pendingCommand.expire()) {
+            timedOutRequests.increment();
+            log.warn("命令请求超时: correlationId={}, replies={}/{}",
+                    correlationId, pendingCommand.replyCount(), pendingCommand.expectedReplies);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timeoutScheduler.shutdownNow();
+        pending.values().forEach(p -> p.future.completeExceptionally(new IllegalStateException("命令通道已关闭")));
+        pending.clear();
+    }
+
+    private static ScheduledThreadPoolExecutor createTimeoutScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "ZRDDS-CommandTimeout");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    /**
+     * 一个待应答的请求
+     */
+    private static final class PendingCommand {
+
+        final String correlationId;
+        final int expectedReplies;
+        final CompletableFuture<List<CommandReply>> future = new CompletableFuture<>();
+        private final List<CommandReply> replies;
+        volatile ScheduledFuture<?> timeout;
+
+        PendingCommand(String correlationId, int expectedReplies) {
+            this.correlationId = correlationId;
+            this.expectedReplies = expectedReplies;
+            this.replies = new ArrayList<>(expectedReplies);
+        }
+
+        synchronized void add(CommandReply reply) {
+            if (future.isDone()) {
+                return;
+            }
+            replies.add(reply);
+            if (replies.size() >= expectedReplies) {
+                future.complete(new ArrayList<>(replies));
+            }
+        }
+
+        synchronized boolean expire() {
+            if (future.isDone()) {
+                return false;
+            }
+            if (replies.isEmpty()) {
+                return future.completeExceptionally(new TimeoutException("命令请求超时: " + correlationId));
+            }
+            return future.complete(new ArrayList<>(replies));
+        }
+
+        synchronized int replyCount() {
+            return replies.size();
+        }
+    }
+}
@@ -1,17 +1,32 @@
 package com.team9.fitness.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.team9.fitness.codec.SensorBinaryCodec;
+import com.team9.fitness.codec.SensorSample;
 import com.team9.fitness.entity.AlertMessage;
 import com.team9.fitness.entity.SensorData;
+import com.team9.fitness.metrics.SlidingWindowStats;
+import com.team9.fitness.pipeline.KeyedPipeline;
+import com.team9.fitness.transport.PayloadFormat;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * 数据监听器服务
@@ -34,12 +49,62 @@ public class DataListenerService implements ZRDDSService.DataListener {
     @Autowired
     private ZRDDSService zrddsService;
 
+    @Autowired
+    private AlertRuleEngine alertRuleEngine;
+
+    @Autowired
+    private AlertLifecycleService alertLifecycleService;
+
+    @Autowired
+    private SensorDataService sensorDataService;
+
+    // 虚拟线程模式下创建虚拟线程，用于会阻塞在数据库上的持久化阶段
+    @Autowired
+    private ThreadFactory blockingThreadFactory;
+
     private final ObjectMapper objectMapper = new ObjectMapper()
             .registerModule(new com.fasterxml.jackson.datatype.jsr310.JavaTimeModule());
 
-    // 存储最近的数据用于计算平均值
-    private final ConcurrentHashMap<String, AtomicInteger> dataCounters = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<String, Double> dataSums = new ConcurrentHashMap<>();
+    // 每条通道预分配的事件数
+    @Value("${sensor.ingest.capacity:1024}")
+    private int ingestCapacity;
+
+    // 流水线每个阶段一次最多处理的事件数
+    @Value("${sensor.ingest.batch-size:64}")
+    private int ingestBatchSize;
+
+    // 每个传感器主题的通道数，0表示使用CPU核数
+    @Value("${sensor.ingest.lanes:0}")
+    private int ingestLanes;
+
+    // 是否在接收端保存传感器数据；发布端已经保存时关闭，避免重复写入
+    @Value("${sensor.ingest.persist:false}")
+    private boolean ingestPersist;
+
+    // 按主题名索引的传感器接收流水线
+    private final Map<String, KeyedPipeline<SensorIngestEvent>> pipelines = new ConcurrentHashMap<>();
+
+    // 统计窗口，例如1m,5m,1h；第一个窗口的均值用于getAverageValue
+    @Value("${sensor.stats.windows:1m,5m,1h}")
+    private String[] statsWindows;
+
+    // 统计窗口的槽宽，窗口按槽对齐
+    @Value("${sensor.stats.slot:10s}")
+    private String statsSlot;
+
+    // 解析后的统计窗口，首次使用时解析
+    private volatile long[] windows;
+
+    // 每种传感器类型最多单独统计的设备数，超过后新设备只计入类型汇总
+    @Value("${sensor.stats.max-devices:1024}")
+    private int statsMaxDevices;
+
+    // 按传感器类型汇总的滑动窗口统计
+    private final ConcurrentHashMap<String, SlidingWindowStats> dataStats = new ConcurrentHashMap<>();
+
+    // 按(传感器类型, 设备ID)的滑动窗口统计，传感器类型 -> 设备ID -> 统计，没有设备ID的样本记在空字符串下
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, SlidingWindowStats>> deviceStats =
+            new ConcurrentHashMap<>();
 
     // 阈值配置键
     private static final String TEMPERATURE_THRESHOLD_KEY = "sensor.temperature.threshold";
@@ -47,20 +112,28 @@ public class DataListenerService implements ZRDDSService.DataListener {
 
     /**
      * 初始化数据监听器
+     * ZRDDS传输层在后台启动，就绪后再订阅主题，不阻塞调用方
      */
     public void initialize() {
         log.info("初始化数据监听器...");
 
-        // 等待ZRDDS服务初始化完成
-        if (!zrddsService.isInitialized()) {
-            log.warn("ZRDDS服务未初始化，等待初始化完成...");
-            return;
-        }
+        zrddsService.whenReady().whenComplete((v, e) -> {
+            if (e != null) {
+                log.error("ZRDDS传输层启动失败，数据监听器不订阅主题", e);
+                return;
+            }
+            subscribeTopics();
+        });
+    }
 
-        // 订阅传感器主题
+    /**
+     * 订阅传感器、控制和警报主题
+     */
+    private void subscribeTopics() {
         try {
-            zrddsService.subscribeTopic("Sensor/Temperature", this);
-            zrddsService.subscribeTopic("Sensor/Humidity", this);
+            // 传感器主题交给各自的接收流水线，投递线程只拷贝样本
+            subscribeSensorTopic("Sensor/Temperature", "temperature");
+            subscribeSensorTopic("Sensor/Humidity", "humidity");
             zrddsService.subscribeTopic("Control/Command", this);
             zrddsService.subscribeTopic("Alert/Message", this);
 
@@ -71,97 +144,186 @@ public class DataListenerService implements ZRDDSService.DataListener {
     }
 
     /**
-     * 处理接收到的数据
+     * 为传感器主题创建按设备分区的接收流水线并订阅
+     * 投递线程解码样本后按设备和传感器类型分配通道，统计、规则求值、持久化和推送在每条通道中各一个线程按批处理，
+     * 持久化阶段在虚拟线程模式下使用虚拟线程。
+     * 不同设备并行处理，同一设备的样本始终在同一条通道中按顺序处理，窗口统计和规则的迟滞状态不受影响
      */
-    @Override
-    public void onDataReceived(String topicName, Object data) {
-        log.info("接收到数据: topic={}, data={}", topicName, data);
-
-        try {
-            switch (topicName) {
-                case "Sensor/Temperature":
-                    handleTemperatureData(data);
-                    break;
-                case "Sensor/Humidity":
-                    handleHumidityData(data);
-                    break;
-                case "Control/Command":
-                    handleControlCommand(data);
-                    break;
-                case "Alert/Message":
-                    handleAlertMessage(data);
-                    break;
-                default:
-                    log.warn("未知主题: {}", topicName);
-            }
-        } catch (Exception e) {
-            log.error("处理数据失败: topic={}, data={}", topicName, data, e);
-        }
+    private void subscribeSensorTopic(String topicName, String sensorType) {
+        int lanes = ingestLanes > 0 ? ingestLanes : Runtime.getRuntime().availableProcessors();
+        KeyedPipeline<SensorIngestEvent> pipeline = new KeyedPipeline<>(topicName, lanes, ingestCapacity,
+                ingestBatchSize, SensorIngestEvent::new)
+                .stage("enrich", this::enrichStage)
+                .stage("evaluate", this::evaluateStage)
+                .stage("persist", this::persistStage, blockingThreadFactory)
+                .stage("fanout", this::fanOutStage);
+        pipeline.start();
+        pipelines.put(topicName, pipeline);
+        SensorTopicIngest ingest = new SensorTopicIngest(pipeline, topicName, sensorType);
+        zrddsService.subscribeTopic(topicName, "DataListenerService", (topic, view, info) -> ingest.submit(view));
     }
 
     /**
-     * 处理温度数据
+     * 一个传感器主题的提交端，只在该主题的投递线程中使用，解码用的样本和缓冲区在线程内复用
      */
-    private void handleTemperatureData(Object data) {
-        try {
-            SensorData sensorData = null;
+    private final class SensorTopicIngest {
+
+        private final KeyedPipeline<SensorIngestEvent> pipeline;
+        private final String topicName;
+        private final String sensorType;
+        private final SensorSample sample = new SensorSample();
+        private byte[] buffer = new byte[256];
+        // 最近一次解码得到的采集时刻，JSON样本没有
+        private long decodedMicros;
+
+        SensorTopicIngest(KeyedPipeline<SensorIngestEvent> pipeline, String topicName, String sensorType) {
+            this.pipeline = pipeline;
+            this.topicName = topicName;
+            this.sensorType = sensorType;
+        }
 
-            if (data instanceof SensorData) {
-                sensorData = (SensorData) data;
-            } else if (data instanceof String) {
-                // 尝试解析JSON字符串
-                sensorData = objectMapper.readValue((String) data, SensorData.class);
+        /**
+         * 解码样本并放入所属设备的通道，通道全部在途时等待
+         */
+        void submit(ByteBuffer view) {
+            long receivedNanos = zrddsService.currentReceivedNanos();
+            SensorData sensorData = decode(view);
+            if (sensorData == null) {
+                return;
             }
+            int lane = pipeline.laneOf(31 * Objects.hashCode(sensorData.getDeviceId()) + sensorType.hashCode());
+            SensorIngestEvent event = pipeline.claim(lane);
+            if (event == null) {
+                return;
+            }
+            event.topicName = topicName;
+            event.sensorType = sensorType;
+            event.receivedNanos = receivedNanos;
+            event.sampleMicros = decodedMicros;
+            event.sensorData = sensorData;
+            pipeline.publish(lane, event);
+        }
 
-            if (sensorData != null) {
-                // 更新统计数据
-                updateDataStats("temperature", sensorData.getValue());
+        /**
+         * 二进制编码直接从视图解码，JSON拷贝到复用的缓冲区后由Jackson解析；失败时返回null
+         */
+        private SensorData decode(ByteBuffer view) {
+            int length = view.remaining();
+            decodedMicros = AlertRuleEngine.UNKNOWN_SAMPLE_TIME;
+            try {
+                if (PayloadFormat.detect(view) == PayloadFormat.SENSOR_BINARY) {
+                    SensorBinaryCodec.decode(view, sample);
+                    decodedMicros = sample.getEpochMicros();
+                    return sample.toSensorData();
+                }
+                if (buffer.length < length) {
+                    buffer = new byte[Math.max(length, buffer.length * 2)];
+                }
+                view.get(view.position(), buffer, 0, length);
+                return objectMapper.readValue(buffer, 0, length, SensorData.class);
+            } catch (Exception e) {
+                zrddsService.recordDecodeFailure(topicName);
+                log.error("解析传感器数据失败: topic={}, size={}", topicName, length, e);
+                return null;
+            }
+        }
+    }
 
-                // 检查阈值并创建警报
-                checkThresholdAndCreateAlert(sensorData, TEMPERATURE_THRESHOLD_KEY);
+    /**
+     * 补充阶段：更新滑动窗口统计
+     */
+    private void enrichStage(SensorIngestEvent[] batch, int count) {
+        for (int i = 0; i < count; i++) {
+            SensorIngestEvent event = batch[i];
+            log.debug("接收到数据: topic={}, data={}", event.topicName, event.sensorData);
+            updateDataStats(event.sensorType, event.sensorData.getDeviceId(), event.sensorData.getValue());
+        }
+    }
 
-                // 推送WebSocket消息
-                webSocketService.pushTemperatureData(sensorData);
+    /**
+     * 规则求值阶段：触发和恢复由警报生命周期服务合并处理
+     * 同一设备的样本只在所属通道的线程中求值，规则的设备状态只有一个写入线程
+     */
+    private void evaluateStage(SensorIngestEvent[] batch, int count) {
+        for (int i = 0; i < count; i++) {
+            alertRuleEngine.evaluate(batch[i].sensorData, batch[i].sampleMicros, alertLifecycleService);
+        }
+    }
 
-                log.debug("处理温度数据: {:.2f}°C", sensorData.getValue());
-            } else {
-                log.warn("无法解析温度数据: {}", data);
+    /**
+     * 持久化阶段：开启sensor.ingest.persist时整批在一个事务中保存
+     */
+    private void persistStage(SensorIngestEvent[] batch, int count) {
+        if (!ingestPersist) {
+            return;
+        }
+        List<SensorData> persistBatch = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            persistBatch.add(batch[i].sensorData);
+        }
+        try {
+            sensorDataService.saveSensorDataBatch(persistBatch);
+            for (int i = 0; i < count; i++) {
+                zrddsService.recordReceiveToPersist(batch[i].topicName, batch[i].receivedNanos);
             }
         } catch (Exception e) {
-            log.error("处理温度数据失败: {}", data, e);
+            log.error("批量保存传感器数据失败: count={}", count, e);
         }
     }
 
     /**
-     * 处理湿度数据
+     * 推送阶段：通过WebSocket推送给客户端
      */
-    private void handleHumidityData(Object data) {
-        try {
-            SensorData sensorData = null;
-
-            if (data instanceof SensorData) {
-                sensorData = (SensorData) data;
-            } else if (data instanceof String) {
-                // 尝试解析JSON字符串
-                sensorData = objectMapper.readValue((String) data, SensorData.class);
-            }
+    private void fanOutStage(SensorIngestEvent[] batch, int count) {
+        for (int i = 0; i < count; i++) {
+            SensorIngestEvent event = batch[i];
+            webSocketService.pushSensorData(event.sensorType, event.sensorData);
+            zrddsService.recordReceiveToPush(event.topicName, event.receivedNanos);
+        }
+    }
 
-            if (sensorData != null) {
-                // 更新统计数据
-                updateDataStats("humidity", sensorData.getValue());
+    /**
+     * 停止传感器接收流水线
+     */
+    @PreDestroy
+    public void shutdown() {
+        for (KeyedPipeline<SensorIngestEvent> pipeline : pipelines.values()) {
+            pipeline.stop(1000);
+        }
+    }
 
-                // 检查阈值并创建警报
-                checkThresholdAndCreateAlert(sensorData, HUMIDITY_THRESHOLD_KEY);
+    /**
+     * 传感器接收流水线的统计：通道间的不均衡程度，每条通道各阶段的队列占用、批大小、排队和处理耗时
+     */
+    public List<Map<String, Object>> getPipelineStats() {
+        List<Map<String, Object>> stats = new ArrayList<>();
+        for (KeyedPipeline<SensorIngestEvent> pipeline : pipelines.values()) {
+            stats.add(pipeline.getStats());
+        }
+        return stats;
+    }
 
-                // 推送WebSocket消息
-                webSocketService.pushHumidityData(sensorData);
+    /**
+     * 处理接收到的数据
+     */
+    @Override
+    public void onDataReceived(String topicName, Object data) {
+        log.info("接收到数据: topic={}, data={}", topicName, data);
 
-                log.debug("处理湿度数据: {:.2f}%", sensorData.getValue());
-            } else {
-                log.warn("无法解析湿度数据: {}", data);
+        try {
+            // 传感器主题由接收流水线处理，不经过这里
+            switch (topicName) {
+                case "Control/Command":
+                    handleControlCommand(data);
+                    break;
+                case "Alert/Message":
+                    handleAlertMessage(data);
+                    break;
+                default:
+                    log.warn("未知主题: {}", topicName);
             }
         } catch (Exception e) {
-            log.error("处理湿度数据失败: {}", data, e);
+            log.error("处理数据失败: topic={}, data={}", topicName, data, e);
         }
     }
 
@@ -175,7 +337,12 @@ public class DataListenerService implements ZRDDSService.DataListener {
             // 根据命令类型执行相应操作
             if (data instanceof String) {
                 String command = (String) data;
-                executeControlCommand(command);
+                try {
+                    executeControlCommand(command);
+                } catch (IllegalArgumentException e) {
+                    // 未知命令或参数有误只记录，状态照常推送
+                    log.warn("控制命令无效: command={}, error={}", command, e.getMessage());
+                }
             } else {
                 log.warn("接收到非字符串类型的控制命令: {}", data);
             }
@@ -199,6 +366,7 @@ public class DataListenerService implements ZRDDSService.DataListener {
 
                 // 保存警报到数据库
                 alertMessageService.createAlert(alert);
+                zrddsService.recordReceiveToPersist();
 
                 // 推送WebSocket消息
                 webSocketService.pushAlertData(alert);
@@ -214,8 +382,9 @@ public class DataListenerService implements ZRDDSService.DataListener {
 
     /**
      * 执行控制命令
+     * 返回执行结果，命令未知或参数无效时抛出IllegalArgumentException
      */
-    private void executeControlCommand(String command) {
+    public String executeControlCommand(String command) {
         log.info("执行控制命令: {}", command);
 
         // 解析命令格式: COMMAND:PARAMETER
@@ -225,178 +394,213 @@ public class DataListenerService implements ZRDDSService.DataListener {
 
         switch (cmd) {
             case "SET_TEMP_THRESHOLD":
-                setTemperatureThreshold(param);
-                break;
+                return setTemperatureThreshold(param);
             case "SET_HUMIDITY_THRESHOLD":
-                setHumidityThreshold(param);
-                break;
+                return setHumidityThreshold(param);
             case "GENERATE_TEMP_DATA":
-                generateTemperatureData();
-                break;
+                return generateTemperatureData();
             case "GENERATE_HUMIDITY_DATA":
-                generateHumidityData();
-                break;
+                return generateHumidityData();
             case "CLEAR_ALERTS":
-                clearAllAlerts();
-                break;
+                return clearAllAlerts();
             case "RESET_STATS":
-                resetAllStats();
-                break;
+                return resetAllStats();
             default:
-                log.warn("未知控制命令: {}", cmd);
+                throw new IllegalArgumentException("未知控制命令: " + cmd);
         }
     }
 
     /**
      * 设置温度阈值
      */
-    private void setTemperatureThreshold(String value) {
+    private String setTemperatureThreshold(String value) {
+        double threshold;
         try {
-            double threshold = Double.parseDouble(value);
-            systemConfigService.saveConfig(TEMPERATURE_THRESHOLD_KEY, String.valueOf(threshold), "温度传感器阈值配置");
-            log.info("温度阈值已更新为: {}", threshold);
+            threshold = Double.parseDouble(value);
         } catch (NumberFormatException e) {
-            log.error("无效的温度阈值: {}", value);
+            throw new IllegalArgumentException("无效的温度阈值: " + value);
         }
+        systemConfigService.saveConfig(TEMPERATURE_THRESHOLD_KEY, String.valueOf(threshold), "温度传感器阈值配置");
+        log.info("温度阈值已更新为: {}", threshold);
+        return "温度阈值已更新为: " + threshold;
     }
 
     /**
      * 设置湿度阈值
      */
-    private void setHumidityThreshold(String value) {
+    private String setHumidityThreshold(String value) {
+        double threshold;
         try {
-            double threshold = Double.parseDouble(value);
-            systemConfigService.saveConfig(HUMIDITY_THRESHOLD_KEY, String.valueOf(threshold), "湿度传感器阈值配置");
-            log.info("湿度阈值已更新为: {}", threshold);
+            threshold = Double.parseDouble(value);
         } catch (NumberFormatException e) {
-            log.error("无效的湿度阈值: {}", value);
+            throw new IllegalArgumentException("无效的湿度阈值: " + value);
         }
+        systemConfigService.saveConfig(HUMIDITY_THRESHOLD_KEY, String.valueOf(threshold), "湿度传感器阈值配置");
+        log.info("湿度阈值已更新为: {}", threshold);
+        return "湿度阈值已更新为: " + threshold;
     }
 
     /**
      * 生成温度数据
      */
-    private void generateTemperatureData() {
+    private String generateTemperatureData() {
         // 这里可以调用SensorSimulatorService来生成数据
         log.info("收到生成温度数据的命令");
+        return "已收到生成温度数据的命令";
     }
 
     /**
      * 生成湿度数据
      */
-    private void generateHumidityData() {
+    private String generateHumidityData() {
         // 这里可以调用SensorSimulatorService来生成数据
         log.info("收到生成湿度数据的命令");
+        return "已收到生成湿度数据的命令";
     }
 
     /**
      * 清除所有警报
      */
-    private void clearAllAlerts() {
+    private String clearAllAlerts() {
         alertMessageService.markAllAsRead();
         log.info("所有警报已标记为已读");
+        return "所有警报已标记为已读";
     }
 
     /**
      * 重置所有统计数据
      */
-    private void resetAllStats() {
+    private String resetAllStats() {
         resetStats("temperature");
         resetStats("humidity");
         log.info("所有统计数据已重置");
+        return "所有统计数据已重置";
     }
 
     /**
-     * 更新数据统计
+     * 更新数据统计：同时记入传感器类型汇总和所属设备
      */
-    private void updateDataStats(String sensorType, Double value) {
-        dataCounters.computeIfAbsent(sensorType, k -> new AtomicInteger(0));
-        dataSums.computeIfAbsent(sensorType, k -> 0.0);
+    private void updateDataStats(String sensorType, String deviceId, Double value) {
+        if (value == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        statsOf(sensorType).record(value, now);
+        SlidingWindowStats device = deviceStatsOf(sensorType, deviceId != null ? deviceId : "");
+        if (device != null) {
+            device.record(value, now);
+        }
+    }
 
-        int count = dataCounters.get(sensorType).incrementAndGet();
-        double sum = dataSums.get(sensorType) + value;
-        dataSums.put(sensorType, sum);
+    /**
+     * 传感器类型的滑动窗口统计，不存在时按配置的最长窗口创建
+     */
+    private SlidingWindowStats statsOf(String sensorType) {
+        return dataStats.computeIfAbsent(sensorType, k -> newStats());
+    }
 
-        // 计算平均值
-        double average = sum / count;
+    /**
+     * 设备的滑动窗口统计，不存在时创建；该类型单独统计的设备数已达上限时返回null
+     */
+    private SlidingWindowStats deviceStatsOf(String sensorType, String deviceId) {
+        ConcurrentHashMap<String, SlidingWindowStats> devices =
+                deviceStats.computeIfAbsent(sensorType, k -> new ConcurrentHashMap<>());
+        SlidingWindowStats stats = devices.get(deviceId);
+        if (stats == null && devices.size() < statsMaxDevices) {
+            stats = devices.computeIfAbsent(deviceId, k -> newStats());
+        }
+        return stats;
+    }
 
-        // 如果数据点超过10个，检查平均值是否超过阈值
-        if (count >= 10) {
-            checkAverageThreshold(sensorType, average);
+    /**
+     * 按配置的最长窗口和槽宽创建统计
+     */
+    private SlidingWindowStats newStats() {
+        long[] windows = windowMillis();
+        long maxWindow = Arrays.stream(windows).max().orElse(windows[0]);
+        return SlidingWindowStats.covering(maxWindow, DurationStyle.detectAndParse(statsSlot).toMillis());
+    }
 
-            // 重置计数器（保持最近10个数据点的平均值）
-            dataCounters.get(sensorType).set(0);
-            dataSums.put(sensorType, 0.0);
+    /**
+     * 配置的统计窗口（毫秒）
+     */
+    private long[] windowMillis() {
+        long[] windows = this.windows;
+        if (windows == null) {
+            windows = Arrays.stream(statsWindows)
+                    .map(String::trim)
+                    .mapToLong(window -> DurationStyle.detectAndParse(window).toMillis())
+                    .toArray();
+            if (windows.length == 0) {
+                throw new IllegalArgumentException("sensor.stats.windows不能为空");
+            }
+            this.windows = windows;
         }
+        return windows;
     }
 
     /**
-     * 检查平均值阈值
+     * 获取统计数据：该类型所有设备在最短窗口内的均值，窗口内没有样本时返回0
      */
-    private void checkAverageThreshold(String sensorType, double average) {
-        String thresholdKey = sensorType.equals("temperature") ? TEMPERATURE_THRESHOLD_KEY : HUMIDITY_THRESHOLD_KEY;
-
-        systemConfigService.getDoubleConfig(thresholdKey).ifPresent(threshold -> {
-            if (average > threshold) {
-                // 创建警报
-                AlertMessage alert = AlertMessage.builder()
-                        .level(AlertMessage.AlertLevel.WARNING)
-                        .title(sensorType.equals("temperature") ? "温度平均值警报" : "湿度平均值警报")
-                        .content(String.format("%s平均值%.2f超过阈值%.2f",
-                                sensorType.equals("temperature") ? "温度" : "湿度", average, threshold))
-                        .sensorType(sensorType.equals("temperature") ? SensorData.SensorType.TEMPERATURE
-                                : SensorData.SensorType.HUMIDITY)
-                        .triggerValue(average)
-                        .threshold(threshold)
-                        .isRead(false)
-                        .build();
+    public double getAverageValue(String sensorType) {
+        return averageOf(dataStats.get(sensorType));
+    }
 
-                alertMessageService.createAlert(alert);
-                webSocketService.pushAlertData(alert);
+    /**
+     * 获取单个设备在最短窗口内的均值，窗口内没有样本时返回0
+     */
+    public double getAverageValue(String sensorType, String deviceId) {
+        Map<String, SlidingWindowStats> devices = deviceStats.get(sensorType);
+        return averageOf(devices != null ? devices.get(deviceId) : null);
+    }
 
-                log.warn("{}平均值超过阈值: {:.2f} > {:.2f}",
-                        sensorType.equals("temperature") ? "温度" : "湿度", average, threshold);
-            }
-        });
+    private double averageOf(SlidingWindowStats stats) {
+        if (stats == null) {
+            return 0.0;
+        }
+        SlidingWindowStats.Window window = stats.window(windowMillis()[0]);
+        return window.getCount() > 0 ? window.getMean() : 0.0;
     }
 
     /**
-     * 检查阈值并创建警报
+     * 获取该类型所有设备汇总的各窗口样本数、和、均值、极值和方差，按窗口名（例如1m）索引
      */
-    private void checkThresholdAndCreateAlert(SensorData sensorData, String thresholdKey) {
-        systemConfigService.getDoubleConfig(thresholdKey).ifPresent(threshold -> {
-            if (sensorData.getValue() > threshold) {
-                AlertMessage.AlertLevel level = sensorData.getValue() > threshold * 1.2 ? AlertMessage.AlertLevel.ERROR
-                        : AlertMessage.AlertLevel.WARNING;
-
-                AlertMessage alert = alertMessageService.createSensorAlert(sensorData, threshold, level);
-                webSocketService.pushAlertData(alert);
+    public Map<String, Map<String, Object>> getWindowStats(String sensorType) {
+        return windowStatsOf(statsOf(sensorType));
+    }
 
-                log.warn("{}传感器数值超过阈值: {:.2f} > {:.2f}",
-                        sensorData.getSensorType().getDescription(), sensorData.getValue(), threshold);
-            }
-        });
+    /**
+     * 获取单个设备的各窗口统计，设备没有样本或未单独统计时各窗口的count为0
+     */
+    public Map<String, Map<String, Object>> getWindowStats(String sensorType, String deviceId) {
+        Map<String, SlidingWindowStats> devices = deviceStats.get(sensorType);
+        SlidingWindowStats stats = devices != null ? devices.get(deviceId) : null;
+        return windowStatsOf(stats != null ? stats : newStats());
     }
 
     /**
-     * 获取统计数据
+     * 该类型单独统计的设备ID
      */
-    public double getAverageValue(String sensorType) {
-        AtomicInteger counter = dataCounters.get(sensorType);
-        Double sum = dataSums.get(sensorType);
+    public Set<String> getStatsDeviceIds(String sensorType) {
+        Map<String, SlidingWindowStats> devices = deviceStats.get(sensorType);
+        return devices != null ? new TreeSet<>(devices.keySet()) : Set.of();
+    }
 
-        if (counter != null && sum != null && counter.get() > 0) {
-            return sum / counter.get();
+    private Map<String, Map<String, Object>> windowStatsOf(SlidingWindowStats stats) {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        long[] windows = windowMillis();
+        for (int i = 0; i < windows.length; i++) {
+            result.put(statsWindows[i].trim(), stats.window(windows[i]).toMap());
         }
-        return 0.0;
+        return result;
     }
 
     /**
-     * 重置统计数据
+     * 重置统计数据，包括该类型下各设备的统计
      */
     public void resetStats(String sensorType) {
-        dataCounters.remove(sensorType);
-        dataSums.remove(sensorType);
+        dataStats.remove(sensorType);
+        deviceStats.remove(sensorType);
         log.info("重置{}统计数据", sensorType);
     }
 
@@ -410,7 +614,7 @@ public class DataListenerService implements ZRDDSService.DataListener {
     /**
      * 获取已订阅的主题列表
      */
-    public java.util.Set<String> getSubscribedTopics() {
+    public Set<String> getSubscribedTopics() {
         return zrddsService.getSubscribedTopics();
     }
 }
@@ -0,0 +1,407 @@
+package com.team9.fitness.service;
+
+import com.team9.fitness.codec.InstanceKeys;
+import com.team9.fitness.codec.SampleFilter;
+import com.team9.fitness.metrics.TopicMetrics;
+import com.team9.fitness.transport.MpmcRingBuffer;
+import com.zrdds.infrastructure.SampleInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 监听器分发器
+ * 每个监听器一个环形缓冲区和一个投递线程，读者线程只负责入队，
+ * 慢的监听器（例如写数据库）不会拖慢同一主题上的其他监听器。
+ * 缓冲区满时按主题配置的OverflowPolicy处理
+ */
+class ListenerDispatcher implements Runnable {
+
+    private static final Logger log = LoggerFactory.getLogger(ListenerDispatcher.class);
+
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final String id;
+    private final String topicName;
+    private final ZRDDSService.BytesListener listener;
+    private final MpmcRingBuffer<ReceivedSample> ring;
+    private final OverflowPolicy overflowPolicy;
+    // 内容过滤器，为null时不过滤；只在投递线程中使用
+    private final SampleFilter filter;
+    // 主题的计数和处理耗时直方图，同一主题的监听器共享
+    private final TopicMetrics metrics;
+    // CONFLATE_LATEST策略下缓冲区满后每个实例最新的溢出样本，按实例键首次溢出的顺序排列，访问时锁住自身。
+    // 投递线程取空缓冲区后依次取走，取走前同一实例的新样本覆盖旧样本，不同实例互不影响
+    private final LinkedHashMap<String, ReceivedSample> conflated = new LinkedHashMap<>();
+    // conflated中的样本数，入队时不加锁判断是否还有未取走的溢出样本
+    private volatile int conflatedPending;
+    private final DispatchThread thread;
+    private volatile boolean running = true;
+    private volatile boolean parked;
+
+    // 只在投递线程中使用
+    private byte[] viewArray;
+    private ByteBuffer view;
+    // 正在交给监听器的样本，监听器回调期间有效
+    private ReceivedSample delivering;
+
+    private final AtomicLong enqueuedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong conflatedCount = new AtomicLong();
+    private final AtomicLong blockedNanos = new AtomicLong();
+    private final AtomicInteger highWaterMark = new AtomicInteger();
+
+    // 以下统计只由投递线程写入
+    private volatile long deliveredCount;
+    private volatile long failedCount;
+    private volatile long filteredCount;
+    private volatile long totalWaitNanos;
+    private volatile long maxWaitNanos;
+    private volatile long totalHandleNanos;
+    private volatile long maxHandleNanos;
+
+    ListenerDispatcher(String id, String topicName, ZRDDSService.BytesListener listener, int queueCapacity,
+            OverflowPolicy overflowPolicy, SampleFilter filter, TopicMetrics metrics) {
+        this.id = id;
+        this.topicName = topicName;
+        this.listener = listener;
+        this.ring = new MpmcRingBuffer<>(queueCapacity);
+        this.overflowPolicy = overflowPolicy;
+        this.filter = filter;
+        this.metrics = metrics;
+        this.thread = new DispatchThread(this, "ZRDDS-Dispatch-" + id);
+        this.thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    /**
+     * 当前线程所属的分发器，不是投递线程时返回null
+     */
+    static ListenerDispatcher current() {
+        Thread thread = Thread.currentThread();
+        return thread instanceof DispatchThread ? ((DispatchThread) thread).dispatcher : null;
+    }
+
+    /**
+     * 记录正在处理的样本从接收到写入数据库的耗时，只在监听器回调期间有效
+     */
+    void recordReceiveToPersist() {
+        ReceivedSample sample = delivering;
+        if (sample != null) {
+            long now = System.nanoTime();
+            metrics.recordReceiveToPersist(now - sample.receivedNanos, now);
+        }
+    }
+
+    /**
+     * 记录正在处理的样本从接收到推送的耗时，只在监听器回调期间有效
+     */
+    void recordReceiveToPush() {
+        ReceivedSample sample = delivering;
+        if (sample != null) {
+            long now = System.nanoTime();
+            metrics.recordReceiveToPush(now - sample.receivedNanos, now);
+        }
+    }
+
+    /**
+     * 正在处理的样本的接收时刻（System.nanoTime()），不在监听器回调中时返回-1
+     */
+    long deliveringReceivedNanos() {
+        ReceivedSample sample = delivering;
+        return sample != null ? sample.receivedNanos : -1;
+    }
+
+    String getId() {
+        return id;
+    }
+
+    /**
+     * 放入一个样本，返回样本是否进入缓冲区
+     * 可能被多个线程同时调用：分片主题的每个读者线程，以及新订阅时补发最新值缓存的线程
+     */
+    boolean offer(ReceivedSample sample) {
+        return offer(sample, true);
+    }
+
+    /**
+     * 放入一个样本；mayBlock为false时BLOCK策略在缓冲区满时丢弃样本而不等待，
+     * 用于调用方持有锁的场景（例如在最新值缓存的锁内补发）
+     */
+    boolean offer(ReceivedSample sample, boolean mayBlock) {
+        if (!running) {
+            return false;
+        }
+        boolean accepted;
+        if (overflowPolicy == OverflowPolicy.CONFLATE_LATEST && conflatedPending > 0) {
+            // 还有未取走的溢出样本，新样本只能覆盖它，不能越过它进入缓冲区
+            accepted = conflate(sample);
+        } else {
+            accepted = ring.offer(sample) || handleOverflow(sample, mayBlock);
+        }
+        if (accepted) {
+            enqueuedCount.incrementAndGet();
+            raiseHighWaterMark(ring.size());
+        }
+        if (parked) {
+            LockSupport.unpark(thread);
+        }
+        return accepted;
+    }
+
+    /**
+     * 按策略处理缓冲区已满
+     */
+    private boolean handleOverflow(ReceivedSample sample, boolean mayBlock) {
+        switch (overflowPolicy) {
+            case CONFLATE_LATEST:
+                raiseHighWaterMark(ring.capacity());
+                return conflate(sample);
+            case DROP_OLDEST:
+                while (!ring.offer(sample)) {
+                    if (ring.poll() != null) {
+                        countDropped();
+                    }
+                }
+                raiseHighWaterMark(ring.capacity());
+                return true;
+            case BLOCK:
+                if (!mayBlock) {
+                    countDropped();
+                    raiseHighWaterMark(ring.capacity());
+                    return false;
+                }
+                long start = System.nanoTime();
+                while (!ring.offer(sample)) {
+                    if (!running) {
+                        countDropped();
+                        return false;
+                    }
+                    if (parked) {
+                        LockSupport.unpark(thread);
+                    }
+                    LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                }
+                blockedNanos.addAndGet(System.nanoTime() - start);
+                raiseHighWaterMark(ring.capacity());
+                return true;
+            case DROP_NEWEST:
+            default:
+                countDropped();
+                raiseHighWaterMark(ring.capacity());
+                return false;
+        }
+    }
+
+    private void raiseHighWaterMark(int depth) {
+        if (depth > highWaterMark.get()) {
+            highWaterMark.accumulateAndGet(depth, Math::max);
+        }
+    }
+
+    /**
+     * 按实例键保留最新的溢出样本，实例数超过缓冲区容量时丢弃新实例的样本
+     */
+    private boolean conflate(ReceivedSample sample) {
+        String key = InstanceKeys.of(sample.data, sample.offset, sample.length);
+        synchronized (conflated) {
+            if (conflated.put(key, sample) != null) {
+                conflatedCount.incrementAndGet();
+            } else if (conflated.size() > ring.capacity()) {
+                conflated.remove(key);
+                countDropped();
+                return false;
+            }
+            conflatedPending = conflated.size();
+        }
+        return true;
+    }
+
+    /**
+     * 取走最早溢出的实例的最新样本，没有时返回null
+     */
+    private ReceivedSample pollConflated() {
+        if (conflatedPending == 0) {
+            return null;
+        }
+        synchronized (conflated) {
+            Iterator<ReceivedSample> it = conflated.values().iterator();
+            if (!it.hasNext()) {
+                return null;
+            }
+            ReceivedSample sample = it.next();
+            it.remove();
+            conflatedPending = conflated.size();
+            return sample;
+        }
+    }
+
+    private void countDropped() {
+        if (droppedCount.incrementAndGet() == 1) {
+            log.warn("监听器缓冲区已满，开始丢弃样本: listener={}, capacity={}, policy={}",
+                    id, ring.capacity(), overflowPolicy);
+        }
+    }
+
+    /**
+     * 停止投递，等待线程退出；缓冲区中剩余的样本被丢弃
+     */
+    void stop(long timeoutMs) {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            ReceivedSample sample = ring.poll();
+            if (sample == null) {
+                // 缓冲区取空后再取合并的溢出样本
+                sample = pollConflated();
+            }
+            if (sample == null) {
+                parked = true;
+                // 置位后再检查一次，避免读者线程在检查parked之前放入的样本被漏掉
+                if (ring.isEmpty() && conflatedPending == 0 && running) {
+                    LockSupport.park(this);
+                }
+                parked = false;
+                continue;
+            }
+            deliver(sample);
+        }
+    }
+
+    private void deliver(ReceivedSample sample) {
+        long start = System.nanoTime();
+        ByteBuffer view = wrap(sample);
+        try {
+            if (filter != null && !filter.matches(view)) {
+                filteredCount++;
+                return;
+            }
+        } catch (RuntimeException e) {
+            // 无法解析的样本视为不满足过滤条件
+            filteredCount++;
+            metrics.recordDecodeFailure();
+            log.debug("过滤样本时解析失败: listener={}", id, e);
+            return;
+        }
+        boolean failed = false;
+        delivering = sample;
+        try {
+            listener.onBytes(topicName, view, sample.info);
+        } catch (Throwable e) {
+            failed = true;
+            failedCount++;
+            log.error("监听器处理数据失败: listener={}", id, e);
+        } finally {
+            delivering = null;
+        }
+        long end = System.nanoTime();
+        metrics.recordHandler(end - start, end, failed);
+
+        long waitNanos = start - sample.receivedNanos;
+        long handleNanos = end - start;
+        deliveredCount++;
+        totalWaitNanos += waitNanos;
+        totalHandleNanos += handleNanos;
+        if (waitNanos > maxWaitNanos) {
+            maxWaitNanos = waitNanos;
+        }
+        if (handleNanos > maxHandleNanos) {
+            maxHandleNanos = handleNanos;
+        }
+    }
+
+    /**
+     * 复用只读视图，数组不变时只调整position和limit
+     */
+    private ByteBuffer wrap(ReceivedSample sample) {
+        if (sample.data != viewArray) {
+            viewArray = sample.data;
+            view = ByteBuffer.wrap(sample.data).asReadOnlyBuffer();
+        }
+        view.limit(sample.offset + sample.length).position(sample.offset);
+        return view;
+    }
+
+    /**
+     * 获取统计信息
+     */
+    Map<String, Object> getStats() {
+        long delivered = deliveredCount;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("id", id);
+        stats.put("queueDepth", ring.size());
+        stats.put("queueCapacity", ring.capacity());
+        stats.put("highWaterMark", highWaterMark.get());
+        stats.put("overflowPolicy", overflowPolicy);
+        stats.put("enqueued", enqueuedCount.get());
+        stats.put("delivered", delivered);
+        stats.put("dropped", droppedCount.get());
+        stats.put("conflated", conflatedCount.get());
+        stats.put("conflatedPending", conflatedPending);
+        stats.put("blockedMillis", TimeUnit.NANOSECONDS.toMillis(blockedNanos.get()));
+        stats.put("failed", failedCount);
+        stats.put("filtered", filteredCount);
+        if (filter != null) {
+            stats.put("filter", filter.getExpression());
+        }
+        stats.put("avgQueueWaitMicros", delivered > 0 ? TimeUnit.NANOSECONDS.toMicros(totalWaitNanos / delivered) : 0);
+        stats.put("maxQueueWaitMicros", TimeUnit.NANOSECONDS.toMicros(maxWaitNanos));
+        stats.put("avgHandleMicros", delivered > 0 ? TimeUnit.NANOSECONDS.toMicros(totalHandleNanos / delivered) : 0);
+        stats.put("maxHandleMicros", TimeUnit.NANOSECONDS.toMicros(maxHandleNanos));
+        return stats;
+    }
+
+    /**
+     * 投递线程，持有所属的分发器，监听器回调中可以通过current()找到正在处理的样本
+     */
+    private static final class DispatchThread extends Thread {
+
+        final ListenerDispatcher dispatcher;
+
+        DispatchThread(ListenerDispatcher dispatcher, String name) {
+            super(dispatcher, name);
+            this.dispatcher = dispatcher;
+        }
+    }
+
+    /**
+     * 已接收的样本
+     * 数据和SampleInfo在同一主题的所有监听器之间共享，只读
+     */
+    static final class ReceivedSample {
+
+        final byte[] data;
+        final int offset;
+        final int length;
+        final SampleInfo info;
+        final long receivedNanos;
+
+        ReceivedSample(byte[] data, int offset, int length, SampleInfo info, long receivedNanos) {
+            this.data = data;
+            this.offset = offset;
+            this.length = length;
+            this.info = info;
+            this.receivedNanos = receivedNanos;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.team9.fitness.service;
+
+/**
+ * 监听器接收缓冲区满时的处理策略
+ */
+public enum OverflowPolicy {
+    /** 丢弃新样本 */
+    DROP_NEWEST,
+    /** 丢弃最早的样本，为新样本腾出空位 */
+    DROP_OLDEST,
+    /** 每个实例（设备/传感器类型）只保留最新的一个溢出样本，被覆盖的样本计入合并数，适用于周期上报的传感器数据 */
+    CONFLATE_LATEST,
+    /** 阻塞读者线程直到有空位，不丢弃样本，背压经DDS可靠传输传回发布端 */
+    BLOCK
+}
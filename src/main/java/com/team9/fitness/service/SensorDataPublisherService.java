@@ -1,6 +1,6 @@
 package com.team9.fitness.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.team9.fitness.config.ZRDDSProperties;
 import com.team9.fitness.entity.SensorData;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,6 +11,8 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 传感器数据发布服务
@@ -27,48 +29,57 @@ public class SensorDataPublisherService {
     @Autowired
     private SensorDataService sensorDataService;
 
+    @Autowired
+    private ZRDDSProperties zrddsProperties;
+
     @Value("${sensor.temperature.interval:5000}")
     private long temperatureInterval;
 
     @Value("${sensor.humidity.interval:8000}")
     private long humidityInterval;
 
-    private final ObjectMapper objectMapper = new ObjectMapper()
-            .registerModule(new com.fasterxml.jackson.datatype.jsr310.JavaTimeModule());
+    // 每种传感器模拟的设备数，样本按设备ID和传感器类型分配实例和接收通道
+    @Value("${sensor.devices:4}")
+    private int deviceCount;
+
     private final Random random = new Random();
 
+    // 手动发布轮流使用各个模拟设备
+    private final AtomicInteger manualSequence = new AtomicInteger();
+
     /**
      * 发布温度传感器数据
      */
     @Scheduled(fixedDelayString = "${sensor.temperature.interval:5000}")
     public void publishTemperatureData() {
+        // 定时任务不等待，传输层就绪前直接跳过
         if (!zrddsService.isInitialized()) {
-            log.warn("ZRDDS服务未初始化，跳过温度数据发布");
+            log.debug("ZRDDS传输层未就绪，跳过温度数据发布");
             return;
         }
 
         try {
-            // 生成模拟温度数据
-            double temperature = generateTemperatureValue();
-
-            // 创建传感器数据对象
-            SensorData sensorData = SensorData.builder()
-                    .sensorType(SensorData.SensorType.TEMPERATURE)
-                    .value(temperature)
-                    .unit("°C")
-                    .createdAt(LocalDateTime.now())
-                    .build();
+            // 每个模拟设备各发布一条
+            for (int i = 0; i < deviceCount; i++) {
+                double temperature = generateTemperatureValue();
 
-            // 保存到数据库
-            sensorDataService.saveSensorData(sensorData);
+                // 创建传感器数据对象
+                SensorData sensorData = SensorData.builder()
+                        .sensorType(SensorData.SensorType.TEMPERATURE)
+                        .value(temperature)
+                        .unit("°C")
+                        .deviceId(simulatedDeviceId(SensorData.SensorType.TEMPERATURE, i))
+                        .createdAt(LocalDateTime.now())
+                        .build();
 
-            // 序列化为JSON
-            String jsonData = objectMapper.writeValueAsString(sensorData);
+                // 保存到数据库
+                sensorDataService.saveSensorData(sensorData);
 
-            // 发布到ZRDDS主题
-            zrddsService.publishData("Sensor/Temperature", jsonData);
+                // 发布到ZRDDS主题，按主题配置的编码格式序列化
+                zrddsService.publishData("Sensor/Temperature", sensorData);
 
-            log.debug("温度数据发布成功: value={}°C", temperature);
+                log.debug("温度数据发布成功: device={}, value={}°C", sensorData.getDeviceId(), temperature);
+            }
 
         } catch (Exception e) {
             log.error("发布温度数据失败", e);
@@ -80,33 +91,34 @@ public class SensorDataPublisherService {
      */
     @Scheduled(fixedDelayString = "${sensor.humidity.interval:8000}")
     public void publishHumidityData() {
+        // 定时任务不等待，传输层就绪前直接跳过
         if (!zrddsService.isInitialized()) {
-            log.warn("ZRDDS服务未初始化，跳过湿度数据发布");
+            log.debug("ZRDDS传输层未就绪，跳过湿度数据发布");
             return;
         }
 
         try {
-            // 生成模拟湿度数据
-            double humidity = generateHumidityValue();
-
-            // 创建传感器数据对象
-            SensorData sensorData = SensorData.builder()
-                    .sensorType(SensorData.SensorType.HUMIDITY)
-                    .value(humidity)
-                    .unit("%")
-                    .createdAt(LocalDateTime.now())
-                    .build();
+            // 每个模拟设备各发布一条
+            for (int i = 0; i < deviceCount; i++) {
+                double humidity = generateHumidityValue();
 
-            // 保存到数据库
-            sensorDataService.saveSensorData(sensorData);
+                // 创建传感器数据对象
+                SensorData sensorData = SensorData.builder()
+                        .sensorType(SensorData.SensorType.HUMIDITY)
+                        .value(humidity)
+                        .unit("%")
+                        .deviceId(simulatedDeviceId(SensorData.SensorType.HUMIDITY, i))
+                        .createdAt(LocalDateTime.now())
+                        .build();
 
-            // 序列化为JSON
-            String jsonData = objectMapper.writeValueAsString(sensorData);
+                // 保存到数据库
+                sensorDataService.saveSensorData(sensorData);
 
-            // 发布到ZRDDS主题
-            zrddsService.publishData("Sensor/Humidity", jsonData);
+                // 发布到ZRDDS主题，按主题配置的编码格式序列化
+                zrddsService.publishData("Sensor/Humidity", sensorData);
 
-            log.debug("湿度数据发布成功: value={}%", humidity);
+                log.debug("湿度数据发布成功: device={}, value={}%", sensorData.getDeviceId(), humidity);
+            }
 
         } catch (Exception e) {
             log.error("发布湿度数据失败", e);
@@ -117,9 +129,7 @@ public class SensorDataPublisherService {
      * 手动发布温度数据
      */
     public void publishManualTemperatureData(double temperature) {
-        if (!zrddsService.isInitialized()) {
-            throw new IllegalStateException("ZRDDS服务未初始化");
-        }
+        requireTransportReady();
 
         try {
             // 创建传感器数据对象
@@ -127,17 +137,15 @@ public class SensorDataPublisherService {
                     .sensorType(SensorData.SensorType.TEMPERATURE)
                     .value(temperature)
                     .unit("°C")
+                    .deviceId(nextManualDeviceId(SensorData.SensorType.TEMPERATURE))
                     .createdAt(LocalDateTime.now())
                     .build();
 
             // 保存到数据库
             sensorDataService.saveSensorData(sensorData);
 
-            // 序列化为JSON
-            String jsonData = objectMapper.writeValueAsString(sensorData);
-
-            // 发布到ZRDDS主题
-            zrddsService.publishData("Sensor/Temperature", jsonData);
+            // 发布到ZRDDS主题，按主题配置的编码格式序列化
+            zrddsService.publishData("Sensor/Temperature", sensorData);
 
             log.info("手动温度数据发布成功: value={}°C", temperature);
 
@@ -151,9 +159,7 @@ public class SensorDataPublisherService {
      * 手动发布湿度数据
      */
     public void publishManualHumidityData(double humidity) {
-        if (!zrddsService.isInitialized()) {
-            throw new IllegalStateException("ZRDDS服务未初始化");
-        }
+        requireTransportReady();
 
         try {
             // 创建传感器数据对象
@@ -161,17 +167,15 @@ public class SensorDataPublisherService {
                     .sensorType(SensorData.SensorType.HUMIDITY)
                     .value(humidity)
                     .unit("%")
+                    .deviceId(nextManualDeviceId(SensorData.SensorType.HUMIDITY))
                     .createdAt(LocalDateTime.now())
                     .build();
 
             // 保存到数据库
             sensorDataService.saveSensorData(sensorData);
 
-            // 序列化为JSON
-            String jsonData = objectMapper.writeValueAsString(sensorData);
-
-            // 发布到ZRDDS主题
-            zrddsService.publishData("Sensor/Humidity", jsonData);
+            // 发布到ZRDDS主题，按主题配置的编码格式序列化
+            zrddsService.publishData("Sensor/Humidity", sensorData);
 
             log.info("手动湿度数据发布成功: value={}%", humidity);
 
@@ -185,9 +189,7 @@ public class SensorDataPublisherService {
      * 发布控制命令
      */
     public void publishControlCommand(String command) {
-        if (!zrddsService.isInitialized()) {
-            throw new IllegalStateException("ZRDDS服务未初始化");
-        }
+        requireTransportReady();
 
         try {
             zrddsService.publishData("Control/Command", command);
@@ -202,9 +204,7 @@ public class SensorDataPublisherService {
      * 发布警报消息
      */
     public void publishAlertMessage(String alertMessage) {
-        if (!zrddsService.isInitialized()) {
-            throw new IllegalStateException("ZRDDS服务未初始化");
-        }
+        requireTransportReady();
 
         try {
             zrddsService.publishData("Alert/Message", alertMessage);
@@ -215,6 +215,30 @@ public class SensorDataPublisherService {
         }
     }
 
+    /**
+     * 等待传输层就绪，超过zrdds.bootstrap.publish-wait-ms仍未就绪时抛出异常
+     */
+    private void requireTransportReady() {
+        long waitMs = zrddsProperties.getBootstrap().getPublishWaitMs();
+        if (!zrddsService.awaitReady(waitMs, TimeUnit.MILLISECONDS)) {
+            throw new IllegalStateException("ZRDDS传输层未就绪: state=" + zrddsService.getState());
+        }
+    }
+
+    /**
+     * 手动发布使用的设备ID，依次轮换到各个模拟设备
+     */
+    private String nextManualDeviceId(SensorData.SensorType sensorType) {
+        return simulatedDeviceId(sensorType, Math.floorMod(manualSequence.getAndIncrement(), Math.max(1, deviceCount)));
+    }
+
+    /**
+     * 模拟设备的ID，例如temperature-01
+     */
+    static String simulatedDeviceId(SensorData.SensorType sensorType, int index) {
+        return String.format("%s-%02d", sensorType.name().toLowerCase(), index + 1);
+    }
+
     /**
      * 生成模拟温度值
      */
@@ -32,6 +32,14 @@ public class SensorDataService {
         return sensorDataRepository.save(sensorData);
     }
 
+    /**
+     * 在一个事务中批量保存传感器数据
+     */
+    public List<SensorData> saveSensorDataBatch(List<SensorData> sensorDataList) {
+        log.debug("批量保存传感器数据: 条数={}", sensorDataList.size());
+        return sensorDataRepository.saveAll(sensorDataList);
+    }
+
     /**
      * 获取最新的传感器数据
      */
@@ -0,0 +1,28 @@
+package com.team9.fitness.service;
+
+import com.team9.fitness.entity.SensorData;
+import com.team9.fitness.pipeline.PipelineEvent;
+
+/**
+ * 传感器接收流水线中的事件
+ * 样本在投递线程中解码后放入事件，按设备和传感器类型分配通道，事件随通道复用
+ */
+final class SensorIngestEvent extends PipelineEvent {
+
+    String topicName;
+    // 统计和推送使用的传感器类型名，例如temperature
+    String sensorType;
+    long receivedNanos;
+    // 二进制样本的采集时刻（纪元微秒），JSON样本为AlertRuleEngine.UNKNOWN_SAMPLE_TIME
+    long sampleMicros;
+    SensorData sensorData;
+
+    @Override
+    protected void reset() {
+        topicName = null;
+        sensorType = null;
+        receivedNanos = 0;
+        sampleMicros = AlertRuleEngine.UNKNOWN_SAMPLE_TIME;
+        sensorData = null;
+    }
+}
@@ -11,7 +11,9 @@ import org.springframework.stereotype.Service;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import java.util.Random;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 传感器模拟器服务
@@ -28,6 +30,10 @@ public class SensorSimulatorService {
     @Autowired
     private ZRDDSService zrddsService;
 
+    // 虚拟线程模式下模拟线程使用虚拟线程
+    @Autowired
+    private ThreadFactory blockingThreadFactory;
+
     @Value("${sensor.temperature.interval:5000}")
     private long temperatureInterval;
 
@@ -40,9 +46,16 @@ public class SensorSimulatorService {
     @Value("${sensor.humidity.threshold:80.0}")
     private double humidityThreshold;
 
+    // 每种传感器模拟的设备数，设备ID带sim-前缀，与发布服务的模拟设备区分
+    @Value("${sensor.devices:4}")
+    private int deviceCount;
+
     private final AtomicBoolean running = new AtomicBoolean(false);
     private final Random random = new Random();
 
+    // 手动生成轮流使用各个模拟设备
+    private final AtomicInteger manualSequence = new AtomicInteger();
+
     private Thread temperatureThread;
     private Thread humidityThread;
 
@@ -55,13 +68,13 @@ public class SensorSimulatorService {
             log.info("启动传感器模拟器...");
 
             // 启动温度传感器模拟线程
-            temperatureThread = new Thread(this::simulateTemperatureSensor, "TemperatureSensor");
-            temperatureThread.setDaemon(true);
+            temperatureThread = blockingThreadFactory.newThread(this::simulateTemperatureSensor);
+            temperatureThread.setName("TemperatureSensor");
             temperatureThread.start();
 
             // 启动湿度传感器模拟线程
-            humidityThread = new Thread(this::simulateHumiditySensor, "HumiditySensor");
-            humidityThread.setDaemon(true);
+            humidityThread = blockingThreadFactory.newThread(this::simulateHumiditySensor);
+            humidityThread.setName("HumiditySensor");
             humidityThread.start();
 
             log.info("传感器模拟器启动完成");
@@ -105,22 +118,26 @@ public class SensorSimulatorService {
 
         while (running.get()) {
             try {
-                // 生成模拟温度数据 (20-35度之间)
-                double temperature = 20.0 + random.nextDouble() * 15.0;
+                // 每个模拟设备各生成一条
+                for (int i = 0; i < deviceCount; i++) {
+                    // 生成模拟温度数据 (20-35度之间)
+                    double temperature = 20.0 + random.nextDouble() * 15.0;
 
-                SensorData sensorData = SensorData.builder()
-                        .sensorType(SensorData.SensorType.TEMPERATURE)
-                        .value(temperature)
-                        .unit("°C")
-                        .build();
+                    SensorData sensorData = SensorData.builder()
+                            .sensorType(SensorData.SensorType.TEMPERATURE)
+                            .value(temperature)
+                            .unit("°C")
+                            .deviceId(deviceIdOf(SensorData.SensorType.TEMPERATURE, i))
+                            .build();
 
-                // 保存到数据库
-                sensorDataService.saveSensorData(sensorData);
+                    // 保存到数据库
+                    sensorDataService.saveSensorData(sensorData);
 
-                // 发布到ZRDDS主题
-                zrddsService.publishData("Sensor/Temperature", sensorData);
+                    // 发布到ZRDDS主题
+                    zrddsService.publishData("Sensor/Temperature", sensorData);
 
-                log.debug("生成温度数据: {:.2f}°C", temperature);
+                    log.debug("生成温度数据: device={}, value={}°C", sensorData.getDeviceId(), temperature);
+                }
 
                 Thread.sleep(temperatureInterval);
 
@@ -149,22 +166,26 @@ public class SensorSimulatorService {
 
         while (running.get()) {
             try {
-                // 生成模拟湿度数据 (40-90%之间)
-                double humidity = 40.0 + random.nextDouble() * 50.0;
+                // 每个模拟设备各生成一条
+                for (int i = 0; i < deviceCount; i++) {
+                    // 生成模拟湿度数据 (40-90%之间)
+                    double humidity = 40.0 + random.nextDouble() * 50.0;
 
-                SensorData sensorData = SensorData.builder()
-                        .sensorType(SensorData.SensorType.HUMIDITY)
-                        .value(humidity)
-                        .unit("%")
-                        .build();
+                    SensorData sensorData = SensorData.builder()
+                            .sensorType(SensorData.SensorType.HUMIDITY)
+                            .value(humidity)
+                            .unit("%")
+                            .deviceId(deviceIdOf(SensorData.SensorType.HUMIDITY, i))
+                            .build();
 
-                // 保存到数据库
-                sensorDataService.saveSensorData(sensorData);
+                    // 保存到数据库
+                    sensorDataService.saveSensorData(sensorData);
 
-                // 发布到ZRDDS主题
-                zrddsService.publishData("Sensor/Humidity", sensorData);
+                    // 发布到ZRDDS主题
+                    zrddsService.publishData("Sensor/Humidity", sensorData);
 
-                log.debug("生成湿度数据: {:.2f}%", humidity);
+                    log.debug("生成湿度数据: device={}, value={}%", sensorData.getDeviceId(), humidity);
+                }
 
                 Thread.sleep(humidityInterval);
 
@@ -185,6 +206,13 @@ public class SensorSimulatorService {
         log.info("湿度传感器模拟线程结束");
     }
 
+    /**
+     * 模拟设备的ID，例如sim-temperature-01
+     */
+    private static String deviceIdOf(SensorData.SensorType sensorType, int index) {
+        return "sim-" + SensorDataPublisherService.simulatedDeviceId(sensorType, index);
+    }
+
     /**
      * 检查模拟器是否正在运行
      */
@@ -202,6 +230,8 @@ public class SensorSimulatorService {
                 .sensorType(SensorData.SensorType.TEMPERATURE)
                 .value(temperature)
                 .unit("°C")
+                .deviceId(deviceIdOf(SensorData.SensorType.TEMPERATURE,
+                        Math.floorMod(manualSequence.getAndIncrement(), Math.max(1, deviceCount))))
                 .build();
 
         sensorDataService.saveSensorData(sensorData);
@@ -221,6 +251,8 @@ public class SensorSimulatorService {
                 .sensorType(SensorData.SensorType.HUMIDITY)
                 .value(humidity)
                 .unit("%")
+                .deviceId(deviceIdOf(SensorData.SensorType.HUMIDITY,
+                        Math.floorMod(manualSequence.getAndIncrement(), Math.max(1, deviceCount))))
                 .build();
 
         sensorDataService.saveSensorData(sensorData);
@@ -5,16 +5,21 @@ import com.team9.fitness.repository.SystemConfigRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.Optional;
+import java.util.function.UnaryOperator;
 
 /**
  * 系统配置服务
+ * 启动时把system_config整表加载为内存快照，读取只访问快照，不经过数据库；
+ * 本节点的修改在事务提交后生成新快照，其他节点的修改由定时刷新同步
  */
 @Service
-@Transactional
 public class SystemConfigService {
 
     private static final Logger log = LoggerFactory.getLogger(SystemConfigService.class);
@@ -22,12 +27,65 @@ public class SystemConfigService {
     @Autowired
     private SystemConfigRepository systemConfigRepository;
 
+    // 当前快照，加载前为null，此时读取直接查询数据库
+    private volatile SystemConfigSnapshot snapshot;
+
+    // 串行化快照的替换，读取不加锁
+    private final Object snapshotLock = new Object();
+
+    /**
+     * 从数据库加载全部配置，替换当前快照
+     */
+    public SystemConfigSnapshot loadSnapshot() {
+        synchronized (snapshotLock) {
+            SystemConfigSnapshot current = snapshot;
+            long version = current != null ? current.getVersion() + 1 : 1;
+            snapshot = SystemConfigSnapshot.of(version, systemConfigRepository.findAll());
+            log.info("加载系统配置快照: version={}, size={}", snapshot.getVersion(), snapshot.size());
+            return snapshot;
+        }
+    }
+
+    /**
+     * 定时从数据库刷新快照，同步其他节点的修改；内容未变化时保留当前快照和版本号
+     */
+    @Scheduled(fixedDelayString = "${system.config.refresh-interval-ms:30000}")
+    public void refreshSnapshot() {
+        SystemConfigSnapshot current = snapshot;
+        if (current == null) {
+            return;
+        }
+        try {
+            SystemConfigSnapshot loaded = SystemConfigSnapshot.of(current.getVersion() + 1,
+                    systemConfigRepository.findAll());
+            synchronized (snapshotLock) {
+                // 读取数据库期间本节点修改过配置时放弃本次结果，下次刷新再同步
+                if (snapshot != current || loaded.sameContent(current)) {
+                    return;
+                }
+                snapshot = loaded;
+            }
+            log.info("系统配置已变化，刷新快照: version={}, size={}", loaded.getVersion(), loaded.size());
+        } catch (Exception e) {
+            log.warn("刷新系统配置快照失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 当前快照，未加载时返回null
+     */
+    public SystemConfigSnapshot getSnapshot() {
+        return snapshot;
+    }
+
     /**
      * 保存或更新配置
      */
+    @Transactional
     public SystemConfig saveConfig(String configKey, String configValue, String description) {
         Optional<SystemConfig> existingConfig = systemConfigRepository.findByConfigKey(configKey);
 
+        SystemConfig saved;
         if (existingConfig.isPresent()) {
             SystemConfig config = existingConfig.get();
             config.setConfigValue(configValue);
@@ -35,7 +93,7 @@ public class SystemConfigService {
                 config.setDescription(description);
             }
             log.info("更新配置: key={}, value={}", configKey, configValue);
-            return systemConfigRepository.save(config);
+            saved = systemConfigRepository.save(config);
         } else {
             SystemConfig newConfig = SystemConfig.builder()
                     .configKey(configKey)
@@ -43,15 +101,22 @@ public class SystemConfigService {
                     .description(description)
                     .build();
             log.info("创建配置: key={}, value={}", configKey, configValue);
-            return systemConfigRepository.save(newConfig);
+            saved = systemConfigRepository.save(newConfig);
         }
+
+        // 提交时才写入id和更新时间，快照在提交后从保存的实体生成
+        updateSnapshotAfterCommit(current -> current.with(saved));
+        return saved;
     }
 
     /**
      * 获取配置值
      */
-    @Transactional(readOnly = true)
     public Optional<String> getConfigValue(String configKey) {
+        SystemConfigSnapshot current = snapshot;
+        if (current != null) {
+            return current.getValue(configKey);
+        }
         return systemConfigRepository.findByConfigKey(configKey)
                 .map(SystemConfig::getConfigValue);
     }
@@ -59,16 +124,22 @@ public class SystemConfigService {
     /**
      * 获取配置对象
      */
-    @Transactional(readOnly = true)
     public Optional<SystemConfig> getConfig(String configKey) {
+        SystemConfigSnapshot current = snapshot;
+        if (current != null) {
+            return current.getConfig(configKey);
+        }
         return systemConfigRepository.findByConfigKey(configKey);
     }
 
     /**
      * 获取数值配置
      */
-    @Transactional(readOnly = true)
     public Optional<Double> getDoubleConfig(String configKey) {
+        SystemConfigSnapshot current = snapshot;
+        if (current != null) {
+            return current.getDouble(configKey);
+        }
         return getConfigValue(configKey)
                 .map(value -> {
                     try {
@@ -83,8 +154,11 @@ public class SystemConfigService {
     /**
      * 获取整数配置
      */
-    @Transactional(readOnly = true)
     public Optional<Integer> getIntegerConfig(String configKey) {
+        SystemConfigSnapshot current = snapshot;
+        if (current != null) {
+            return current.getInteger(configKey);
+        }
         return getConfigValue(configKey)
                 .map(value -> {
                     try {
@@ -99,19 +173,49 @@ public class SystemConfigService {
     /**
      * 检查配置是否存在
      */
-    @Transactional(readOnly = true)
     public boolean configExists(String configKey) {
+        SystemConfigSnapshot current = snapshot;
+        if (current != null) {
+            return current.contains(configKey);
+        }
         return systemConfigRepository.existsByConfigKey(configKey);
     }
 
     /**
      * 删除配置
      */
+    @Transactional
     public void deleteConfig(String configKey) {
         systemConfigRepository.findByConfigKey(configKey)
                 .ifPresent(config -> {
                     systemConfigRepository.delete(config);
                     log.info("删除配置: key={}", configKey);
+                    updateSnapshotAfterCommit(current -> current.without(configKey));
                 });
     }
+
+    /**
+     * 事务提交后替换快照，事务回滚时快照不变；没有事务时立即替换
+     */
+    private void updateSnapshotAfterCommit(UnaryOperator<SystemConfigSnapshot> update) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            updateSnapshot(update);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                updateSnapshot(update);
+            }
+        });
+    }
+
+    private void updateSnapshot(UnaryOperator<SystemConfigSnapshot> update) {
+        synchronized (snapshotLock) {
+            SystemConfigSnapshot current = snapshot;
+            if (current != null) {
+                snapshot = update.apply(current);
+            }
+        }
+    }
 }
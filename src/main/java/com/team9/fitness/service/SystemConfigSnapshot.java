@@ -0,0 +1,181 @@
+package com.team9.fitness.service;
+
+import com.team9.fitness.entity.SystemConfig;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * 系统配置快照
+ * 不可变，加载时把所有配置行解析为字符串、数值和整数三种形式，读取不再解析也不分配对象。
+ * 每次修改生成新快照，版本号加一
+ */
+public final class SystemConfigSnapshot {
+
+    private final long version;
+    private final LocalDateTime createdAt;
+    private final Map<String, Entry> entries;
+
+    private SystemConfigSnapshot(long version, Map<String, Entry> entries) {
+        this.version = version;
+        this.createdAt = LocalDateTime.now();
+        this.entries = entries;
+    }
+
+    /**
+     * 由数据库中的全部配置行创建快照
+     */
+    static SystemConfigSnapshot of(long version, Iterable<SystemConfig> configs) {
+        Map<String, Entry> entries = new HashMap<>();
+        for (SystemConfig config : configs) {
+            entries.put(config.getConfigKey(), new Entry(config));
+        }
+        return new SystemConfigSnapshot(version, Collections.unmodifiableMap(entries));
+    }
+
+    /**
+     * 复制当前快照并替换一个配置，返回版本号加一的新快照
+     */
+    SystemConfigSnapshot with(SystemConfig config) {
+        Map<String, Entry> copy = new HashMap<>(entries);
+        copy.put(config.getConfigKey(), new Entry(config));
+        return new SystemConfigSnapshot(version + 1, Collections.unmodifiableMap(copy));
+    }
+
+    /**
+     * 复制当前快照并删除一个配置，配置不存在时返回当前快照
+     */
+    SystemConfigSnapshot without(String configKey) {
+        if (!entries.containsKey(configKey)) {
+            return this;
+        }
+        Map<String, Entry> copy = new HashMap<>(entries);
+        copy.remove(configKey);
+        return new SystemConfigSnapshot(version + 1, Collections.unmodifiableMap(copy));
+    }
+
+    /**
+     * 与另一个快照的配置内容是否相同，不比较版本号
+     */
+    boolean sameContent(SystemConfigSnapshot other) {
+        if (entries.size() != other.entries.size()) {
+            return false;
+        }
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            Entry otherEntry = other.entries.get(entry.getKey());
+            if (otherEntry == null || !entry.getValue().sameContent(otherEntry)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public boolean contains(String configKey) {
+        return entries.containsKey(configKey);
+    }
+
+    public Optional<String> getValue(String configKey) {
+        Entry entry = entries.get(configKey);
+        return entry != null ? entry.value : Optional.empty();
+    }
+
+    public Optional<Double> getDouble(String configKey) {
+        Entry entry = entries.get(configKey);
+        return entry != null ? entry.doubleValue : Optional.empty();
+    }
+
+    public Optional<Integer> getInteger(String configKey) {
+        Entry entry = entries.get(configKey);
+        return entry != null ? entry.integerValue : Optional.empty();
+    }
+
+    /**
+     * 键以prefix开头的全部配置值，按键排序
+     */
+    public Map<String, String> getValues(String prefix) {
+        Map<String, String> values = new TreeMap<>();
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            if (entry.getKey().startsWith(prefix) && entry.getValue().value.isPresent()) {
+                values.put(entry.getKey(), entry.getValue().value.get());
+            }
+        }
+        return values;
+    }
+
+    /**
+     * 配置对象的拷贝，修改拷贝不影响快照
+     */
+    public Optional<SystemConfig> getConfig(String configKey) {
+        Entry entry = entries.get(configKey);
+        return entry != null ? Optional.of(entry.toConfig(configKey)) : Optional.empty();
+    }
+
+    /**
+     * 一个配置行，数值和整数形式在创建时解析，无法解析时为空
+     */
+    private static final class Entry {
+
+        final Long id;
+        final Optional<String> value;
+        final String description;
+        final LocalDateTime updatedAt;
+        final Optional<Double> doubleValue;
+        final Optional<Integer> integerValue;
+
+        Entry(SystemConfig config) {
+            this.id = config.getId();
+            this.value = Optional.ofNullable(config.getConfigValue());
+            this.description = config.getDescription();
+            this.updatedAt = config.getUpdatedAt();
+            this.doubleValue = value.map(Entry::parseDouble);
+            this.integerValue = value.map(Entry::parseInteger);
+        }
+
+        boolean sameContent(Entry other) {
+            return value.equals(other.value) && Objects.equals(description, other.description);
+        }
+
+        SystemConfig toConfig(String configKey) {
+            return SystemConfig.builder()
+                    .id(id)
+                    .configKey(configKey)
+                    .configValue(value.orElse(null))
+                    .description(description)
+                    .updatedAt(updatedAt)
+                    .build();
+        }
+
+        private static Double parseDouble(String value) {
+            try {
+                return Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        private static Integer parseInteger(String value) {
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+}
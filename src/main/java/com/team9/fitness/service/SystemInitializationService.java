@@ -1,5 +1,6 @@
 package com.team9.fitness.service;
 
+import com.team9.fitness.alert.AlertRule;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,6 +23,9 @@ public class SystemInitializationService implements CommandLineRunner {
     @Autowired
     private DataListenerService dataListenerService;
 
+    @Autowired
+    private CommandChannelService commandChannelService;
+
     @Value("${sensor.temperature.threshold:30.0}")
     private double defaultTemperatureThreshold;
 
@@ -33,12 +37,18 @@ public class SystemInitializationService implements CommandLineRunner {
         log.info("开始系统初始化...");
 
         try {
+            // 加载系统配置快照，之后的配置读取不再查询数据库
+            systemConfigService.loadSnapshot();
+
             // 初始化系统配置
             initializeSystemConfigs();
 
             // 初始化数据监听器
             dataListenerService.initialize();
 
+            // 初始化命令请求/应答通道
+            commandChannelService.initialize();
+
             log.info("系统初始化完成");
 
         } catch (Exception e) {
@@ -71,6 +81,14 @@ public class SystemInitializationService implements CommandLineRunner {
             log.info("创建湿度阈值配置: {}", defaultHumidityThreshold);
         }
 
+        // 初始化警报规则，已有任何规则时不再写入默认规则
+        if (systemConfigService.getSnapshot() != null
+                && systemConfigService.getSnapshot().getValues(AlertRule.CONFIG_PREFIX).isEmpty()) {
+            AlertRuleEngine.DEFAULT_RULES.forEach((key, spec) ->
+                    systemConfigService.saveConfig(key, spec, "警报规则"));
+            log.info("创建默认警报规则: {}", AlertRuleEngine.DEFAULT_RULES.keySet());
+        }
+
         // 初始化其他系统配置
         initializeOtherConfigs();
 
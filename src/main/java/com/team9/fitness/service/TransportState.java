@@ -0,0 +1,15 @@
+package com.team9.fitness.service;
+
+/**
+ * ZRDDS传输层启动状态
+ */
+public enum TransportState {
+    /** 后台正在启动传输层和创建默认主题 */
+    STARTING,
+    /** 传输层和全部默认主题就绪 */
+    READY,
+    /** 传输层可用，但部分默认主题创建失败或超时，这些主题在首次使用时重试 */
+    DEGRADED,
+    /** 传输层启动失败或超时，不可用 */
+    FAILED
+}
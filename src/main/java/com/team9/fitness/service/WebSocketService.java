@@ -22,6 +22,10 @@ public class WebSocketService {
     @Autowired
     private ObjectMapper objectMapper;
 
+    // 在DDS监听器回调中推送时记录接收到推送的延迟
+    @Autowired
+    private ZRDDSService zrddsService;
+
     /**
      * 推送传感器数据到指定主题
      */
@@ -29,6 +33,7 @@ public class WebSocketService {
         try {
             String topic = "/topic/sensor/" + sensorType;
             messagingTemplate.convertAndSend(topic, data);
+            zrddsService.recordReceiveToPush();
             log.debug("推送传感器数据到主题: {}, 数据: {}", topic, data);
         } catch (Exception e) {
             log.error("推送传感器数据失败: sensorType={}, data={}", sensorType, data, e);
@@ -56,6 +61,7 @@ public class WebSocketService {
         try {
             String topic = "/topic/alerts";
             messagingTemplate.convertAndSend(topic, data);
+            zrddsService.recordReceiveToPush();
             log.debug("推送警报数据到主题: {}, 数据: {}", topic, data);
         } catch (Exception e) {
             log.error("推送警报数据失败: data={}", data, e);
@@ -69,6 +75,7 @@ public class WebSocketService {
         try {
             String topic = "/topic/system/status";
             messagingTemplate.convertAndSend(topic, data);
+            zrddsService.recordReceiveToPush();
             log.debug("推送系统状态到主题: {}, 数据: {}", topic, data);
         } catch (Exception e) {
             log.error("推送系统状态失败: data={}", data, e);
@@ -1,24 +1,76 @@
 package com.team9.fitness.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.team9.fitness.codec.InstanceKeys;
+import com.team9.fitness.codec.SampleFilter;
+import com.team9.fitness.codec.SensorBinaryCodec;
+import com.team9.fitness.codec.SensorSample;
+import com.team9.fitness.config.ZRDDSProperties;
+import com.team9.fitness.entity.SensorData;
+import com.team9.fitness.metrics.EpochClock;
+import com.team9.fitness.metrics.TopicMetrics;
+import com.team9.fitness.transport.AsyncPublisher;
+import com.team9.fitness.transport.BatchAccumulator;
+import com.team9.fitness.transport.BatchFrame;
+import com.team9.fitness.transport.CompressedFrame;
+import com.team9.fitness.transport.DDSTransport;
+import com.team9.fitness.transport.LastValueCache;
+import com.team9.fitness.transport.MeteredTopicWriter;
+import com.team9.fitness.transport.PayloadFormat;
+import com.team9.fitness.transport.TopicHandle;
+import com.team9.fitness.transport.TopicReader;
+import com.team9.fitness.transport.TopicType;
+import com.team9.fitness.transport.TopicWriter;
+import com.zrdds.infrastructure.SampleInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.Map;
 
 /**
  * ZRDDS中间件服务
- * 基于ZRDDS简化接口实现
+ * 通过DDSTransport收发数据，具体中间件实现由zrdds.transport配置决定
  */
 @Service
 public class ZRDDSService {
 
     private static final Logger log = LoggerFactory.getLogger(ZRDDSService.class);
 
+    // 停止监听器投递线程时的等待时间
+    private static final long LISTENER_STOP_TIMEOUT_MS = 1000;
+
+    // 线程本地的编码缓冲区和解码样本，二进制编解码时复用
+    private static final ThreadLocal<EncodedPayload> ENCODED_PAYLOAD = ThreadLocal.withInitial(EncodedPayload::new);
+    private static final ThreadLocal<SensorSample> DECODED_SAMPLE = ThreadLocal.withInitial(SensorSample::new);
+
     @Value("${zrdds.domain-id:0}")
     private int domainId;
 
@@ -28,124 +80,245 @@ public class ZRDDSService {
     @Value("${zrdds.qos-profile:ZRDDS_QOS_PROFILES.xml}")
     private String qosProfile;
 
-    private boolean initialized = false;
+    @Autowired
+    private DDSTransport transport;
+
+    @Autowired
+    private ZRDDSProperties properties;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new com.fasterxml.jackson.datatype.jsr310.JavaTimeModule());
+
+    private volatile boolean initialized = false;
+
+    // 后台启动的状态，传输层和默认主题可用时ready完成，启动失败时异常完成
+    private volatile TransportState state = TransportState.STARTING;
+    private final CompletableFuture<Void> ready = new CompletableFuture<>();
+    // 创建失败或超时的默认主题及原因
+    private final Map<String, String> failedTopics = new ConcurrentHashMap<>();
+    private volatile String startupError;
+    private volatile long startupMillis = -1;
 
-    // 存储域参与者和发布订阅者的引用
-    private com.zrdds.domain.DomainParticipant domainParticipant;
-    private final Map<String, com.zrdds.publication.DataWriter> publishers = new ConcurrentHashMap<>();
-    private final Map<String, com.zrdds.subscription.DataReader> subscribers = new ConcurrentHashMap<>();
-    private final Map<String, DataListener> listeners = new ConcurrentHashMap<>();
+    // 异步发布器，zrdds.async.enabled为false时为null
+    private AsyncPublisher asyncPublisher;
+
+    // 存储主题句柄和订阅者的引用
+    private final Map<String, TopicHandle> topics = new ConcurrentHashMap<>();
+    private final Map<String, TopicReader> subscribers = new ConcurrentHashMap<>();
+    private final Map<String, List<ListenerDispatcher>> listeners = new ConcurrentHashMap<>();
+    private final AtomicLong listenerSequence = new AtomicLong();
+    private final Map<String, BatchAccumulator> batchers = new ConcurrentHashMap<>();
+    private final Map<String, TopicMetrics> topicMetrics = new ConcurrentHashMap<>();
+    // 启用了最新值缓存的主题，随主题订阅者创建
+    private final Map<String, LastValueCache> lastValues = new ConcurrentHashMap<>();
+
+    // 批量发布的定时刷新线程
+    private final ScheduledExecutorService batchFlusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "ZRDDS-BatchFlusher");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     /**
      * 初始化ZRDDS中间件
+     * 传输层和默认主题在后台线程中启动，不阻塞Spring启动；
+     * 需要使用传输层的组件通过whenReady()或awaitReady()等待启动完成
      */
     @PostConstruct
     public void initialize() {
-        try {
-            log.info("初始化ZRDDS中间件...");
-            log.info("Domain ID: {}", domainId);
-            log.info("Participant Name: {}", participantName);
-            log.info("QoS Profile: {}", qosProfile);
+        log.info("初始化ZRDDS中间件...");
+        log.info("Transport: {}", transport.getName());
+        log.info("Domain ID: {}", domainId);
+        log.info("Participant Name: {}", participantName);
+        log.info("QoS Profile: {}", qosProfile);
+
+        Thread bootstrap = new Thread(this::bootstrap, "ZRDDS-Bootstrap");
+        bootstrap.setDaemon(true);
+        bootstrap.start();
+    }
 
-            // 1. 初始化ZRDDS简化接口
-            initZRDDS();
+    /**
+     * 后台启动传输层
+     */
+    private void bootstrap() {
+        long start = System.nanoTime();
+        ZRDDSProperties.BootstrapProperties config = properties.getBootstrap();
+        try {
+            // 1. 启动传输层（初始化中间件并创建域参与者）
+            startTransport(config.getStartTimeoutMs());
 
-            // 2. 创建域参与者
-            createDomainParticipant();
+            // 2. 并行创建默认主题
+            initializeDefaultTopics(config.getTopicParallelism(), config.getTopicTimeoutMs());
 
-            // 3. 初始化默认主题
-            initializeDefaultTopics();
+            // 3. 启动异步发布写线程
+            initializeAsyncPublisher();
 
             initialized = true;
-            log.info("ZRDDS中间件初始化成功");
+            state = failedTopics.isEmpty() ? TransportState.READY : TransportState.DEGRADED;
+            startupMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            if (state == TransportState.READY) {
+                log.info("ZRDDS中间件初始化成功: elapsedMs={}", startupMillis);
+            } else {
+                log.warn("ZRDDS中间件已启动，部分主题不可用: elapsedMs={}, failedTopics={}", startupMillis, failedTopics);
+            }
+            ready.complete(null);
 
         } catch (Exception e) {
+            state = TransportState.FAILED;
+            startupError = e.getMessage();
+            startupMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
             log.error("ZRDDS中间件初始化失败", e);
-            throw new RuntimeException("ZRDDS中间件初始化失败", e);
+            ready.completeExceptionally(e);
         }
     }
 
     /**
-     * 初始化ZRDDS简化接口
+     * 在单独的线程中启动传输层，超过timeoutMs未完成时放弃等待
+     * 中间件的本地调用无法中断，超时后启动线程仍可能继续运行
      */
-    private void initZRDDS() {
+    private void startTransport(long timeoutMs) {
+        ExecutorService executor = Executors.newSingleThreadExecutor(daemonThreadFactory("ZRDDS-TransportStart"));
         try {
-            log.info("开始初始化ZRDDS简化接口...");
-            log.info("QoS配置文件路径: {}", qosProfile);
-            log.info("QoS库名称: default_lib");
-
-            // 检查QoS配置文件是否存在
-            java.io.File qosFile = new java.io.File(qosProfile);
-            if (!qosFile.exists()) {
-                log.error("QoS配置文件不存在: {}", qosFile.getAbsolutePath());
-                throw new RuntimeException("QoS配置文件不存在: " + qosFile.getAbsolutePath());
-            }
-            log.info("QoS配置文件存在: {}", qosFile.getAbsolutePath());
+            CompletableFuture.runAsync(transport::start, executor).get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new RuntimeException("启动传输层超时: timeoutMs=" + timeoutMs, e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("启动传输层失败", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("启动传输层被中断", e);
+        } finally {
+            executor.shutdown();
+        }
+    }
 
-            // 使用ZRDDS简化接口初始化
-            // 第一个参数是QoS配置文件路径，第二个参数是库名称
-            com.zrdds.simpleinterface.DDSIF.init(qosProfile, "default_lib");
-            log.info("ZRDDS简化接口初始化成功");
-        } catch (Exception e) {
-            log.error("ZRDDS简化接口初始化失败", e);
-            log.error("错误详情: {}", e.getMessage());
-            if (e.getCause() != null) {
-                log.error("根本原因: {}", e.getCause().getMessage());
+    /**
+     * 初始化默认主题
+     * 各主题的发布者和订阅者并行创建，单个主题失败或超时不影响其他主题
+     */
+    private void initializeDefaultTopics(int parallelism, long timeoutMs) {
+        String[] defaultTopics = { "Sensor/Temperature", "Sensor/Humidity", "Control/Command", "Alert/Message" };
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, defaultTopics.length)),
+                daemonThreadFactory("ZRDDS-TopicInit"));
+        Map<String, CompletableFuture<Void>> futures = new LinkedHashMap<>();
+        for (String topic : defaultTopics) {
+            // 为每个主题创建发布者和订阅者
+            futures.put(topic, CompletableFuture.runAsync(() -> {
+                registerTopic(topic);
+                createTopicSubscriber(topic);
+                log.info("主题 {} 的发布者和订阅者创建成功", topic);
+            }, executor));
+        }
+        executor.shutdown();
+
+        try {
+            CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0]))
+                    .get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            // 逐个主题检查结果
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        for (Map.Entry<String, CompletableFuture<Void>> entry : futures.entrySet()) {
+            String topic = entry.getKey();
+            CompletableFuture<Void> future = entry.getValue();
+            if (!future.isDone()) {
+                failedTopics.put(topic, "创建超时: timeoutMs=" + timeoutMs);
+                log.error("创建主题 {} 的发布者/订阅者超时", topic);
+                // 超时的主题随后创建成功时恢复
+                future.thenRun(() -> topicRecovered(topic));
+            } else {
+                try {
+                    future.join();
+                } catch (CompletionException e) {
+                    failedTopics.put(topic, String.valueOf(e.getCause().getMessage()));
+                    log.error("创建主题 {} 的发布者/订阅者失败", topic, e.getCause());
+                }
             }
-            throw new RuntimeException("ZRDDS简化接口初始化失败", e);
         }
     }
 
     /**
-     * 创建域参与者
+     * 启动时超时的主题创建完成
      */
-    private void createDomainParticipant() {
-        try {
-            // 创建UDP域参与者
-            domainParticipant = com.zrdds.simpleinterface.DDSIF.create_dp(domainId, "udp_dp");
-            if (domainParticipant == null) {
-                throw new RuntimeException("创建域参与者失败");
+    private void topicRecovered(String topic) {
+        if (failedTopics.remove(topic) != null) {
+            log.info("主题 {} 的发布者和订阅者已补充创建", topic);
+            if (failedTopics.isEmpty() && state == TransportState.DEGRADED) {
+                state = TransportState.READY;
             }
-            log.info("域参与者创建成功: domainId={}, participantName={}", domainId, participantName);
-        } catch (Exception e) {
-            log.error("创建域参与者失败", e);
-            throw new RuntimeException("创建域参与者失败", e);
         }
     }
 
+    private static ThreadFactory daemonThreadFactory(String prefix) {
+        AtomicInteger sequence = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, prefix + "-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
     /**
-     * 初始化默认主题
+     * 启动异步发布器
      */
-    private void initializeDefaultTopics() {
-        String[] defaultTopics = { "Sensor/Temperature", "Sensor/Humidity", "Control/Command", "Alert/Message" };
+    private void initializeAsyncPublisher() {
+        ZRDDSProperties.AsyncProperties async = properties.getAsync();
+        if (!async.isEnabled()) {
+            return;
+        }
+        asyncPublisher = new AsyncPublisher(async.getWriterThreads(), async.getQueueCapacity(), async.getFullPolicy());
+        log.info("异步发布已启用: writerThreads={}, queueCapacity={}, fullPolicy={}",
+                async.getWriterThreads(), async.getQueueCapacity(), async.getFullPolicy());
+    }
 
-        for (String topic : defaultTopics) {
-            try {
-                // 为每个主题创建发布者和订阅者
-                createTopicPublisher(topic);
-                createTopicSubscriber(topic);
+    /**
+     * 按zrdds.topics中的配置注册主题并返回句柄
+     */
+    public TopicHandle registerTopic(String topicName) {
+        return registerTopic(topicName, properties.getTopic(topicName).getType(), qosProfileOf(topicName));
+    }
 
-                log.info("主题 {} 的发布者和订阅者创建成功", topic);
-            } catch (Exception e) {
-                log.error("创建主题 {} 的发布者/订阅者失败", topic, e);
-            }
+    /**
+     * 注册主题并返回句柄
+     * 同一主题只会创建一个写者，并发注册时后到的线程等待并拿到同一个句柄
+     */
+    public TopicHandle registerTopic(String topicName, TopicType type, String qosProfile) {
+        TopicHandle handle = topics.computeIfAbsent(topicName, name -> createTopicHandle(name, type, qosProfile));
+        if (handle.getType() != type) {
+            throw new IllegalArgumentException("主题已按其他类型注册: topic=" + topicName + ", type=" + handle.getType());
         }
+        return handle;
+    }
+
+    /**
+     * 获取主题句柄，未注册的主题按配置的类型和QoS注册
+     */
+    public TopicHandle getTopicHandle(String topicName) {
+        TopicHandle handle = topics.get(topicName);
+        return handle != null ? handle : registerTopic(topicName);
+    }
+
+    /**
+     * 主题使用的QoS配置名称，未配置时使用默认配置
+     */
+    private String qosProfileOf(String topicName) {
+        String qos = properties.getTopic(topicName).getQos();
+        return qos != null ? qos : properties.getDefaultQos();
     }
 
     /**
      * 创建主题发布者
      */
-    private void createTopicPublisher(String topicName) {
+    private TopicHandle createTopicHandle(String topicName, TopicType type, String qosProfile) {
         try {
-            // 使用ZRDDS简化接口创建发布者，使用BytesTypeSupport
-            com.zrdds.publication.DataWriter publisher = com.zrdds.simpleinterface.DDSIF.pub_topic(
-                    domainParticipant, topicName, com.zrdds.infrastructure.BytesTypeSupport.get_instance(), "reliable", null);
-            if (publisher != null) {
-                publishers.put(topicName, publisher);
-                log.debug("主题发布者创建成功: {}", topicName);
-            } else {
-                log.error("创建主题发布者失败: {}", topicName);
-            }
+            PayloadFormat format = properties.getTopic(topicName).getCodec();
+            TopicWriter publisher = new MeteredTopicWriter(transport.createWriter(topicName, type, qosProfile),
+                    metricsOf(topicName));
+            log.debug("主题发布者创建成功: topic={}, type={}, qos={}, codec={}", topicName, type, qosProfile, format);
+            return new TopicHandle(topicName, type, qosProfile, format, publisher);
         } catch (Exception e) {
             log.error("创建主题发布者失败: {}", topicName, e);
             throw new RuntimeException("创建主题发布者失败", e);
@@ -153,28 +326,209 @@ public class ZRDDSService {
     }
 
     /**
-     * 创建主题订阅者
+     * 创建主题订阅者，已存在时不重复创建
+     * 多个线程可能同时为同一主题订阅（例如命令通道在就绪回调中、数据监听器在自己的线程中），
+     * 在computeIfAbsent中创建保证每个主题只有一个读者
      */
     private void createTopicSubscriber(String topicName) {
+        subscribers.computeIfAbsent(topicName, this::newTopicSubscriber);
+    }
+
+    private TopicReader newTopicSubscriber(String topicName) {
         try {
-            // 创建数据监听器
-            ZRDDSDataListener dataListener = new ZRDDSDataListener(topicName, null);
-            
-            // 使用ZRDDS简化接口创建订阅者，使用BytesTypeSupport和真实的数据监听器
-            com.zrdds.subscription.DataReader subscriber = com.zrdds.simpleinterface.DDSIF.sub_topic(
-                    domainParticipant, topicName, com.zrdds.infrastructure.BytesTypeSupport.get_instance(), "reliable", dataListener);
-            if (subscriber != null) {
-                subscribers.put(topicName, subscriber);
-                log.debug("主题订阅者创建成功: {}", topicName);
-            } else {
-                log.error("创建主题订阅者失败: {}", topicName);
+            // 读者收到的样本统一交给dispatchSample，按主题查找当前的监听器
+            // 读者的类型必须与写者一致，带键主题的读者才能按实例保留最新样本
+            ZRDDSProperties.TopicProperties topicProperties = properties.getTopic(topicName);
+            ZRDDSProperties.LastValueProperties lastValue = topicProperties.getLastValue();
+            if (lastValue.isEnabled()) {
+                lastValues.computeIfAbsent(topicName,
+                        name -> new LastValueCache(name, lastValue.getDepth(), lastValue.getMaxKeys()));
             }
+            TopicType type = topicProperties.getType();
+            TopicReader subscriber = transport.createReader(topicName, type, qosProfileOf(topicName), this::dispatchSample);
+            log.debug("主题订阅者创建成功: {}", topicName);
+            return subscriber;
         } catch (Exception e) {
             log.error("创建主题订阅者失败: {}", topicName, e);
             throw new RuntimeException("创建主题订阅者失败", e);
         }
     }
 
+    /**
+     * 将传输层收到的样本分发给主题监听器
+     * 启用了最新值缓存的主题在缓存的锁内写入缓存并取当时的监听器列表，出锁后再分发；
+     * 新订阅的监听器在同一个锁内补发缓存的样本并登记，样本要么已在补发中，要么在登记后分发，不会漏掉或重复。
+     * 分发不在锁内进行，BLOCK策略的慢监听器不会让补发和缓存读取一起等待
+     */
+    private void dispatchSample(String topicName, byte[] data, int length, SampleInfo info) {
+        LastValueCache cache = lastValues.get(topicName);
+        List<ListenerDispatcher> dispatchers = listeners.get(topicName);
+        if (cache == null && (dispatchers == null || dispatchers.isEmpty())) {
+            log.debug("主题没有监听器，丢弃数据: topic={}", topicName);
+            return;
+        }
+
+        // 传输层的缓冲区只在回调期间有效，拷贝一次后由所有监听器共享
+        TopicMetrics metrics = metricsOf(topicName);
+        long receivedNanos = System.nanoTime();
+        recordPublishToReceive(metrics, info, receivedNanos);
+        byte[] copy;
+        if (CompressedFrame.isCompressed(data, length)) {
+            // 压缩批量帧还原为普通批量帧，还原结果就是共享的拷贝
+            try {
+                copy = CompressedFrame.decode(data, length);
+            } catch (IllegalArgumentException e) {
+                metrics.recordDecodeFailure();
+                log.warn("压缩批量帧解码失败，丢弃数据: topic={}, length={}", topicName, length, e);
+                return;
+            }
+            length = copy.length;
+        } else {
+            copy = Arrays.copyOf(data, length);
+        }
+        SampleInfo infoCopy = info != null ? new SampleInfo(info) : null;
+
+        if (cache != null) {
+            synchronized (cache) {
+                updateCache(cache, copy, length, infoCopy);
+                List<ListenerDispatcher> current = listeners.get(topicName);
+                dispatchers = current != null ? List.copyOf(current) : null;
+            }
+        }
+        deliver(topicName, dispatchers, metrics, copy, length, infoCopy, receivedNanos);
+    }
+
+    /**
+     * 把样本写入最新值缓存，批量帧逐条写入；批量帧格式错误在分发时记录
+     */
+    private void updateCache(LastValueCache cache, byte[] copy, int length, SampleInfo info) {
+        long receivedMillis = System.currentTimeMillis();
+        if (!BatchFrame.isBatch(copy, length)) {
+            cache.update(InstanceKeys.of(copy, 0, length), copy, 0, length, info, receivedMillis);
+            return;
+        }
+        try {
+            BatchFrame.forEach(copy, length, (buffer, offset, entryLength) ->
+                    cache.update(InstanceKeys.of(buffer, offset, entryLength), buffer, offset, entryLength, info,
+                            receivedMillis));
+        } catch (IllegalArgumentException e) {
+            // 截断前的样本已经写入
+        }
+    }
+
+    /**
+     * 批量帧拆开后逐条交给监听器
+     */
+    private void deliver(String topicName, List<ListenerDispatcher> dispatchers, TopicMetrics metrics, byte[] copy,
+            int length, SampleInfo info, long receivedNanos) {
+        if (BatchFrame.isBatch(copy, length)) {
+            try {
+                metrics.recordReceived(BatchFrame.forEach(copy, length, (buffer, offset, entryLength) -> {
+                    if (dispatchers != null) {
+                        fanOut(dispatchers, new ListenerDispatcher.ReceivedSample(buffer, offset, entryLength, info,
+                                receivedNanos));
+                    }
+                }));
+            } catch (IllegalArgumentException e) {
+                // 截断前的样本已经分发
+                metrics.recordDecodeFailure();
+                log.warn("批量帧格式错误: topic={}, length={}", topicName, length, e);
+            }
+        } else {
+            metrics.recordReceived(1);
+            if (dispatchers != null) {
+                fanOut(dispatchers, new ListenerDispatcher.ReceivedSample(copy, 0, length, info, receivedNanos));
+            }
+        }
+    }
+
+    /**
+     * 把缓存的样本放入监听器的缓冲区，返回放入的样本数
+     * 接收时间按补发时刻计，样本在缓存中停留的时间不计入监听器的排队延迟
+     */
+    private int replay(LastValueCache cache, ListenerDispatcher dispatcher) {
+        long now = System.nanoTime();
+        int replayed = 0;
+        for (LastValueCache.CachedSample sample : cache.snapshot()) {
+            byte[] data = sample.getData();
+            // 补发在缓存的锁内进行，不能等待监听器腾出空位
+            if (dispatcher.offer(new ListenerDispatcher.ReceivedSample(data, 0, data.length, sample.getInfo(), now),
+                    false)) {
+                replayed++;
+            }
+        }
+        return replayed;
+    }
+
+    /**
+     * 按写者填入的源时间戳记录发布到接收的延迟，批量帧按帧记录一次
+     * 源时间戳是发布端的墙上时钟，跨主机时结果包含两端时钟的偏差
+     */
+    private void recordPublishToReceive(TopicMetrics metrics, SampleInfo info, long receivedNanos) {
+        if (info == null || (info.source_timestamp.sec == 0 && info.source_timestamp.nanosec == 0)) {
+            return;
+        }
+        long sourceMicros = info.source_timestamp.sec * 1_000_000L + info.source_timestamp.nanosec / 1000;
+        metrics.recordPublishToReceive(sourceMicros, EpochClock.epochMicros(), receivedNanos, info.publication_handle);
+    }
+
+    /**
+     * 记录监听器正在处理的样本从接收到写入数据库的耗时
+     * 只在监听器回调线程中生效，其他线程调用时忽略
+     */
+    public void recordReceiveToPersist() {
+        ListenerDispatcher dispatcher = ListenerDispatcher.current();
+        if (dispatcher != null) {
+            dispatcher.recordReceiveToPersist();
+        }
+    }
+
+    /**
+     * 记录监听器正在处理的样本从接收到推送给客户端的耗时
+     * 只在监听器回调线程中生效，其他线程调用时忽略
+     */
+    public void recordReceiveToPush() {
+        ListenerDispatcher dispatcher = ListenerDispatcher.current();
+        if (dispatcher != null) {
+            dispatcher.recordReceiveToPush();
+        }
+    }
+
+    /**
+     * 监听器正在处理的样本的接收时刻（System.nanoTime()），不在监听器回调线程中时返回当前时刻
+     * 监听器把样本交给其他线程处理时用它记录端到端延迟
+     */
+    public long currentReceivedNanos() {
+        ListenerDispatcher dispatcher = ListenerDispatcher.current();
+        long receivedNanos = dispatcher != null ? dispatcher.deliveringReceivedNanos() : -1;
+        return receivedNanos >= 0 ? receivedNanos : System.nanoTime();
+    }
+
+    /**
+     * 记录样本从接收到写入数据库的耗时，用于在监听器回调线程之外处理的样本
+     */
+    public void recordReceiveToPersist(String topicName, long receivedNanos) {
+        long now = System.nanoTime();
+        metricsOf(topicName).recordReceiveToPersist(now - receivedNanos, now);
+    }
+
+    /**
+     * 记录样本从接收到推送给客户端的耗时，用于在监听器回调线程之外处理的样本
+     */
+    public void recordReceiveToPush(String topicName, long receivedNanos) {
+        long now = System.nanoTime();
+        metricsOf(topicName).recordReceiveToPush(now - receivedNanos, now);
+    }
+
+    /**
+     * 把样本放入主题上每个监听器的缓冲区
+     */
+    private void fanOut(List<ListenerDispatcher> dispatchers, ListenerDispatcher.ReceivedSample sample) {
+        for (ListenerDispatcher dispatcher : dispatchers) {
+            dispatcher.offer(sample);
+        }
+    }
+
     /**
      * 清理ZRDDS中间件资源
      */
@@ -184,14 +538,20 @@ public class ZRDDSService {
             try {
                 log.info("清理ZRDDS中间件资源...");
 
+                // 0. 写完异步缓冲中的样本，发出所有未发送的批量帧
+                if (asyncPublisher != null) {
+                    asyncPublisher.shutdown(properties.getAsync().getShutdownTimeoutMs());
+                }
+                flushAllBatches();
+
                 // 1. 取消所有订阅
                 cleanupSubscribers();
 
                 // 2. 取消所有发布
                 cleanupPublishers();
 
-                // 3. 清理ZRDDS简化接口
-                cleanupZRDDS();
+                // 3. 关闭传输层
+                transport.shutdown();
 
                 initialized = false;
                 log.info("ZRDDS中间件资源清理完成");
@@ -202,21 +562,41 @@ public class ZRDDSService {
         }
     }
 
+    /**
+     * 发出所有主题未发送的批量帧并停止定时刷新
+     */
+    private void flushAllBatches() {
+        batchFlusher.shutdownNow();
+        for (BatchAccumulator batcher : batchers.values()) {
+            try {
+                batcher.flush();
+            } catch (Exception e) {
+                log.error("发出批量帧失败: topic={}", batcher.getTopicName(), e);
+            } finally {
+                batcher.close();
+            }
+        }
+        batchers.clear();
+    }
+
     /**
      * 清理订阅者
      */
     private void cleanupSubscribers() {
-        for (String topicName : subscribers.keySet()) {
+        for (Map.Entry<String, TopicReader> entry : subscribers.entrySet()) {
             try {
-                com.zrdds.subscription.DataReader subscriber = subscribers.get(topicName);
-                com.zrdds.simpleinterface.DDSIF.unsub_topic(subscriber);
-                log.debug("取消订阅主题: {}", topicName);
+                entry.getValue().close();
+                log.debug("取消订阅主题: {}", entry.getKey());
             } catch (Exception e) {
-                log.error("取消订阅主题失败: {}", topicName, e);
+                log.error("取消订阅主题失败: {}", entry.getKey(), e);
             }
         }
         subscribers.clear();
+        for (List<ListenerDispatcher> dispatchers : listeners.values()) {
+            stopDispatchers(dispatchers);
+        }
         listeners.clear();
+        lastValues.clear();
         log.info("所有订阅者清理完成");
     }
 
@@ -224,167 +604,535 @@ public class ZRDDSService {
      * 清理发布者
      */
     private void cleanupPublishers() {
-        for (String topicName : publishers.keySet()) {
+        for (Map.Entry<String, TopicHandle> entry : topics.entrySet()) {
             try {
-                com.zrdds.publication.DataWriter publisher = publishers.get(topicName);
-                com.zrdds.simpleinterface.DDSIF.unpub_topic(publisher);
-                log.debug("取消发布主题: {}", topicName);
+                entry.getValue().getWriter().close();
+                log.debug("取消发布主题: {}", entry.getKey());
             } catch (Exception e) {
-                log.error("取消发布主题失败: {}", topicName, e);
+                log.error("取消发布主题失败: {}", entry.getKey(), e);
             }
         }
-        publishers.clear();
+        topics.clear();
         log.info("所有发布者清理完成");
     }
 
     /**
-     * 清理ZRDDS简化接口
+     * 检查ZRDDS中间件是否已初始化
+     * 状态为READY或DEGRADED时返回true
+     */
+    public boolean isInitialized() {
+        return initialized;
+    }
+
+    /**
+     * 获取传输层启动状态
      */
-    private void cleanupZRDDS() {
+    public TransportState getState() {
+        return state;
+    }
+
+    /**
+     * 传输层可用时完成的信号，启动失败时异常完成
+     * 返回的是副本，调用方不能改变启动结果
+     */
+    public CompletableFuture<Void> whenReady() {
+        return ready.copy();
+    }
+
+    /**
+     * 等待传输层可用，超时或启动失败时返回false
+     */
+    public boolean awaitReady(long timeout, TimeUnit unit) {
         try {
-            // 清理ZRDDS简化接口
-            com.zrdds.simpleinterface.DDSIF.Finalize();
-            log.info("ZRDDS简化接口清理完成");
-        } catch (Exception e) {
-            log.error("清理ZRDDS简化接口失败", e);
+            ready.get(timeout, unit);
+            return true;
+        } catch (TimeoutException | ExecutionException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
         }
     }
 
     /**
-     * 检查ZRDDS中间件是否已初始化
+     * 获取启动状态详情：状态、耗时、失败的主题和启动错误
      */
-    public boolean isInitialized() {
-        return initialized;
+    public Map<String, Object> getReadiness() {
+        Map<String, Object> readiness = new LinkedHashMap<>();
+        readiness.put("state", state);
+        readiness.put("ready", initialized);
+        readiness.put("transport", transport.getName());
+        readiness.put("startupMillis", startupMillis);
+        readiness.put("failedTopics", new TreeMap<>(failedTopics));
+        if (startupError != null) {
+            readiness.put("error", startupError);
+        }
+        return readiness;
+    }
+
+    /**
+     * 获取当前使用的传输层名称
+     */
+    public String getTransportName() {
+        return transport.getName();
+    }
+
+    /**
+     * 获取异步发布统计信息，未启用时返回null
+     */
+    public Map<String, Object> getAsyncPublishStats() {
+        return asyncPublisher != null ? asyncPublisher.getStats() : null;
     }
 
     /**
      * 发布数据到指定主题
+     * 启用异步发布时只把样本放入发布缓冲区后立即返回，写出失败记录日志
      */
     public void publishData(String topicName, Object data) {
         if (!initialized) {
             throw new IllegalStateException("ZRDDS中间件未初始化");
         }
+        publishData(getTopicHandle(topicName), data);
+    }
+
+    /**
+     * 通过主题句柄发布数据
+     */
+    public void publishData(TopicHandle handle, Object data) {
+        if (!initialized) {
+            throw new IllegalStateException("ZRDDS中间件未初始化");
+        }
+
+        if (asyncPublisher != null) {
+            publishDataAsync(handle, data).exceptionally(e -> {
+                log.error("异步发布数据失败: topic={}", handle.getTopicName(), e);
+                return null;
+            });
+            return;
+        }
 
         try {
-            log.debug("发布数据到主题: {}, 数据: {}", topicName, data);
-
-            // 1. 获取对应主题的发布者
-            com.zrdds.publication.DataWriter publisher = publishers.get(topicName);
-            if (publisher == null) {
-                // 如果发布者不存在，创建一个
-                createTopicPublisher(topicName);
-                publisher = publishers.get(topicName);
-            }
+            log.debug("发布数据到主题: {}, 数据: {}", handle.getTopicName(), data);
 
-            // 2. 将数据序列化
-            byte[] serializedData = serializeData(data);
+            // 1. 按主题编码格式序列化
+            EncodedPayload payload = encode(handle, data);
 
-            // 3. 发布数据
-            publishDataToTopic(publisher, serializedData);
+            // 2. 发布数据
+            publishDataToTopic(handle, payload);
 
-            log.debug("数据发布成功: topic={}, dataSize={}", topicName, serializedData.length);
+            log.debug("数据发布成功: topic={}, dataSize={}", handle.getTopicName(), payload.length);
 
         } catch (Exception e) {
-            log.error("发布数据失败: topic={}, data={}", topicName, data, e);
+            log.error("发布数据失败: topic={}, data={}", handle.getTopicName(), data, e);
             throw new RuntimeException("发布数据失败", e);
         }
     }
 
+    /**
+     * 异步发布数据到指定主题
+     * 返回的Future在样本写出后结束；未启用异步发布时同步写出并返回已结束的Future
+     */
+    public CompletableFuture<Void> publishDataAsync(String topicName, Object data) {
+        if (!initialized) {
+            return CompletableFuture.failedFuture(new IllegalStateException("ZRDDS中间件未初始化"));
+        }
+        try {
+            return publishDataAsync(getTopicHandle(topicName), data);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * 通过主题句柄异步发布数据
+     */
+    public CompletableFuture<Void> publishDataAsync(TopicHandle handle, Object data) {
+        if (!initialized) {
+            return CompletableFuture.failedFuture(new IllegalStateException("ZRDDS中间件未初始化"));
+        }
+
+        if (asyncPublisher == null) {
+            try {
+                publishData(handle, data);
+                return CompletableFuture.completedFuture(null);
+            } catch (Exception e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        try {
+            // 编码缓冲区是线程本地的，入队前需要拷贝一份
+            EncodedPayload payload = encode(handle, data);
+            return asyncPublisher.submit(handle.getWriter(), payload.key, payload.toArray());
+        } catch (Exception e) {
+            log.error("提交异步发布失败: topic={}", handle.getTopicName(), e);
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * 批量发布数据到指定主题
+     * 样本先进入主题的批量缓冲，按zrdds.topics.<主题>.batch配置的样本数、字节数或延迟打包成一帧发出；
+     * 带键主题上同一实例（设备ID+传感器类型）的样本打包成一帧按该实例写出
+     */
+    public void publishBatch(String topicName, Collection<?> dataList) {
+        if (!initialized) {
+            throw new IllegalStateException("ZRDDS中间件未初始化");
+        }
+
+        try {
+            TopicHandle handle = getTopicHandle(topicName);
+            BatchAccumulator batcher = getOrCreateBatcher(topicName);
+            for (Object data : dataList) {
+                EncodedPayload payload = encode(handle, data);
+                if (payload.key != null) {
+                    // 批量帧只能作为一个实例写出，带键主题按实例分别成帧
+                    batcher.add(payload.key, payload.data, payload.length);
+                } else {
+                    batcher.add(payload.data, payload.length);
+                }
+            }
+            log.debug("批量数据已加入缓冲: topic={}, count={}", topicName, dataList.size());
+        } catch (Exception e) {
+            log.error("批量发布数据失败: topic={}, count={}", topicName, dataList.size(), e);
+            throw new RuntimeException("批量发布数据失败", e);
+        }
+    }
+
+    /**
+     * 立即发出指定主题缓冲中的批量帧
+     */
+    public void flushBatch(String topicName) {
+        BatchAccumulator batcher = batchers.get(topicName);
+        if (batcher != null) {
+            batcher.flush();
+        }
+    }
+
+    /**
+     * 获取主题的批量缓冲，不存在时创建并注册定时刷新
+     */
+    private BatchAccumulator getOrCreateBatcher(String topicName) {
+        return batchers.computeIfAbsent(topicName, name -> {
+            ZRDDSProperties.BatchProperties batch = properties.getTopic(name).getBatch();
+            BatchAccumulator batcher = new BatchAccumulator(
+                    getTopicHandle(name).getWriter(), batch.getMaxSamples(), batch.getMaxBytes(), batch.getCompression());
+            long delayMs = Math.max(1, batch.getMaxDelayMs());
+            batchFlusher.scheduleWithFixedDelay(() -> {
+                try {
+                    batcher.flush();
+                } catch (Exception e) {
+                    log.error("定时发出批量帧失败: topic={}", name, e);
+                }
+            }, delayMs, delayMs, TimeUnit.MILLISECONDS);
+            log.info("创建批量发布缓冲: topic={}, maxSamples={}, maxBytes={}, maxDelayMs={}, compression={}",
+                    name, batch.getMaxSamples(), batch.getMaxBytes(), delayMs, batch.getCompression());
+            return batcher;
+        });
+    }
+
+    /**
+     * 按主题编码格式序列化数据
+     * 二进制编码写入线程本地缓冲区，返回结果只在当前线程下一次编码前有效
+     */
+    private EncodedPayload encode(TopicHandle handle, Object data) throws JsonProcessingException {
+        EncodedPayload payload = ENCODED_PAYLOAD.get();
+        if (data instanceof SensorData && handle.getFormat() == PayloadFormat.SENSOR_BINARY) {
+            payload.length = SensorBinaryCodec.encode((SensorData) data, payload.scratch, 0);
+            payload.data = payload.scratch;
+        } else {
+            byte[] bytes = serializeData(data);
+            payload.data = bytes;
+            payload.length = bytes.length;
+        }
+        payload.key = handle.isKeyed() ? instanceKey(data) : null;
+        return payload;
+    }
+
+    /**
+     * 带键主题上的实例键：传感器数据按设备ID和传感器类型区分实例，其他数据共用一个实例
+     */
+    private static String instanceKey(Object data) {
+        if (data instanceof SensorData) {
+            return InstanceKeys.of((SensorData) data);
+        }
+        return InstanceKeys.NONE;
+    }
+
     /**
      * 序列化数据
      */
-    private byte[] serializeData(Object data) {
-        // 模拟数据序列化
+    private byte[] serializeData(Object data) throws JsonProcessingException {
         if (data instanceof String) {
             return ((String) data).getBytes();
+        } else if (data instanceof byte[]) {
+            return (byte[]) data;
         } else {
-            return data.toString().getBytes();
+            // 其他对象统一序列化为JSON，接收端可直接解析
+            return objectMapper.writeValueAsBytes(data);
         }
     }
 
     /**
      * 发布数据到主题
      */
-    private void publishDataToTopic(com.zrdds.publication.DataWriter publisher, byte[] data) {
+    private void publishDataToTopic(TopicHandle handle, EncodedPayload payload) {
         try {
-            // 使用ZRDDS简化接口发布数据
-            // 方法1：使用BytesWrite直接发送
-            com.zrdds.simpleinterface.DDSIF.BytesWrite(domainId, getTopicNameFromPublisher(publisher), data, data.length);
-            log.debug("数据发布成功: size={}", data.length);
+            handle.write(payload.key, payload.data, payload.length);
+            log.debug("数据发布成功: size={}", payload.length);
         } catch (Exception e) {
             log.error("发布数据到主题失败", e);
             throw new RuntimeException("发布数据到主题失败", e);
         }
     }
-    
+
     /**
-     * 从发布者获取主题名称
+     * 订阅指定主题，以字符串或SensorData接收数据，返回监听器ID
      */
-    private String getTopicNameFromPublisher(com.zrdds.publication.DataWriter publisher) {
-        // 遍历发布者映射找到对应的主题名称
-        for (Map.Entry<String, com.zrdds.publication.DataWriter> entry : publishers.entrySet()) {
-            if (entry.getValue() == publisher) {
-                return entry.getKey();
-            }
-        }
-        return "unknown_topic";
+    public String subscribeTopic(String topicName, DataListener listener) {
+        String listenerName = listener.getClass().isSynthetic() ? "listener" : listener.getClass().getSimpleName();
+        return subscribeTopic(topicName, listenerName, new DataListenerAdapter(listener));
     }
 
     /**
-     * 订阅指定主题
+     * 订阅指定主题，只接收满足过滤表达式的数据，返回监听器ID
+     * 表达式语法见SampleFilter，例如"value > 70 AND sensorType = 'HUMIDITY'"
      */
-    public void subscribeTopic(String topicName, DataListener listener) {
+    public String subscribeTopic(String topicName, String filterExpression, DataListener listener) {
+        String listenerName = listener.getClass().isSynthetic() ? "listener" : listener.getClass().getSimpleName();
+        return subscribeTopic(topicName, listenerName, filterExpression, new DataListenerAdapter(listener));
+    }
+
+    /**
+     * 订阅指定主题，以字节视图接收数据，返回监听器ID
+     */
+    public String subscribeTopic(String topicName, BytesListener listener) {
+        return subscribeTopic(topicName, "listener", listener);
+    }
+
+    /**
+     * 订阅指定主题，以字节视图接收数据
+     * 同一主题可以有多个监听器，每个监听器有独立的缓冲区和投递线程，返回监听器ID
+     */
+    public String subscribeTopic(String topicName, String listenerName, BytesListener listener) {
+        return subscribeTopic(topicName, listenerName, null, listener);
+    }
+
+    /**
+     * 订阅指定主题，以字节视图接收满足过滤表达式的数据，filterExpression为null时不过滤
+     * 过滤在监听器的投递线程中进行，只读取负载中的头部字段，不满足条件的样本不会交给监听器
+     */
+    public String subscribeTopic(String topicName, String listenerName, String filterExpression, BytesListener listener) {
         if (!initialized) {
             throw new IllegalStateException("ZRDDS中间件未初始化");
         }
 
+        // 先编译表达式，表达式有误时直接抛出，不创建任何资源
+        SampleFilter filter = filterExpression != null ? SampleFilter.compile(filterExpression) : null;
+
+        String listenerId = topicName + "/" + listenerName + "#" + listenerSequence.incrementAndGet();
+        ZRDDSProperties.TopicProperties topicProperties = properties.getTopic(topicName);
+        ListenerDispatcher dispatcher = new ListenerDispatcher(listenerId, topicName, listener,
+                topicProperties.getListenerQueueCapacity(), topicProperties.getOverflowPolicy(), filter,
+                metricsOf(topicName));
         try {
-            log.info("订阅主题: {}", topicName);
-
-            // 1. 创建对应主题的订阅者（如果不存在）
-            com.zrdds.subscription.DataReader subscriber = subscribers.get(topicName);
-            if (subscriber == null) {
-                // 创建带有监听器的订阅者
-                createTopicSubscriberWithListener(topicName, listener);
-                subscriber = subscribers.get(topicName);
+            log.info("订阅主题: topic={}, listener={}, filter={}", topicName, listenerId, filterExpression);
+
+            dispatcher.start();
+            ZRDDSProperties.LastValueProperties lastValue = topicProperties.getLastValue();
+            if (lastValue.isEnabled() && lastValue.isReplayOnSubscribe()) {
+                // 缓存随读者创建；在缓存的锁内补发并登记，读者先收到的样本已在缓存中，
+                // 期间到达的样本在登记后才分发，顺序在补发的样本之后
+                createTopicSubscriber(topicName);
+                LastValueCache cache = lastValues.get(topicName);
+                synchronized (cache) {
+                    int replayed = replay(cache, dispatcher);
+                    listeners.computeIfAbsent(topicName, k -> new CopyOnWriteArrayList<>()).add(dispatcher);
+                    log.info("向新监听器补发缓存的样本: topic={}, listener={}, count={}", topicName, listenerId, replayed);
+                }
             } else {
-                // 如果订阅者已存在，更新监听器
-                listeners.put(topicName, listener);
+                // 先登记监听器，再按需创建订阅者，避免读者创建后到登记前的数据丢失
+                listeners.computeIfAbsent(topicName, k -> new CopyOnWriteArrayList<>()).add(dispatcher);
+                createTopicSubscriber(topicName);
             }
 
             log.info("主题 {} 订阅成功", topicName);
+            return listenerId;
 
         } catch (Exception e) {
+            removeDispatcher(topicName, dispatcher);
             log.error("订阅主题失败: topic={}", topicName, e);
             throw new RuntimeException("订阅主题失败", e);
         }
     }
-    
+
     /**
-     * 创建带有监听器的主题订阅者
+     * 移除主题上的单个监听器，主题的订阅者保留
      */
-    private void createTopicSubscriberWithListener(String topicName, DataListener listener) {
+    public boolean unsubscribeListener(String topicName, String listenerId) {
+        List<ListenerDispatcher> dispatchers = listeners.get(topicName);
+        if (dispatchers == null) {
+            return false;
+        }
+        for (ListenerDispatcher dispatcher : dispatchers) {
+            if (dispatcher.getId().equals(listenerId)) {
+                removeDispatcher(topicName, dispatcher);
+                log.info("移除监听器: {}", listenerId);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void removeDispatcher(String topicName, ListenerDispatcher dispatcher) {
+        listeners.computeIfPresent(topicName, (k, dispatchers) -> {
+            dispatchers.remove(dispatcher);
+            return dispatchers.isEmpty() ? null : dispatchers;
+        });
+        dispatcher.stop(LISTENER_STOP_TIMEOUT_MS);
+    }
+
+    private void stopDispatchers(List<ListenerDispatcher> dispatchers) {
+        for (ListenerDispatcher dispatcher : dispatchers) {
+            dispatcher.stop(LISTENER_STOP_TIMEOUT_MS);
+        }
+    }
+
+    /**
+     * 获取各主题的类型、编码和实际使用的写者/读者QoS配置
+     */
+    public Map<String, Map<String, Object>> getTopicInfo() {
+        Map<String, Map<String, Object>> info = new TreeMap<>();
+        for (TopicHandle handle : topics.values()) {
+            Map<String, Object> topicInfo = info.computeIfAbsent(handle.getTopicName(), k -> new LinkedHashMap<>());
+            topicInfo.put("type", handle.getType());
+            topicInfo.put("codec", handle.getFormat());
+            topicInfo.put("writerQos", handle.getQosProfile());
+            List<String> participants = transport.getParticipants(handle.getTopicName());
+            if (!participants.isEmpty()) {
+                topicInfo.put("participants", participants);
+            }
+        }
+        for (TopicReader subscriber : subscribers.values()) {
+            Map<String, Object> topicInfo = info.computeIfAbsent(subscriber.getTopicName(), k -> new LinkedHashMap<>());
+            topicInfo.put("readerQos", subscriber.getQosProfile());
+        }
+        return info;
+    }
+
+    /**
+     * 获取主题的计数和延迟直方图，不存在时创建
+     */
+    private TopicMetrics metricsOf(String topicName) {
+        return topicMetrics.computeIfAbsent(topicName, TopicMetrics::new);
+    }
+
+    /**
+     * 记录监听器解析样本失败，供自行解码的BytesListener调用
+     */
+    public void recordDecodeFailure(String topicName) {
+        metricsOf(topicName).recordDecodeFailure();
+    }
+
+    /**
+     * 获取各主题的发布/接收计数和写出、处理耗时分位数
+     */
+    public Map<String, Map<String, Object>> getTopicMetrics() {
+        Map<String, Map<String, Object>> stats = new TreeMap<>();
+        for (Map.Entry<String, TopicMetrics> entry : topicMetrics.entrySet()) {
+            stats.put(entry.getKey(), entry.getValue().getStats());
+        }
+        return stats;
+    }
+
+    /**
+     * 主题最新值缓存中每个实例的最新样本，主题未启用缓存时返回空列表
+     */
+    public List<LastValueCache.CachedSample> getLastValues(String topicName) {
+        LastValueCache cache = lastValues.get(topicName);
+        return cache != null ? cache.latestPerKey() : Collections.emptyList();
+    }
+
+    /**
+     * 从最新值缓存中取主题最新的传感器数据，instanceKey为null时取所有实例中最新的一个
+     */
+    public Optional<SensorData> getLatestSensorData(String topicName, String instanceKey) {
+        LastValueCache cache = lastValues.get(topicName);
+        if (cache == null) {
+            return Optional.empty();
+        }
+        LastValueCache.CachedSample sample = instanceKey != null ? cache.latest(instanceKey) : cache.latest();
+        return sample != null ? decodeSensorData(topicName, sample.getData()) : Optional.empty();
+    }
+
+    /**
+     * 从最新值缓存中取主题每个实例最新的传感器数据
+     */
+    public List<SensorData> getLatestSensorDataPerKey(String topicName) {
+        List<SensorData> latest = new ArrayList<>();
+        for (LastValueCache.CachedSample sample : getLastValues(topicName)) {
+            decodeSensorData(topicName, sample.getData()).ifPresent(latest::add);
+        }
+        return latest;
+    }
+
+    /**
+     * 解码缓存中的传感器数据，不是传感器数据时返回空
+     */
+    private Optional<SensorData> decodeSensorData(String topicName, byte[] data) {
         try {
-            // 创建数据监听器
-            ZRDDSDataListener dataListener = new ZRDDSDataListener(topicName, listener);
-            
-            // 使用ZRDDS简化接口创建订阅者
-            com.zrdds.subscription.DataReader subscriber = com.zrdds.simpleinterface.DDSIF.sub_topic(
-                    domainParticipant, topicName, com.zrdds.infrastructure.BytesTypeSupport.get_instance(), "reliable", dataListener);
-            if (subscriber != null) {
-                subscribers.put(topicName, subscriber);
-                listeners.put(topicName, listener);
-                log.debug("主题订阅者创建成功: {}", topicName);
-            } else {
-                log.error("创建主题订阅者失败: {}", topicName);
+            switch (PayloadFormat.detect(data, 0, data.length)) {
+                case SENSOR_BINARY:
+                    SensorSample sample = new SensorSample();
+                    SensorBinaryCodec.decode(data, 0, data.length, sample);
+                    return Optional.of(sample.toSensorData());
+                case JSON:
+                    return Optional.of(objectMapper.readValue(data, SensorData.class));
+                default:
+                    return Optional.empty();
             }
         } catch (Exception e) {
-            log.error("创建主题订阅者失败: {}", topicName, e);
-            throw new RuntimeException("创建主题订阅者失败", e);
+            log.warn("解码缓存的传感器数据失败: topic={}, size={}", topicName, data.length, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 获取各主题最新值缓存的实例数和更新次数
+     */
+    public Map<String, Map<String, Object>> getLastValueStats() {
+        Map<String, Map<String, Object>> stats = new TreeMap<>();
+        for (Map.Entry<String, LastValueCache> entry : lastValues.entrySet()) {
+            stats.put(entry.getKey(), entry.getValue().getStats());
         }
+        return stats;
     }
 
+    /**
+     * 获取各主题批量发布的帧数和压缩前后字节数
+     */
+    public Map<String, Map<String, Object>> getBatchStats() {
+        Map<String, Map<String, Object>> stats = new TreeMap<>();
+        for (Map.Entry<String, BatchAccumulator> entry : batchers.entrySet()) {
+            stats.put(entry.getKey(), entry.getValue().getStats());
+        }
+        return stats;
+    }
 
+    /**
+     * 获取各主题监听器的缓冲区深度和投递延迟
+     */
+    public Map<String, List<Map<String, Object>>> getListenerStats() {
+        Map<String, List<Map<String, Object>>> stats = new TreeMap<>();
+        for (Map.Entry<String, List<ListenerDispatcher>> entry : listeners.entrySet()) {
+            List<Map<String, Object>> topicStats = new ArrayList<>();
+            for (ListenerDispatcher dispatcher : entry.getValue()) {
+                topicStats.add(dispatcher.getStats());
+            }
+            stats.put(entry.getKey(), topicStats);
+        }
+        return stats;
+    }
 
     /**
      * 取消订阅主题
@@ -392,12 +1140,16 @@ public class ZRDDSService {
     public void unsubscribeTopic(String topicName) {
         if (initialized) {
             try {
-                com.zrdds.subscription.DataReader subscriber = subscribers.get(topicName);
+                TopicReader subscriber = subscribers.remove(topicName);
                 if (subscriber != null) {
-                    com.zrdds.simpleinterface.DDSIF.unsub_topic(subscriber);
-                    subscribers.remove(topicName);
+                    subscriber.close();
                 }
-                listeners.remove(topicName);
+                List<ListenerDispatcher> dispatchers = listeners.remove(topicName);
+                if (dispatchers != null) {
+                    stopDispatchers(dispatchers);
+                }
+                // 读者已关闭，缓存不再更新，移除后最新值查询回退到数据库
+                lastValues.remove(topicName);
                 log.info("取消订阅主题: {}", topicName);
             } catch (Exception e) {
                 log.error("取消订阅主题失败: {}", topicName, e);
@@ -412,10 +1164,65 @@ public class ZRDDSService {
         return listeners.keySet();
     }
 
+    /**
+     * 编码结果：data的前length个字节有效
+     */
+    private static final class EncodedPayload {
+
+        final byte[] scratch = new byte[SensorBinaryCodec.MAX_SIZE];
+        byte[] data;
+        int length;
+        // 带键主题的实例键，无键主题为null
+        String key;
+
+        byte[] toArray() {
+            return data == scratch || length != data.length ? Arrays.copyOf(data, length) : data;
+        }
+    }
+
+    /**
+     * 把字符串监听器适配为字节监听器
+     * 二进制编码的传感器数据解码为SensorData，JSON和文本以字符串交给监听器
+     */
+    private static final class DataListenerAdapter implements BytesListener {
+
+        private final DataListener delegate;
+
+        DataListenerAdapter(DataListener delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void onBytes(String topicName, ByteBuffer view, SampleInfo info) {
+            if (PayloadFormat.detect(view) == PayloadFormat.SENSOR_BINARY) {
+                SensorSample sample = DECODED_SAMPLE.get();
+                SensorBinaryCodec.decode(view, sample);
+                delegate.onDataReceived(topicName, sample.toSensorData());
+                return;
+            }
+
+            // 将接收到的字节数据转换为字符串
+            byte[] bytes = new byte[view.remaining()];
+            view.get(view.position(), bytes);
+            String receivedContent = new String(bytes);
+            log.debug("接收到数据: topic={}, content={}", topicName, receivedContent);
+            delegate.onDataReceived(topicName, receivedContent);
+        }
+    }
+
     /**
      * 数据监听器接口
      */
     public interface DataListener {
         void onDataReceived(String topicName, Object data);
     }
+
+    /**
+     * 字节数据监听器接口
+     * view是样本的只读视图，读取范围为position到limit；view和info只在回调期间有效，
+     * 需要保留时请自行拷贝
+     */
+    public interface BytesListener {
+        void onBytes(String topicName, ByteBuffer view, SampleInfo info);
+    }
 }
@@ -0,0 +1,257 @@
+package com.team9.fitness.transport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 异步发布器
+ * 调用线程只把样本放入环形缓冲区，由专门的写线程调用TopicWriter.write。
+ * 按主题哈希分配到固定的通道，每个通道一个缓冲区和一个写线程，保证同一主题内的发布顺序
+ */
+public class AsyncPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncPublisher.class);
+
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    /**
+     * 缓冲区满时的处理策略
+     */
+    public enum FullPolicy {
+        /** 阻塞调用线程直到有空位 */
+        BLOCK,
+        /** 丢弃最早的样本，为新样本腾出空位 */
+        DROP_OLDEST,
+        /** 立即以失败结束新样本的Future */
+        FAIL_FAST
+    }
+
+    private final Lane[] lanes;
+    private final FullPolicy fullPolicy;
+    private volatile boolean running = true;
+
+    private final AtomicLong submittedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+
+    public AsyncPublisher(int writerThreads, int queueCapacity, FullPolicy fullPolicy) {
+        this.fullPolicy = fullPolicy;
+        this.lanes = new Lane[Math.max(1, writerThreads)];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new Lane(i, queueCapacity);
+            lanes[i].start();
+        }
+    }
+
+    /**
+     * 提交一个待写出的样本，写出完成后Future正常结束，写出失败、被丢弃或被拒绝时Future异常结束
+     */
+    public CompletableFuture<Void> submit(TopicWriter writer, byte[] data) {
+        return submit(writer, null, data);
+    }
+
+    /**
+     * 按键提交一个待写出的样本，键只对带键主题有效
+     */
+    public CompletableFuture<Void> submit(TopicWriter writer, String key, byte[] data) {
+        PublishTask task = new PublishTask(writer, key, data);
+        if (!running) {
+            task.future.completeExceptionally(new IllegalStateException("异步发布器已关闭"));
+            return task.future;
+        }
+
+        Lane lane = lanes[(writer.getTopicName().hashCode() & 0x7fffffff) % lanes.length];
+        if (!lane.ring.offer(task) && !handleFull(lane, task)) {
+            return task.future;
+        }
+        submittedCount.incrementAndGet();
+        if (lane.closed) {
+            // 写线程已退出，放入的样本不会再被写出
+            lane.rejectRemaining();
+        } else {
+            lane.signal();
+        }
+        return task.future;
+    }
+
+    /**
+     * 按策略处理缓冲区已满，返回样本最终是否进入缓冲区
+     */
+    private boolean handleFull(Lane lane, PublishTask task) {
+        switch (fullPolicy) {
+            case FAIL_FAST:
+                rejectedCount.incrementAndGet();
+                task.future.completeExceptionally(new PublishRejectedException("发布缓冲区已满: topic=" + task.writer.getTopicName()));
+                return false;
+            case DROP_OLDEST:
+                while (!lane.ring.offer(task)) {
+                    PublishTask oldest = lane.ring.poll();
+                    if (oldest != null) {
+                        droppedCount.incrementAndGet();
+                        oldest.future.completeExceptionally(new PublishRejectedException("发布缓冲区已满，样本被丢弃: topic=" + oldest.writer.getTopicName()));
+                    }
+                }
+                return true;
+            case BLOCK:
+            default:
+                while (!lane.ring.offer(task)) {
+                    if (!running || Thread.currentThread().isInterrupted()) {
+                        rejectedCount.incrementAndGet();
+                        task.future.completeExceptionally(new PublishRejectedException("等待发布缓冲区时被中断: topic=" + task.writer.getTopicName()));
+                        return false;
+                    }
+                    lane.signal();
+                    LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                }
+                return true;
+        }
+    }
+
+    /**
+     * 停止接收新样本，等待写线程把缓冲区中的样本写完
+     * 与关闭同时提交、写线程退出后才进入缓冲区的样本以失败结束
+     */
+    public void shutdown(long timeoutMs) {
+        running = false;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        for (Lane lane : lanes) {
+            lane.signal();
+            try {
+                lane.thread.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (lane.thread.isAlive()) {
+                log.warn("异步发布写线程未在超时前结束: {}", lane.thread.getName());
+            }
+        }
+    }
+
+    /**
+     * 获取统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        int depth = 0;
+        int capacity = 0;
+        for (Lane lane : lanes) {
+            depth += lane.ring.size();
+            capacity += lane.ring.capacity();
+        }
+        stats.put("fullPolicy", fullPolicy);
+        stats.put("writerThreads", lanes.length);
+        stats.put("queueDepth", depth);
+        stats.put("queueCapacity", capacity);
+        stats.put("submitted", submittedCount.get());
+        stats.put("dropped", droppedCount.get());
+        stats.put("rejected", rejectedCount.get());
+        stats.put("failed", failedCount.get());
+        return stats;
+    }
+
+    /**
+     * 待写出的样本
+     */
+    private static final class PublishTask {
+
+        final TopicWriter writer;
+        final String key;
+        final byte[] data;
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        PublishTask(TopicWriter writer, String key, byte[] data) {
+            this.writer = writer;
+            this.key = key;
+            this.data = data;
+        }
+    }
+
+    /**
+     * 发布通道：一个环形缓冲区和一个写线程
+     */
+    private final class Lane implements Runnable {
+
+        final MpmcRingBuffer<PublishTask> ring;
+        final Thread thread;
+        volatile boolean parked;
+        // 写线程退出前置位，之后放入的样本由提交方以失败结束
+        volatile boolean closed;
+
+        Lane(int index, int capacity) {
+            this.ring = new MpmcRingBuffer<>(capacity);
+            this.thread = new Thread(this, "ZRDDS-AsyncWriter-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        void start() {
+            thread.start();
+        }
+
+        void signal() {
+            if (parked) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                PublishTask task = ring.poll();
+                if (task == null) {
+                    if (!running) {
+                        // 先置位再清空：提交方放入样本后检查closed，两边至少有一方能取到这个样本
+                        closed = true;
+                        rejectRemaining();
+                        return;
+                    }
+                    parked = true;
+                    // 置位后再检查一次，避免生产者在检查parked之前放入的样本被漏掉
+                    if (ring.isEmpty() && running) {
+                        LockSupport.park(this);
+                    }
+                    parked = false;
+                    continue;
+                }
+                try {
+                    task.writer.write(task.key, task.data, task.data.length);
+                    task.future.complete(null);
+                } catch (Throwable e) {
+                    failedCount.incrementAndGet();
+                    task.future.completeExceptionally(e);
+                }
+            }
+        }
+
+        /**
+         * 取出缓冲区中剩余的样本并以失败结束
+         */
+        void rejectRemaining() {
+            PublishTask task;
+            while ((task = ring.poll()) != null) {
+                rejectedCount.incrementAndGet();
+                task.future.completeExceptionally(new IllegalStateException("异步发布器已关闭"));
+            }
+        }
+    }
+
+    /**
+     * 样本因缓冲区已满被拒绝或丢弃
+     */
+    public static class PublishRejectedException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        public PublishRejectedException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.team9.fitness.transport;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 单个主题的批量发布缓冲
+ * 攒够maxSamples个样本或超过maxBytes字节时立即发出，其余由定时任务调用flush发出。
+ * 配置了压缩方式时每帧压缩后再写出，接收端按首字节识别并还原。
+ * 带键主题上一帧只能作为一个实例写出，样本按实例键分别成帧，阈值按每个实例的帧计算
+ */
+public class BatchAccumulator {
+
+    private final TopicWriter writer;
+    private final int maxSamples;
+    private final int maxBytes;
+    private final BatchFrame.Builder builder;
+    // 带键主题各实例正在攒的帧，flush后清空，只在持有锁时使用
+    private final Map<String, BatchFrame.Builder> keyedBuilders = new LinkedHashMap<>();
+    private final FrameCompression compression;
+    // 为null时不压缩，只在持有锁时使用
+    private final CompressedFrame.Encoder encoder;
+
+    // 以下统计只在持有锁时写入
+    private volatile long frameCount;
+    private volatile long sampleCount;
+    private volatile long rawBytes;
+    private volatile long wireBytes;
+
+    public BatchAccumulator(TopicWriter writer, int maxSamples, int maxBytes) {
+        this(writer, maxSamples, maxBytes, FrameCompression.NONE);
+    }
+
+    public BatchAccumulator(TopicWriter writer, int maxSamples, int maxBytes, FrameCompression compression) {
+        this.writer = writer;
+        this.maxSamples = Math.max(1, maxSamples);
+        this.maxBytes = maxBytes;
+        this.builder = new BatchFrame.Builder(Math.min(maxBytes, 64 * 1024));
+        this.compression = compression;
+        this.encoder = compression != FrameCompression.NONE ? new CompressedFrame.Encoder(compression) : null;
+    }
+
+    /**
+     * 追加一个样本，达到阈值时发出当前帧
+     */
+    public void add(byte[] sample) {
+        add(sample, sample.length);
+    }
+
+    /**
+     * 追加sample的前length个字节作为一个样本，样本在返回前已拷贝进帧缓冲区
+     */
+    public synchronized void add(byte[] sample, int length) {
+        // 新样本会让帧超过字节上限时，先把已有样本发出
+        if (builder.count() > 0 && builder.length() + 4 + length > maxBytes) {
+            write(null, builder);
+        }
+        builder.add(sample, 0, length);
+        if (builder.count() >= maxSamples || builder.length() >= maxBytes) {
+            write(null, builder);
+        }
+    }
+
+    /**
+     * 追加带键主题上一个实例的样本，同一实例的样本进入同一帧
+     */
+    public synchronized void add(String key, byte[] sample, int length) {
+        BatchFrame.Builder keyed = keyedBuilders.computeIfAbsent(key, k -> new BatchFrame.Builder(256));
+        if (keyed.count() > 0 && keyed.length() + 4 + length > maxBytes) {
+            write(key, keyed);
+        }
+        keyed.add(sample, 0, length);
+        if (keyed.count() >= maxSamples || keyed.length() >= maxBytes) {
+            write(key, keyed);
+        }
+    }
+
+    /**
+     * 发出所有未满的帧
+     */
+    public synchronized void flush() {
+        write(null, builder);
+        // 实例的帧缓冲不复用，避免设备多时长期占用内存
+        Iterator<Map.Entry<String, BatchFrame.Builder>> it = keyedBuilders.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, BatchFrame.Builder> entry = it.next();
+            it.remove();
+            write(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * 写出一帧，key为null时按无键写出
+     */
+    private void write(String key, BatchFrame.Builder frameBuilder) {
+        if (frameBuilder.count() == 0) {
+            return;
+        }
+        try {
+            byte[] frame = frameBuilder.finish();
+            int length = frameBuilder.length();
+            byte[] output = frame;
+            int written = length;
+            if (encoder != null) {
+                written = encoder.encode(frame, length);
+                output = encoder.output();
+            }
+            if (key != null) {
+                writer.write(key, output, written);
+            } else {
+                writer.write(output, written);
+            }
+            frameCount++;
+            sampleCount += frameBuilder.count();
+            rawBytes += length;
+            wireBytes += written;
+        } finally {
+            frameBuilder.reset();
+        }
+    }
+
+    /**
+     * 释放压缩器，调用前应先flush
+     */
+    public synchronized void close() {
+        if (encoder != null) {
+            encoder.close();
+        }
+    }
+
+    /**
+     * 获取主题名称
+     */
+    public String getTopicName() {
+        return writer.getTopicName();
+    }
+
+    /**
+     * 获取统计信息
+     */
+    public Map<String, Object> getStats() {
+        long raw = rawBytes;
+        long wire = wireBytes;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("compression", compression);
+        stats.put("frames", frameCount);
+        stats.put("samples", sampleCount);
+        stats.put("rawBytes", raw);
+        stats.put("wireBytes", wire);
+        stats.put("compressionRatio", wire > 0 ? Math.round(raw * 100.0 / wire) / 100.0 : 0);
+        return stats;
+    }
+}
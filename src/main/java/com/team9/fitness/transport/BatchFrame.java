@@ -0,0 +1,131 @@
+package com.team9.fitness.transport;
+
+/**
+ * 批量帧格式
+ * [MAGIC 1字节][样本数 4字节][样本1长度 4字节][样本1数据]...，整数均为大端序。
+ * MAGIC取0xB1，它在UTF-8中只能作为后续字节出现，不会是JSON或文本命令的首字节，
+ * 接收端据此区分批量帧和单条样本
+ */
+public final class BatchFrame {
+
+    public static final byte MAGIC = (byte) 0xB1;
+
+    private static final int HEADER_SIZE = 5;
+
+    private BatchFrame() {
+    }
+
+    /**
+     * 判断数据是否为批量帧
+     */
+    public static boolean isBatch(byte[] data, int length) {
+        return length >= HEADER_SIZE && data[0] == MAGIC;
+    }
+
+    /**
+     * 逐个取出批量帧中的样本，样本以(data, offset, length)的形式引用原缓冲区，返回样本数
+     */
+    public static int forEach(byte[] data, int length, EntryConsumer consumer) {
+        int count = readInt(data, 1);
+        int pos = HEADER_SIZE;
+        for (int i = 0; i < count; i++) {
+            if (pos + 4 > length) {
+                throw new IllegalArgumentException("批量帧被截断: index=" + i + ", count=" + count);
+            }
+            int entryLength = readInt(data, pos);
+            pos += 4;
+            if (entryLength < 0 || pos + entryLength > length) {
+                throw new IllegalArgumentException("批量帧样本长度非法: index=" + i + ", length=" + entryLength);
+            }
+            consumer.accept(data, pos, entryLength);
+            pos += entryLength;
+        }
+        return count;
+    }
+
+    static int readInt(byte[] data, int pos) {
+        return ((data[pos] & 0xFF) << 24)
+                | ((data[pos + 1] & 0xFF) << 16)
+                | ((data[pos + 2] & 0xFF) << 8)
+                | (data[pos + 3] & 0xFF);
+    }
+
+    static void writeInt(byte[] data, int pos, int value) {
+        data[pos] = (byte) (value >>> 24);
+        data[pos + 1] = (byte) (value >>> 16);
+        data[pos + 2] = (byte) (value >>> 8);
+        data[pos + 3] = (byte) value;
+    }
+
+    /**
+     * 批量帧样本回调
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(byte[] data, int offset, int length);
+    }
+
+    /**
+     * 批量帧构建器，缓冲区在reset后复用
+     */
+    public static final class Builder {
+
+        private byte[] buffer;
+        private int position = HEADER_SIZE;
+        private int count;
+
+        public Builder(int initialCapacity) {
+            this.buffer = new byte[Math.max(initialCapacity, HEADER_SIZE + 4)];
+            this.buffer[0] = MAGIC;
+        }
+
+        /**
+         * 追加一个样本
+         */
+        public void add(byte[] sample, int offset, int length) {
+            ensureCapacity(position + 4 + length);
+            writeInt(buffer, position, length);
+            System.arraycopy(sample, offset, buffer, position + 4, length);
+            position += 4 + length;
+            count++;
+        }
+
+        /**
+         * 当前样本数
+         */
+        public int count() {
+            return count;
+        }
+
+        /**
+         * 当前帧长度
+         */
+        public int length() {
+            return position;
+        }
+
+        /**
+         * 写入样本数并返回帧缓冲区，有效长度为length()
+         */
+        public byte[] finish() {
+            writeInt(buffer, 1, count);
+            return buffer;
+        }
+
+        /**
+         * 清空已追加的样本
+         */
+        public void reset() {
+            position = HEADER_SIZE;
+            count = 0;
+        }
+
+        private void ensureCapacity(int required) {
+            if (required > buffer.length) {
+                byte[] newBuffer = new byte[Math.max(required, buffer.length * 2)];
+                System.arraycopy(buffer, 0, newBuffer, 0, position);
+                buffer = newBuffer;
+            }
+        }
+    }
+}
@@ -0,0 +1,520 @@
+package com.team9.fitness.transport;
+
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 压缩批量帧格式
+ * [MAGIC 1字节][标志 1字节][样本数 4字节][帧体原始长度 4字节][帧体]，整数均为大端序。
+ * 标志bit0：帧体按列编码；bit1：帧体经DEFLATE压缩。接收端按标志还原出普通批量帧。
+ * <p>
+ * 不按列编码时帧体就是普通批量帧去掉头部后的部分。按列编码要求帧内全部是传感器二进制样本，
+ * 每个样本依次写入：
+ * <ul>
+ * <li>标志/类型/单位3字节：与上一个样本相同写'0'，否则写'1'和24位原值</li>
+ * <li>设备ID（带设备ID时）：与上一个样本相同写'0'，否则写'1'、8位长度和原始字节</li>
+ * <li>时间戳：第一个样本64位原值，之后写差分的差分，按大小分档：'0'、'10'+16位、'110'+24位、'1110'+40位、'1111'+64位</li>
+ * <li>数值：第一个样本64位原值，之后与上一个数值异或：相同写'0'；有效位落在上一次的窗口内写'10'和窗口内的位；
+ * 否则写'11'、5位前导零个数、6位有效位数减一和有效位</li>
+ * </ul>
+ * 周期上报的传感器数据时间间隔固定、数值变化缓慢，每条样本通常只需要几个字节
+ */
+public final class CompressedFrame {
+
+    public static final byte MAGIC = (byte) 0xB3;
+
+    private static final int HEADER_SIZE = 10;
+
+    private static final int FLAG_COLUMNAR = 0x01;
+    private static final int FLAG_DEFLATE = 0x02;
+
+    // 传感器二进制样本布局，见SensorBinaryCodec
+    private static final int SENSOR_FIXED_SIZE = 20;
+    private static final int SENSOR_FLAG_DEVICE_ID = 0x01;
+
+    // 还原后普通批量帧的长度上限，远大于批量发布的max-bytes，用于拒绝头部声明的超大长度
+    private static final int MAX_FRAME_LENGTH = 16 * 1024 * 1024;
+    // DEFLATE的最大压缩比约为1032:1，帧体原始长度超过压缩数据长度的这个倍数时头部必然是错的
+    private static final int MAX_DEFLATE_RATIO = 1032;
+
+    private CompressedFrame() {
+    }
+
+    /**
+     * 判断数据是否为压缩批量帧
+     */
+    public static boolean isCompressed(byte[] data, int length) {
+        return length >= HEADER_SIZE && data[0] == MAGIC;
+    }
+
+    /**
+     * 还原为普通批量帧，返回的数组长度即帧长度
+     */
+    public static byte[] decode(byte[] data, int length) {
+        if (!isCompressed(data, length)) {
+            throw new IllegalArgumentException("不是压缩批量帧");
+        }
+        int flags = data[1];
+        int count = BatchFrame.readInt(data, 2);
+        int bodyLength = BatchFrame.readInt(data, 6);
+        int payloadLength = length - HEADER_SIZE;
+        boolean deflate = (flags & FLAG_DEFLATE) != 0;
+        boolean columnar = (flags & FLAG_COLUMNAR) != 0;
+        // 头部来自网络，分配缓冲区之前先按帧长度校验：未压缩时帧体长度必须与实际相符，
+        // 每个样本按列编码至少占3位，不按列编码至少有4字节的长度字段
+        long maxCount = columnar ? bodyLength * 8L / 3 + 1 : bodyLength / 4;
+        if (count < 0 || bodyLength < 0 || bodyLength > MAX_FRAME_LENGTH - 5
+                || (deflate ? bodyLength > (long) payloadLength * MAX_DEFLATE_RATIO : bodyLength != payloadLength)
+                || count > maxCount || (long) count * (4 + SENSOR_FIXED_SIZE) > MAX_FRAME_LENGTH) {
+            throw new IllegalArgumentException("压缩批量帧头部非法: count=" + count + ", bodyLength=" + bodyLength
+                    + ", frameLength=" + length);
+        }
+
+        byte[] body;
+        int bodyOffset;
+        if (deflate) {
+            body = inflate(data, HEADER_SIZE, payloadLength, bodyLength);
+            bodyOffset = 0;
+        } else {
+            body = data;
+            bodyOffset = HEADER_SIZE;
+        }
+
+        if (columnar) {
+            return decodeColumns(body, bodyOffset, bodyLength, count);
+        }
+        byte[] frame = new byte[5 + bodyLength];
+        frame[0] = BatchFrame.MAGIC;
+        BatchFrame.writeInt(frame, 1, count);
+        System.arraycopy(body, bodyOffset, frame, 5, bodyLength);
+        return frame;
+    }
+
+    private static byte[] inflate(byte[] data, int offset, int length, int bodyLength) {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(data, offset, length);
+            byte[] body = new byte[bodyLength];
+            int n = 0;
+            while (n < bodyLength) {
+                int read = inflater.inflate(body, n, bodyLength - n);
+                if (read == 0 && (inflater.finished() || inflater.needsInput())) {
+                    break;
+                }
+                n += read;
+            }
+            if (n != bodyLength) {
+                throw new IllegalArgumentException("压缩批量帧解压后长度不符: expected=" + bodyLength + ", actual=" + n);
+            }
+            return body;
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("压缩批量帧解压失败", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] decodeColumns(byte[] body, int offset, int length, int count) {
+        BitReader in = new BitReader(body, offset, offset + length);
+        BatchFrame.Builder builder = new BatchFrame.Builder(5 + count * (4 + SENSOR_FIXED_SIZE));
+        byte[] sample = new byte[SENSOR_FIXED_SIZE + 1 + 255];
+        sample[0] = (byte) 0xB2;
+
+        int header = 0;
+        int deviceIdLength = 0;
+        long timestamp = 0;
+        long delta = 0;
+        long valueBits = 0;
+        int leading = -1;
+        int trailing = 0;
+        for (int i = 0; i < count; i++) {
+            if (in.readBit()) {
+                header = (int) in.read(24);
+            }
+            int flags = header >>> 16;
+            sample[1] = (byte) flags;
+            sample[2] = (byte) (header >>> 8);
+            sample[3] = (byte) header;
+
+            int sampleLength = SENSOR_FIXED_SIZE;
+            if ((flags & SENSOR_FLAG_DEVICE_ID) != 0) {
+                if (in.readBit()) {
+                    deviceIdLength = (int) in.read(8);
+                    for (int j = 0; j < deviceIdLength; j++) {
+                        sample[SENSOR_FIXED_SIZE + 1 + j] = (byte) in.read(8);
+                    }
+                }
+                sample[SENSOR_FIXED_SIZE] = (byte) deviceIdLength;
+                sampleLength += 1 + deviceIdLength;
+            }
+
+            if (i == 0) {
+                timestamp = in.read(64);
+                valueBits = in.read(64);
+            } else {
+                delta += readDeltaOfDelta(in);
+                timestamp += delta;
+                if (in.readBit()) {
+                    if (!in.readBit()) {
+                        if (leading < 0) {
+                            throw new IllegalArgumentException("压缩批量帧数值窗口非法: index=" + i);
+                        }
+                        int significant = 64 - leading - trailing;
+                        valueBits ^= in.read(significant) << trailing;
+                    } else {
+                        leading = (int) in.read(5);
+                        int significant = (int) in.read(6) + 1;
+                        trailing = 64 - leading - significant;
+                        if (trailing < 0) {
+                            throw new IllegalArgumentException("压缩批量帧数值窗口非法: index=" + i);
+                        }
+                        valueBits ^= in.read(significant) << trailing;
+                    }
+                }
+            }
+            writeLong(sample, 4, timestamp);
+            writeLong(sample, 12, valueBits);
+            builder.add(sample, 0, sampleLength);
+            if (builder.length() > MAX_FRAME_LENGTH) {
+                throw new IllegalArgumentException("压缩批量帧还原后超过" + MAX_FRAME_LENGTH + "字节: index=" + i);
+            }
+        }
+        return Arrays.copyOf(builder.finish(), builder.length());
+    }
+
+    private static long readDeltaOfDelta(BitReader in) {
+        if (!in.readBit()) {
+            return 0;
+        }
+        int bits;
+        if (!in.readBit()) {
+            bits = 16;
+        } else if (!in.readBit()) {
+            bits = 24;
+        } else if (!in.readBit()) {
+            bits = 40;
+        } else {
+            bits = 64;
+        }
+        long zigzag = in.read(bits);
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    private static void writeLong(byte[] buffer, int pos, long value) {
+        for (int i = 7; i >= 0; i--) {
+            buffer[pos + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    private static long readLong(byte[] buffer, int pos) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (buffer[pos + i] & 0xFF);
+        }
+        return value;
+    }
+
+    /**
+     * 压缩批量帧编码器，复用输出缓冲区和压缩器，只能在一个线程中使用
+     */
+    public static final class Encoder {
+
+        private final FrameCompression compression;
+        private final Deflater deflater;
+        private final BitWriter columns = new BitWriter();
+        private byte[] output = new byte[1024];
+
+        public Encoder(FrameCompression compression) {
+            this.compression = compression;
+            this.deflater = compression.isDeflate() ? new Deflater(Deflater.BEST_SPEED, true) : null;
+        }
+
+        /**
+         * 编码普通批量帧，返回输出长度，输出在output()中
+         * 帧内有非传感器二进制样本时不按列编码
+         */
+        public int encode(byte[] frame, int length) {
+            int count = BatchFrame.readInt(frame, 1);
+            int flags = 0;
+            byte[] body = frame;
+            int bodyOffset = 5;
+            int bodyLength = length - 5;
+            if (compression.isColumnar() && encodeColumns(frame, length, count)) {
+                flags |= FLAG_COLUMNAR;
+                body = columns.buffer();
+                bodyOffset = 0;
+                bodyLength = columns.length();
+            }
+
+            int outputLength;
+            if (deflater != null) {
+                flags |= FLAG_DEFLATE;
+                outputLength = deflate(body, bodyOffset, bodyLength);
+            } else {
+                ensureCapacity(HEADER_SIZE + bodyLength);
+                System.arraycopy(body, bodyOffset, output, HEADER_SIZE, bodyLength);
+                outputLength = HEADER_SIZE + bodyLength;
+            }
+            output[0] = MAGIC;
+            output[1] = (byte) flags;
+            BatchFrame.writeInt(output, 2, count);
+            BatchFrame.writeInt(output, 6, bodyLength);
+            return outputLength;
+        }
+
+        public byte[] output() {
+            return output;
+        }
+
+        /**
+         * 关闭编码器，释放压缩器的本地内存
+         */
+        public void close() {
+            if (deflater != null) {
+                deflater.end();
+            }
+        }
+
+        private int deflate(byte[] body, int offset, int length) {
+            deflater.reset();
+            deflater.setInput(body, offset, length);
+            deflater.finish();
+            int position = HEADER_SIZE;
+            ensureCapacity(HEADER_SIZE + length / 2 + 64);
+            while (!deflater.finished()) {
+                if (position == output.length) {
+                    ensureCapacity(output.length * 2);
+                }
+                position += deflater.deflate(output, position, output.length - position);
+            }
+            return position;
+        }
+
+        private boolean encodeColumns(byte[] frame, int length, int count) {
+            columns.reset();
+            int pos = 5;
+            int previousHeader = -1;
+            int previousDeviceIdOffset = -1;
+            int previousDeviceIdLength = 0;
+            long previousTimestamp = 0;
+            long previousDelta = 0;
+            long previousValue = 0;
+            int leading = -1;
+            int trailing = 0;
+            for (int i = 0; i < count; i++) {
+                if (pos + 4 > length) {
+                    return false;
+                }
+                int entryLength = BatchFrame.readInt(frame, pos);
+                int entry = pos + 4;
+                pos = entry + entryLength;
+                if (!isSensorSample(frame, entry, entryLength, length)) {
+                    return false;
+                }
+
+                int header = ((frame[entry + 1] & 0xFF) << 16) | ((frame[entry + 2] & 0xFF) << 8) | (frame[entry + 3] & 0xFF);
+                if (header == previousHeader) {
+                    columns.writeBit(false);
+                } else {
+                    columns.writeBit(true);
+                    columns.write(header, 24);
+                    previousHeader = header;
+                }
+
+                if ((frame[entry + 1] & SENSOR_FLAG_DEVICE_ID) != 0) {
+                    int deviceIdOffset = entry + SENSOR_FIXED_SIZE + 1;
+                    int deviceIdLength = frame[entry + SENSOR_FIXED_SIZE] & 0xFF;
+                    if (previousDeviceIdOffset >= 0 && Arrays.equals(frame, deviceIdOffset, deviceIdOffset + deviceIdLength,
+                            frame, previousDeviceIdOffset, previousDeviceIdOffset + previousDeviceIdLength)) {
+                        columns.writeBit(false);
+                    } else {
+                        columns.writeBit(true);
+                        columns.write(deviceIdLength, 8);
+                        for (int j = 0; j < deviceIdLength; j++) {
+                            columns.write(frame[deviceIdOffset + j] & 0xFF, 8);
+                        }
+                        previousDeviceIdOffset = deviceIdOffset;
+                        previousDeviceIdLength = deviceIdLength;
+                    }
+                }
+
+                long timestamp = readLong(frame, entry + 4);
+                long value = readLong(frame, entry + 12);
+                if (i == 0) {
+                    columns.write(timestamp, 64);
+                    columns.write(value, 64);
+                } else {
+                    long delta = timestamp - previousTimestamp;
+                    writeDeltaOfDelta(delta - previousDelta);
+                    previousDelta = delta;
+
+                    long xor = value ^ previousValue;
+                    if (xor == 0) {
+                        columns.writeBit(false);
+                    } else {
+                        columns.writeBit(true);
+                        int lead = Math.min(Long.numberOfLeadingZeros(xor), 31);
+                        int trail = Long.numberOfTrailingZeros(xor);
+                        if (leading >= 0 && lead >= leading && trail >= trailing) {
+                            columns.writeBit(false);
+                            columns.write(xor >>> trailing, 64 - leading - trailing);
+                        } else {
+                            int significant = 64 - lead - trail;
+                            columns.writeBit(true);
+                            columns.write(lead, 5);
+                            columns.write(significant - 1, 6);
+                            columns.write(xor >>> trail, significant);
+                            leading = lead;
+                            trailing = trail;
+                        }
+                    }
+                }
+                previousTimestamp = timestamp;
+                previousValue = value;
+            }
+            columns.flush();
+            return true;
+        }
+
+        private void writeDeltaOfDelta(long deltaOfDelta) {
+            if (deltaOfDelta == 0) {
+                columns.writeBit(false);
+                return;
+            }
+            long zigzag = (deltaOfDelta << 1) ^ (deltaOfDelta >> 63);
+            if (zigzag >>> 16 == 0) {
+                columns.write(0b10, 2);
+                columns.write(zigzag, 16);
+            } else if (zigzag >>> 24 == 0) {
+                columns.write(0b110, 3);
+                columns.write(zigzag, 24);
+            } else if (zigzag >>> 40 == 0) {
+                columns.write(0b1110, 4);
+                columns.write(zigzag, 40);
+            } else {
+                columns.write(0b1111, 4);
+                columns.write(zigzag, 64);
+            }
+        }
+
+        private static boolean isSensorSample(byte[] frame, int entry, int entryLength, int frameLength) {
+            if (entryLength < SENSOR_FIXED_SIZE || entry + entryLength > frameLength || frame[entry] != (byte) 0xB2) {
+                return false;
+            }
+            int flags = frame[entry + 1] & 0xFF;
+            if ((flags & SENSOR_FLAG_DEVICE_ID) == 0) {
+                return entryLength == SENSOR_FIXED_SIZE;
+            }
+            return entryLength > SENSOR_FIXED_SIZE
+                    && entryLength == SENSOR_FIXED_SIZE + 1 + (frame[entry + SENSOR_FIXED_SIZE] & 0xFF);
+        }
+
+        private void ensureCapacity(int required) {
+            if (required > output.length) {
+                output = Arrays.copyOf(output, Math.max(required, output.length * 2));
+            }
+        }
+    }
+
+    /**
+     * 按位写入，高位在前
+     */
+    private static final class BitWriter {
+
+        private byte[] buffer = new byte[1024];
+        private int position;
+        private long accumulator;
+        private int bits;
+
+        void reset() {
+            position = 0;
+            accumulator = 0;
+            bits = 0;
+        }
+
+        void writeBit(boolean bit) {
+            write(bit ? 1 : 0, 1);
+        }
+
+        /**
+         * 写入value的低count位，count不超过64
+         */
+        void write(long value, int count) {
+            if (count > 32) {
+                write(value >>> 32, count - 32);
+                write(value, 32);
+                return;
+            }
+            accumulator = (accumulator << count) | (value & ((1L << count) - 1));
+            bits += count;
+            while (bits >= 8) {
+                bits -= 8;
+                if (position == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                buffer[position++] = (byte) (accumulator >>> bits);
+            }
+        }
+
+        /**
+         * 不足一个字节的剩余位补零写出
+         */
+        void flush() {
+            if (bits > 0) {
+                write(0, 8 - bits);
+            }
+        }
+
+        byte[] buffer() {
+            return buffer;
+        }
+
+        int length() {
+            return position;
+        }
+    }
+
+    /**
+     * 按位读取，高位在前
+     */
+    private static final class BitReader {
+
+        private final byte[] buffer;
+        private final int end;
+        private int position;
+        private long accumulator;
+        private int bits;
+
+        BitReader(byte[] buffer, int offset, int end) {
+            this.buffer = buffer;
+            this.position = offset;
+            this.end = end;
+        }
+
+        boolean readBit() {
+            return read(1) != 0;
+        }
+
+        /**
+         * 读取count位，count不超过64
+         */
+        long read(int count) {
+            if (count > 32) {
+                long high = read(count - 32);
+                return (high << 32) | read(32);
+            }
+            while (bits < count) {
+                if (position >= end) {
+                    throw new IllegalArgumentException("压缩批量帧被截断");
+                }
+                accumulator = (accumulator << 8) | (buffer[position++] & 0xFF);
+                bits += 8;
+            }
+            bits -= count;
+            return (accumulator >>> bits) & ((1L << count) - 1);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.team9.fitness.transport;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * DDS传输层接口
+ * 屏蔽具体中间件实现，ZRDDSService只通过该接口收发字节数据
+ */
+public interface DDSTransport {
+
+    /**
+     * 传输层名称，用于状态展示
+     */
+    String getName();
+
+    /**
+     * 启动传输层（初始化中间件、创建域参与者）
+     */
+    void start();
+
+    /**
+     * 为指定主题创建写者
+     */
+    TopicWriter createWriter(String topicName, TopicType type, String qosProfile);
+
+    /**
+     * 为指定主题创建读者，收到的样本交给handler处理
+     */
+    TopicReader createReader(String topicName, TopicType type, String qosProfile, SampleHandler handler);
+
+    /**
+     * 主题使用的域参与者名称，多于一个时主题按设备ID分片；不区分域参与者的传输层返回空列表
+     */
+    default List<String> getParticipants(String topicName) {
+        return Collections.emptyList();
+    }
+
+    /**
+     * 关闭传输层并释放资源
+     */
+    void shutdown();
+}
@@ -0,0 +1,31 @@
+package com.team9.fitness.transport;
+
+/**
+ * 批量帧压缩方式
+ */
+public enum FrameCompression {
+    /** 不压缩，发出普通批量帧 */
+    NONE(false, false),
+    /** 传感器二进制样本按列编码：时间戳差分的差分，数值与前一个数值异或（Gorilla） */
+    GORILLA(true, false),
+    /** 整帧用DEFLATE块压缩 */
+    DEFLATE(false, true),
+    /** 先按列编码再块压缩 */
+    GORILLA_DEFLATE(true, true);
+
+    private final boolean columnar;
+    private final boolean deflate;
+
+    FrameCompression(boolean columnar, boolean deflate) {
+        this.columnar = columnar;
+        this.deflate = deflate;
+    }
+
+    public boolean isColumnar() {
+        return columnar;
+    }
+
+    public boolean isDeflate() {
+        return deflate;
+    }
+}
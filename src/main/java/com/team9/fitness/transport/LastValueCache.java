@@ -0,0 +1,226 @@
+package com.team9.fitness.transport;
+
+import com.zrdds.infrastructure.SampleInfo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 主题的最新值缓存
+ * 每个实例键保留最近depth个样本，实例数超过maxKeys时淘汰最久未更新或读取的实例。
+ * 样本存放在可复用的槽位中，稳定运行后更新不分配内存；读取时拷贝出独立的样本。
+ * 所有方法都在缓存对象上同步，调用方可以在同一个锁内组合更新和投递
+ */
+public class LastValueCache {
+
+    private final String topicName;
+    private final int depth;
+    private final int maxKeys;
+
+    // 按访问顺序排列，最久未更新或读取的实例在最前
+    private final LinkedHashMap<String, History> histories = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long sequence;
+    private long evictedKeys;
+
+    public LastValueCache(String topicName, int depth, int maxKeys) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("最新值缓存深度必须大于0: " + depth);
+        }
+        if (maxKeys < 1) {
+            throw new IllegalArgumentException("最新值缓存实例数必须大于0: " + maxKeys);
+        }
+        this.topicName = topicName;
+        this.depth = depth;
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * 记录一个样本，数据拷贝到实例的槽位中
+     */
+    public synchronized void update(String key, byte[] data, int offset, int length, SampleInfo info,
+            long receivedMillis) {
+        History history = histories.get(key);
+        if (history == null) {
+            if (histories.size() >= maxKeys) {
+                Iterator<History> eldest = histories.values().iterator();
+                eldest.next();
+                eldest.remove();
+                evictedKeys++;
+            }
+            history = new History(key, depth);
+            histories.put(key, history);
+        }
+        history.add(data, offset, length, info, receivedMillis, ++sequence);
+    }
+
+    /**
+     * 指定实例的最新样本，没有时返回null
+     */
+    public synchronized CachedSample latest(String key) {
+        History history = histories.get(key);
+        return history != null ? history.latest() : null;
+    }
+
+    /**
+     * 所有实例中最新的样本，缓存为空时返回null
+     */
+    public synchronized CachedSample latest() {
+        CachedSample latest = null;
+        for (History history : histories.values()) {
+            CachedSample sample = history.latest();
+            if (latest == null || sample.getSequence() > latest.getSequence()) {
+                latest = sample;
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * 每个实例的最新样本
+     */
+    public synchronized List<CachedSample> latestPerKey() {
+        List<CachedSample> samples = new ArrayList<>(histories.size());
+        for (History history : histories.values()) {
+            samples.add(history.latest());
+        }
+        samples.sort(Comparator.comparingLong(CachedSample::getSequence));
+        return samples;
+    }
+
+    /**
+     * 所有实例保留的样本，按接收顺序排列，用于给新加入的订阅者补发
+     */
+    public synchronized List<CachedSample> snapshot() {
+        List<CachedSample> samples = new ArrayList<>();
+        for (History history : histories.values()) {
+            history.copyTo(samples);
+        }
+        samples.sort(Comparator.comparingLong(CachedSample::getSequence));
+        return samples;
+    }
+
+    public synchronized int size() {
+        return histories.size();
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("topic", topicName);
+        stats.put("depth", depth);
+        stats.put("maxKeys", maxKeys);
+        stats.put("keys", histories.size());
+        stats.put("updates", sequence);
+        stats.put("evictedKeys", evictedKeys);
+        return stats;
+    }
+
+    /**
+     * 一个实例最近的样本，槽位循环使用
+     */
+    private static final class History {
+
+        private final String key;
+        private final Slot[] slots;
+        private int next;
+        private int count;
+
+        History(String key, int depth) {
+            this.key = key;
+            this.slots = new Slot[depth];
+        }
+
+        void add(byte[] data, int offset, int length, SampleInfo info, long receivedMillis, long sequence) {
+            Slot slot = slots[next];
+            if (slot == null) {
+                slot = new Slot();
+                slots[next] = slot;
+            }
+            slot.set(data, offset, length, info, receivedMillis, sequence);
+            next = (next + 1) % slots.length;
+            if (count < slots.length) {
+                count++;
+            }
+        }
+
+        CachedSample latest() {
+            return slots[(next - 1 + slots.length) % slots.length].toSample(key);
+        }
+
+        void copyTo(List<CachedSample> samples) {
+            for (int i = count; i > 0; i--) {
+                samples.add(slots[(next - i + slots.length) % slots.length].toSample(key));
+            }
+        }
+    }
+
+    private static final class Slot {
+
+        byte[] data = new byte[0];
+        int length;
+        SampleInfo info;
+        long receivedMillis;
+        long sequence;
+
+        void set(byte[] source, int offset, int length, SampleInfo info, long receivedMillis, long sequence) {
+            if (data.length < length) {
+                data = new byte[length];
+            }
+            System.arraycopy(source, offset, data, 0, length);
+            this.length = length;
+            this.info = info;
+            this.receivedMillis = receivedMillis;
+            this.sequence = sequence;
+        }
+
+        CachedSample toSample(String key) {
+            return new CachedSample(key, Arrays.copyOf(data, length), info, receivedMillis, sequence);
+        }
+    }
+
+    /**
+     * 缓存中样本的独立拷贝
+     */
+    public static final class CachedSample {
+
+        private final String key;
+        private final byte[] data;
+        private final SampleInfo info;
+        private final long receivedMillis;
+        private final long sequence;
+
+        CachedSample(String key, byte[] data, SampleInfo info, long receivedMillis, long sequence) {
+            this.key = key;
+            this.data = data;
+            this.info = info;
+            this.receivedMillis = receivedMillis;
+            this.sequence = sequence;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public byte[] getData() {
+            return data;
+        }
+
+        public SampleInfo getInfo() {
+            return info;
+        }
+
+        public long getReceivedMillis() {
+            return receivedMillis;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+    }
+}
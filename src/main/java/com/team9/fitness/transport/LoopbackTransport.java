@@ -0,0 +1,184 @@
+package com.team9.fitness.transport;
+
+import com.team9.fitness.metrics.EpochClock;
+import com.zrdds.infrastructure.SampleInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 进程内回环传输层
+ * 发布的字节直接投递给同一JVM内的读者，不经过网络协议栈，也不依赖ZRDDS本地库，
+ * 用于在没有ZRDDS_JAVA.dll的环境下运行和压测数据链路
+ */
+public class LoopbackTransport implements DDSTransport {
+
+    private static final Logger log = LoggerFactory.getLogger(LoopbackTransport.class);
+
+    private final Map<String, List<LoopbackReader>> readers = new ConcurrentHashMap<>();
+
+    @Override
+    public String getName() {
+        return "loopback";
+    }
+
+    @Override
+    public void start() {
+        log.info("回环传输层已启动");
+    }
+
+    @Override
+    public TopicWriter createWriter(String topicName, TopicType type, String qosProfile) {
+        return new LoopbackWriter(topicName);
+    }
+
+    @Override
+    public TopicReader createReader(String topicName, TopicType type, String qosProfile, SampleHandler handler) {
+        LoopbackReader reader = new LoopbackReader(topicName, qosProfile, handler);
+        readers.computeIfAbsent(topicName, k -> new CopyOnWriteArrayList<>()).add(reader);
+        reader.start();
+        return reader;
+    }
+
+    @Override
+    public void shutdown() {
+        for (List<LoopbackReader> topicReaders : readers.values()) {
+            for (LoopbackReader reader : topicReaders) {
+                reader.stop();
+            }
+        }
+        readers.clear();
+        log.info("回环传输层已关闭");
+    }
+
+    /**
+     * 回环写者：拷贝一次数据后投递到该主题所有读者的队列
+     */
+    private class LoopbackWriter implements TopicWriter {
+
+        private final String topicName;
+
+        LoopbackWriter(String topicName) {
+            this.topicName = topicName;
+        }
+
+        @Override
+        public String getTopicName() {
+            return topicName;
+        }
+
+        @Override
+        public void write(byte[] data, int length) {
+            List<LoopbackReader> topicReaders = readers.get(topicName);
+            if (topicReaders == null || topicReaders.isEmpty()) {
+                return;
+            }
+            // 调用方可能复用缓冲区，这里拷贝一份，所有读者共享同一份只读数据
+            LoopbackSample sample = new LoopbackSample(Arrays.copyOf(data, length), EpochClock.epochMicros());
+            for (LoopbackReader reader : topicReaders) {
+                reader.offer(sample);
+            }
+        }
+
+        @Override
+        public void close() {
+            // 回环写者没有需要释放的资源
+        }
+    }
+
+    /**
+     * 回环样本：数据和写出时的源时间戳
+     */
+    private static final class LoopbackSample {
+
+        final byte[] data;
+        final long sourceTimeMicros;
+
+        LoopbackSample(byte[] data, long sourceTimeMicros) {
+            this.data = data;
+            this.sourceTimeMicros = sourceTimeMicros;
+        }
+    }
+
+    /**
+     * 回环读者：无锁队列 + 独立投递线程，模拟DDS监听器线程
+     */
+    private class LoopbackReader implements TopicReader, Runnable {
+
+        private final String topicName;
+        private final String qosProfile;
+        private final SampleHandler handler;
+        private final ConcurrentLinkedQueue<LoopbackSample> queue = new ConcurrentLinkedQueue<>();
+        // 只在投递线程中使用，每个样本复用
+        private final SampleInfo sampleInfo = new SampleInfo();
+        private volatile boolean running = true;
+        private Thread dispatchThread;
+
+        LoopbackReader(String topicName, String qosProfile, SampleHandler handler) {
+            this.topicName = topicName;
+            this.qosProfile = qosProfile;
+            this.handler = handler;
+        }
+
+        void start() {
+            dispatchThread = new Thread(this, "Loopback-" + topicName);
+            dispatchThread.setDaemon(true);
+            dispatchThread.start();
+        }
+
+        void offer(LoopbackSample sample) {
+            queue.offer(sample);
+            LockSupport.unpark(dispatchThread);
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                LoopbackSample sample = queue.poll();
+                if (sample == null) {
+                    LockSupport.park(this);
+                    continue;
+                }
+                sampleInfo.source_timestamp.sec = (int) (sample.sourceTimeMicros / 1_000_000L);
+                sampleInfo.source_timestamp.nanosec = (int) (sample.sourceTimeMicros % 1_000_000L) * 1000;
+                sampleInfo.valid_data = true;
+                try {
+                    handler.onSample(topicName, sample.data, sample.data.length, sampleInfo);
+                } catch (Exception e) {
+                    log.error("处理回环数据失败: topic={}", topicName, e);
+                }
+            }
+        }
+
+        void stop() {
+            running = false;
+            LockSupport.unpark(dispatchThread);
+        }
+
+        @Override
+        public String getTopicName() {
+            return topicName;
+        }
+
+        @Override
+        public String getQosProfile() {
+            return qosProfile;
+        }
+
+        @Override
+        public void close() {
+            stop();
+            List<LoopbackReader> topicReaders = readers.get(topicName);
+            if (topicReaders != null) {
+                topicReaders.remove(this);
+            }
+        }
+    }
+}
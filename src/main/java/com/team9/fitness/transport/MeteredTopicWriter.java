@@ -0,0 +1,68 @@
+package com.team9.fitness.transport;
+
+import com.team9.fitness.metrics.TopicMetrics;
+
+/**
+ * 记录写出次数、字节数和耗时的主题写者
+ * 批量帧按帧内样本数计入发布样本数
+ */
+public class MeteredTopicWriter implements TopicWriter {
+
+    private final TopicWriter delegate;
+    private final TopicMetrics metrics;
+
+    public MeteredTopicWriter(TopicWriter delegate, TopicMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public String getTopicName() {
+        return delegate.getTopicName();
+    }
+
+    @Override
+    public void write(byte[] data, int length) {
+        long start = System.nanoTime();
+        try {
+            delegate.write(data, length);
+        } catch (RuntimeException e) {
+            metrics.recordWriteFailure();
+            throw e;
+        }
+        long end = System.nanoTime();
+        metrics.recordWrite(sampleCount(data, length), length, end - start, end);
+    }
+
+    @Override
+    public void write(String key, byte[] data, int length) {
+        long start = System.nanoTime();
+        try {
+            delegate.write(key, data, length);
+        } catch (RuntimeException e) {
+            metrics.recordWriteFailure();
+            throw e;
+        }
+        long end = System.nanoTime();
+        metrics.recordWrite(sampleCount(data, length), length, end - start, end);
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    /**
+     * 按首字节取帧内样本数，单条样本为1
+     */
+    private static int sampleCount(byte[] data, int length) {
+        switch (PayloadFormat.detect(data, 0, length)) {
+            case BATCH:
+                return length >= 5 ? BatchFrame.readInt(data, 1) : 1;
+            case COMPRESSED_BATCH:
+                return CompressedFrame.isCompressed(data, length) ? BatchFrame.readInt(data, 2) : 1;
+            default:
+                return 1;
+        }
+    }
+}
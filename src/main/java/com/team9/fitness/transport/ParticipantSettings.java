@@ -0,0 +1,41 @@
+package com.team9.fitness.transport;
+
+/**
+ * 域参与者配置
+ * 每个域参与者有独立的接收线程和套接字缓冲区
+ */
+public final class ParticipantSettings {
+
+    /** 未指定域参与者的主题使用的域参与者名称 */
+    public static final String DEFAULT_NAME = "default";
+
+    private final String name;
+    private final int domainId;
+    private final String participantQos;
+
+    public ParticipantSettings(String name, int domainId, String participantQos) {
+        this.name = name;
+        this.domainId = domainId;
+        this.participantQos = participantQos;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getDomainId() {
+        return domainId;
+    }
+
+    /**
+     * QoS配置文件中participant_qos的名称，例如udp_dp、tcp_dp
+     */
+    public String getParticipantQos() {
+        return participantQos;
+    }
+
+    @Override
+    public String toString() {
+        return name + "(domainId=" + domainId + ", qos=" + participantQos + ")";
+    }
+}
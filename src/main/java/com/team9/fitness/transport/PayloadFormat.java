@@ -0,0 +1,59 @@
+package com.team9.fitness.transport;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 负载格式
+ * 通过首字节区分：0xB1为批量帧，0xB2为传感器二进制编码，0xB3为压缩批量帧，'{'或'['为JSON，其余按文本处理。
+ * 0xB1~0xB3在UTF-8中只能作为后续字节出现，不会与JSON或文本命令冲突
+ */
+public enum PayloadFormat {
+    /** 纯文本，例如控制命令 */
+    TEXT,
+    /** JSON文本 */
+    JSON,
+    /** 传感器二进制编码，见SensorBinaryCodec */
+    SENSOR_BINARY,
+    /** 批量帧，见BatchFrame */
+    BATCH,
+    /** 压缩批量帧，见CompressedFrame */
+    COMPRESSED_BATCH;
+
+    public static final byte SENSOR_BINARY_HEADER = (byte) 0xB2;
+
+    /**
+     * 根据首字节识别负载格式
+     */
+    public static PayloadFormat detect(byte[] data, int offset, int length) {
+        if (length <= 0) {
+            return TEXT;
+        }
+        return detect(data[offset]);
+    }
+
+    /**
+     * 根据视图当前位置的首字节识别负载格式，不移动视图位置
+     */
+    public static PayloadFormat detect(ByteBuffer view) {
+        if (!view.hasRemaining()) {
+            return TEXT;
+        }
+        return detect(view.get(view.position()));
+    }
+
+    private static PayloadFormat detect(byte first) {
+        if (first == SENSOR_BINARY_HEADER) {
+            return SENSOR_BINARY;
+        }
+        if (first == BatchFrame.MAGIC) {
+            return BATCH;
+        }
+        if (first == CompressedFrame.MAGIC) {
+            return COMPRESSED_BATCH;
+        }
+        if (first == '{' || first == '[') {
+            return JSON;
+        }
+        return TEXT;
+    }
+}
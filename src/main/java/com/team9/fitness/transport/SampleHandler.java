@@ -0,0 +1,13 @@
+package com.team9.fitness.transport;
+
+import com.zrdds.infrastructure.SampleInfo;
+
+/**
+ * 样本回调接口
+ * data和info只在回调期间有效，且不允许修改，需要保留时请自行拷贝
+ */
+@FunctionalInterface
+public interface SampleHandler {
+
+    void onSample(String topicName, byte[] data, int length, SampleInfo info);
+}
@@ -0,0 +1,70 @@
+package com.team9.fitness.transport;
+
+/**
+ * 主题句柄
+ * 由ZRDDSService.registerTopic创建，直接持有主题写者，发布时不再按主题名查找
+ */
+public final class TopicHandle {
+
+    private final String topicName;
+    private final TopicType type;
+    private final String qosProfile;
+    private final PayloadFormat format;
+    private final TopicWriter writer;
+
+    public TopicHandle(String topicName, TopicType type, String qosProfile, PayloadFormat format, TopicWriter writer) {
+        this.topicName = topicName;
+        this.type = type;
+        this.qosProfile = qosProfile;
+        this.format = format;
+        this.writer = writer;
+    }
+
+    /**
+     * 写出整个字节数组
+     */
+    public void write(byte[] data) {
+        writer.write(data, data.length);
+    }
+
+    /**
+     * 写出data的前length个字节
+     */
+    public void write(byte[] data, int length) {
+        writer.write(data, length);
+    }
+
+    /**
+     * 按键写出data的前length个字节，无键主题忽略键
+     */
+    public void write(String key, byte[] data, int length) {
+        writer.write(key, data, length);
+    }
+
+    public boolean isKeyed() {
+        return type == TopicType.KEYED_BYTES;
+    }
+
+    public String getTopicName() {
+        return topicName;
+    }
+
+    public TopicType getType() {
+        return type;
+    }
+
+    public String getQosProfile() {
+        return qosProfile;
+    }
+
+    /**
+     * 发布对象时使用的编码格式
+     */
+    public PayloadFormat getFormat() {
+        return format;
+    }
+
+    public TopicWriter getWriter() {
+        return writer;
+    }
+}
@@ -0,0 +1,22 @@
+package com.team9.fitness.transport;
+
+/**
+ * 主题读者
+ */
+public interface TopicReader {
+
+    /**
+     * 获取主题名称
+     */
+    String getTopicName();
+
+    /**
+     * 获取读者使用的QoS配置名称
+     */
+    String getQosProfile();
+
+    /**
+     * 关闭读者
+     */
+    void close();
+}
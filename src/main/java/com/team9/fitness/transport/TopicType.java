@@ -0,0 +1,11 @@
+package com.team9.fitness.transport;
+
+/**
+ * 主题数据类型
+ */
+public enum TopicType {
+    /** 无键字节序列，对应ZRDDS BytesTypeSupport */
+    BYTES,
+    /** 带字符串键的字节序列，对应ZRDDS KeyedBytesTypeSupport，每个键是一个DDS实例 */
+    KEYED_BYTES
+}
@@ -0,0 +1,30 @@
+package com.team9.fitness.transport;
+
+/**
+ * 主题写者
+ */
+public interface TopicWriter {
+
+    /**
+     * 获取主题名称
+     */
+    String getTopicName();
+
+    /**
+     * 写出data的前length个字节
+     */
+    void write(byte[] data, int length);
+
+    /**
+     * 按键写出data的前length个字节
+     * 键标识带键主题上的实例，无键主题忽略键
+     */
+    default void write(String key, byte[] data, int length) {
+        write(data, length);
+    }
+
+    /**
+     * 关闭写者
+     */
+    void close();
+}
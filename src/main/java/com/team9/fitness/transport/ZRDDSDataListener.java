@@ -1,4 +1,4 @@
-package com.team9.fitness.service;
+package com.team9.fitness.transport;
 
 import com.zrdds.infrastructure.*;
 import com.zrdds.subscription.DataReader;
@@ -14,25 +14,23 @@ public class ZRDDSDataListener extends SimpleDataReaderListener<Bytes, BytesSeq,
     
     private static final Logger log = LoggerFactory.getLogger(ZRDDSDataListener.class);
     
-    private final ZRDDSService.DataListener dataListener;
+    private final SampleHandler sampleHandler;
     private final String topicName;
     
-    public ZRDDSDataListener(String topicName, ZRDDSService.DataListener dataListener) {
+    public ZRDDSDataListener(String topicName, SampleHandler sampleHandler) {
         this.topicName = topicName;
-        this.dataListener = dataListener;
+        this.sampleHandler = sampleHandler;
     }
     
     @Override
     public void on_process_sample(DataReader dataReader, Bytes bytes, SampleInfo sampleInfo) {
         try {
             if (bytes != null && bytes.value != null) {
-                // 将接收到的字节数据转换为字符串
-                String receivedContent = new String(bytes.value.get_contiguous_buffer(), 0, bytes.value.length());
-                log.debug("接收到数据: topic={}, content={}", topicName, receivedContent);
+                log.debug("接收到数据: topic={}, size={}", topicName, bytes.value.length());
                 
-                // 调用数据监听器处理接收到的数据
-                if (dataListener != null) {
-                    dataListener.onDataReceived(topicName, receivedContent);
+                // 直接把连续缓冲区交给处理器，由上层决定如何解码
+                if (sampleHandler != null) {
+                    sampleHandler.onSample(topicName, bytes.value.get_contiguous_buffer(), bytes.value.length(), sampleInfo);
                 }
             }
         } catch (Exception e) {
@@ -0,0 +1,51 @@
+package com.team9.fitness.transport;
+
+import com.zrdds.infrastructure.*;
+import com.zrdds.subscription.DataReader;
+import com.zrdds.subscription.SimpleDataReaderListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * ZRDDS带键主题数据监听器
+ * 与ZRDDSDataListener相同，只是样本类型为KeyedBytes，键不交给处理器，设备信息已在负载中
+ */
+public class ZRDDSKeyedDataListener extends SimpleDataReaderListener<KeyedBytes, KeyedBytesSeq, KeyedBytesDataReader> {
+
+    private static final Logger log = LoggerFactory.getLogger(ZRDDSKeyedDataListener.class);
+
+    private final SampleHandler sampleHandler;
+    private final String topicName;
+
+    public ZRDDSKeyedDataListener(String topicName, SampleHandler sampleHandler) {
+        this.topicName = topicName;
+        this.sampleHandler = sampleHandler;
+    }
+
+    @Override
+    public void on_process_sample(DataReader dataReader, KeyedBytes bytes, SampleInfo sampleInfo) {
+        try {
+            if (bytes != null && bytes.value != null) {
+                log.debug("接收到数据: topic={}, key={}, size={}", topicName, bytes.key, bytes.value.length());
+
+                if (sampleHandler != null) {
+                    sampleHandler.onSample(topicName, bytes.value.get_contiguous_buffer(), bytes.value.length(), sampleInfo);
+                }
+            }
+        } catch (Exception e) {
+            log.error("处理接收到的数据失败: topic={}", topicName, e);
+        }
+    }
+
+    @Override
+    public void on_data_arrived(DataReader dataReader, Object data, SampleInfo sampleInfo) {
+        log.debug("数据到达事件: topic={}", topicName);
+    }
+
+    /**
+     * 获取主题名称
+     */
+    public String getTopicName() {
+        return topicName;
+    }
+}
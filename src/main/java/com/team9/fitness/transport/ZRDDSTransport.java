@@ -0,0 +1,472 @@
+package com.team9.fitness.transport;
+
+import com.zrdds.infrastructure.Bytes;
+import com.zrdds.infrastructure.BytesDataWriter;
+import com.zrdds.infrastructure.InstanceHandle_t;
+import com.zrdds.infrastructure.KeyedBytes;
+import com.zrdds.infrastructure.KeyedBytesDataWriter;
+import com.zrdds.infrastructure.ReturnCode_t;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 基于ZRDDS简化接口的传输层实现
+ * 可以创建多个域参与者，主题按配置分配到不同的域参与者上，
+ * 高频遥测与控制、警报流量使用各自的接收线程和缓冲区。
+ * 带键主题还可以按设备ID分片到多个不同域的域参与者上，每个分片由各自的接收线程处理
+ */
+public class ZRDDSTransport implements DDSTransport {
+
+    private static final Logger log = LoggerFactory.getLogger(ZRDDSTransport.class);
+
+    private final String participantName;
+    private final String qosProfile;
+    private final String qosLibrary;
+    // 域参与者配置，按名称
+    private final Map<String, ParticipantSettings> participantSettings = new LinkedHashMap<>();
+    // 主题使用的域参与者名称，多于一个时按设备ID分片；未配置的主题使用默认域参与者
+    private final Map<String, List<String>> topicRoutes = new HashMap<>();
+
+    private final Map<String, com.zrdds.domain.DomainParticipant> domainParticipants = new LinkedHashMap<>();
+
+    public ZRDDSTransport(int domainId, String participantName, String qosProfile, String qosLibrary) {
+        this(participantName, qosProfile, qosLibrary,
+                Collections.singletonList(new ParticipantSettings(ParticipantSettings.DEFAULT_NAME, domainId, "udp_dp")),
+                Collections.emptyMap());
+    }
+
+    /**
+     * @param participants 域参与者配置，必须包含名为default的域参与者
+     * @param topicRoutes  主题到域参与者名称的映射，多于一个域参与者的主题按设备ID分片，分片的域参与者必须在不同的域上
+     */
+    public ZRDDSTransport(String participantName, String qosProfile, String qosLibrary,
+            List<ParticipantSettings> participants, Map<String, List<String>> topicRoutes) {
+        this.participantName = participantName;
+        this.qosProfile = qosProfile;
+        this.qosLibrary = qosLibrary;
+        for (ParticipantSettings participant : participants) {
+            this.participantSettings.put(participant.getName(), participant);
+        }
+        if (!this.participantSettings.containsKey(ParticipantSettings.DEFAULT_NAME)) {
+            throw new IllegalArgumentException("缺少默认域参与者: " + ParticipantSettings.DEFAULT_NAME);
+        }
+        for (Map.Entry<String, List<String>> entry : topicRoutes.entrySet()) {
+            validateRoute(entry.getKey(), entry.getValue());
+            this.topicRoutes.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+        }
+    }
+
+    /**
+     * 检查主题使用的域参与者都已配置，分片的域参与者不在同一个域上
+     * 同一个域上的多个读者都会收到全部样本，分片就失去了意义并且样本会重复
+     */
+    private void validateRoute(String topicName, List<String> route) {
+        if (route.isEmpty()) {
+            throw new IllegalArgumentException("主题的域参与者为空: topic=" + topicName);
+        }
+        Set<Integer> domains = new HashSet<>();
+        for (String name : route) {
+            ParticipantSettings participant = participantSettings.get(name);
+            if (participant == null) {
+                throw new IllegalArgumentException("未配置的域参与者: topic=" + topicName + ", participant=" + name);
+            }
+            if (route.size() > 1 && !domains.add(participant.getDomainId())) {
+                throw new IllegalArgumentException("分片的域参与者必须在不同的域上: topic=" + topicName
+                        + ", domainId=" + participant.getDomainId());
+            }
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "zrdds";
+    }
+
+    @Override
+    public void start() {
+        // 1. 初始化ZRDDS简化接口
+        initZRDDS();
+
+        // 2. 创建域参与者
+        for (ParticipantSettings participant : participantSettings.values()) {
+            createDomainParticipant(participant);
+        }
+    }
+
+    /**
+     * 初始化ZRDDS简化接口
+     */
+    private void initZRDDS() {
+        try {
+            log.info("开始初始化ZRDDS简化接口...");
+            log.info("QoS配置文件路径: {}", qosProfile);
+            log.info("QoS库名称: {}", qosLibrary);
+
+            // 检查QoS配置文件是否存在
+            java.io.File qosFile = new java.io.File(qosProfile);
+            if (!qosFile.exists()) {
+                log.error("QoS配置文件不存在: {}", qosFile.getAbsolutePath());
+                throw new RuntimeException("QoS配置文件不存在: " + qosFile.getAbsolutePath());
+            }
+            log.info("QoS配置文件存在: {}", qosFile.getAbsolutePath());
+
+            // 使用ZRDDS简化接口初始化
+            // 第一个参数是QoS配置文件路径，第二个参数是库名称
+            com.zrdds.simpleinterface.DDSIF.init(qosProfile, qosLibrary);
+            log.info("ZRDDS简化接口初始化成功");
+        } catch (Exception e) {
+            log.error("ZRDDS简化接口初始化失败", e);
+            log.error("错误详情: {}", e.getMessage());
+            if (e.getCause() != null) {
+                log.error("根本原因: {}", e.getCause().getMessage());
+            }
+            throw new RuntimeException("ZRDDS简化接口初始化失败", e);
+        }
+    }
+
+    /**
+     * 创建域参与者
+     */
+    private void createDomainParticipant(ParticipantSettings participant) {
+        try {
+            com.zrdds.domain.DomainParticipant domainParticipant = com.zrdds.simpleinterface.DDSIF.create_dp(
+                    participant.getDomainId(), participant.getParticipantQos());
+            if (domainParticipant == null) {
+                throw new RuntimeException("创建域参与者失败: " + participant);
+            }
+            domainParticipants.put(participant.getName(), domainParticipant);
+            log.info("域参与者创建成功: participant={}, participantName={}", participant, participantName);
+        } catch (Exception e) {
+            log.error("创建域参与者失败: {}", participant, e);
+            throw new RuntimeException("创建域参与者失败", e);
+        }
+    }
+
+    /**
+     * 主题使用的域参与者名称
+     */
+    @Override
+    public List<String> getParticipants(String topicName) {
+        List<String> route = topicRoutes.get(topicName);
+        return route != null ? Collections.unmodifiableList(route) : Collections.singletonList(ParticipantSettings.DEFAULT_NAME);
+    }
+
+    private com.zrdds.domain.DomainParticipant participant(String name) {
+        com.zrdds.domain.DomainParticipant domainParticipant = domainParticipants.get(name);
+        if (domainParticipant == null) {
+            throw new IllegalStateException("域参与者未创建: " + name);
+        }
+        return domainParticipant;
+    }
+
+    @Override
+    public TopicWriter createWriter(String topicName, TopicType type, String qosProfile) {
+        List<String> route = getParticipants(topicName);
+        if (route.size() == 1) {
+            return createWriter(participant(route.get(0)), topicName, type, qosProfile);
+        }
+        List<TopicWriter> shards = new ArrayList<>(route.size());
+        try {
+            for (String name : route) {
+                shards.add(createWriter(participant(name), topicName, type, qosProfile));
+            }
+        } catch (RuntimeException e) {
+            shards.forEach(TopicWriter::close);
+            throw e;
+        }
+        log.info("主题按设备ID分片发布: topic={}, participants={}", topicName, route);
+        return new ShardedTopicWriter(topicName, shards);
+    }
+
+    private TopicWriter createWriter(com.zrdds.domain.DomainParticipant domainParticipant, String topicName,
+            TopicType type, String qosProfile) {
+        // 使用ZRDDS简化接口创建发布者
+        com.zrdds.publication.DataWriter publisher = com.zrdds.simpleinterface.DDSIF.pub_topic(
+                domainParticipant, topicName, typeSupport(type), qosProfile, null);
+        if (publisher == null) {
+            throw new RuntimeException("创建主题发布者失败: " + topicName);
+        }
+        if (type == TopicType.KEYED_BYTES) {
+            return new ZRDDSKeyedTopicWriter(topicName, (KeyedBytesDataWriter) publisher);
+        }
+        return new ZRDDSTopicWriter(topicName, (BytesDataWriter) publisher);
+    }
+
+    @Override
+    public TopicReader createReader(String topicName, TopicType type, String qosProfile, SampleHandler handler) {
+        List<String> route = getParticipants(topicName);
+        if (route.size() == 1) {
+            return createReader(participant(route.get(0)), topicName, type, qosProfile, handler);
+        }
+        // 每个分片一个读者，各自在所属域参与者的接收线程中回调handler
+        List<TopicReader> shards = new ArrayList<>(route.size());
+        try {
+            for (String name : route) {
+                shards.add(createReader(participant(name), topicName, type, qosProfile, handler));
+            }
+        } catch (RuntimeException e) {
+            shards.forEach(TopicReader::close);
+            throw e;
+        }
+        return new ShardedTopicReader(topicName, qosProfile, shards);
+    }
+
+    private TopicReader createReader(com.zrdds.domain.DomainParticipant domainParticipant, String topicName,
+            TopicType type, String qosProfile, SampleHandler handler) {
+        // 创建数据监听器，带键主题的样本类型不同，使用对应的监听器
+        com.zrdds.subscription.DataReaderListener dataListener = type == TopicType.KEYED_BYTES
+                ? new ZRDDSKeyedDataListener(topicName, handler)
+                : new ZRDDSDataListener(topicName, handler);
+
+        // 使用ZRDDS简化接口创建订阅者，使用真实的数据监听器
+        com.zrdds.subscription.DataReader subscriber = com.zrdds.simpleinterface.DDSIF.sub_topic(
+                domainParticipant, topicName, typeSupport(type), qosProfile, dataListener);
+        if (subscriber == null) {
+            throw new RuntimeException("创建主题订阅者失败: " + topicName);
+        }
+        return new ZRDDSTopicReader(topicName, qosProfile, subscriber);
+    }
+
+    /**
+     * 主题类型对应的ZRDDS类型支持
+     */
+    private com.zrdds.topic.TypeSupport typeSupport(TopicType type) {
+        switch (type) {
+            case KEYED_BYTES:
+                return com.zrdds.infrastructure.KeyedBytesTypeSupport.get_instance();
+            case BYTES:
+            default:
+                return com.zrdds.infrastructure.BytesTypeSupport.get_instance();
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        try {
+            // 清理ZRDDS简化接口，同时释放所有域参与者
+            com.zrdds.simpleinterface.DDSIF.Finalize();
+            domainParticipants.clear();
+            log.info("ZRDDS简化接口清理完成");
+        } catch (Exception e) {
+            log.error("清理ZRDDS简化接口失败", e);
+        }
+    }
+
+    /**
+     * ZRDDS主题写者
+     * 直接持有DataWriter并复用同一个Bytes样本，避免BytesWrite每次按域ID和主题名查找写者
+     */
+    private static class ZRDDSTopicWriter implements TopicWriter {
+
+        private final String topicName;
+        private final BytesDataWriter publisher;
+        private final Bytes sample = new Bytes();
+
+        ZRDDSTopicWriter(String topicName, BytesDataWriter publisher) {
+            this.topicName = topicName;
+            this.publisher = publisher;
+        }
+
+        @Override
+        public String getTopicName() {
+            return topicName;
+        }
+
+        @Override
+        public synchronized void write(byte[] data, int length) {
+            // 借用调用方的数组作为样本缓冲区，写出后归还
+            if (!sample.value.loan_contiguous(data, length, length)) {
+                throw new RuntimeException("借用样本缓冲区失败: topic=" + topicName);
+            }
+            try {
+                ReturnCode_t result = publisher.write(sample, InstanceHandle_t.HANDLE_NIL_NATIVE);
+                if (result != ReturnCode_t.RETCODE_OK) {
+                    throw new RuntimeException("写出数据失败: topic=" + topicName + ", result=" + result);
+                }
+            } finally {
+                sample.value.unloan();
+            }
+        }
+
+        @Override
+        public void close() {
+            com.zrdds.simpleinterface.DDSIF.unpub_topic(publisher);
+        }
+    }
+
+    /**
+     * ZRDDS带键主题写者
+     * 键为实例标识，同一键的新样本按KEEP_LAST深度覆盖旧样本
+     */
+    private static class ZRDDSKeyedTopicWriter implements TopicWriter {
+
+        private final String topicName;
+        private final KeyedBytesDataWriter publisher;
+        private final KeyedBytes sample = new KeyedBytes();
+
+        ZRDDSKeyedTopicWriter(String topicName, KeyedBytesDataWriter publisher) {
+            this.topicName = topicName;
+            this.publisher = publisher;
+        }
+
+        @Override
+        public String getTopicName() {
+            return topicName;
+        }
+
+        @Override
+        public void write(byte[] data, int length) {
+            write("", data, length);
+        }
+
+        @Override
+        public synchronized void write(String key, byte[] data, int length) {
+            sample.key = key != null ? key : "";
+            if (!sample.value.loan_contiguous(data, length, length)) {
+                throw new RuntimeException("借用样本缓冲区失败: topic=" + topicName);
+            }
+            try {
+                ReturnCode_t result = publisher.write(sample, InstanceHandle_t.HANDLE_NIL_NATIVE);
+                if (result != ReturnCode_t.RETCODE_OK) {
+                    throw new RuntimeException("写出数据失败: topic=" + topicName + ", key=" + key + ", result=" + result);
+                }
+            } finally {
+                sample.value.unloan();
+            }
+        }
+
+        @Override
+        public void close() {
+            com.zrdds.simpleinterface.DDSIF.unpub_topic(publisher);
+        }
+    }
+
+    /**
+     * 按设备ID分片的主题写者
+     * 键为"设备ID/传感器类型"，按设备ID的哈希选择分片，同一设备的样本总在同一个分片上，保持顺序；
+     * 无键写出（例如批量帧）使用第一个分片
+     */
+    static class ShardedTopicWriter implements TopicWriter {
+
+        private final String topicName;
+        private final TopicWriter[] shards;
+
+        ShardedTopicWriter(String topicName, List<TopicWriter> shards) {
+            this.topicName = topicName;
+            this.shards = shards.toArray(new TopicWriter[0]);
+        }
+
+        @Override
+        public String getTopicName() {
+            return topicName;
+        }
+
+        @Override
+        public void write(byte[] data, int length) {
+            shards[0].write(data, length);
+        }
+
+        @Override
+        public void write(String key, byte[] data, int length) {
+            shards[shardOf(key, shards.length)].write(key, data, length);
+        }
+
+        /**
+         * 只对键中第一个"/"之前的设备ID求哈希，不创建子串
+         */
+        static int shardOf(String key, int shardCount) {
+            if (key == null) {
+                return 0;
+            }
+            int hash = 0;
+            for (int i = 0; i < key.length(); i++) {
+                char c = key.charAt(i);
+                if (c == '/') {
+                    break;
+                }
+                hash = 31 * hash + c;
+            }
+            return Math.floorMod(hash, shardCount);
+        }
+
+        @Override
+        public void close() {
+            for (TopicWriter shard : shards) {
+                shard.close();
+            }
+        }
+    }
+
+    /**
+     * 按设备ID分片的主题读者，关闭时关闭所有分片的读者
+     */
+    private static class ShardedTopicReader implements TopicReader {
+
+        private final String topicName;
+        private final String qosProfile;
+        private final List<TopicReader> shards;
+
+        ShardedTopicReader(String topicName, String qosProfile, List<TopicReader> shards) {
+            this.topicName = topicName;
+            this.qosProfile = qosProfile;
+            this.shards = shards;
+        }
+
+        @Override
+        public String getTopicName() {
+            return topicName;
+        }
+
+        @Override
+        public String getQosProfile() {
+            return qosProfile;
+        }
+
+        @Override
+        public void close() {
+            for (TopicReader shard : shards) {
+                shard.close();
+            }
+        }
+    }
+
+    /**
+     * ZRDDS主题读者
+     */
+    private static class ZRDDSTopicReader implements TopicReader {
+
+        private final String topicName;
+        private final String qosProfile;
+        private final com.zrdds.subscription.DataReader subscriber;
+
+        ZRDDSTopicReader(String topicName, String qosProfile, com.zrdds.subscription.DataReader subscriber) {
+            this.topicName = topicName;
+            this.qosProfile = qosProfile;
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public String getTopicName() {
+            return topicName;
+        }
+
+        @Override
+        public String getQosProfile() {
+            return qosProfile;
+        }
+
+        @Override
+        public void close() {
+            com.zrdds.simpleinterface.DDSIF.unsub_topic(subscriber);
+        }
+    }
+}
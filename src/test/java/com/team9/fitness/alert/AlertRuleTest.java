@@ -0,0 +1,150 @@
+package com.team9.fitness.alert;
+
+import com.team9.fitness.entity.AlertMessage;
+import com.team9.fitness.entity.SensorData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AlertRuleTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private static final int WARNING = AlertMessage.AlertLevel.WARNING.ordinal();
+    private static final int ERROR = AlertMessage.AlertLevel.ERROR.ordinal();
+
+    @Test
+    void compilesSpecWithConfigReferenceAndRelativeClear() {
+        AlertRule rule = compile("sensor=temperature;above=${sensor.temperature.threshold};clear=*0.9;for=10s");
+
+        assertEquals(SensorData.SensorType.TEMPERATURE, rule.getSensorType());
+        assertEquals(AlertRule.Measure.VALUE, rule.getMeasure());
+        assertEquals(30.0, rule.getThreshold());
+        assertEquals(27.0, rule.getClear(), 1e-9);
+        assertEquals(10_000, rule.getForMillis());
+        assertEquals(AlertMessage.AlertLevel.WARNING, rule.getLevel());
+    }
+
+    @Test
+    void staysActiveInsideHysteresisBand() {
+        AlertRule rule = compile("sensor=TEMPERATURE;above=30;clear=*0.9");
+        RuleState state = rule.newState();
+
+        assertEquals(AlertRule.INACTIVE, rule.evaluate(state, 30.0, 0));
+        assertEquals(WARNING, rule.evaluate(state, 30.5, SECOND));
+        assertEquals(WARNING, rule.evaluate(state, 28.0, 2 * SECOND));
+        assertEquals(WARNING, rule.evaluate(state, 27.1, 3 * SECOND));
+        assertEquals(AlertRule.CLEARED, rule.evaluate(state, 27.0, 4 * SECOND));
+        assertEquals(AlertRule.INACTIVE, rule.evaluate(state, 29.0, 5 * SECOND));
+        assertEquals(WARNING, rule.evaluate(state, 31.0, 6 * SECOND));
+    }
+
+    @Test
+    void belowRuleUsesMirroredHysteresis() {
+        AlertRule rule = compile("sensor=HUMIDITY;below=20;clear=25;level=ERROR");
+        RuleState state = rule.newState();
+
+        assertEquals(ERROR, rule.evaluate(state, 19.0, 0));
+        assertEquals(ERROR, rule.evaluate(state, 24.0, SECOND));
+        assertEquals(AlertRule.CLEARED, rule.evaluate(state, 25.0, 2 * SECOND));
+        assertEquals(AlertRule.INACTIVE, rule.evaluate(state, 21.0, 3 * SECOND));
+    }
+
+    @Test
+    void firesOnlyAfterConditionHoldsForDuration() {
+        AlertRule rule = compile("sensor=TEMPERATURE;above=30;for=10s");
+        RuleState state = rule.newState();
+
+        assertEquals(AlertRule.INACTIVE, rule.evaluate(state, 31.0, 0));
+        assertEquals(AlertRule.INACTIVE, rule.evaluate(state, 32.0, 9 * SECOND));
+        // 一个未超限的样本使计时重新开始
+        assertEquals(AlertRule.INACTIVE, rule.evaluate(state, 29.0, 10 * SECOND));
+        assertEquals(AlertRule.INACTIVE, rule.evaluate(state, 31.0, 11 * SECOND));
+        assertEquals(AlertRule.INACTIVE, rule.evaluate(state, 31.0, 20 * SECOND));
+        assertEquals(WARNING, rule.evaluate(state, 31.0, 21 * SECOND));
+    }
+
+    @Test
+    void escalatesAboveEscalationThreshold() {
+        AlertRule rule = compile("sensor=TEMPERATURE;above=30;clear=28;escalate=ERROR:40");
+        RuleState state = rule.newState();
+
+        assertEquals(WARNING, rule.evaluate(state, 35.0, 0));
+        assertEquals(ERROR, rule.evaluate(state, 40.5, SECOND));
+        assertEquals(WARNING, rule.evaluate(state, 39.0, 2 * SECOND));
+        assertEquals(AlertRule.CLEARED, rule.evaluate(state, 28.0, 3 * SECOND));
+        assertEquals(ERROR, rule.evaluate(state, 45.0, 4 * SECOND));
+        assertEquals(AlertMessage.AlertLevel.ERROR, AlertRule.levelOf(ERROR));
+    }
+
+    @Test
+    void rateMeasureUsesSampleTimestamps() {
+        AlertRule rule = compile("sensor=TEMPERATURE;measure=rate;above=0.5");
+        RuleState state = rule.newState();
+
+        assertEquals(AlertRule.INACTIVE, rule.evaluate(state, 20.0, 0));
+        assertEquals(AlertRule.INACTIVE, rule.evaluate(state, 20.4, SECOND));
+        assertEquals(WARNING, rule.evaluate(state, 22.4, 3 * SECOND));
+        assertEquals(1.0, state.measured, 1e-9);
+        // 同一时刻的样本沿用上一次的结果
+        assertEquals(WARNING, rule.evaluate(state, 50.0, 3 * SECOND));
+        assertEquals(AlertRule.CLEARED, rule.evaluate(state, 22.4, 5 * SECOND));
+    }
+
+    @Test
+    void meanMeasureWaitsForFullWindow() {
+        AlertRule rule = compile("sensor=HUMIDITY;measure=mean;samples=3;above=80");
+        RuleState state = rule.newState();
+
+        assertEquals(AlertRule.INACTIVE, rule.evaluate(state, 90.0, 0));
+        assertEquals(AlertRule.INACTIVE, rule.evaluate(state, 90.0, SECOND));
+        assertEquals(WARNING, rule.evaluate(state, 75.0, 2 * SECOND));
+        assertEquals(85.0, state.measured, 1e-9);
+        assertEquals(WARNING, rule.evaluate(state, 78.0, 3 * SECOND));
+        assertEquals(AlertRule.CLEARED, rule.evaluate(state, 60.0, 4 * SECOND));
+    }
+
+    @Test
+    void disabledRuleStillCompiles() {
+        assertFalse(compile("sensor=HUMIDITY;above=80;enabled=FALSE").isEnabled());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "",
+            "above=30",
+            "sensor=PRESSURE;above=30",
+            "sensor=TEMPERATURE",
+            "sensor=TEMPERATURE;above=30;below=10",
+            "sensor=TEMPERATURE;above=30;clear=31",
+            "sensor=TEMPERATURE;below=10;clear=*0.5",
+            "sensor=TEMPERATURE;above=30;above=40",
+            "sensor=TEMPERATURE;above=30;threshold=40",
+            "sensor=TEMPERATURE;above=*1.2",
+            "sensor=TEMPERATURE;above=${missing.key}",
+            "sensor=TEMPERATURE;above=abc",
+            "sensor=TEMPERATURE;above=30;for=-1s",
+            "sensor=TEMPERATURE;measure=mean;samples=0;above=30",
+            "sensor=TEMPERATURE;above=30;level=ERROR;escalate=WARNING:40",
+            "sensor=TEMPERATURE;above=30;escalate=ERROR:25",
+            "sensor=TEMPERATURE;above=30;escalate=ERROR:40,ERROR:50",
+            "sensor=TEMPERATURE;above=30;escalate=40",
+            "sensor=TEMPERATURE;above=30;enabled=maybe",
+            "sensor=TEMPERATURE;above"
+    })
+    void rejectsInvalidSpecs(String spec) {
+        assertThrows(IllegalArgumentException.class, () -> compile(spec));
+    }
+
+    private static AlertRule compile(String spec) {
+        Map<String, Double> config = Map.of("sensor.temperature.threshold", 30.0);
+        return AlertRule.compile("test", spec, key -> Optional.ofNullable(config.get(key)));
+    }
+}
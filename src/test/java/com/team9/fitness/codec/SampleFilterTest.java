@@ -0,0 +1,132 @@
+package com.team9.fitness.codec;
+
+import com.team9.fitness.entity.SensorData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SampleFilterTest {
+
+    @Test
+    void comparesValueWithEveryOperator() {
+        ByteBuffer sample = binary(SensorData.SensorType.TEMPERATURE, 25.0, SensorBinaryCodec.UNIT_CELSIUS, null);
+
+        assertTrue(matches("value = 25", sample));
+        assertTrue(matches("value <> 24", sample));
+        assertTrue(matches("value != 24", sample));
+        assertTrue(matches("value > 24.5", sample));
+        assertTrue(matches("value >= 25", sample));
+        assertTrue(matches("value < 30", sample));
+        assertTrue(matches("value <= 25", sample));
+        assertFalse(matches("value > 25", sample));
+        assertFalse(matches("value<25", sample));
+    }
+
+    @Test
+    void andBindsTighterThanOr() {
+        ByteBuffer hot = binary(SensorData.SensorType.TEMPERATURE, 60.0, SensorBinaryCodec.UNIT_CELSIUS, null);
+        ByteBuffer cold = binary(SensorData.SensorType.TEMPERATURE, 5.0, SensorBinaryCodec.UNIT_CELSIUS, null);
+
+        assertTrue(matches("value > 50 OR value < 10 AND unit = '%'", hot));
+        assertFalse(matches("value > 50 OR value < 10 AND unit = '%'", cold));
+        assertFalse(matches("(value > 50 OR value < 10) AND unit = '%'", hot));
+        assertTrue(matches("(value > 50 OR value < 10) AND unit = '°C'", cold));
+    }
+
+    @Test
+    void notAppliesToTheFollowingFactor() {
+        ByteBuffer sample = binary(SensorData.SensorType.HUMIDITY, 40.0, SensorBinaryCodec.UNIT_PERCENT, null);
+
+        assertTrue(matches("NOT value > 50 AND sensorType = 'HUMIDITY'", sample));
+        assertFalse(matches("NOT (value < 50 AND sensorType = 'HUMIDITY')", sample));
+        assertTrue(matches("not not value = 40", sample));
+    }
+
+    @Test
+    void sensorTypeIgnoresCaseButOtherStringsDoNot() {
+        ByteBuffer sample = binary(SensorData.SensorType.HUMIDITY, 40.0, SensorBinaryCodec.UNIT_PERCENT, "Dev-1");
+
+        assertTrue(matches("sensorType = 'humidity'", sample));
+        assertTrue(matches("SENSORTYPE <> 'temperature'", sample));
+        assertTrue(matches("deviceId = 'Dev-1'", sample));
+        assertFalse(matches("deviceId = 'dev-1'", sample));
+        assertTrue(matches("unit = '%'", sample));
+    }
+
+    @Test
+    void matchesJsonSamples() {
+        ByteBuffer sample = json("{\"id\":7,\"extra\":{\"value\":1},\"sensorType\":\"temperature\","
+                + "\"value\":31.5,\"unit\":\"°C\",\"deviceId\":\"dev-9\"}");
+
+        assertTrue(matches("value > 30 AND sensorType = 'TEMPERATURE'", sample));
+        assertTrue(matches("deviceId = 'dev-9' AND unit = '°C'", sample));
+        assertFalse(matches("value < 30", sample));
+        assertEquals(0, sample.position());
+    }
+
+    @Test
+    void missingFieldsNeverMatch() {
+        ByteBuffer binary = binary(SensorData.SensorType.TEMPERATURE, 20.0, SensorBinaryCodec.UNIT_NONE, null);
+        ByteBuffer json = json("{\"sensorType\":\"TEMPERATURE\"}");
+
+        assertFalse(matches("deviceId = 'dev-1'", binary));
+        assertFalse(matches("deviceId <> 'dev-1'", binary));
+        assertFalse(matches("unit <> '°C'", binary));
+        assertFalse(matches("value >= 0", json));
+        assertFalse(matches("value < 0", json));
+    }
+
+    @Test
+    void nonSensorPayloadsNeverMatch() {
+        assertFalse(matches("NOT value > 0", ByteBuffer.wrap("plain text".getBytes(StandardCharsets.UTF_8))));
+        assertFalse(matches("NOT value > 0", json("[1, 2, 3]")));
+        assertFalse(matches("NOT value > 0", json("{\"value\":")));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "",
+            "   ",
+            "temperature > 10",
+            "value >",
+            "value ~ 10",
+            "(value > 10",
+            "value > 10)",
+            "value > 10 AND",
+            "value = 'ten'",
+            "sensorType = HUMIDITY",
+            "sensorType > 'HUMIDITY'",
+            "deviceId = 'dev-1",
+            "value > 10 value < 20"
+    })
+    void rejectsMalformedExpressions(String expression) {
+        assertThrows(IllegalArgumentException.class, () -> SampleFilter.compile(expression));
+    }
+
+    @Test
+    void rejectsNullExpression() {
+        assertThrows(IllegalArgumentException.class, () -> SampleFilter.compile(null));
+    }
+
+    private static boolean matches(String expression, ByteBuffer view) {
+        return SampleFilter.compile(expression).matches(view);
+    }
+
+    private static ByteBuffer binary(SensorData.SensorType type, double value, byte unit, String deviceId) {
+        byte[] buffer = new byte[SensorBinaryCodec.MAX_SIZE];
+        int length = SensorBinaryCodec.encode(type, 1_700_000_000_000_000L, value, unit, deviceId, buffer, 0);
+        return ByteBuffer.wrap(buffer, 0, length).slice();
+    }
+
+    private static ByteBuffer json(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
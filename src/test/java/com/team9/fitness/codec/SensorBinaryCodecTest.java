@@ -0,0 +1,112 @@
+package com.team9.fitness.codec;
+
+import com.team9.fitness.entity.SensorData;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SensorBinaryCodecTest {
+
+    @Test
+    void roundTripsSensorDataWithDeviceId() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123_456_000);
+        SensorData sensorData = SensorData.builder()
+                .sensorType(SensorData.SensorType.HUMIDITY)
+                .value(63.25)
+                .unit("%")
+                .deviceId("设备-07")
+                .createdAt(createdAt)
+                .build();
+        byte[] buffer = new byte[SensorBinaryCodec.MAX_SIZE + 3];
+
+        int length = SensorBinaryCodec.encode(sensorData, buffer, 3);
+        SensorSample sample = new SensorSample();
+        SensorBinaryCodec.decode(buffer, 3, length, sample);
+
+        assertEquals(SensorData.SensorType.HUMIDITY, sample.getSensorType());
+        assertEquals(63.25, sample.getValue());
+        assertEquals("%", sample.getUnit());
+        assertEquals("设备-07", sample.getDeviceId());
+        SensorData decoded = sample.toSensorData();
+        assertEquals(createdAt, decoded.getCreatedAt());
+        assertEquals(sensorData.getDeviceId(), decoded.getDeviceId());
+    }
+
+    @Test
+    void decodesFromByteBufferView() {
+        byte[] buffer = new byte[SensorBinaryCodec.MAX_SIZE];
+        int length = SensorBinaryCodec.encode(SensorData.SensorType.TEMPERATURE, 1_700_000_000_000_000L, -4.5,
+                SensorBinaryCodec.UNIT_CELSIUS, "dev-1", buffer, 0);
+        ByteBuffer view = ByteBuffer.wrap(buffer, 0, length).asReadOnlyBuffer();
+
+        SensorSample sample = new SensorSample();
+        SensorBinaryCodec.decode(view, sample);
+
+        assertEquals(SensorData.SensorType.TEMPERATURE, sample.getSensorType());
+        assertEquals(1_700_000_000_000_000L, sample.getEpochMicros());
+        assertEquals(-4.5, sample.getValue());
+        assertEquals("°C", sample.getUnit());
+        assertEquals("dev-1", sample.getDeviceId());
+        assertEquals(0, view.position());
+    }
+
+    @Test
+    void samplesWithoutDeviceIdUseFixedSize() {
+        byte[] buffer = new byte[SensorBinaryCodec.MAX_SIZE];
+        int length = SensorBinaryCodec.encode(SensorData.SensorType.TEMPERATURE, 0, 21.0,
+                SensorBinaryCodec.UNIT_NONE, null, buffer, 0);
+
+        SensorSample sample = new SensorSample();
+        SensorBinaryCodec.decode(buffer, 0, length, sample);
+
+        assertEquals(SensorBinaryCodec.FIXED_SIZE, length);
+        assertFalse(sample.hasDeviceId());
+        assertNull(sample.getDeviceId());
+        assertNull(sample.getUnit());
+    }
+
+    @Test
+    void rejectsTruncatedDeviceId() {
+        byte[] buffer = new byte[SensorBinaryCodec.MAX_SIZE];
+        int length = SensorBinaryCodec.encode(SensorData.SensorType.TEMPERATURE, 0, 21.0,
+                SensorBinaryCodec.UNIT_CELSIUS, "device-with-long-id", buffer, 0);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> SensorBinaryCodec.decode(buffer, 0, length - 1, new SensorSample()));
+    }
+
+    @Test
+    void rejectsWrongHeaderAndShortInput() {
+        byte[] json = "{\"value\":21.0,\"sensorType\":\"TEMPERATURE\"}".getBytes();
+        assertThrows(IllegalArgumentException.class,
+                () -> SensorBinaryCodec.decode(json, 0, json.length, new SensorSample()));
+        assertThrows(IllegalArgumentException.class,
+                () -> SensorBinaryCodec.decode(new byte[SensorBinaryCodec.FIXED_SIZE - 1], 0,
+                        SensorBinaryCodec.FIXED_SIZE - 1, new SensorSample()));
+    }
+
+    @Test
+    void rejectsUnknownSensorType() {
+        byte[] buffer = new byte[SensorBinaryCodec.MAX_SIZE];
+        int length = SensorBinaryCodec.encode(SensorData.SensorType.TEMPERATURE, 0, 21.0,
+                SensorBinaryCodec.UNIT_CELSIUS, null, buffer, 0);
+        buffer[2] = 99;
+
+        assertThrows(IllegalArgumentException.class,
+                () -> SensorBinaryCodec.decode(buffer, 0, length, new SensorSample()));
+    }
+
+    @Test
+    void rejectsOverlongDeviceId() {
+        String deviceId = "设".repeat(100);
+        assertThrows(IllegalArgumentException.class, () -> SensorBinaryCodec.encode(
+                SensorData.SensorType.TEMPERATURE, 0, 21.0, SensorBinaryCodec.UNIT_CELSIUS, deviceId,
+                new byte[SensorBinaryCodec.MAX_SIZE], 0));
+    }
+}
@@ -0,0 +1,154 @@
+package com.team9.fitness.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlidingWindowStatsTest {
+
+    private static final long SLOT_MILLIS = 100;
+    private static final long SLOT_NANOS = TimeUnit.MILLISECONDS.toNanos(SLOT_MILLIS);
+    // 对齐到槽边界的起始时刻
+    private static final long T0 = 1_000 * SLOT_NANOS;
+
+    @Test
+    void computesMeanVarianceAndExtremes() {
+        SlidingWindowStats stats = new SlidingWindowStats(SLOT_MILLIS, 11);
+        for (double value : new double[]{2, 4, 4, 4, 5, 5, 7, 9}) {
+            stats.record(value, T0);
+        }
+
+        SlidingWindowStats.Window window = stats.window(1_000, T0);
+
+        assertEquals(8, window.getCount());
+        assertEquals(5.0, window.getMean(), 1e-12);
+        assertEquals(4.0, window.getVariance(), 1e-12);
+        assertEquals(2.0, window.getStdDev(), 1e-12);
+        assertEquals(2.0, window.getMin());
+        assertEquals(9.0, window.getMax());
+        assertEquals(40.0, window.getSum(), 1e-9);
+    }
+
+    @Test
+    void keepsVariancePrecisionForLargeValues() {
+        SlidingWindowStats stats = new SlidingWindowStats(SLOT_MILLIS, 11);
+        for (int i = 0; i < 1_000; i++) {
+            stats.record(1e9 + (i % 2 == 0 ? -0.5 : 0.5), T0);
+        }
+
+        SlidingWindowStats.Window window = stats.window(1_000, T0);
+
+        assertEquals(1e9, window.getMean(), 1e-6);
+        assertEquals(0.25, window.getVariance(), 1e-9);
+    }
+
+    @Test
+    void ignoresNonFiniteValues() {
+        SlidingWindowStats stats = new SlidingWindowStats(SLOT_MILLIS, 11);
+        stats.record(Double.NaN, T0);
+        stats.record(Double.POSITIVE_INFINITY, T0);
+        stats.record(3.0, T0);
+
+        assertEquals(1, stats.getTotalCount());
+        assertEquals(3.0, stats.window(1_000, T0).getMean());
+    }
+
+    @Test
+    void samplesExpireWhenTheyLeaveTheWindow() {
+        SlidingWindowStats stats = new SlidingWindowStats(SLOT_MILLIS, 11);
+        stats.record(10.0, T0);
+        stats.record(20.0, T0 + 5 * SLOT_NANOS);
+        long now = T0 + 5 * SLOT_NANOS;
+
+        assertEquals(2, stats.window(1_000, now).getCount());
+        SlidingWindowStats.Window recent = stats.window(300, now);
+        assertEquals(1, recent.getCount());
+        assertEquals(20.0, recent.getMean());
+
+        SlidingWindowStats.Window expired = stats.window(1_000, T0 + 20 * SLOT_NANOS);
+        assertEquals(0, expired.getCount());
+        assertTrue(Double.isNaN(expired.getMean()));
+        assertTrue(Double.isNaN(expired.getMin()));
+        assertEquals(2, expired.toMap().size(), "没有样本时只返回窗口和count");
+        assertEquals(2, stats.getTotalCount());
+    }
+
+    @Test
+    void reusedSlotDropsPreviousRound() {
+        SlidingWindowStats stats = new SlidingWindowStats(SLOT_MILLIS, 4);
+        stats.record(100.0, T0);
+        stats.record(-100.0, T0);
+        // 4个槽之后落回同一个槽，上一轮的样本和极值被清掉
+        long reused = T0 + 4 * SLOT_NANOS;
+        stats.record(1.0, reused);
+
+        SlidingWindowStats.Window window = stats.window(10_000, reused);
+
+        assertEquals(1, window.getCount());
+        assertEquals(1.0, window.getMin());
+        assertEquals(1.0, window.getMax());
+        assertEquals(0.0, window.getVariance());
+    }
+
+    @Test
+    void windowIsCappedAtSlotCount() {
+        SlidingWindowStats stats = SlidingWindowStats.covering(1_000, SLOT_MILLIS);
+        for (int i = 0; i <= 10; i++) {
+            stats.record(i, T0 + i * SLOT_NANOS);
+        }
+
+        // 最长只能查询slotCount - 1个槽
+        SlidingWindowStats.Window window = stats.window(60_000, T0 + 10 * SLOT_NANOS);
+
+        assertEquals(11, window.getCount());
+        assertEquals(5.0, window.getMean(), 1e-12);
+        assertThrows(IllegalArgumentException.class, () -> new SlidingWindowStats(0, 10));
+        assertThrows(IllegalArgumentException.class, () -> new SlidingWindowStats(SLOT_MILLIS, 1));
+    }
+
+    @Test
+    void concurrentRecordsAreNotLost() throws InterruptedException {
+        int threads = 8;
+        int perThread = 1_000_000;
+        SlidingWindowStats stats = new SlidingWindowStats(SLOT_MILLIS, 11);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            workers.add(new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                // 所有样本落在同一个槽，不发生轮换，计数和方差应当精确
+                for (int i = 0; i < perThread; i++) {
+                    stats.record(i % 100, T0);
+                }
+            }));
+        }
+        workers.forEach(Thread::start);
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join(60_000);
+            assertFalse(worker.isAlive(), "记录线程未在超时前结束");
+        }
+
+        SlidingWindowStats.Window window = stats.window(1_000, T0);
+
+        assertEquals((long) threads * perThread, stats.getTotalCount());
+        assertEquals((long) threads * perThread, window.getCount());
+        assertEquals(49.5, window.getMean(), 1e-9);
+        assertEquals((100.0 * 100 - 1) / 12, window.getVariance(), 1e-6);
+        assertEquals(0.0, window.getMin());
+        assertEquals(99.0, window.getMax());
+    }
+}
@@ -0,0 +1,144 @@
+package com.team9.fitness.pipeline;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeyedPipelineTest {
+
+    private KeyedPipeline<KeyedEvent> pipeline;
+
+    @AfterEach
+    void stop() {
+        if (pipeline != null) {
+            pipeline.stop(1_000);
+        }
+    }
+
+    @Test
+    void laneOfIsStableAndInRange() {
+        pipeline = new KeyedPipeline<>("test", 4, 16, 8, KeyedEvent::new);
+        Set<Integer> used = new HashSet<>();
+        for (int i = 0; i < 1_000; i++) {
+            String key = "dev-" + i + "/TEMPERATURE";
+            int lane = pipeline.laneOf(key.hashCode());
+            assertTrue(lane >= 0 && lane < 4, "lane=" + lane);
+            assertEquals(lane, pipeline.laneOf(key.hashCode()));
+            used.add(lane);
+        }
+        assertEquals(Set.of(0, 1, 2, 3), used);
+        assertEquals(pipeline.laneOf(Integer.MIN_VALUE), pipeline.laneOf(Integer.MIN_VALUE));
+        assertThrows(IllegalArgumentException.class, () -> new KeyedPipeline<>("test", 0, 16, 8, KeyedEvent::new));
+    }
+
+    @Test
+    void preservesPerKeyOrderAcrossLanes() throws InterruptedException {
+        int keys = 32;
+        int perKey = 2_000;
+        Map<String, List<Integer>> sequences = new ConcurrentHashMap<>();
+        Map<String, Set<Integer>> lanesByKey = new ConcurrentHashMap<>();
+        AtomicInteger processed = new AtomicInteger();
+        pipeline = new KeyedPipeline<>("test", 4, 64, 16, KeyedEvent::new)
+                .stage("jitter", (batch, count) -> {
+                    // 不同通道的处理速度不同，通道之间的相对顺序被打乱
+                    if (batch[0].key.hashCode() % 3 == 0) {
+                        Thread.yield();
+                    }
+                })
+                .stage("record", (batch, count) -> {
+                    for (int i = 0; i < count; i++) {
+                        KeyedEvent event = batch[i];
+                        sequences.computeIfAbsent(event.key, k -> new ArrayList<>()).add(event.sequence);
+                        lanesByKey.computeIfAbsent(event.key, k -> ConcurrentHashMap.newKeySet()).add(event.lane);
+                    }
+                    processed.addAndGet(count);
+                });
+        pipeline.start();
+
+        for (int i = 0; i < perKey; i++) {
+            for (int k = 0; k < keys; k++) {
+                String key = "dev-" + k;
+                int lane = pipeline.laneOf(key.hashCode());
+                KeyedEvent event = pipeline.claim(lane);
+                event.key = key;
+                event.sequence = i;
+                event.lane = lane;
+                pipeline.publish(lane, event);
+            }
+        }
+        awaitProcessed(processed, keys * perKey);
+
+        assertEquals(keys, sequences.size());
+        for (Map.Entry<String, List<Integer>> entry : sequences.entrySet()) {
+            List<Integer> received = entry.getValue();
+            assertEquals(perKey, received.size(), entry.getKey());
+            for (int i = 0; i < perKey; i++) {
+                assertEquals(i, received.get(i), entry.getKey());
+            }
+            assertEquals(Set.of(pipeline.laneOf(entry.getKey().hashCode())), lanesByKey.get(entry.getKey()));
+        }
+        assertEquals((long) keys * perKey, pipeline.getStats().get("submitted"));
+    }
+
+    @Test
+    void statsReportImbalance() throws InterruptedException {
+        AtomicInteger processed = new AtomicInteger();
+        pipeline = new KeyedPipeline<>("test", 4, 16, 8, KeyedEvent::new)
+                .stage("count", (batch, count) -> processed.addAndGet(count));
+        pipeline.start();
+        assertEquals(1.0, pipeline.getStats().get("imbalance"));
+
+        // 全部事件落在同一条通道
+        for (int i = 0; i < 100; i++) {
+            pipeline.publish(2, pipeline.claim(2));
+        }
+        awaitProcessed(processed, 100);
+        Map<String, Object> skewed = pipeline.getStats();
+        assertEquals(4.0, skewed.get("imbalance"));
+        assertEquals(2, skewed.get("hottestLane"));
+        assertEquals(100L, skewed.get("submitted"));
+        assertEquals(4, ((List<?>) skewed.get("laneStats")).size());
+
+        // 补齐其余通道后完全均匀
+        for (int lane : new int[]{0, 1, 3}) {
+            for (int i = 0; i < 100; i++) {
+                pipeline.publish(lane, pipeline.claim(lane));
+            }
+        }
+        awaitProcessed(processed, 400);
+        assertEquals(1.0, pipeline.getStats().get("imbalance"));
+    }
+
+    private static void awaitProcessed(AtomicInteger processed, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (processed.get() < expected) {
+            assertTrue(System.currentTimeMillis() < deadline, "处理超时: " + processed.get() + "/" + expected);
+            Thread.sleep(5);
+        }
+    }
+
+    static final class KeyedEvent extends PipelineEvent {
+
+        String key;
+        int sequence;
+        int lane;
+
+        @Override
+        protected void reset() {
+            key = null;
+            sequence = 0;
+            lane = 0;
+        }
+    }
+}
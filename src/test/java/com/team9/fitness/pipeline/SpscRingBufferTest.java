@@ -0,0 +1,96 @@
+package com.team9.fitness.pipeline;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpscRingBufferTest {
+
+    @Test
+    void roundsCapacityUpToPowerOfTwo() {
+        assertEquals(16, new SpscRingBuffer<Integer>(9).capacity());
+        assertThrows(IllegalArgumentException.class, () -> new SpscRingBuffer<Integer>(0));
+    }
+
+    @Test
+    void isFifoAndRejectsWhenFull() {
+        SpscRingBuffer<Integer> ring = new SpscRingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(i));
+        }
+        assertFalse(ring.offer(4));
+
+        assertEquals(0, ring.poll());
+        assertTrue(ring.offer(4));
+        for (int i = 1; i <= 4; i++) {
+            assertEquals(i, ring.poll());
+        }
+        assertNull(ring.poll());
+        assertTrue(ring.isEmpty());
+    }
+
+    @Test
+    void drainToTakesAtMostMaxAcrossWrap() {
+        SpscRingBuffer<Integer> ring = new SpscRingBuffer<>(4);
+        ring.offer(0);
+        ring.offer(1);
+        ring.offer(2);
+        ring.poll();
+        ring.poll();
+        ring.offer(3);
+        ring.offer(4);
+        ring.offer(5);
+
+        Integer[] batch = new Integer[8];
+        assertEquals(3, ring.drainTo(batch, 3));
+        assertArrayEquals(new Integer[]{2, 3, 4}, Arrays.copyOf(batch, 3));
+        assertEquals(1, ring.drainTo(batch, 8));
+        assertEquals(5, batch[0]);
+        assertEquals(0, ring.drainTo(batch, 8));
+    }
+
+    @Test
+    void preservesOrderBetweenTwoThreads() throws InterruptedException {
+        int total = 100_000;
+        SpscRingBuffer<Integer> ring = new SpscRingBuffer<>(32);
+        int[] received = new int[total];
+        Thread consumer = new Thread(() -> {
+            Integer[] batch = new Integer[16];
+            int count = 0;
+            while (count < total) {
+                int drained = ring.drainTo(batch, batch.length);
+                if (drained == 0) {
+                    Integer element = ring.poll();
+                    if (element == null) {
+                        Thread.yield();
+                        continue;
+                    }
+                    received[count++] = element;
+                    continue;
+                }
+                for (int i = 0; i < drained; i++) {
+                    received[count++] = batch[i];
+                }
+            }
+        });
+        consumer.start();
+        for (int i = 0; i < total; i++) {
+            while (!ring.offer(i)) {
+                Thread.yield();
+            }
+        }
+        consumer.join(30_000);
+        assertFalse(consumer.isAlive(), "消费线程未在超时前结束");
+
+        for (int i = 0; i < total; i++) {
+            assertEquals(i, received[i]);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.team9.fitness.service;
+
+import com.team9.fitness.alert.AlertRule;
+import com.team9.fitness.entity.AlertMessage;
+import com.team9.fitness.entity.SensorData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AlertLifecycleServiceTest {
+
+    private static final AlertRule RULE = AlertRule.compile("temperature-high",
+            "sensor=TEMPERATURE;above=30;escalate=ERROR:40", key -> Optional.empty());
+
+    private final AlertMessageService alertMessageService = mock(AlertMessageService.class);
+    private final WebSocketService webSocketService = mock(WebSocketService.class);
+    private final AlertLifecycleService service = new AlertLifecycleService();
+
+    // 推送时刻的内容，警报实体会在之后的刷新中被修改
+    private final List<String> pushed = new ArrayList<>();
+    private final AtomicLong ids = new AtomicLong();
+    private final AtomicInteger saves = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "alertMessageService", alertMessageService);
+        ReflectionTestUtils.setField(service, "webSocketService", webSocketService);
+        ReflectionTestUtils.setField(service, "cooldown", "60s");
+        ReflectionTestUtils.setField(service, "autoClose", "10m");
+        ReflectionTestUtils.setField(service, "maxWritesPerFlush", 200);
+        ReflectionTestUtils.setField(service, "maxPushesPerFlush", 20);
+
+        when(alertMessageService.buildRuleAlert(any(), any(), any(), anyDouble())).thenAnswer(invocation -> {
+            SensorData sensorData = invocation.getArgument(1);
+            AlertMessage alert = new AlertMessage();
+            alert.setRuleName(RULE.getName());
+            alert.setDeviceId(sensorData.getDeviceId());
+            return alert;
+        });
+        doAnswer(invocation -> {
+            Object data = invocation.getArgument(0);
+            if (data instanceof AlertMessage) {
+                AlertMessage alert = (AlertMessage) data;
+                pushed.add(alert.getDeviceId() + ":" + alert.getLevel() + ":" + alert.getStatus());
+            } else {
+                pushed.add("storm:" + ((Map<?, ?>) data).get("suppressed"));
+            }
+            return null;
+        }).when(webSocketService).pushAlertData(any());
+    }
+
+    @Test
+    void escalationDuringSaveIsPushedByNextFlush() {
+        onSave(() -> service.onFire(RULE, reading("dev-1"), AlertMessage.AlertLevel.ERROR, 45.0));
+        service.onFire(RULE, reading("dev-1"), AlertMessage.AlertLevel.WARNING, 35.0);
+
+        service.flush();
+        onSave(() -> { });
+        service.flush();
+        service.flush();
+
+        assertEquals(List.of("dev-1:WARNING:OPEN", "dev-1:ERROR:OPEN"), pushed);
+        assertEquals(2, saves.get());
+    }
+
+    @Test
+    void clearDuringSaveIsPushedByNextFlush() {
+        service.onFire(RULE, reading("dev-1"), AlertMessage.AlertLevel.WARNING, 35.0);
+        service.flush();
+
+        service.onFire(RULE, reading("dev-1"), AlertMessage.AlertLevel.ERROR, 45.0);
+        onSave(() -> service.onClear(RULE, reading("dev-1"), 25.0));
+        service.flush();
+        onSave(() -> { });
+        service.flush();
+
+        assertEquals(List.of("dev-1:WARNING:OPEN", "dev-1:ERROR:OPEN", "dev-1:ERROR:CLOSED"), pushed);
+    }
+
+    @Test
+    void failedSaveRetriesInsertAndPushesAfterSuccess() {
+        doAnswer(invocation -> {
+            List<AlertMessage> alerts = invocation.getArgument(0);
+            alerts.forEach(alert -> alert.setId(ids.incrementAndGet()));
+            throw new IllegalStateException("数据库不可用");
+        }).when(alertMessageService).saveRuleAlerts(anyList());
+        service.onFire(RULE, reading("dev-1"), AlertMessage.AlertLevel.WARNING, 35.0);
+
+        service.flush();
+
+        assertEquals(List.of(), pushed);
+        assertEquals(1L, service.getStats().get("writeFailures"));
+        AlertMessage[] saved = new AlertMessage[1];
+        doAnswer(invocation -> {
+            List<AlertMessage> alerts = invocation.getArgument(0);
+            saved[0] = alerts.get(0);
+            assertNull(saved[0].getId(), "回滚的插入应清除ID");
+            saved[0].setId(ids.incrementAndGet());
+            return null;
+        }).when(alertMessageService).saveRuleAlerts(anyList());
+        service.flush();
+
+        assertEquals(List.of("dev-1:WARNING:OPEN"), pushed);
+        assertEquals(1L, service.getStats().get("writes"));
+    }
+
+    @Test
+    void repeatedFiresAreWrittenButNotPushed() {
+        onSave(() -> { });
+        service.onFire(RULE, reading("dev-1"), AlertMessage.AlertLevel.WARNING, 35.0);
+        service.flush();
+        service.onFire(RULE, reading("dev-1"), AlertMessage.AlertLevel.WARNING, 36.0);
+        service.onFire(RULE, reading("dev-1"), AlertMessage.AlertLevel.WARNING, 37.0);
+        service.flush();
+
+        assertEquals(List.of("dev-1:WARNING:OPEN"), pushed);
+        assertEquals(2, saves.get());
+        assertEquals(3L, service.getStats().get("fired"));
+    }
+
+    @Test
+    void pushesBeyondLimitAreMergedIntoStormFrame() {
+        ReflectionTestUtils.setField(service, "maxPushesPerFlush", 2);
+        onSave(() -> { });
+        for (int i = 0; i < 5; i++) {
+            service.onFire(RULE, reading("dev-" + i), AlertMessage.AlertLevel.WARNING, 35.0);
+        }
+
+        service.flush();
+
+        assertEquals(3, pushed.size());
+        assertEquals("storm:3", pushed.get(2));
+        assertEquals(1L, service.getStats().get("stormFrames"));
+    }
+
+    /**
+     * 保存时先执行action（模拟写库期间规则线程的触发），再为新警报分配ID
+     */
+    private void onSave(Runnable action) {
+        doAnswer(invocation -> {
+            saves.incrementAndGet();
+            action.run();
+            List<AlertMessage> alerts = invocation.getArgument(0);
+            for (AlertMessage alert : alerts) {
+                if (alert.getId() == null) {
+                    alert.setId(ids.incrementAndGet());
+                }
+            }
+            return null;
+        }).when(alertMessageService).saveRuleAlerts(anyList());
+    }
+
+    private static SensorData reading(String deviceId) {
+        return SensorData.builder()
+                .sensorType(SensorData.SensorType.TEMPERATURE)
+                .deviceId(deviceId)
+                .build();
+    }
+}
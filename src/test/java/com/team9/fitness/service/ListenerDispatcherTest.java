@@ -0,0 +1,143 @@
+package com.team9.fitness.service;
+
+import com.team9.fitness.codec.SampleFilter;
+import com.team9.fitness.codec.SensorBinaryCodec;
+import com.team9.fitness.codec.SensorSample;
+import com.team9.fitness.entity.SensorData;
+import com.team9.fitness.metrics.TopicMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ListenerDispatcherTest {
+
+    private final List<String> delivered = new ArrayList<>();
+    private ListenerDispatcher dispatcher;
+
+    @AfterEach
+    void stop() {
+        if (dispatcher != null) {
+            dispatcher.stop(1_000);
+        }
+    }
+
+    @Test
+    void conflatesOverflowPerInstanceInFirstOverflowOrder() throws InterruptedException {
+        dispatcher = dispatcher(2, OverflowPolicy.CONFLATE_LATEST, null);
+
+        assertTrue(dispatcher.offer(sample("dev-a", 1)));
+        assertTrue(dispatcher.offer(sample("dev-a", 2)));
+        assertTrue(dispatcher.offer(sample("dev-a", 3)));
+        assertTrue(dispatcher.offer(sample("dev-b", 4)));
+        assertTrue(dispatcher.offer(sample("dev-a", 5)));
+        dispatcher.start();
+        awaitDelivered(4);
+
+        assertEquals(List.of("dev-a=1.0", "dev-a=2.0", "dev-a=5.0", "dev-b=4.0"), snapshot());
+        Map<String, Object> stats = dispatcher.getStats();
+        assertEquals(1L, stats.get("conflated"));
+        assertEquals(0L, stats.get("dropped"));
+        assertEquals(0, stats.get("conflatedPending"));
+    }
+
+    @Test
+    void conflationDropsNewInstancesBeyondCapacity() {
+        dispatcher = dispatcher(2, OverflowPolicy.CONFLATE_LATEST, null);
+
+        dispatcher.offer(sample("dev-a", 1));
+        dispatcher.offer(sample("dev-a", 2));
+        assertTrue(dispatcher.offer(sample("dev-b", 3)));
+        assertTrue(dispatcher.offer(sample("dev-c", 4)));
+        assertFalse(dispatcher.offer(sample("dev-d", 5)));
+        assertTrue(dispatcher.offer(sample("dev-c", 6)));
+
+        Map<String, Object> stats = dispatcher.getStats();
+        assertEquals(1L, stats.get("dropped"));
+        assertEquals(1L, stats.get("conflated"));
+        assertEquals(2, stats.get("conflatedPending"));
+    }
+
+    @Test
+    void dropOldestKeepsNewestSamples() throws InterruptedException {
+        dispatcher = dispatcher(2, OverflowPolicy.DROP_OLDEST, null);
+
+        for (int i = 1; i <= 5; i++) {
+            assertTrue(dispatcher.offer(sample("dev-a", i)));
+        }
+        dispatcher.start();
+        awaitDelivered(2);
+
+        assertEquals(List.of("dev-a=4.0", "dev-a=5.0"), snapshot());
+        assertEquals(3L, dispatcher.getStats().get("dropped"));
+    }
+
+    @Test
+    void dropNewestRejectsWhenFull() {
+        dispatcher = dispatcher(2, OverflowPolicy.DROP_NEWEST, null);
+
+        assertTrue(dispatcher.offer(sample("dev-a", 1)));
+        assertTrue(dispatcher.offer(sample("dev-a", 2)));
+        assertFalse(dispatcher.offer(sample("dev-a", 3)));
+        assertFalse(dispatcher.offer(sample("dev-a", 4), false));
+
+        assertEquals(2L, dispatcher.getStats().get("dropped"));
+        assertEquals(2, dispatcher.getStats().get("highWaterMark"));
+    }
+
+    @Test
+    void filterSkipsSamplesBeforeListener() throws InterruptedException {
+        dispatcher = dispatcher(8, OverflowPolicy.DROP_NEWEST, SampleFilter.compile("value > 2"));
+        dispatcher.start();
+
+        for (int i = 1; i <= 4; i++) {
+            dispatcher.offer(sample("dev-a", i));
+        }
+        awaitDelivered(2);
+
+        assertEquals(List.of("dev-a=3.0", "dev-a=4.0"), snapshot());
+        assertEquals(2L, dispatcher.getStats().get("filtered"));
+    }
+
+    private ListenerDispatcher dispatcher(int capacity, OverflowPolicy policy, SampleFilter filter) {
+        SensorSample decoded = new SensorSample();
+        ZRDDSService.BytesListener listener = (topicName, view, info) -> {
+            SensorBinaryCodec.decode(view, decoded);
+            synchronized (delivered) {
+                delivered.add(decoded.getDeviceId() + "=" + decoded.getValue());
+            }
+        };
+        return new ListenerDispatcher("test", "Sensor/Temperature", listener, capacity, policy, filter,
+                new TopicMetrics("Sensor/Temperature"));
+    }
+
+    private void awaitDelivered(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (System.currentTimeMillis() < deadline) {
+            if ((long) dispatcher.getStats().get("delivered") >= count) {
+                return;
+            }
+            Thread.sleep(5);
+        }
+        throw new AssertionError("投递超时: " + snapshot());
+    }
+
+    private List<String> snapshot() {
+        synchronized (delivered) {
+            return new ArrayList<>(delivered);
+        }
+    }
+
+    private static ListenerDispatcher.ReceivedSample sample(String deviceId, double value) {
+        byte[] buffer = new byte[SensorBinaryCodec.MAX_SIZE];
+        int length = SensorBinaryCodec.encode(SensorData.SensorType.TEMPERATURE, 1_700_000_000_000_000L, value,
+                SensorBinaryCodec.UNIT_CELSIUS, deviceId, buffer, 0);
+        return new ListenerDispatcher.ReceivedSample(buffer, 0, length, null, System.nanoTime());
+    }
+}
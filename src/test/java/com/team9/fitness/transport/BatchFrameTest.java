@@ -0,0 +1,99 @@
+package com.team9.fitness.transport;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchFrameTest {
+
+    @Test
+    void roundTripsSamplesInOrder() {
+        List<byte[]> samples = List.of(bytes("{\"value\":1}"), new byte[0], bytes("{\"value\":3}"));
+        BatchFrame.Builder builder = new BatchFrame.Builder(4);
+        for (byte[] sample : samples) {
+            builder.add(sample, 0, sample.length);
+        }
+        byte[] frame = builder.finish();
+
+        assertTrue(BatchFrame.isBatch(frame, builder.length()));
+        assertEquals(samples.size(), builder.count());
+        List<byte[]> decoded = decode(frame, builder.length());
+        assertEquals(samples.size(), decoded.size());
+        for (int i = 0; i < samples.size(); i++) {
+            assertArrayEquals(samples.get(i), decoded.get(i));
+        }
+    }
+
+    @Test
+    void builderIsReusableAfterReset() {
+        BatchFrame.Builder builder = new BatchFrame.Builder(16);
+        builder.add(bytes("first"), 0, 5);
+        builder.finish();
+        builder.reset();
+        builder.add(bytes("second"), 0, 6);
+        byte[] frame = builder.finish();
+
+        List<byte[]> decoded = decode(frame, builder.length());
+        assertEquals(1, decoded.size());
+        assertArrayEquals(bytes("second"), decoded.get(0));
+    }
+
+    @Test
+    void singleSamplesAreNotBatches() {
+        byte[] json = bytes("{\"value\":1}");
+        assertFalse(BatchFrame.isBatch(json, json.length));
+        assertFalse(BatchFrame.isBatch(new byte[]{BatchFrame.MAGIC, 0, 0}, 3));
+    }
+
+    @Test
+    void rejectsTruncatedFrame() {
+        byte[] frame = frameOf(bytes("abcdef"), bytes("ghijkl"));
+        int length = frame.length - 3;
+        assertThrows(IllegalArgumentException.class, () -> BatchFrame.forEach(frame, length, (d, o, l) -> {
+        }));
+    }
+
+    @Test
+    void rejectsNegativeEntryLength() {
+        byte[] frame = frameOf(bytes("abc"));
+        BatchFrame.writeInt(frame, 5, -1);
+        assertThrows(IllegalArgumentException.class, () -> BatchFrame.forEach(frame, frame.length, (d, o, l) -> {
+        }));
+    }
+
+    @Test
+    void rejectsCountBeyondFrame() {
+        byte[] frame = frameOf(bytes("abc"));
+        BatchFrame.writeInt(frame, 1, Integer.MAX_VALUE);
+        assertThrows(IllegalArgumentException.class, () -> BatchFrame.forEach(frame, frame.length, (d, o, l) -> {
+        }));
+    }
+
+    static byte[] frameOf(byte[]... samples) {
+        BatchFrame.Builder builder = new BatchFrame.Builder(64);
+        for (byte[] sample : samples) {
+            builder.add(sample, 0, sample.length);
+        }
+        return Arrays.copyOf(builder.finish(), builder.length());
+    }
+
+    static List<byte[]> decode(byte[] frame, int length) {
+        List<byte[]> decoded = new ArrayList<>();
+        BatchFrame.forEach(frame, length, (data, offset, entryLength) ->
+                decoded.add(Arrays.copyOfRange(data, offset, offset + entryLength)));
+        return decoded;
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
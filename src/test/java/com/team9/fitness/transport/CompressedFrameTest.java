@@ -0,0 +1,191 @@
+package com.team9.fitness.transport;
+
+import com.team9.fitness.codec.SensorBinaryCodec;
+import com.team9.fitness.entity.SensorData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompressedFrameTest {
+
+    @ParameterizedTest
+    @EnumSource(value = FrameCompression.class, names = "NONE", mode = EnumSource.Mode.EXCLUDE)
+    void roundTripsSensorSamples(FrameCompression compression) {
+        byte[] frame = sensorFrame(200);
+
+        byte[] encoded = encode(compression, frame);
+
+        assertTrue(CompressedFrame.isCompressed(encoded, encoded.length));
+        assertArrayEquals(frame, CompressedFrame.decode(encoded, encoded.length));
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = FrameCompression.class, names = "NONE", mode = EnumSource.Mode.EXCLUDE)
+    void roundTripsMixedSamplesWithoutColumns(FrameCompression compression) {
+        byte[] sensor = new byte[SensorBinaryCodec.MAX_SIZE];
+        int sensorLength = SensorBinaryCodec.encode(SensorData.SensorType.TEMPERATURE, 1_000_000L, 21.5,
+                SensorBinaryCodec.UNIT_CELSIUS, "dev-1", sensor, 0);
+        byte[] frame = BatchFrameTest.frameOf(Arrays.copyOf(sensor, sensorLength),
+                "{\"value\":22.0}".getBytes(StandardCharsets.UTF_8));
+
+        byte[] encoded = encode(compression, frame);
+
+        assertArrayEquals(frame, CompressedFrame.decode(encoded, encoded.length));
+    }
+
+    @Test
+    void columnarEncodingShrinksPeriodicSamples() {
+        byte[] frame = sensorFrame(256);
+
+        byte[] encoded = encode(FrameCompression.GORILLA, frame);
+
+        assertTrue(encoded.length * 4 < frame.length,
+                "encoded=" + encoded.length + ", raw=" + frame.length);
+    }
+
+    @Test
+    void rejectsOversizedBodyLength() {
+        byte[] encoded = encode(FrameCompression.GORILLA_DEFLATE, sensorFrame(10));
+        BatchFrame.writeInt(encoded, 6, Integer.MAX_VALUE);
+
+        assertThrows(IllegalArgumentException.class, () -> CompressedFrame.decode(encoded, encoded.length));
+    }
+
+    @Test
+    void rejectsBodyLengthMismatchWithoutDeflate() {
+        byte[] encoded = encode(FrameCompression.GORILLA, sensorFrame(10));
+        BatchFrame.writeInt(encoded, 6, encoded.length);
+
+        assertThrows(IllegalArgumentException.class, () -> CompressedFrame.decode(encoded, encoded.length));
+    }
+
+    @Test
+    void rejectsCountTheBodyCannotHold() {
+        byte[] encoded = encode(FrameCompression.GORILLA, sensorFrame(10));
+        BatchFrame.writeInt(encoded, 2, 1 << 28);
+
+        assertThrows(IllegalArgumentException.class, () -> CompressedFrame.decode(encoded, encoded.length));
+    }
+
+    @Test
+    void rejectsNegativeHeaderFields() {
+        byte[] encoded = encode(FrameCompression.DEFLATE, sensorFrame(10));
+        BatchFrame.writeInt(encoded, 2, -1);
+
+        assertThrows(IllegalArgumentException.class, () -> CompressedFrame.decode(encoded, encoded.length));
+    }
+
+    @Test
+    void rejectsTruncatedFrame() {
+        byte[] encoded = encode(FrameCompression.GORILLA_DEFLATE, sensorFrame(50));
+
+        assertThrows(IllegalArgumentException.class, () -> CompressedFrame.decode(encoded, encoded.length - 5));
+    }
+
+    @Test
+    void corruptFramesOnlyFailWithIllegalArgument() {
+        Random random = new Random(42);
+        for (FrameCompression compression : FrameCompression.values()) {
+            if (compression == FrameCompression.NONE) {
+                continue;
+            }
+            byte[] encoded = encode(compression, sensorFrame(50));
+            for (int i = 0; i < 5_000; i++) {
+                byte[] corrupt = encoded.clone();
+                int flips = 1 + random.nextInt(4);
+                for (int j = 0; j < flips; j++) {
+                    corrupt[1 + random.nextInt(corrupt.length - 1)] = (byte) random.nextInt();
+                }
+                int length = 10 + random.nextInt(corrupt.length - 9);
+                try {
+                    CompressedFrame.decode(corrupt, length);
+                } catch (IllegalArgumentException e) {
+                    // 预期的拒绝
+                }
+            }
+        }
+    }
+
+    @Test
+    void keyedAccumulatorWritesOneFramePerInstance() {
+        RecordingWriter writer = new RecordingWriter();
+        BatchAccumulator accumulator = new BatchAccumulator(writer, 256, 61440, FrameCompression.GORILLA_DEFLATE);
+        byte[] sample = new byte[SensorBinaryCodec.MAX_SIZE];
+        for (int i = 0; i < 10; i++) {
+            for (int device = 0; device < 3; device++) {
+                int length = SensorBinaryCodec.encode(SensorData.SensorType.TEMPERATURE, i * 1_000_000L, 20 + i,
+                        SensorBinaryCodec.UNIT_CELSIUS, "dev-" + device, sample, 0);
+                accumulator.add("dev-" + device + "/TEMPERATURE", sample, length);
+            }
+        }
+        accumulator.flush();
+
+        assertEquals(3, writer.frames);
+        assertEquals(30, writer.samples);
+        assertEquals("dev-2/TEMPERATURE", writer.lastKey);
+        accumulator.close();
+    }
+
+    /**
+     * count个周期上报的传感器二进制样本，时间间隔固定、数值缓慢变化
+     */
+    private static byte[] sensorFrame(int count) {
+        BatchFrame.Builder builder = new BatchFrame.Builder(64);
+        byte[] sample = new byte[SensorBinaryCodec.MAX_SIZE];
+        for (int i = 0; i < count; i++) {
+            int length = SensorBinaryCodec.encode(SensorData.SensorType.TEMPERATURE,
+                    1_700_000_000_000_000L + i * 1_000_000L, 21.0 + (i % 8) * 0.25, SensorBinaryCodec.UNIT_CELSIUS,
+                    i % 50 == 0 ? "dev-" + i : "dev-0", sample, 0);
+            builder.add(sample, 0, length);
+        }
+        return Arrays.copyOf(builder.finish(), builder.length());
+    }
+
+    private static byte[] encode(FrameCompression compression, byte[] frame) {
+        CompressedFrame.Encoder encoder = new CompressedFrame.Encoder(compression);
+        try {
+            int length = encoder.encode(frame, frame.length);
+            return Arrays.copyOf(encoder.output(), length);
+        } finally {
+            encoder.close();
+        }
+    }
+
+    private static final class RecordingWriter implements TopicWriter {
+
+        int frames;
+        int samples;
+        String lastKey;
+
+        @Override
+        public String getTopicName() {
+            return "Sensor/Temperature";
+        }
+
+        @Override
+        public void write(byte[] data, int length) {
+            throw new AssertionError("带键主题的帧应按实例写出");
+        }
+
+        @Override
+        public void write(String key, byte[] data, int length) {
+            byte[] frame = CompressedFrame.decode(data, length);
+            BatchFrame.forEach(frame, frame.length, (buffer, offset, entryLength) -> samples++);
+            frames++;
+            lastKey = key;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.team9.fitness.transport;
+
+import com.team9.fitness.metrics.EpochClock;
+import com.zrdds.infrastructure.SampleInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoopbackTransportTest {
+
+    private final LoopbackTransport transport = new LoopbackTransport();
+
+    @AfterEach
+    void shutdown() {
+        transport.shutdown();
+    }
+
+    @Test
+    void writeReachesEveryReaderOfTheTopic() throws InterruptedException {
+        RecordingHandler first = new RecordingHandler();
+        RecordingHandler second = new RecordingHandler();
+        RecordingHandler other = new RecordingHandler();
+        transport.createReader("Sensor/Temperature", TopicType.BYTES, "default", first);
+        transport.createReader("Sensor/Temperature", TopicType.BYTES, "default", second);
+        transport.createReader("Sensor/Humidity", TopicType.BYTES, "default", other);
+        TopicWriter writer = transport.createWriter("Sensor/Temperature", TopicType.BYTES, "default");
+
+        writer.write(bytes("hello"), 5);
+
+        assertArrayEquals(bytes("hello"), first.next().data);
+        assertArrayEquals(bytes("hello"), second.next().data);
+        assertEquals("Sensor/Temperature", first.lastTopic);
+        assertNull(other.samples.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void copiesOnlyTheWrittenLengthBeforeTheCallerReusesTheBuffer() throws InterruptedException {
+        RecordingHandler handler = new RecordingHandler();
+        transport.createReader("Control/Command", TopicType.BYTES, "default", handler);
+        TopicWriter writer = transport.createWriter("Control/Command", TopicType.BYTES, "default");
+        byte[] buffer = bytes("START:now");
+
+        writer.write(buffer, 5);
+        buffer[0] = 'X';
+
+        assertArrayEquals(bytes("START"), handler.next().data);
+    }
+
+    @Test
+    void setsSourceTimestampFromWriteTime() throws InterruptedException {
+        RecordingHandler handler = new RecordingHandler();
+        transport.createReader("Sensor/Temperature", TopicType.BYTES, "default", handler);
+        TopicWriter writer = transport.createWriter("Sensor/Temperature", TopicType.BYTES, "default");
+
+        long before = EpochClock.epochMicros();
+        writer.write(bytes("x"), 1);
+        long after = EpochClock.epochMicros();
+        Received received = handler.next();
+
+        long sourceMicros = received.sec * 1_000_000L + received.nanosec / 1000;
+        assertTrue(sourceMicros >= before && sourceMicros <= after,
+                "source=" + sourceMicros + ", before=" + before + ", after=" + after);
+        assertTrue(received.validData);
+    }
+
+    @Test
+    void closedReaderNoLongerReceives() throws InterruptedException {
+        RecordingHandler closed = new RecordingHandler();
+        RecordingHandler open = new RecordingHandler();
+        TopicReader reader = transport.createReader("Sensor/Temperature", TopicType.BYTES, "reliable", closed);
+        transport.createReader("Sensor/Temperature", TopicType.BYTES, "default", open);
+        TopicWriter writer = transport.createWriter("Sensor/Temperature", TopicType.BYTES, "default");
+        assertEquals("Sensor/Temperature", reader.getTopicName());
+        assertEquals("reliable", reader.getQosProfile());
+
+        reader.close();
+        writer.write(bytes("after-close"), 11);
+
+        assertArrayEquals(bytes("after-close"), open.next().data);
+        assertNull(closed.samples.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void readerOnlyReceivesSamplesWrittenAfterItWasCreated() throws InterruptedException {
+        TopicWriter writer = transport.createWriter("Sensor/Temperature", TopicType.BYTES, "default");
+        writer.write(bytes("before"), 6);
+        RecordingHandler handler = new RecordingHandler();
+        transport.createReader("Sensor/Temperature", TopicType.BYTES, "default", handler);
+
+        writer.write(bytes("after"), 5);
+
+        assertArrayEquals(bytes("after"), handler.next().data);
+        assertNull(handler.samples.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * 读者回调中拷贝样本，SampleInfo在读者中复用
+     */
+    private static final class Received {
+
+        final byte[] data;
+        final int sec;
+        final int nanosec;
+        final boolean validData;
+
+        Received(byte[] data, int sec, int nanosec, boolean validData) {
+            this.data = data;
+            this.sec = sec;
+            this.nanosec = nanosec;
+            this.validData = validData;
+        }
+    }
+
+    private static final class RecordingHandler implements SampleHandler {
+
+        final BlockingQueue<Received> samples = new LinkedBlockingQueue<>();
+        volatile String lastTopic;
+
+        @Override
+        public void onSample(String topicName, byte[] data, int length, SampleInfo info) {
+            lastTopic = topicName;
+            byte[] copy = new byte[length];
+            System.arraycopy(data, 0, copy, 0, length);
+            samples.add(new Received(copy, info.source_timestamp.sec, info.source_timestamp.nanosec, info.valid_data));
+        }
+
+        Received next() throws InterruptedException {
+            Received received = samples.poll(5, TimeUnit.SECONDS);
+            assertNotNull(received, "等待样本超时");
+            return received;
+        }
+    }
+}